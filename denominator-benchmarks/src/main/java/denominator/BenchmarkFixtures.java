@@ -0,0 +1,17 @@
+package denominator;
+
+/**
+ * values shared by the provider benchmarks' fixtures.
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * a distinct address in {@code 10.0.0.0/8} for each {@code i} under 2^24.
+     */
+    public static String address(int i) {
+        return "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+    }
+
+    private BenchmarkFixtures() {
+    }
+}
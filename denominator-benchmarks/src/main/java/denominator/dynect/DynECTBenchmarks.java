@@ -0,0 +1,61 @@
+package denominator.dynect;
+
+import static denominator.BenchmarkFixtures.address;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.dynect.v3.domain.Record;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.ImmutableList;
+
+import denominator.model.ResourceRecordSet;
+import denominator.model.rdata.AData;
+
+public class DynECTBenchmarks {
+
+    /**
+     * records, two per name and type, sorted as fetched from dynect.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public static class GroupBy {
+        @Param({ "10000", "100000", "1000000" })
+        int recordCount;
+
+        ImmutableList<Record<?>> records;
+
+        @Setup
+        public void createRecords() {
+            ImmutableList.Builder<Record<?>> records = ImmutableList.builder();
+            for (int i = 0; i < recordCount; i++) {
+                records.add(Record.<AData> builder()
+                                  .zone("denominator.io")
+                                  .fqdn("www" + i / 2 + ".denominator.io")
+                                  .type("A")
+                                  .id(i)
+                                  .ttl(60)
+                                  .rdata(AData.create(address(i))).build());
+            }
+            this.records = records.build();
+        }
+
+        @Benchmark
+        public int group() {
+            int rrsets = 0;
+            for (Iterator<ResourceRecordSet<?>> i = new GroupByRecordNameAndTypeIterator(records.iterator()); i
+                    .hasNext(); i.next())
+                rrsets++;
+            return rrsets;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package denominator.model;
+
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.aaaa;
+import static denominator.model.ResourceRecordSets.cname;
+import static denominator.model.ResourceRecordSets.ns;
+import static denominator.model.ResourceRecordSets.ptr;
+import static denominator.model.ResourceRecordSets.spf;
+import static denominator.model.ResourceRecordSets.txt;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.ImmutableList;
+
+import denominator.model.rdata.AAAAData;
+import denominator.model.rdata.AData;
+import denominator.model.rdata.CNAMEData;
+import denominator.model.rdata.NSData;
+import denominator.model.rdata.PTRData;
+import denominator.model.rdata.SOAData;
+import denominator.model.rdata.SPFData;
+import denominator.model.rdata.TXTData;
+
+/**
+ * Construction of record sets and rdata, which happens for every record read
+ * from a provider.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModelBenchmarks {
+    String name = "www.denominator.io.";
+    String ipv4 = "192.0.2.1";
+    String ipv6 = "2001:db8::1";
+    ImmutableList<String> ipv4s = ImmutableList.of("192.0.2.1", "192.0.2.2", "192.0.2.3", "192.0.2.4");
+    AData rdata = AData.create(ipv4);
+
+    @Benchmark
+    public ResourceRecordSet<?> builderBuild() {
+        return ResourceRecordSet.<Map<String, Object>> builder()
+                                .name(name)
+                                .type("A")
+                                .ttl(3600)
+                                .add(rdata).build();
+    }
+
+    @Benchmark
+    public ResourceRecordSet<AData> factoryA() {
+        return a(name, 3600, ipv4);
+    }
+
+    @Benchmark
+    public ResourceRecordSet<AData> factoryAMultipleAddresses() {
+        return a(name, 3600, ipv4s);
+    }
+
+    @Benchmark
+    public ResourceRecordSet<CNAMEData> factoryCNAME() {
+        return cname(name, 3600, "www1." + name);
+    }
+
+    @Benchmark
+    public ResourceRecordSet<AAAAData> factoryAAAA() {
+        return aaaa(name, 3600, ipv6);
+    }
+
+    @Benchmark
+    public ResourceRecordSet<NSData> factoryNS() {
+        return ns(name, 3600, "ns1.denominator.io.");
+    }
+
+    @Benchmark
+    public ResourceRecordSet<PTRData> factoryPTR() {
+        return ptr("1.2.0.192.in-addr.arpa.", 3600, name);
+    }
+
+    @Benchmark
+    public ResourceRecordSet<SPFData> factorySPF() {
+        return spf(name, 3600, "v=spf1 a mx -all");
+    }
+
+    @Benchmark
+    public ResourceRecordSet<TXTData> factoryTXT() {
+        return txt(name, 3600, "made in sweden");
+    }
+
+    @Benchmark
+    public AData aDataCreate() {
+        return AData.create(ipv4);
+    }
+
+    @Benchmark
+    public AAAAData aaaaDataCreate() {
+        return AAAAData.create(ipv6);
+    }
+
+    @Benchmark
+    public SOAData soaDataBuild() {
+        return SOAData.builder()
+                      .mname("ns1." + name)
+                      .rname("admin." + name)
+                      .serial(1)
+                      .refresh(3600)
+                      .retry(600)
+                      .expire(604800)
+                      .minimum(60).build();
+    }
+}
@@ -0,0 +1,86 @@
+package denominator.route53;
+
+import static denominator.BenchmarkFixtures.address;
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.route53.ToDenominatorResourceRecordSet.parseTextFormat;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.ImmutableList;
+
+import denominator.model.ResourceRecordSet;
+
+public class Route53Benchmarks {
+
+    /**
+     * rdata in text format, as returned by route53.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public static class ParseTextFormat {
+
+        @Benchmark
+        public Map<String, Object> a() {
+            return parseTextFormat("A", "192.0.2.1");
+        }
+
+        @Benchmark
+        public Map<String, Object> mx() {
+            return parseTextFormat("MX", "10 mx.denominator.io.");
+        }
+
+        @Benchmark
+        public Map<String, Object> srv() {
+            return parseTextFormat("SRV", "0 1 80 www.denominator.io.");
+        }
+
+        @Benchmark
+        public Map<String, Object> soa() {
+            return parseTextFormat("SOA",
+                    "ns-2048.awsdns-64.com. hostmaster.awsdns.com. 1 7200 900 1209600 86400");
+        }
+    }
+
+    /**
+     * A record sets of one value each, two per name and type, for grouping.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public static class GroupBy {
+        @Param({ "10000", "100000", "1000000" })
+        int recordCount;
+
+        ImmutableList<ResourceRecordSet<?>> records;
+
+        @Setup
+        public void createRecords() {
+            ImmutableList.Builder<ResourceRecordSet<?>> builder = ImmutableList.builder();
+            for (int i = 0; i < recordCount; i++) {
+                builder.add(a("www" + i / 2 + ".denominator.io.", 60, address(i)));
+            }
+            records = builder.build();
+        }
+
+        @Benchmark
+        public int group() {
+            int rrsets = 0;
+            for (Iterator<ResourceRecordSet<?>> i = new GroupByRecordNameAndTypeIterator(records.iterator()); i
+                    .hasNext(); i.next())
+                rrsets++;
+            return rrsets;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package denominator.ultradns;
+
+import static denominator.BenchmarkFixtures.address;
+import static denominator.ultradns.UltraDNSFunctions.toRdataMap;
+import static org.jclouds.ultradns.ws.domain.ResourceRecord.rrBuilder;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.ultradns.ws.domain.ResourceRecord;
+import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+
+import denominator.model.ResourceRecordSet;
+
+public class UltraDNSBenchmarks {
+
+    /**
+     * rdata in the list format returned by ultradns.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public static class ToRdataMap {
+        ResourceRecord a = rrBuilder().type(1).name("www.denominator.io.").ttl(3600).rdata("192.0.2.1").build();
+        ResourceRecord mx = rrBuilder().type(15).name("denominator.io.").ttl(3600)
+                .rdata(ImmutableList.of("10", "mx.denominator.io.")).build();
+        ResourceRecord soa = rrBuilder().type(6).name("denominator.io.").ttl(3600)
+                .rdata(Splitter.on(' ').split("pdns2.ultradns.net. admin.denominator.io. 1 10800 3600 604800 86400"))
+                .build();
+
+        @Benchmark
+        public Map<String, Object> a() {
+            return toRdataMap().apply(a);
+        }
+
+        @Benchmark
+        public Map<String, Object> mx() {
+            return toRdataMap().apply(mx);
+        }
+
+        @Benchmark
+        public Map<String, Object> soa() {
+            return toRdataMap().apply(soa);
+        }
+    }
+
+    /**
+     * records, two per name and type, sorted as listed from ultradns.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public static class GroupBy {
+        @Param({ "10000", "100000", "1000000" })
+        int recordCount;
+
+        ImmutableList<ResourceRecordMetadata> records;
+
+        @Setup
+        public void createRecords() {
+            Date now = new Date();
+            ResourceRecordMetadata.Builder builder = ResourceRecordMetadata.builder().zoneId("0000000000000001")
+                    .zoneName("denominator.io.").created(now).modified(now);
+            ImmutableList.Builder<ResourceRecordMetadata> records = ImmutableList.builder();
+            for (int i = 0; i < recordCount; i++) {
+                records.add(builder.guid(Integer.toHexString(i))
+                        .record(rrBuilder().type(1).name("www" + i / 2 + ".denominator.io.").ttl(60)
+                                .rdata(address(i))).build());
+            }
+            this.records = records.build();
+        }
+
+        @Benchmark
+        public int group() {
+            int rrsets = 0;
+            for (Iterator<ResourceRecordSet<?>> i = new GroupByRecordNameAndTypeIterator(records.iterator()); i
+                    .hasNext(); i.next())
+                rrsets++;
+            return rrsets;
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package denominator.cli;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import io.airlift.command.Cli;
+import io.airlift.command.Cli.CliBuilder;
+import io.airlift.command.Command;
+import io.airlift.command.Option;
+import io.airlift.command.OptionType;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import denominator.DNSApiManager;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.cli.Denominator.DenominatorCommand;
+import denominator.cli.ResourceRecordSetCommands.ChangeRecordSetCommand;
+import denominator.cli.ResourceRecordSetCommands.RecordSetChange;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetAdd;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetApplyTTL;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetDelete;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetGet;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetList;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetRemove;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetReplace;
+
+/**
+ * Runs many record changes against one {@link DNSApiManager}, so that the jvm
+ * and provider connection are set up once. Each line is a record command, as
+ * it would follow the global options on the command line:
+ *
+ * <pre>
+ * record -z denominator.io. add -n www.denominator.io. -t A -d 192.0.2.1
+ * record -z denominator.io. delete -n old.denominator.io. -t CNAME
+ * </pre>
+ *
+ * Blank lines and lines starting with {@code #} are skipped. Values with
+ * spaces are double quoted. Output lines are prefixed with the line number
+ * they are for, and are written in the order the lines were read, even when
+ * {@code --parallel} applies them out of order. A failed line doesn't stop
+ * the others.
+ */
+@Command(name = "batch", description = "runs record add, replace, remove, applyttl, and delete commands, one per line. ex. record -z denominator.io. add -n www.denominator.io. -t A -d 192.0.2.1")
+public class BatchCommand extends DenominatorCommand {
+    @Option(type = OptionType.COMMAND, name = { "-i", "--input" }, description = "file to read commands from, instead of standard in")
+    public String input;
+
+    @Option(type = OptionType.COMMAND, name = "--parallel", description = "number of record sets to change concurrently. Changes to the same record set are applied in order. ex. 4")
+    public int parallel = 1;
+
+    @Option(type = OptionType.COMMAND, name = "--batch", description = "stage the changes to each zone, and commit them together once all lines are read, so that the provider can combine requests")
+    public boolean batch;
+
+    // bounds the lines read ahead of those written
+    static final int MAX_IN_FLIGHT_PER_THREAD = 64;
+
+    /**
+     * @throws IllegalStateException
+     *             after the last line, if any change failed.
+     */
+    public Iterator<String> doRun(final DNSApiManager mgr) {
+        checkArgument(parallel > 0, "parallel must be positive, not %s", parallel);
+        final BufferedReader reader;
+        try {
+            reader = new BufferedReader(new InputStreamReader(input != null ? new FileInputStream(input) : System.in,
+                    UTF_8));
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        final Lanes lanes = new Lanes(parallel);
+        final Cli<Runnable> parser = recordParser();
+        return new AbstractIterator<String>() {
+            // zone name -> changes staged in batch mode
+            final Map<String, Staged> staged = Maps.newLinkedHashMap();
+            int lineNumber;
+            boolean read;
+            boolean finished;
+
+            @Override
+            protected String computeNext() {
+                while (true) {
+                    String result = lanes.poll();
+                    if (result != null)
+                        return result;
+                    if (!read && !lanes.full()) {
+                        readLine();
+                    } else if (lanes.pending()) {
+                        return lanes.take();
+                    } else if (!finished) {
+                        lanes.finish();
+                        finished = true;
+                    } else if (lanes.failed.get() > 0) {
+                        throw new IllegalStateException(format("%d of %d changes failed", lanes.failed.get(),
+                                lanes.changes.get()));
+                    } else {
+                        return endOfData();
+                    }
+                }
+            }
+
+            /**
+             * in batch mode, changes are staged here, and committed once all
+             * lines are read.
+             */
+            private void readLine() {
+                String line;
+                try {
+                    line = reader.readLine();
+                } catch (IOException e) {
+                    throw Throwables.propagate(e);
+                }
+                if (line == null) {
+                    read = true;
+                    closeInput(reader);
+                    for (Staged zone : staged.values())
+                        lanes.commit(zone);
+                    return;
+                }
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    return;
+                RecordSetChange change;
+                try {
+                    change = parse(parser, line);
+                } catch (RuntimeException e) {
+                    lanes.changes.incrementAndGet();
+                    lanes.failed.incrementAndGet();
+                    lanes.complete(lanes.reserve(), format("%d: ;; error: %s", lineNumber, messageOf(e)));
+                    return;
+                }
+                lanes.changes.incrementAndGet();
+                if (!batch) {
+                    lanes.apply(mgr, lineNumber, change);
+                    return;
+                }
+                int slot = lanes.reserve();
+                try {
+                    Staged zone = staged.get(change.zoneName);
+                    if (zone == null) {
+                        zone = new Staged(change.zoneName, mgr.getApi()
+                                .getResourceRecordSetApiForZone(change.zoneName).begin());
+                        staged.put(change.zoneName, zone);
+                    }
+                    change.stage(zone.batch);
+                    zone.lineNumbers.add(lineNumber);
+                    lanes.complete(slot, format("%d: %s\n%d: ;; staged", lineNumber, change.description, lineNumber));
+                } catch (RuntimeException e) {
+                    lanes.failed.incrementAndGet();
+                    lanes.complete(slot, format("%d: %s\n%d: ;; error: %s", lineNumber, change.description,
+                            lineNumber, messageOf(e)));
+                }
+            }
+
+            private RecordSetChange parse(Cli<Runnable> parser, String line) {
+                List<String> args = Lists.newArrayList("-p", providerName);
+                args.addAll(tokenize(line));
+                Runnable command = parser.parse(args.toArray(new String[args.size()]));
+                checkArgument(command instanceof ChangeRecordSetCommand,
+                        "only record add, replace, remove, applyttl, and delete are supported: %s", line);
+                return ((ChangeRecordSetCommand) command).change();
+            }
+        };
+    }
+
+    /**
+     * parses all record commands, so that those which only read fail with a
+     * clear message.
+     */
+    static Cli<Runnable> recordParser() {
+        CliBuilder<Runnable> builder = Cli.<Runnable> builder("denominator");
+        builder.withGroup("record")
+               .withCommand(ResourceRecordSetList.class)
+               .withCommand(ResourceRecordSetGet.class)
+               .withCommand(ResourceRecordSetAdd.class)
+               .withCommand(ResourceRecordSetApplyTTL.class)
+               .withCommand(ResourceRecordSetReplace.class)
+               .withCommand(ResourceRecordSetRemove.class)
+               .withCommand(ResourceRecordSetDelete.class);
+        return builder.build();
+    }
+
+    /**
+     * splits on whitespace, keeping double quoted strings together, without
+     * their quotes.
+     */
+    static List<String> tokenize(String line) {
+        ImmutableList.Builder<String> tokens = ImmutableList.builder();
+        StringBuilder token = new StringBuilder();
+        boolean quoted = false;
+        boolean inToken = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+                inToken = true;
+            } else if (c == '\\' && quoted && i + 1 < line.length()) {
+                token.append(line.charAt(++i));
+            } else if (Character.isWhitespace(c) && !quoted) {
+                if (inToken)
+                    tokens.add(token.toString());
+                token.setLength(0);
+                inToken = false;
+            } else {
+                token.append(c);
+                inToken = true;
+            }
+        }
+        checkArgument(!quoted, "unterminated quoted string in %s", line);
+        if (inToken)
+            tokens.add(token.toString());
+        return tokens.build();
+    }
+
+    private static String messageOf(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+
+    private void closeInput(BufferedReader reader) {
+        if (input == null)
+            return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * changes staged for one zone, committed together.
+     */
+    private static final class Staged {
+        final String zoneName;
+        final Batch batch;
+        final List<Integer> lineNumbers = Lists.newArrayList();
+
+        Staged(String zoneName, Batch batch) {
+            this.zoneName = zoneName;
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * single threaded executors, chosen by record set or zone, so that
+     * changes to the same record set are applied in the order they were read.
+     *
+     * Each output reserves a slot when its line is read, and is written once
+     * the outputs of all earlier slots are, so that output follows the input
+     * regardless of which lane finishes first.
+     */
+    private static final class Lanes {
+        final ExecutorService[] lanes;
+        final int maxInFlight;
+        final AtomicInteger changes = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        // slot -> output not yet written, guarded by this
+        private final Map<Integer, String> results = Maps.newHashMap();
+        // only changed by the reading thread
+        private int reserved;
+        private int written;
+
+        Lanes(int count) {
+            lanes = new ExecutorService[count];
+            for (int i = 0; i < count; i++)
+                lanes[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setDaemon(true)
+                        .setNameFormat("denominator-batch-" + i).build());
+            maxInFlight = count * MAX_IN_FLIGHT_PER_THREAD;
+        }
+
+        /**
+         * true when as many outputs are outstanding as allowed, so no more
+         * lines should be read until the next is written.
+         */
+        boolean full() {
+            return reserved - written >= maxInFlight;
+        }
+
+        /**
+         * true if a reserved output is not yet written.
+         */
+        boolean pending() {
+            return written < reserved;
+        }
+
+        int reserve() {
+            return reserved++;
+        }
+
+        synchronized void complete(int slot, String result) {
+            results.put(slot, result);
+            notifyAll();
+        }
+
+        /**
+         * the next output, or null if it isn't complete.
+         */
+        synchronized String poll() {
+            String result = results.remove(written);
+            if (result != null)
+                written++;
+            return result;
+        }
+
+        /**
+         * waits for the next output, which must be {@link #pending()}.
+         */
+        synchronized String take() {
+            String result;
+            try {
+                while ((result = results.remove(written)) == null)
+                    wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+            written++;
+            return result;
+        }
+
+        void apply(final DNSApiManager mgr, final int lineNumber, final RecordSetChange change) {
+            final int slot = reserve();
+            lane(change.zoneName + ' ' + change.name + ' ' + change.type).execute(new Runnable() {
+                public void run() {
+                    try {
+                        change.apply(mgr.getApi().getResourceRecordSetApiForZone(change.zoneName));
+                        complete(slot, format("%d: %s\n%d: ;; ok", lineNumber, change.description, lineNumber));
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        complete(slot, format("%d: %s\n%d: ;; error: %s", lineNumber, change.description,
+                                lineNumber, messageOf(e)));
+                    }
+                }
+            });
+        }
+
+        void commit(final Staged zone) {
+            final int slot = reserve();
+            lane(zone.zoneName).execute(new Runnable() {
+                public void run() {
+                    try {
+                        zone.batch.commit();
+                        complete(slot, format(";; ok, committed %d changes to zone %s", zone.lineNumbers.size(),
+                                zone.zoneName));
+                    } catch (RuntimeException e) {
+                        failed.addAndGet(zone.lineNumbers.size());
+                        complete(slot, format(";; error committing lines %s to zone %s: %s", zone.lineNumbers,
+                                zone.zoneName, messageOf(e)));
+                    }
+                }
+            });
+        }
+
+        /**
+         * waits for all changes to finish.
+         */
+        void finish() {
+            for (ExecutorService lane : lanes)
+                lane.shutdown();
+            try {
+                for (ExecutorService lane : lanes)
+                    lane.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            }
+        }
+
+        private ExecutorService lane(String key) {
+            return lanes[(key.hashCode() & Integer.MAX_VALUE) % lanes.length];
+        }
+    }
+}
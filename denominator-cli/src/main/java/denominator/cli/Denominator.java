@@ -1,4 +1,6 @@
 package denominator.cli;
+import static com.google.common.collect.Iterators.concat;
+import static com.google.common.collect.Iterators.forArray;
 import static com.google.common.io.Closeables.closeQuietly;
 import static denominator.Credentials.ListCredentials.from;
 import static denominator.CredentialsConfiguration.credentials;
@@ -12,16 +14,31 @@ import io.airlift.command.Help;
 import io.airlift.command.Option;
 import io.airlift.command.OptionType;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
+import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import denominator.DNSApiManager;
 import denominator.Denominator.Version;
 import denominator.Provider;
+import denominator.ResourceRecordSetApi;
+import denominator.ResourceRecordSetApi.Batch;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetAdd;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetApplyTTL;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetDelete;
@@ -29,6 +46,11 @@ import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetGet;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetList;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetRemove;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetReplace;
+import denominator.common.ZoneFileReader;
+import denominator.common.ZoneFileWriter;
+import denominator.common.ZoneSync;
+import denominator.common.ZoneSync.Changes;
+import denominator.model.ResourceRecordSet;
 
 public class Denominator {
     public static void main(String[] args) {
@@ -37,12 +59,16 @@ public class Denominator {
                                           .withDefaultCommand(Help.class)
                                           .withCommand(Help.class)
                                           .withCommand(PrintVersion.class)
-                                          .withCommand(ListProviders.class);
+                                          .withCommand(ListProviders.class)
+                                          .withCommand(BatchCommand.class)
+                                          .withCommand(ServerCommand.class);
 
         builder.withGroup("zone")
                .withDescription("manage zones")
                .withDefaultCommand(ZoneList.class)
-               .withCommand(ZoneList.class);
+               .withCommand(ZoneList.class)
+               .withCommand(ZoneExport.class)
+               .withCommand(ZoneImport.class);
 
         builder.withGroup("record")
                .withDescription("manage resource record sets in a zone")
@@ -134,4 +160,189 @@ public class Denominator {
             return mgr.getApi().getZoneApi().list();
         }
     }
-}
\ No newline at end of file
+
+    @Command(name = "export", description = "Writes the record sets in a zone in master file format")
+    public static class ZoneExport extends DenominatorCommand {
+        @Option(type = OptionType.COMMAND, required = true, name = { "-z", "--zone" }, description = "zone name to export. ex. denominator.io.")
+        public String zoneName;
+
+        @Option(type = OptionType.COMMAND, name = { "-o", "--output" }, description = "file to write to, instead of standard out")
+        public String output;
+
+        @Option(type = OptionType.COMMAND, name = "--gzip", description = "compress the output with gzip")
+        public boolean gzip;
+
+        /**
+         * writes the zone as it is listed. When writing to standard out, no
+         * other lines are returned, so that the output is only the zone file.
+         */
+        public Iterator<String> doRun(DNSApiManager mgr) {
+            try {
+                OutputStream out = output != null ? new FileOutputStream(output) : new UncloseableOutputStream(
+                        System.out);
+                ZoneFileWriter writer = null;
+                try {
+                    writer = ZoneFileWriter.create(out, gzip);
+                } finally {
+                    if (writer == null)
+                        out.close();
+                }
+                long count;
+                try {
+                    writer.origin(zoneName);
+                    count = writer.writeAll(mgr.getApi().getResourceRecordSetApiForZone(zoneName).list());
+                } finally {
+                    writer.close();
+                }
+                if (output == null)
+                    return ImmutableList.<String> of().iterator();
+                return forArray(format(";; exported %d record sets in zone %s to %s", count, zoneName, output));
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+    }
+
+    @Command(name = "import", description = "adds the record sets in a zone file to a zone, in one batch. The SOA and NS records at the zone name are skipped, as the provider manages these.")
+    public static class ZoneImport extends DenominatorCommand {
+        @Option(type = OptionType.COMMAND, required = true, name = { "-z", "--zone" }, description = "zone name to import into. ex. denominator.io.")
+        public String zoneName;
+
+        @Option(type = OptionType.COMMAND, name = { "-i", "--input" }, description = "zone file to read, instead of standard in")
+        public String input;
+
+        @Option(type = OptionType.COMMAND, name = "--gzip", description = "decompress the input with gzip")
+        public boolean gzip;
+
+        @Option(type = OptionType.COMMAND, name = "--sync", description = "replace record sets that differ and remove those not in the file, instead of adding to them")
+        public boolean sync;
+
+        public Iterator<String> doRun(final DNSApiManager mgr) {
+            String cmd = format(";; in zone %s %s record sets from %s", zoneName, sync ? "syncing" : "adding",
+                    input != null ? input : "standard in");
+            return concat(forArray(cmd), new Iterator<String>() {
+                boolean done = false;
+
+                @Override
+                public boolean hasNext() {
+                    return !done;
+                }
+
+                @Override
+                public String next() {
+                    ResourceRecordSetApi api = mgr.getApi().getResourceRecordSetApiForZone(zoneName);
+                    String result;
+                    try {
+                        ZoneFileReader reader = ZoneFileReader.create(input != null ? new FileInputStream(input)
+                                : System.in, gzip, zoneName);
+                        try {
+                            Iterator<ResourceRecordSet<?>> rrsets = inZoneForm(zoneName, skipProviderManaged(reader));
+                            result = sync ? sync(api, rrsets) : add(api, rrsets);
+                        } finally {
+                            if (input != null)
+                                reader.close();
+                        }
+                    } catch (IOException e) {
+                        throw Throwables.propagate(e);
+                    }
+                    done = true;
+                    return result;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+
+        /**
+         * stages every record set in one batch, so that the provider can
+         * combine them. The batch holds the whole file in memory until it is
+         * committed.
+         */
+        private String add(ResourceRecordSetApi api, Iterator<ResourceRecordSet<?>> rrsets) {
+            Batch batch = api.begin();
+            int count = 0;
+            for (; rrsets.hasNext(); count++)
+                batch.add(rrsets.next());
+            batch.commit();
+            return format(";; ok, added %d record sets", count);
+        }
+
+        /**
+         * {@link ZoneSync} needs one record set per name and type, so record
+         * sets split across the file are merged, keeping the first ttl.
+         */
+        private String sync(ResourceRecordSetApi api, Iterator<ResourceRecordSet<?>> rrsets) {
+            Map<List<String>, ResourceRecordSet.Builder<Map<String, Object>>> desired = Maps.newLinkedHashMap();
+            while (rrsets.hasNext()) {
+                ResourceRecordSet<?> rrset = rrsets.next();
+                List<String> key = ImmutableList.of(rrset.getName(), rrset.getType());
+                ResourceRecordSet.Builder<Map<String, Object>> builder = desired.get(key);
+                if (builder == null) {
+                    builder = ResourceRecordSet.<Map<String, Object>> builder().name(rrset.getName())
+                            .type(rrset.getType()).ttl(rrset.getTTL().orNull());
+                    desired.put(key, builder);
+                }
+                builder.addAll(rrset);
+            }
+            List<ResourceRecordSet<?>> rrsetsToSync = Lists.newArrayListWithCapacity(desired.size());
+            for (ResourceRecordSet.Builder<Map<String, Object>> builder : desired.values())
+                rrsetsToSync.add(builder.build());
+            Changes changes = ZoneSync.sync(zoneName, api, rrsetsToSync);
+            return format(";; ok, added %d, replaced %d, and removed %d record sets", changes.getAdd().size(),
+                    changes.getReplace().size(), changes.getRemove().size());
+        }
+
+        /**
+         * record sets named as the zone names them, so that they match those
+         * it holds. The reader qualifies names with a trailing dot, which is
+         * removed when the zone is named without one, as in DynECT. Rdata is
+         * left as read.
+         */
+        static Iterator<ResourceRecordSet<?>> inZoneForm(String zoneName, Iterator<ResourceRecordSet<?>> rrsets) {
+            if (zoneName.endsWith("."))
+                return rrsets;
+            return Iterators.transform(rrsets, new Function<ResourceRecordSet<?>, ResourceRecordSet<?>>() {
+                public ResourceRecordSet<?> apply(ResourceRecordSet<?> input) {
+                    String name = input.getName();
+                    if (!name.endsWith("."))
+                        return input;
+                    return ResourceRecordSet.<Map<String, Object>> builder()
+                            .name(name.substring(0, name.length() - 1)).type(input.getType())
+                            .ttl(input.getTTL().orNull()).addAll(input).build();
+                }
+            });
+        }
+
+        private Iterator<ResourceRecordSet<?>> skipProviderManaged(Iterator<ResourceRecordSet<?>> rrsets) {
+            final String apex = zoneName.endsWith(".") ? zoneName : zoneName + '.';
+            return Iterators.filter(rrsets, new Predicate<ResourceRecordSet<?>>() {
+                public boolean apply(ResourceRecordSet<?> input) {
+                    return !"SOA".equals(input.getType())
+                            && !("NS".equals(input.getType()) && apex.equals(input.getName()));
+                }
+            });
+        }
+    }
+
+    /**
+     * closing flushes instead, so that standard out stays open.
+     */
+    static class UncloseableOutputStream extends FilterOutputStream {
+        UncloseableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -23,6 +23,8 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 
 import denominator.DNSApiManager;
+import denominator.ResourceRecordSetApi;
+import denominator.ResourceRecordSetApi.Batch;
 import denominator.cli.Denominator.DenominatorCommand;
 import denominator.hook.InstanceMetadataHook;
 import denominator.model.ResourceRecordSet;
@@ -40,11 +42,61 @@ import denominator.model.rdata.TXTData;
 
 class ResourceRecordSetCommands {
 
-    private static abstract class ResourceRecordSetCommand extends DenominatorCommand {
+    static abstract class ResourceRecordSetCommand extends DenominatorCommand {
         @Option(type = OptionType.GROUP, required = true, name = { "-z", "--zone" }, description = "zone name to affect. ex. denominator.io.")
         public String zoneName;
     }
 
+    /**
+     * a change to one record set, applied directly, or staged in a
+     * {@link Batch} by the {@link BatchCommand batch} command.
+     */
+    static abstract class RecordSetChange {
+        final String zoneName;
+        final String name;
+        final String type;
+        final String description;
+
+        RecordSetChange(String zoneName, String name, String type, String description) {
+            this.zoneName = zoneName;
+            this.name = name;
+            this.type = type;
+            this.description = description;
+        }
+
+        abstract void apply(ResourceRecordSetApi api);
+
+        abstract void stage(Batch batch);
+    }
+
+    static abstract class ChangeRecordSetCommand extends ResourceRecordSetCommand {
+        abstract RecordSetChange change();
+
+        public Iterator<String> doRun(final DNSApiManager mgr) {
+            final RecordSetChange change = change();
+            return concat(forArray(change.description), new Iterator<String>() {
+                boolean done = false;
+
+                @Override
+                public boolean hasNext() {
+                    return !done;
+                }
+
+                @Override
+                public String next() {
+                    change.apply(mgr.getApi().getResourceRecordSetApiForZone(zoneName));
+                    done = true;
+                    return ";; ok";
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            });
+        }
+    }
+
     @Command(name = "list", description = "Lists the record record sets present in this zone")
     public static class ResourceRecordSetList extends ResourceRecordSetCommand {
         @Option(type = OptionType.COMMAND, name = { "-n", "--name" }, description = "name of the record sets. ex. www.denominator.io.")
@@ -75,7 +127,7 @@ class ResourceRecordSetCommands {
     }
 
     @Command(name = "applyttl", description = "applies the ttl to the record record set by name and type, if present in this zone")
-    public static class ResourceRecordSetApplyTTL extends ResourceRecordSetCommand {
+    public static class ResourceRecordSetApplyTTL extends ChangeRecordSetCommand {
         @Option(type = OptionType.COMMAND, required = true, name = { "-n", "--name" }, description = "name of the record set. ex. www.denominator.io.")
         public String name;
 
@@ -85,33 +137,21 @@ class ResourceRecordSetCommands {
         @Arguments(required = true, description = "time to live of the record set. ex. 300")
         public int ttl;
 
-        public Iterator<String> doRun(final DNSApiManager mgr) {
+        RecordSetChange change() {
             String cmd = format(";; in zone %s applying ttl %d to rrset %s %s", zoneName, ttl, name, type);
-            return concat(forArray(cmd), new Iterator<String>() {
-                boolean done = false;
-
-                @Override
-                public boolean hasNext() {
-                    return !done;
+            return new RecordSetChange(zoneName, name, type, cmd) {
+                void apply(ResourceRecordSetApi api) {
+                    api.applyTTLToNameAndType(ttl, name, type);
                 }
 
-                @Override
-                public String next() {
-                    mgr.getApi().getResourceRecordSetApiForZone(zoneName)
-                            .applyTTLToNameAndType(ttl, name, type);
-                    done = true;
-                    return ";; ok";
+                void stage(Batch batch) {
+                    batch.applyTTLToNameAndType(ttl, name, type);
                 }
-
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
-                }
-            });
+            };
         }
     }
 
-    private static abstract class ModifyRecordSetCommand extends ResourceRecordSetCommand {
+    static abstract class ModifyRecordSetCommand extends ChangeRecordSetCommand {
         @Option(type = OptionType.COMMAND, required = true, name = { "-n", "--name" }, description = "name of the record set. ex. www.denominator.io.")
         public String name;
 
@@ -180,7 +220,7 @@ class ResourceRecordSetCommands {
         @Option(type = OptionType.COMMAND, name = "--ttl", description = "time to live of the record set. ex. 300")
         public int ttl = -1;
 
-        public Iterator<String> doRun(final DNSApiManager mgr) {
+        RecordSetChange change() {
             Builder<Map<String, Object>> builder = rrsetBuilder();
             if (ttl != -1)
                 builder.ttl(ttl);
@@ -189,26 +229,15 @@ class ResourceRecordSetCommands {
                     .on(',').join(toAdd));
             if (ttl != -1)
                 cmd = format("%s applying ttl %d", cmd, ttl);
-            return concat(forArray(cmd), new Iterator<String>() {
-                boolean done = false;
-
-                @Override
-                public boolean hasNext() {
-                    return !done;
-                }
-
-                @Override
-                public String next() {
-                    mgr.getApi().getResourceRecordSetApiForZone(zoneName).add(toAdd);
-                    done = true;
-                    return ";; ok";
+            return new RecordSetChange(zoneName, name, type, cmd) {
+                void apply(ResourceRecordSetApi api) {
+                    api.add(toAdd);
                 }
 
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
+                void stage(Batch batch) {
+                    batch.add(toAdd);
                 }
-            });
+            };
         }
     }
 
@@ -217,7 +246,7 @@ class ResourceRecordSetCommands {
         @Option(type = OptionType.COMMAND, name = "--ttl", description = "time to live of the record set. ex. 300")
         public int ttl = -1;
 
-        public Iterator<String> doRun(final DNSApiManager mgr) {
+        RecordSetChange change() {
             Builder<Map<String, Object>> builder = rrsetBuilder();
             if (ttl != -1)
                 builder.ttl(ttl);
@@ -226,89 +255,56 @@ class ResourceRecordSetCommands {
                     .on(',').join(toAdd));
             if (ttl != -1)
                 cmd = format("%s and ttl %d", cmd, ttl);
-            return concat(forArray(cmd), new Iterator<String>() {
-                boolean done = false;
-
-                @Override
-                public boolean hasNext() {
-                    return !done;
+            return new RecordSetChange(zoneName, name, type, cmd) {
+                void apply(ResourceRecordSetApi api) {
+                    api.replace(toAdd);
                 }
 
-                @Override
-                public String next() {
-                    mgr.getApi().getResourceRecordSetApiForZone(zoneName).replace(toAdd);
-                    done = true;
-                    return ";; ok";
-                }
-
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
+                void stage(Batch batch) {
+                    batch.replace(toAdd);
                 }
-            });
+            };
         }
     }
 
     @Command(name = "remove", description = "removes data from a record set corresponding to name and type.")
     public static class ResourceRecordSetRemove extends ModifyRecordSetCommand {
 
-        public Iterator<String> doRun(final DNSApiManager mgr) {
+        RecordSetChange change() {
             final ResourceRecordSet<Map<String, Object>> toRemove = rrsetBuilder().build();
             String cmd = format(";; in zone %s removing from rrset %s %s values: [%s]", zoneName, name, type, Joiner
                     .on(',').join(toRemove));
-            return concat(forArray(cmd), new Iterator<String>() {
-                boolean done = false;
-
-                @Override
-                public boolean hasNext() {
-                    return !done;
-                }
-
-                @Override
-                public String next() {
-                    mgr.getApi().getResourceRecordSetApiForZone(zoneName).remove(toRemove);
-                    done = true;
-                    return ";; ok";
+            return new RecordSetChange(zoneName, name, type, cmd) {
+                void apply(ResourceRecordSetApi api) {
+                    api.remove(toRemove);
                 }
 
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
+                void stage(Batch batch) {
+                    batch.remove(toRemove);
                 }
-            });
+            };
         }
     }
 
     @Command(name = "delete", description = "deletes a record record set by name and type, if present in this zone")
-    public static class ResourceRecordSetDelete extends ResourceRecordSetCommand {
+    public static class ResourceRecordSetDelete extends ChangeRecordSetCommand {
         @Option(type = OptionType.COMMAND, required = true, name = { "-n", "--name" }, description = "name of the record set. ex. www.denominator.io.")
         public String name;
 
         @Option(type = OptionType.COMMAND, required = true, name = { "-t", "--type" }, description = "type of the record set. ex. CNAME")
         public String type;
 
-        public Iterator<String> doRun(final DNSApiManager mgr) {
+        RecordSetChange change() {
             String cmd = format(";; in zone %s deleting rrset %s %s", zoneName, name, type);
-            return concat(forArray(cmd), new Iterator<String>() {
-                boolean done = false;
-
-                @Override
-                public boolean hasNext() {
-                    return !done;
+            return new RecordSetChange(zoneName, name, type, cmd) {
+                void apply(ResourceRecordSetApi api) {
+                    api.deleteByNameAndType(name, type);
                 }
 
-                @Override
-                public String next() {
-                    mgr.getApi().getResourceRecordSetApiForZone(zoneName).deleteByNameAndType(name, type);
-                    done = true;
-                    return ";; ok";
+                void stage(Batch batch) {
+                    batch.deleteByNameAndType(name, type);
                 }
-
-                @Override
-                public void remove() {
-                    throw new UnsupportedOperationException();
-                }
-            });
+            };
         }
     }
 
@@ -0,0 +1,554 @@
+package denominator.cli;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.io.Closeables.closeQuietly;
+import static denominator.Credentials.ListCredentials.from;
+import static denominator.CredentialsConfiguration.credentials;
+import static denominator.Denominator.create;
+import static denominator.Denominator.listProviders;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import io.airlift.command.Command;
+import io.airlift.command.Option;
+import io.airlift.command.OptionType;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import denominator.DNSApiManager;
+import denominator.Provider;
+import denominator.ResourceRecordSetApi;
+import denominator.cli.ResourceRecordSetCommands.ChangeRecordSetCommand;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetAdd;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetApplyTTL;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetDelete;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetRemove;
+import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetReplace;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Serves zone and record operations over http and json, so that callers
+ * share one {@link DNSApiManager} per provider and credentials, instead of
+ * starting the jvm and connecting for each command. Credentials are sent as
+ * {@code Denominator-Credential} headers, one per argument, in the order
+ * {@code -c} would take them.
+ *
+ * <pre>
+ * GET    /providers
+ * GET    /providers/{provider}/zones
+ * GET    /providers/{provider}/zones/{zone}/records[?name=&amp;type=]
+ * POST   /providers/{provider}/zones/{zone}/records/{add|replace|remove|applyttl|delete}
+ * </pre>
+ *
+ * Record sets are json objects, with rdata formatted as in the record
+ * commands:
+ *
+ * <pre>
+ * {"name":"www.denominator.io.","type":"A","ttl":3600,"records":["192.0.2.1"]}
+ * </pre>
+ *
+ * Requests are served concurrently, while each connection allows at most
+ * {@code --concurrency} of them to call its provider at a time, so that
+ * callers sharing it are throttled together. Requests over that limit are
+ * rejected with status {@code 429}, rather than holding a server thread while
+ * they wait. Connections idle for {@code 30} minutes are closed, as are the
+ * least recently used, past {@code 100} of them. A connection is closed once
+ * the requests using it complete, and later requests open a new one.
+ */
+@Command(name = "server", description = "serves zone and record operations over http and json, keeping a connection open per provider and credentials")
+public class ServerCommand implements Runnable {
+    @Option(type = OptionType.COMMAND, name = "--host", description = "address to listen on. ex. 127.0.0.1")
+    public String host = "127.0.0.1";
+
+    @Option(type = OptionType.COMMAND, name = "--port", description = "port to listen on. ex. 8053")
+    public int port = 8053;
+
+    @Option(type = OptionType.COMMAND, name = "--threads", description = "number of requests to serve concurrently. ex. 16")
+    public int threads = 16;
+
+    @Option(type = OptionType.COMMAND, name = "--concurrency", description = "number of requests that may call a provider at the same time, per credentials. Others are rejected with status 429. ex. 4")
+    public int concurrency = 4;
+
+    static final String CREDENTIAL_HEADER = "Denominator-Credential";
+
+    // bounds the managers held open for callers that may not return
+    static final int MAX_CONNECTIONS = 100;
+    static final int IDLE_MINUTES = 30;
+
+    private static final Pattern PATH = Pattern
+            .compile("/providers(?:/([^/]+)/zones(?:/([^/]+)/records(?:/([a-z]+))?)?)?/?");
+
+    // provider name, then credential arguments -> connection
+    final LoadingCache<List<String>, Connection> connections = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CONNECTIONS)
+            .expireAfterAccess(IDLE_MINUTES, MINUTES)
+            .removalListener(new RemovalListener<List<String>, Connection>() {
+                public void onRemoval(RemovalNotification<List<String>, Connection> notification) {
+                    notification.getValue().evict();
+                }
+            }).build(new CacheLoader<List<String>, Connection>() {
+                public Connection load(List<String> key) {
+                    return new Connection(connect(key.get(0), key.subList(1, key.size())), concurrency);
+                }
+            });
+
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public void run() {
+        try {
+            start();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            public void run() {
+                stop();
+            }
+        }));
+        System.out.println(format(";; serving on http://%s:%d/providers", host, getPort()));
+        try {
+            stopped.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * listens on {@link #host} and {@link #port}, which may be {@code 0} to
+     * choose a free port.
+     */
+    void start() throws IOException {
+        checkArgument(threads > 0, "threads must be positive, not %s", threads);
+        checkArgument(concurrency > 0, "concurrency must be positive, not %s", concurrency);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat("denominator-server-%d").build());
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+    }
+
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * stops accepting requests, waits briefly for those in progress, and
+     * closes all connections.
+     */
+    void stop() {
+        if (server != null)
+            server.stop(1);
+        if (executor != null)
+            executor.shutdown();
+        connections.invalidateAll();
+        stopped.countDown();
+    }
+
+    /**
+     * creates a manager as {@code -p} and {@code -c} would.
+     */
+    DNSApiManager connect(String providerName, List<String> credentialArgs) {
+        if (credentialArgs.isEmpty())
+            return create(providerName);
+        return create(providerName, credentials(from(credentialArgs)));
+    }
+
+    /**
+     * a shared manager, and the permits to call its provider. Once evicted, the
+     * manager is closed when the last request using it is done.
+     */
+    static final class Connection {
+        final DNSApiManager mgr;
+        final Semaphore permits;
+        private int users;
+        private boolean evicted;
+
+        Connection(DNSApiManager mgr, int concurrency) {
+            this.mgr = mgr;
+            this.permits = new Semaphore(concurrency);
+        }
+
+        /**
+         * false if the connection was evicted, so a new one should be used.
+         */
+        synchronized boolean retain() {
+            if (evicted)
+                return false;
+            users++;
+            return true;
+        }
+
+        void release() {
+            boolean close;
+            synchronized (this) {
+                close = --users == 0 && evicted;
+            }
+            if (close)
+                closeQuietly(mgr);
+        }
+
+        void evict() {
+            boolean close;
+            synchronized (this) {
+                evicted = true;
+                close = users == 0;
+            }
+            if (close)
+                closeQuietly(mgr);
+        }
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            Matcher matcher = PATH.matcher(exchange.getRequestURI().getRawPath());
+            if (!matcher.matches()) {
+                error(exchange, 404, "no api at " + exchange.getRequestURI().getPath());
+            } else if (matcher.group(1) == null) {
+                if (!expectMethod(exchange, "GET"))
+                    return;
+                writeProviders(exchange);
+            } else {
+                String providerName = decode(matcher.group(1));
+                Connection connection = connection(exchange, providerName);
+                try {
+                    if (!connection.permits.tryAcquire()) {
+                        exchange.getResponseHeaders().set("Retry-After", "1");
+                        error(exchange, 429, format(
+                                "limit of %d concurrent requests to %s reached for these credentials", concurrency,
+                                providerName));
+                        return;
+                    }
+                    try {
+                        serve(exchange, connection.mgr, matcher.group(2) != null ? decode(matcher.group(2)) : null,
+                                matcher.group(3));
+                    } finally {
+                        connection.permits.release();
+                    }
+                } finally {
+                    connection.release();
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, messageOf(e));
+        } catch (JsonParseException e) {
+            error(exchange, 400, messageOf(e));
+        } catch (RuntimeException e) {
+            error(exchange, 500, messageOf(e));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void serve(HttpExchange exchange, DNSApiManager mgr, String zoneName, String verb) throws IOException {
+        if (zoneName == null) {
+            if (expectMethod(exchange, "GET"))
+                writeZones(exchange, mgr.getApi().getZoneApi().list());
+            return;
+        }
+        ResourceRecordSetApi api = mgr.getApi().getResourceRecordSetApiForZone(zoneName);
+        if (verb == null) {
+            if (!expectMethod(exchange, "GET"))
+                return;
+            Map<String, String> query = query(exchange);
+            String name = query.get("name");
+            String type = query.get("type");
+            if (name != null && type != null) {
+                Optional<ResourceRecordSet<?>> rrset = api.getByNameAndType(name, type);
+                if (!rrset.isPresent()) {
+                    error(exchange, 404, format("no rrset %s %s in zone %s", name, type, zoneName));
+                    return;
+                }
+                writeRecordSet(exchange, rrset.get());
+            } else {
+                checkArgument(type == null, "name is required with type");
+                writeRecordSets(exchange, name != null ? api.listByName(name) : api.list());
+            }
+            return;
+        }
+        if (!expectMethod(exchange, "POST"))
+            return;
+        ChangeRecordSetCommand command = command(zoneName, verb, parse(exchange));
+        if (command == null) {
+            error(exchange, 404, "no api at " + exchange.getRequestURI().getPath());
+            return;
+        }
+        command.change().apply(api);
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    /**
+     * the record command for {@code verb}, or null if there is none.
+     */
+    private static ChangeRecordSetCommand command(String zoneName, String verb, JsonObject rrset) {
+        String name = string(rrset, "name");
+        String type = string(rrset, "type");
+        Integer ttl = rrset.has("ttl") ? integer(rrset.get("ttl"), "ttl") : null;
+        ChangeRecordSetCommand command;
+        if ("add".equals(verb)) {
+            ResourceRecordSetAdd add = new ResourceRecordSetAdd();
+            add.name = name;
+            add.type = type;
+            add.values = records(rrset);
+            if (ttl != null)
+                add.ttl = ttl;
+            command = add;
+        } else if ("replace".equals(verb)) {
+            ResourceRecordSetReplace replace = new ResourceRecordSetReplace();
+            replace.name = name;
+            replace.type = type;
+            replace.values = records(rrset);
+            if (ttl != null)
+                replace.ttl = ttl;
+            command = replace;
+        } else if ("remove".equals(verb)) {
+            ResourceRecordSetRemove remove = new ResourceRecordSetRemove();
+            remove.name = name;
+            remove.type = type;
+            remove.values = records(rrset);
+            command = remove;
+        } else if ("applyttl".equals(verb)) {
+            ResourceRecordSetApplyTTL applyTTL = new ResourceRecordSetApplyTTL();
+            applyTTL.name = name;
+            applyTTL.type = type;
+            checkArgument(ttl != null, "ttl is required");
+            applyTTL.ttl = ttl;
+            command = applyTTL;
+        } else if ("delete".equals(verb)) {
+            ResourceRecordSetDelete delete = new ResourceRecordSetDelete();
+            delete.name = name;
+            delete.type = type;
+            command = delete;
+        } else {
+            return null;
+        }
+        command.zoneName = zoneName;
+        return command;
+    }
+
+    /**
+     * a connection retained for this request, which must be released when
+     * done.
+     */
+    private Connection connection(HttpExchange exchange, String providerName) {
+        ImmutableList.Builder<String> builder = ImmutableList.<String> builder().add(providerName);
+        List<String> credentialArgs = exchange.getRequestHeaders().get(CREDENTIAL_HEADER);
+        if (credentialArgs != null)
+            builder.addAll(credentialArgs);
+        List<String> key = builder.build();
+        try {
+            while (true) {
+                // evicted connections are no longer in the cache, so retrying loads a new one
+                Connection connection = connections.getUnchecked(key);
+                if (connection.retain())
+                    return connection;
+            }
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private static JsonObject parse(HttpExchange exchange) {
+        JsonElement json = new JsonParser().parse(new InputStreamReader(exchange.getRequestBody(), UTF_8));
+        checkArgument(json.isJsonObject(), "expected a json object, not %s", json);
+        return json.getAsJsonObject();
+    }
+
+    private static String string(JsonObject json, String field) {
+        return string(required(json, field), field);
+    }
+
+    private static JsonElement required(JsonObject json, String field) {
+        JsonElement value = json.get(field);
+        checkArgument(value != null, "%s is required", field);
+        return value;
+    }
+
+    /**
+     * checks the type first, as gson throws unchecked exceptions other than
+     * {@code IllegalArgumentException} when converting arrays, objects, or
+     * null.
+     */
+    private static String string(JsonElement value, String field) {
+        checkArgument(value.isJsonPrimitive(), "%s must be a string, not %s", field, value);
+        return value.getAsString();
+    }
+
+    private static int integer(JsonElement value, String field) {
+        checkArgument(value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber(),
+                "%s must be a number, not %s", field, value);
+        return value.getAsInt();
+    }
+
+    private static List<String> records(JsonObject rrset) {
+        JsonElement records = required(rrset, "records");
+        checkArgument(records.isJsonArray(), "records must be an array, not %s", records);
+        ImmutableList.Builder<String> values = ImmutableList.builder();
+        for (JsonElement record : (JsonArray) records)
+            values.add(string(record, "records"));
+        return values.build();
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> query = Maps.newLinkedHashMap();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null)
+            return query;
+        for (String param : Splitter.on('&').omitEmptyStrings().split(rawQuery)) {
+            int eq = param.indexOf('=');
+            if (eq == -1)
+                query.put(decode(param), "");
+            else
+                query.put(decode(param.substring(0, eq)), decode(param.substring(eq + 1)));
+        }
+        return query;
+    }
+
+    private static String decode(String encoded) {
+        try {
+            return URLDecoder.decode(encoded, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static boolean expectMethod(HttpExchange exchange, String method) throws IOException {
+        if (method.equals(exchange.getRequestMethod()))
+            return true;
+        exchange.getResponseHeaders().set("Allow", method);
+        error(exchange, 405, format("%s is not allowed, use %s", exchange.getRequestMethod(), method));
+        return false;
+    }
+
+    private static void writeProviders(HttpExchange exchange) throws IOException {
+        JsonWriter writer = beginJson(exchange, 200);
+        writer.beginArray();
+        for (Provider provider : listProviders()) {
+            writer.beginObject();
+            writer.name("name").value(provider.getName());
+            writer.name("credentialTypes").beginObject();
+            for (Entry<String, Collection<String>> entry : provider.getCredentialTypeToParameterNames().asMap()
+                    .entrySet()) {
+                writer.name(entry.getKey()).beginArray();
+                for (String parameter : entry.getValue())
+                    writer.value(parameter);
+                writer.endArray();
+            }
+            writer.endObject();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.close();
+    }
+
+    /**
+     * streams zone names as they are listed.
+     */
+    private static void writeZones(HttpExchange exchange, Iterator<String> zones) throws IOException {
+        JsonWriter writer = beginJson(exchange, 200);
+        writer.beginArray();
+        while (zones.hasNext())
+            writer.value(zones.next());
+        writer.endArray();
+        writer.close();
+    }
+
+    /**
+     * streams record sets as they are listed, so that large zones aren't held
+     * in memory.
+     */
+    private static void writeRecordSets(HttpExchange exchange, Iterator<ResourceRecordSet<?>> rrsets)
+            throws IOException {
+        JsonWriter writer = beginJson(exchange, 200);
+        writer.beginArray();
+        while (rrsets.hasNext())
+            writeRecordSet(writer, rrsets.next());
+        writer.endArray();
+        writer.close();
+    }
+
+    private static void writeRecordSet(HttpExchange exchange, ResourceRecordSet<?> rrset) throws IOException {
+        JsonWriter writer = beginJson(exchange, 200);
+        writeRecordSet(writer, rrset);
+        writer.close();
+    }
+
+    private static void writeRecordSet(JsonWriter writer, ResourceRecordSet<?> rrset) throws IOException {
+        writer.beginObject();
+        writer.name("name").value(rrset.getName());
+        writer.name("type").value(rrset.getType());
+        if (rrset.getTTL().isPresent())
+            writer.name("ttl").value(rrset.getTTL().get());
+        writer.name("records").beginArray();
+        for (Map<String, Object> rdata : rrset)
+            writer.value(ResourceRecordSetCommands.flatten(rdata));
+        writer.endArray();
+        writer.endObject();
+    }
+
+    /**
+     * a body of {@code {"error":"message"}}, unless the response was already
+     * started, in which case it is cut short instead.
+     */
+    private static void error(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1)
+            return;
+        JsonWriter writer = beginJson(exchange, status);
+        writer.beginObject().name("error").value(message).endObject();
+        writer.close();
+    }
+
+    private static JsonWriter beginJson(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new OutputStreamWriter(exchange.getResponseBody(), UTF_8));
+    }
+
+    private static String messageOf(RuntimeException e) {
+        return e.getMessage() != null ? e.getMessage() : e.toString();
+    }
+}
@@ -1,15 +1,28 @@
 package denominator.cli;
 
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.cname;
+import static denominator.model.ResourceRecordSets.ns;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
 
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
 
 import denominator.DNSApiManager;
 import denominator.Provider;
 import denominator.cli.Denominator.ListProviders;
+import denominator.cli.Denominator.ZoneExport;
+import denominator.cli.Denominator.ZoneImport;
 import denominator.cli.Denominator.ZoneList;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetAdd;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetApplyTTL;
@@ -20,6 +33,7 @@ import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetRemove;
 import denominator.cli.ResourceRecordSetCommands.ResourceRecordSetReplace;
 import denominator.dynect.DynECTProvider;
 import denominator.mock.MockProvider;
+import denominator.model.ResourceRecordSet;
 import denominator.route53.Route53Provider;
 import denominator.ultradns.UltraDNSProvider;
 @Test
@@ -45,6 +59,62 @@ public class DenominatorTest {
         assertEquals(Joiner.on('\n').join(new ZoneList().doRun(mgr)), "denominator.io.");
     }
 
+    @Test(description = "denominator -p mock zone export -z denominator.io. -o denominator.io.zone")
+    public void testZoneExport() throws IOException {
+        File output = File.createTempFile("denominator", ".zone");
+        output.deleteOnExit();
+        ZoneExport command = new ZoneExport();
+        command.zoneName = "denominator.io.";
+        command.output = output.getPath();
+        assertEquals(Joiner.on('\n').join(command.doRun(denominator.Denominator.create(new MockProvider()))),
+                ";; exported 5 record sets in zone denominator.io. to " + output.getPath());
+        assertEquals(Files.toString(output, Charsets.UTF_8), Joiner.on('\n').join(
+                "$ORIGIN denominator.io.",
+                "denominator.io.\t86400\tIN\tNS\tns1.denominator.io.",
+                "denominator.io.\t3600\tIN\tSOA\tns1.denominator.io. admin.denominator.io. 1 3600 600 604800 60",
+                "www.denominator.io.\t3600\tIN\tCNAME\twww1.denominator.io.",
+                "www1.denominator.io.\t3600\tIN\tA\t192.0.2.1",
+                "www1.denominator.io.\t3600\tIN\tA\t192.0.2.2",
+                "www2.denominator.io.\t3600\tIN\tA\t198.51.100.1", ""));
+    }
+
+    @Test(description = "denominator -p mock zone import -z denominator.io. -i denominator.io.zone")
+    public void testZoneImport() throws IOException {
+        File input = File.createTempFile("denominator", ".zone");
+        input.deleteOnExit();
+        Files.write(Joiner.on('\n').join(
+                "$ORIGIN denominator.io.",
+                "@      3600  IN SOA ns1 admin 2 3600 600 604800 60",
+                "@      86400 IN NS  ns1.otherprovider.net.",
+                "www3  300   IN A   192.0.2.3",
+                "www3  300   IN A   192.0.2.4"), input, Charsets.UTF_8);
+        DNSApiManager mgr = denominator.Denominator.create(new MockProvider());
+        ZoneImport command = new ZoneImport();
+        command.zoneName = "denominator.io.";
+        command.input = input.getPath();
+        assertEquals(Joiner.on('\n').join(command.doRun(mgr)), Joiner.on('\n').join(
+                ";; in zone denominator.io. adding record sets from " + input.getPath(),
+                ";; ok, added 1 record sets"));
+        assertEquals(mgr.getApi().getResourceRecordSetApiForZone("denominator.io.").getByNameAndType(
+                "www3.denominator.io.", "A").get(), a("www3.denominator.io.", 300,
+                ImmutableList.of("192.0.2.3", "192.0.2.4")));
+        assertEquals(mgr.getApi().getResourceRecordSetApiForZone("denominator.io.").getByNameAndType(
+                "denominator.io.", "NS").get(), ns("denominator.io.", 86400, "ns1.denominator.io."));
+    }
+
+    @Test
+    public void testZoneImportNamesRecordSetsInZoneForm() {
+        ResourceRecordSet<?> dotted = a("www3.denominator.io.", 300, "192.0.2.3");
+        assertEquals(ImmutableList.copyOf(ZoneImport.inZoneForm("denominator.io.",
+                ImmutableList.<ResourceRecordSet<?>> of(dotted).iterator())), ImmutableList.of(dotted));
+        // as DynECT names zones and record sets
+        assertEquals(ImmutableList.copyOf(ZoneImport.inZoneForm("denominator.io",
+                ImmutableList.<ResourceRecordSet<?>> of(dotted,
+                        cname("www.denominator.io.", 300, "www3.denominator.io.")).iterator())),
+                ImmutableList.of(a("www3.denominator.io", 300, "192.0.2.3"),
+                        cname("www.denominator.io", 300, "www3.denominator.io.")));
+    }
+
     @Test(description = "denominator -p mock record -z denominator.io. list")
     public void testResourceRecordSetList() {
         ResourceRecordSetList command = new ResourceRecordSetList();
@@ -172,4 +242,72 @@ public class DenominatorTest {
                 ";; in zone denominator.io. deleting rrset www3.denominator.io. A",
                 ";; ok"));
     }
+
+    @Test(description = "denominator -p mock batch --parallel 2 -i changes.txt")
+    public void testBatch() throws IOException {
+        File input = File.createTempFile("denominator", ".txt");
+        input.deleteOnExit();
+        Files.write(Joiner.on('\n').join(
+                "# comment",
+                "record -z denominator.io. add -n www3.denominator.io. -t A -d 192.0.2.3",
+                "",
+                "record -z denominator.io. get -n www3.denominator.io. -t A",
+                "record -z denominator.io. delete -n www2.denominator.io. -t A"), input, Charsets.UTF_8);
+        DNSApiManager mgr = denominator.Denominator.create(new MockProvider());
+        BatchCommand command = new BatchCommand();
+        command.providerName = "mock";
+        command.input = input.getPath();
+        // output follows the input, even though lines 2 and 5 may finish in
+        // either order, and line 4 fails before either is applied
+        command.parallel = 2;
+        Iterator<String> results = command.doRun(mgr);
+        assertEquals(results.next(), Joiner.on('\n').join(
+                "2: ;; in zone denominator.io. adding to rrset www3.denominator.io. A values: [{address=192.0.2.3}]",
+                "2: ;; ok"));
+        assertEquals(results.next(),
+                "4: ;; error: only record add, replace, remove, applyttl, and delete are supported: "
+                        + "record -z denominator.io. get -n www3.denominator.io. -t A");
+        assertEquals(results.next(), Joiner.on('\n').join(
+                "5: ;; in zone denominator.io. deleting rrset www2.denominator.io. A",
+                "5: ;; ok"));
+        try {
+            results.hasNext();
+            fail("expected the failed line to fail the batch");
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "1 of 3 changes failed");
+        }
+        assertEquals(mgr.getApi().getResourceRecordSetApiForZone("denominator.io.")
+                .getByNameAndType("www3.denominator.io.", "A").get(), a("www3.denominator.io.", "192.0.2.3"));
+        assertFalse(mgr.getApi().getResourceRecordSetApiForZone("denominator.io.")
+                .getByNameAndType("www2.denominator.io.", "A").isPresent());
+    }
+
+    @Test(description = "denominator -p mock batch --batch --parallel 2 -i changes.txt")
+    public void testBatchStagesChangesPerZone() throws IOException {
+        File input = File.createTempFile("denominator", ".txt");
+        input.deleteOnExit();
+        Files.write(Joiner.on('\n').join(
+                "record -z denominator.io. add -n txt.denominator.io. -t TXT -d \"hello world\"",
+                "record -z denominator.io. applyttl -n txt.denominator.io. -t TXT 300"), input, Charsets.UTF_8);
+        DNSApiManager mgr = denominator.Denominator.create(new MockProvider());
+        BatchCommand command = new BatchCommand();
+        command.providerName = "mock";
+        command.input = input.getPath();
+        command.batch = true;
+        command.parallel = 2;
+        assertEquals(Joiner.on('\n').join(command.doRun(mgr)), Joiner.on('\n').join(
+                "1: ;; in zone denominator.io. adding to rrset txt.denominator.io. TXT values: [{txtdata=hello world}]",
+                "1: ;; staged",
+                "2: ;; in zone denominator.io. applying ttl 300 to rrset txt.denominator.io. TXT",
+                "2: ;; staged",
+                ";; ok, committed 2 changes to zone denominator.io."));
+        assertEquals(mgr.getApi().getResourceRecordSetApiForZone("denominator.io.")
+                .getByNameAndType("txt.denominator.io.", "TXT").get().getTTL().get(), Integer.valueOf(300));
+    }
+
+    @Test
+    public void testBatchTokenizesQuotedValues() {
+        assertEquals(BatchCommand.tokenize("add -d \"v=spf1 \\\"a\\\" -all\"  -t TXT"),
+                ImmutableList.of("add", "-d", "v=spf1 \"a\" -all", "-t", "TXT"));
+    }
 }
@@ -0,0 +1,271 @@
+package denominator.cli;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static dagger.Provides.Type.SET;
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.ByteStreams;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.Decorator;
+import denominator.ResourceRecordSetApi;
+import denominator.ZoneApi;
+import denominator.mock.MockProvider;
+
+@Test
+public class ServerCommandTest {
+    DNSApiManager mgr;
+    AtomicInteger connects;
+    ServerCommand server;
+    String url;
+
+    @BeforeMethod
+    public void start() throws IOException {
+        mgr = denominator.Denominator.create(new MockProvider());
+        connects = new AtomicInteger();
+        server = new ServerCommand() {
+            @Override
+            DNSApiManager connect(String providerName, List<String> credentialArgs) {
+                connects.incrementAndGet();
+                return mgr;
+            }
+        };
+        server.port = 0;
+        server.start();
+        url = "http://127.0.0.1:" + server.getPort() + "/providers/mock/zones";
+    }
+
+    @AfterMethod
+    public void stop() {
+        server.stop();
+    }
+
+    @Test(description = "GET /providers/mock/zones")
+    public void listsZones() throws IOException {
+        assertEquals(call("GET", url, null, 200), "[\"denominator.io.\"]");
+    }
+
+    @Test(description = "POST /providers/mock/zones/denominator.io./records/add")
+    public void addsAndGetsRecordSet() throws IOException {
+        String rrset = "{\"name\":\"www3.denominator.io.\",\"type\":\"A\",\"ttl\":300,\"records\":[\"192.0.2.3\"]}";
+        assertEquals(call("POST", url + "/denominator.io./records/add", rrset, 204), "");
+        assertEquals(call("GET", url + "/denominator.io./records?name=www3.denominator.io.&type=A", null, 200),
+                rrset);
+        assertEquals(zone().getByNameAndType("www3.denominator.io.", "A").get(),
+                a("www3.denominator.io.", 300, "192.0.2.3"));
+    }
+
+    @Test(description = "POST /providers/mock/zones/denominator.io./records/delete")
+    public void deletesRecordSet() throws IOException {
+        call("POST", url + "/denominator.io./records/delete", "{\"name\":\"www2.denominator.io.\",\"type\":\"A\"}",
+                204);
+        assertFalse(zone().getByNameAndType("www2.denominator.io.", "A").isPresent());
+        assertEquals(call("GET", url + "/denominator.io./records?name=www2.denominator.io.&type=A", null, 404),
+                "{\"error\":\"no rrset www2.denominator.io. A in zone denominator.io.\"}");
+    }
+
+    @Test
+    public void badRequests() throws IOException {
+        assertEquals(call("POST", url + "/denominator.io./records/add", "{\"type\":\"A\"}", 400),
+                "{\"error\":\"name is required\"}");
+        assertEquals(call("POST", url + "/denominator.io./records/add", "{\"name\":\"a.denominator.io.\",\"type\":\"A\"}",
+                400), "{\"error\":\"records is required\"}");
+        assertEquals(call("POST", url + "/denominator.io./records/applyttl",
+                "{\"name\":\"a.denominator.io.\",\"type\":\"A\"}", 400), "{\"error\":\"ttl is required\"}");
+        assertEquals(call("POST", url + "/denominator.io./records/add",
+                "{\"name\":[\"a.denominator.io.\"],\"type\":\"A\",\"records\":[\"192.0.2.1\"]}", 400),
+                "{\"error\":\"name must be a string, not [\\\"a.denominator.io.\\\"]\"}");
+        assertEquals(call("POST", url + "/denominator.io./records/add",
+                "{\"name\":\"a.denominator.io.\",\"type\":\"A\",\"records\":[{\"address\":\"192.0.2.1\"}]}", 400),
+                "{\"error\":\"records must be a string, not {\\\"address\\\":\\\"192.0.2.1\\\"}\"}");
+        call("POST", url + "/denominator.io./records/add", "{\"name\":null,\"type\":\"A\",\"records\":[]}", 400);
+        call("POST", url + "/denominator.io./records/applyttl",
+                "{\"name\":\"a.denominator.io.\",\"type\":\"A\",\"ttl\":{}}", 400);
+        call("POST", url + "/denominator.io./records/rename", "{\"name\":\"a.denominator.io.\",\"type\":\"A\"}", 404);
+        call("DELETE", url, null, 405);
+        call("GET", "http://127.0.0.1:" + server.getPort() + "/zones", null, 404);
+    }
+
+    @Test
+    public void reusesConnectionPerProviderAndCredentials() throws IOException {
+        call("GET", url, null, 200);
+        call("GET", url + "/denominator.io./records", null, 200);
+        assertEquals(connects.get(), 1);
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.addRequestProperty(ServerCommand.CREDENTIAL_HEADER, "user");
+        connection.addRequestProperty(ServerCommand.CREDENTIAL_HEADER, "pass");
+        assertEquals(connection.getResponseCode(), 200);
+        connection.disconnect();
+        assertEquals(connects.get(), 2);
+    }
+
+    @Test
+    public void rejectsRequestsOverConcurrency() throws Exception {
+        final CountDownLatch listing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        mgr = denominator.Denominator.create(new MockProvider(), new BlockListZones(listing, release));
+        server.concurrency = 1;
+        Thread first = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    call("GET", url, null, 200);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        first.start();
+        try {
+            listing.await();
+            assertEquals(call("GET", url, null, 429),
+                    "{\"error\":\"limit of 1 concurrent requests to mock reached for these credentials\"}");
+        } finally {
+            release.countDown();
+            first.join();
+        }
+        call("GET", url, null, 200);
+    }
+
+    @Test
+    public void serverErrorsAreNotBlamedOnTheRequest() throws IOException {
+        mgr = denominator.Denominator.create(new MockProvider(), new FailListZones());
+        call("GET", url, null, 500);
+    }
+
+    @Test
+    public void closesEvictedConnectionOnceRequestsComplete() throws Exception {
+        final CountDownLatch listing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger closes = new AtomicInteger();
+        mgr = denominator.Denominator.create(new MockProvider(), new BlockListZones(listing, release),
+                new CountCloses(closes));
+        Thread first = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    call("GET", url, null, 200);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        });
+        first.start();
+        try {
+            listing.await();
+            server.connections.invalidateAll();
+            assertEquals(closes.get(), 0);
+        } finally {
+            release.countDown();
+            first.join();
+        }
+        // the response is sent before the request releases its connection
+        for (int i = 0; closes.get() == 0 && i < 100; i++)
+            Thread.sleep(10);
+        assertEquals(closes.get(), 1);
+        call("GET", url, null, 200);
+        assertEquals(connects.get(), 2);
+    }
+
+    @Module(entryPoints = DNSApiManager.class, complete = false)
+    static final class FailListZones {
+        @Provides(type = SET)
+        Decorator<ZoneApi> failList() {
+            return new Decorator<ZoneApi>() {
+                public ZoneApi decorate(ZoneApi delegate) {
+                    return new ZoneApi() {
+                        public Iterator<String> list() {
+                            throw new NullPointerException();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    @Module(entryPoints = DNSApiManager.class, complete = false, overrides = true)
+    static final class CountCloses {
+        final AtomicInteger closes;
+
+        CountCloses(AtomicInteger closes) {
+            this.closes = closes;
+        }
+
+        @Provides
+        Closeable closer() {
+            return new Closeable() {
+                public void close() {
+                    closes.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    @Module(entryPoints = DNSApiManager.class, complete = false)
+    static final class BlockListZones {
+        final CountDownLatch listing;
+        final CountDownLatch release;
+
+        BlockListZones(CountDownLatch listing, CountDownLatch release) {
+            this.listing = listing;
+            this.release = release;
+        }
+
+        @Provides(type = SET)
+        Decorator<ZoneApi> blockList() {
+            return new Decorator<ZoneApi>() {
+                public ZoneApi decorate(final ZoneApi delegate) {
+                    return new ZoneApi() {
+                        public Iterator<String> list() {
+                            listing.countDown();
+                            awaitUninterruptibly(release);
+                            return delegate.list();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+    private ResourceRecordSetApi zone() {
+        return mgr.getApi().getResourceRecordSetApiForZone("denominator.io.");
+    }
+
+    static String call(String method, String url, String body, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            out.write(body.getBytes(Charsets.UTF_8));
+            out.close();
+        }
+        assertEquals(connection.getResponseCode(), expectedStatus);
+        InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream();
+        try {
+            return in != null ? new String(ByteStreams.toByteArray(in), Charsets.UTF_8) : "";
+        } finally {
+            if (in != null)
+                in.close();
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package denominator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import denominator.model.ResourceRecordSet;
+
+/**
+ * asynchronous view of a {@link DNSApi}, where each call runs on an executor
+ * you control and returns a {@link ListenableFuture}.
+ * 
+ * ex.
+ * 
+ * <pre>
+ * ExecutorService executor = Executors.newFixedThreadPool(10);
+ * AsyncDNSApi async = AsyncDNSApi.create(manager.getApi(), executor);
+ * ListenableFuture&lt;Void&gt; done = async.getResourceRecordSetApiForZone(&quot;denominator.io.&quot;)
+ *                                     .replace(a(&quot;www.denominator.io.&quot;, 60, &quot;192.0.2.1&quot;));
+ * </pre>
+ * 
+ * The executor bounds how many requests are in flight. It is not closed with
+ * the {@link DNSApiManager}.
+ */
+@Beta
+public final class AsyncDNSApi {
+
+    /**
+     * @param api
+     *            usually {@link DNSApiManager#getApi()}
+     * @param executor
+     *            runs each call to {@code api}.
+     */
+    public static AsyncDNSApi create(DNSApi api, ExecutorService executor) {
+        return new AsyncDNSApi(checkNotNull(api, "api"), listeningDecorator(checkNotNull(executor, "executor")));
+    }
+
+    private final DNSApi api;
+    private final ListeningExecutorService executor;
+
+    private AsyncDNSApi(DNSApi api, ListeningExecutorService executor) {
+        this.api = api;
+        this.executor = executor;
+    }
+
+    /**
+     * @see DNSApi#getZoneApi()
+     */
+    public AsyncZoneApi getZoneApi() {
+        return new AsyncZoneApi() {
+            public ListenableFuture<Iterator<String>> list() {
+                return executor.submit(new Callable<Iterator<String>>() {
+                    public Iterator<String> call() {
+                        return api.getZoneApi().list();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * The delegate for {@code zoneName} is created on the executor, once, as
+     * providers may need a remote call to look up the zone.
+     * 
+     * @see DNSApi#getResourceRecordSetApiForZone(String)
+     */
+    public AsyncResourceRecordSetApi getResourceRecordSetApiForZone(final String zoneName) {
+        ListenableFuture<ResourceRecordSetApi> zoneApi = executor.submit(new Callable<ResourceRecordSetApi>() {
+            public ResourceRecordSetApi call() {
+                return api.getResourceRecordSetApiForZone(zoneName);
+            }
+        });
+        return new ExecutorAsyncResourceRecordSetApi(zoneName, zoneApi, executor);
+    }
+
+    /**
+     * a call to the zone's {@link ResourceRecordSetApi}, once it is created.
+     */
+    private static abstract class Call<T> {
+        abstract T call(ResourceRecordSetApi api);
+    }
+
+    private static final class ExecutorAsyncResourceRecordSetApi implements AsyncResourceRecordSetApi {
+        private final String zoneName;
+        private final ListenableFuture<ResourceRecordSetApi> api;
+        private final ListeningExecutorService executor;
+
+        private ExecutorAsyncResourceRecordSetApi(String zoneName, ListenableFuture<ResourceRecordSetApi> api,
+                ListeningExecutorService executor) {
+            this.zoneName = zoneName;
+            this.api = api;
+            this.executor = executor;
+        }
+
+        /**
+         * submits {@code task} to the executor after the delegate is created,
+         * failing with the delegate's creation error, if any.
+         */
+        private <T> ListenableFuture<T> submit(final Call<T> task) {
+            return Futures.transform(api, new AsyncFunction<ResourceRecordSetApi, T>() {
+                public ListenableFuture<T> apply(final ResourceRecordSetApi input) {
+                    return executor.submit(new Callable<T>() {
+                        public T call() {
+                            return task.call(input);
+                        }
+                    });
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Iterator<ResourceRecordSet<?>>> list() {
+            return submit(new Call<Iterator<ResourceRecordSet<?>>>() {
+                Iterator<ResourceRecordSet<?>> call(ResourceRecordSetApi api) {
+                    return api.list();
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Iterator<ResourceRecordSet<?>>> listByName(final String name) {
+            return submit(new Call<Iterator<ResourceRecordSet<?>>>() {
+                Iterator<ResourceRecordSet<?>> call(ResourceRecordSetApi api) {
+                    return api.listByName(name);
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Optional<ResourceRecordSet<?>>> getByNameAndType(final String name, final String type) {
+            return submit(new Call<Optional<ResourceRecordSet<?>>>() {
+                Optional<ResourceRecordSet<?>> call(ResourceRecordSetApi api) {
+                    return api.getByNameAndType(name, type);
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Void> add(final ResourceRecordSet<?> rrset) {
+            return submit(new Call<Void>() {
+                Void call(ResourceRecordSetApi api) {
+                    api.add(rrset);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Void> applyTTLToNameAndType(final int ttl, final String name, final String type) {
+            return submit(new Call<Void>() {
+                Void call(ResourceRecordSetApi api) {
+                    api.applyTTLToNameAndType(ttl, name, type);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Void> replace(final ResourceRecordSet<?> rrset) {
+            return submit(new Call<Void>() {
+                Void call(ResourceRecordSetApi api) {
+                    api.replace(rrset);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Void> remove(final ResourceRecordSet<?> rrset) {
+            return submit(new Call<Void>() {
+                Void call(ResourceRecordSetApi api) {
+                    api.remove(rrset);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public ListenableFuture<Void> deleteByNameAndType(final String name, final String type) {
+            return submit(new Call<Void>() {
+                Void call(ResourceRecordSetApi api) {
+                    api.deleteByNameAndType(name, type);
+                    return null;
+                }
+            });
+        }
+
+        @Override
+        public String toString() {
+            return "Async(" + zoneName + ")";
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package denominator;
+
+import java.util.Iterator;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import denominator.model.ResourceRecordSet;
+
+/**
+ * asynchronous view of {@link ResourceRecordSetApi}. Each method has the same
+ * semantics as the corresponding one on {@link ResourceRecordSetApi}, and
+ * exceptions it would throw fail the future instead.
+ * 
+ * Listings complete once the provider has started listing. Iterating the
+ * result may still block on providers who list lazily.
+ * 
+ * @see AsyncDNSApi
+ */
+@Beta
+public interface AsyncResourceRecordSetApi {
+
+    /**
+     * @see ResourceRecordSetApi#list()
+     */
+    ListenableFuture<Iterator<ResourceRecordSet<?>>> list();
+
+    /**
+     * @see ResourceRecordSetApi#listByName(String)
+     */
+    ListenableFuture<Iterator<ResourceRecordSet<?>>> listByName(String name);
+
+    /**
+     * @see ResourceRecordSetApi#getByNameAndType(String, String)
+     */
+    ListenableFuture<Optional<ResourceRecordSet<?>>> getByNameAndType(String name, String type);
+
+    /**
+     * @see ResourceRecordSetApi#add(ResourceRecordSet)
+     */
+    ListenableFuture<Void> add(ResourceRecordSet<?> rrset);
+
+    /**
+     * @see ResourceRecordSetApi#applyTTLToNameAndType(int, String, String)
+     */
+    ListenableFuture<Void> applyTTLToNameAndType(int ttl, String name, String type);
+
+    /**
+     * @see ResourceRecordSetApi#replace(ResourceRecordSet)
+     */
+    ListenableFuture<Void> replace(ResourceRecordSet<?> rrset);
+
+    /**
+     * @see ResourceRecordSetApi#remove(ResourceRecordSet)
+     */
+    ListenableFuture<Void> remove(ResourceRecordSet<?> rrset);
+
+    /**
+     * @see ResourceRecordSetApi#deleteByNameAndType(String, String)
+     */
+    ListenableFuture<Void> deleteByNameAndType(String name, String type);
+}
@@ -0,0 +1,19 @@
+package denominator;
+
+import java.util.Iterator;
+
+import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * asynchronous view of {@link ZoneApi}.
+ * 
+ * @see AsyncDNSApi
+ */
+@Beta
+public interface AsyncZoneApi {
+    /**
+     * @see ZoneApi#list()
+     */
+    ListenableFuture<Iterator<String>> list();
+}
@@ -1,5 +1,7 @@
 package denominator;
 
+import java.util.Set;
+
 import javax.inject.Inject;
 
 /**
@@ -10,9 +12,16 @@ public class DNSApi {
     private final ResourceRecordSetApi.Factory rrsetApiFactory;
 
     @Inject
-    DNSApi(ZoneApi zoneApi, ResourceRecordSetApi.Factory rrsetApiFactory) {
-        this.zoneApi = zoneApi;
-        this.rrsetApiFactory = rrsetApiFactory;
+    DNSApi(ZoneApi zoneApi, Set<Decorator<ZoneApi>> zoneApiDecorators, ResourceRecordSetApi.Factory rrsetApiFactory,
+            Set<Decorator<ResourceRecordSetApi.Factory>> rrsetApiFactoryDecorators) {
+        this.zoneApi = decorate(zoneApi, zoneApiDecorators);
+        this.rrsetApiFactory = decorate(rrsetApiFactory, rrsetApiFactoryDecorators);
+    }
+
+    private static <T> T decorate(T api, Set<Decorator<T>> decorators) {
+        for (Decorator<T> decorator : decorators)
+            api = decorator.decorate(api);
+        return api;
     }
 
     /**
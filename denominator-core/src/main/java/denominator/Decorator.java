@@ -0,0 +1,38 @@
+package denominator;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Wraps an api a {@link Provider} binds, such as
+ * {@link ResourceRecordSetApi.Factory}, in order to add behavior like caching
+ * without changing the provider.
+ *
+ * Decorators are contributed to a {@link dagger.Provides.Type#SET SET}
+ * binding by modules passed to
+ * {@link Denominator#create(Provider, Object...)}, and applied in the order
+ * they are bound.
+ *
+ * <pre>
+ * &#064;Provides(type = SET)
+ * Decorator&lt;ResourceRecordSetApi.Factory&gt; cacheRRSets() {
+ *     return new Decorator&lt;ResourceRecordSetApi.Factory&gt;() {
+ *         public ResourceRecordSetApi.Factory decorate(ResourceRecordSetApi.Factory delegate) {
+ *             return new CachingResourceRecordSetApi.Factory(delegate, cache);
+ *         }
+ *     };
+ * }
+ * </pre>
+ *
+ * @param <T>
+ *            type of the api to decorate.
+ */
+@Beta
+public interface Decorator<T> {
+
+    /**
+     * @param delegate
+     *            api bound by the provider, or a previous decorator.
+     * @return {@code delegate} or an api which wraps it.
+     */
+    T decorate(T delegate);
+}
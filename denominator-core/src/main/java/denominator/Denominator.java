@@ -5,6 +5,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.instanceOf;
 import static com.google.common.collect.Iterables.any;
 import static com.google.common.collect.Maps.uniqueIndex;
+import static dagger.Provides.Type.SET;
 import static denominator.CredentialsConfiguration.anonymous;
 import static denominator.CredentialsConfiguration.checkValidForProvider;
 import static denominator.CredentialsConfiguration.credentials;
@@ -13,11 +14,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 
+import javax.inject.Singleton;
+
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
 
+import dagger.Module;
 import dagger.ObjectGraph;
+import dagger.Provides;
 import denominator.Credentials.AnonymousCredentials;
 import denominator.CredentialsConfiguration.CredentialsSupplier;
 import denominator.mock.MockProvider;
@@ -75,6 +80,7 @@ public final class Denominator {
                 modulesForGraph.add(anonymous());
             }
         }
+        modulesForGraph.add(new NoDecorators());
         modulesForGraph.addAll(inputModules);
         return ObjectGraph.create(modulesForGraph.build().toArray()).get(DNSApiManager.class);
     }
@@ -106,4 +112,30 @@ public final class Denominator {
         return create(allProvidersByName.get(providerName), modules);
     }
 
+    /**
+     * {@link Decorator} bindings are a {@link Provides.Type#SET SET}, which
+     * cannot be empty. This binds a base case that doesn't change the api.
+     */
+    @Module(entryPoints = DNSApiManager.class, complete = false)
+    static class NoDecorators {
+        @Provides(type = SET)
+        @Singleton
+        Decorator<ResourceRecordSetApi.Factory> noResourceRecordSetApiFactoryDecorator() {
+            return new Decorator<ResourceRecordSetApi.Factory>() {
+                public ResourceRecordSetApi.Factory decorate(ResourceRecordSetApi.Factory delegate) {
+                    return delegate;
+                }
+            };
+        }
+
+        @Provides(type = SET)
+        @Singleton
+        Decorator<ZoneApi> noZoneApiDecorator() {
+            return new Decorator<ZoneApi>() {
+                public ZoneApi decorate(ZoneApi delegate) {
+                    return delegate;
+                }
+            };
+        }
+    }
 }
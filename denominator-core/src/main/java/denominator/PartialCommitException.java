@@ -0,0 +1,38 @@
+package denominator;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Thrown by {@link ResourceRecordSetApi.Batch#commit()} when the provider
+ * needed several requests to apply the batch, and one failed after others
+ * were applied. The applied requests are not rolled back, so the zone holds
+ * part of the batch. The message lists the record sets that were changed and
+ * those that were not.
+ */
+@Beta
+public class PartialCommitException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int appliedRequests;
+    private final int requests;
+
+    public PartialCommitException(String message, int appliedRequests, int requests, Throwable cause) {
+        super(message, cause);
+        this.appliedRequests = appliedRequests;
+        this.requests = requests;
+    }
+
+    /**
+     * how many of the requests were applied, in order, before the failure.
+     */
+    public int getAppliedRequests() {
+        return appliedRequests;
+    }
+
+    /**
+     * how many requests the batch was split into.
+     */
+    public int getRequests() {
+        return requests;
+    }
+}
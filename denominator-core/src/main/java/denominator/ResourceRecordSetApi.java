@@ -12,6 +12,72 @@ public interface ResourceRecordSetApi {
         ResourceRecordSetApi create(String zoneName);
     }
 
+    /**
+     * Collects changes to apply together on {@link #commit()}. Each method has
+     * the same semantics as the corresponding one on {@link ResourceRecordSetApi},
+     * evaluated as if the changes staged before it were already applied.
+     * 
+     * Example of flipping two record sets in as few requests as the provider
+     * allows.
+     * 
+     * <pre>
+     * rrsApi.begin()
+     *       .replace(a(&quot;www1.denominator.io.&quot;, 60, &quot;192.0.2.1&quot;))
+     *       .replace(a(&quot;www2.denominator.io.&quot;, 60, &quot;192.0.2.2&quot;))
+     *       .commit();
+     * </pre>
+     * 
+     * Whether a commit is atomic depends on the provider. Providers without
+     * native support apply changes one at a time, in order.
+     */
+    static interface Batch {
+        /**
+         * @see ResourceRecordSetApi#add(ResourceRecordSet)
+         */
+        Batch add(ResourceRecordSet<?> rrset);
+
+        /**
+         * @see ResourceRecordSetApi#applyTTLToNameAndType(int, String, String)
+         */
+        Batch applyTTLToNameAndType(int ttl, String name, String type);
+
+        /**
+         * @see ResourceRecordSetApi#replace(ResourceRecordSet)
+         */
+        Batch replace(ResourceRecordSet<?> rrset);
+
+        /**
+         * @see ResourceRecordSetApi#remove(ResourceRecordSet)
+         */
+        Batch remove(ResourceRecordSet<?> rrset);
+
+        /**
+         * @see ResourceRecordSetApi#deleteByNameAndType(String, String)
+         */
+        Batch deleteByNameAndType(String name, String type);
+
+        /**
+         * applies all staged changes. A batch can only be committed once.
+         * 
+         * When the provider can't send the batch in one request, it is split
+         * into several, applied in order. Each request is atomic, but the
+         * commit as a whole is not: if a request fails, those before it stay
+         * applied.
+         * 
+         * @throws IllegalStateException
+         *             if this batch was already committed.
+         * @throws PartialCommitException
+         *             if a request failed after others were applied.
+         */
+        void commit();
+    }
+
+    /**
+     * starts a {@link Batch} of changes to this zone, which are not applied
+     * until {@link Batch#commit()}.
+     */
+    Batch begin();
+
     /**
      * a listing of all resource record sets inside the zone.
      * 
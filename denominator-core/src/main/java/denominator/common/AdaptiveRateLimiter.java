@@ -0,0 +1,141 @@
+package denominator.common;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.lang.reflect.Method;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.RateLimiter;
+
+/**
+ * Limits the rate of remote calls to a provider, shared across all threads
+ * using the same {@code DNSApiManager}.
+ *
+ * The rate starts at the provider's documented limit. Each time the provider
+ * throttles a call, the rate is halved, at most once per
+ * {@link #ADJUSTMENT_INTERVAL_SECONDS interval}, as concurrent calls are
+ * usually throttled together. After an interval without throttling, the rate
+ * grows by a tenth of the limit, until it is back at the limit. This keeps
+ * callers near the highest rate the provider is currently allowing.
+ *
+ * @see denominator.config.RateLimiting
+ */
+@Beta
+public final class AdaptiveRateLimiter {
+    public static final long ADJUSTMENT_INTERVAL_SECONDS = 1;
+    static final double DECREASE_FACTOR = 0.5;
+    static final double INCREASE_FRACTION = 0.1;
+    static final double MINIMUM_FRACTION = 1.0 / 16;
+
+    /**
+     * @param maxPermitsPerSecond
+     *            documented limit of the provider, in requests per second.
+     * @param isThrottled
+     *            true if an exception from the provider means it throttled the
+     *            call.
+     */
+    public static AdaptiveRateLimiter create(double maxPermitsPerSecond, Predicate<? super Throwable> isThrottled) {
+        return new AdaptiveRateLimiter(maxPermitsPerSecond, isThrottled, Ticker.systemTicker());
+    }
+
+    private final double maxRate;
+    private final Predicate<? super Throwable> isThrottled;
+    private final Ticker ticker;
+    private final RateLimiter limiter;
+    private double rate;
+    private long lastAdjustmentNanos;
+    private long lastThrottledNanos;
+
+    AdaptiveRateLimiter(double maxPermitsPerSecond, Predicate<? super Throwable> isThrottled, Ticker ticker) {
+        checkArgument(maxPermitsPerSecond > 0, "maxPermitsPerSecond must be positive, not %s", maxPermitsPerSecond);
+        this.maxRate = maxPermitsPerSecond;
+        this.isThrottled = checkNotNull(isThrottled, "isThrottled");
+        this.ticker = checkNotNull(ticker, "ticker");
+        this.limiter = RateLimiter.create(maxPermitsPerSecond);
+        this.rate = maxPermitsPerSecond;
+        this.lastAdjustmentNanos = ticker.read() - SECONDS.toNanos(ADJUSTMENT_INTERVAL_SECONDS);
+        this.lastThrottledNanos = lastAdjustmentNanos;
+    }
+
+    /**
+     * current permits per second.
+     */
+    public synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * blocks until a call is permitted.
+     */
+    public void acquire() {
+        limiter.acquire();
+    }
+
+    /**
+     * increases the rate if there was no throttling in the last interval.
+     */
+    public synchronized void onSuccess() {
+        if (rate >= maxRate)
+            return;
+        long now = ticker.read();
+        if (elapsed(lastThrottledNanos, now) && elapsed(lastAdjustmentNanos, now))
+            adjust(Math.min(maxRate, rate + maxRate * INCREASE_FRACTION), now);
+    }
+
+    /**
+     * decreases the rate, unless it was already decreased this interval.
+     */
+    public synchronized void onThrottled() {
+        long now = ticker.read();
+        if (elapsed(lastThrottledNanos, now))
+            adjust(Math.max(maxRate * MINIMUM_FRACTION, rate * DECREASE_FACTOR), now);
+        lastThrottledNanos = now;
+    }
+
+    private boolean elapsed(long sinceNanos, long now) {
+        return now - sinceNanos >= SECONDS.toNanos(ADJUSTMENT_INTERVAL_SECONDS);
+    }
+
+    private void adjust(double newRate, long now) {
+        rate = newRate;
+        limiter.setRate(newRate);
+        lastAdjustmentNanos = now;
+    }
+
+    /**
+     * limits each remote call to {@code delegate}, adjusting the rate by its
+     * outcome. Which methods are remote calls is described in
+     * {@link RemoteCalls#counting(Class, Object)}. As with counting, pages that
+     * a lazy listing requests on its own are not limited, so providers should
+     * request each page through the returned api.
+     *
+     * @param type
+     *            remote api, such as {@code org.jclouds.route53.Route53Api}
+     */
+    public <T> T limiting(Class<T> type, T delegate) {
+        return RemoteCalls.intercept(type, delegate, new RemoteCalls.Interceptor() {
+            Object invoke(Method method, Object delegate, Object[] args) throws Throwable {
+                acquire();
+                try {
+                    Object result = proceed(method, delegate, args);
+                    onSuccess();
+                    return result;
+                } catch (Throwable t) {
+                    if (isThrottled.apply(t))
+                        onThrottled();
+                    throw t;
+                }
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("rate", getRate()).add("maxRate", maxRate).toString();
+    }
+}
@@ -0,0 +1,265 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import denominator.ResourceRecordSetApi;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Caches the result of {@link #getByNameAndType(String, String)}, including
+ * absence, keyed on zone, name, and type. Listings are not cached.
+ *
+ * Writes made through this api invalidate the name and type they affect before
+ * and after the call, even if it fails. A lookup that was in flight during such
+ * a write may have read the prior state, so its result is returned but not
+ * cached. Writes made elsewhere are visible once the entry expires.
+ *
+ * @see denominator.config.CacheResourceRecordSets
+ */
+@Beta
+public final class CachingResourceRecordSetApi implements ResourceRecordSetApi {
+
+    public static final class Factory implements ResourceRecordSetApi.Factory {
+        private final ResourceRecordSetApi.Factory delegate;
+        private final Cache<List<String>, Optional<ResourceRecordSet<?>>> cache;
+        private final WriteGenerations generations = new WriteGenerations();
+
+        /**
+         * @param delegate
+         *            factory of the provider
+         * @param cache
+         *            shared across all zones, which should be configured with
+         *            eviction, such as
+         *            {@link com.google.common.cache.CacheBuilder#maximumSize(long)}
+         */
+        public Factory(ResourceRecordSetApi.Factory delegate, Cache<List<String>, Optional<ResourceRecordSet<?>>> cache) {
+            this.delegate = checkNotNull(delegate, "delegate");
+            this.cache = checkNotNull(cache, "cache");
+        }
+
+        @Override
+        public ResourceRecordSetApi create(String zoneName) {
+            return new CachingResourceRecordSetApi(delegate.create(zoneName), zoneName, cache, generations);
+        }
+    }
+
+    private final ResourceRecordSetApi delegate;
+    private final String zoneName;
+    private final Cache<List<String>, Optional<ResourceRecordSet<?>>> cache;
+    private final WriteGenerations generations;
+
+    CachingResourceRecordSetApi(ResourceRecordSetApi delegate, String zoneName,
+            Cache<List<String>, Optional<ResourceRecordSet<?>>> cache, WriteGenerations generations) {
+        this.delegate = delegate;
+        this.zoneName = zoneName;
+        this.cache = cache;
+        this.generations = generations;
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> list() {
+        return delegate.list();
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> listByName(String name) {
+        return delegate.listByName(name);
+    }
+
+    /**
+     * loads on a miss without holding the cache, so that the result can be
+     * dropped if a write to the same name and type began meanwhile.
+     */
+    @Override
+    public Optional<ResourceRecordSet<?>> getByNameAndType(String name, String type) {
+        checkNotNull(name, "name");
+        checkNotNull(type, "type");
+        List<String> key = key(name, type);
+        Optional<ResourceRecordSet<?>> cached = cache.getIfPresent(key);
+        if (cached != null)
+            return cached;
+        long generation = generations.current(key);
+        Optional<ResourceRecordSet<?>> loaded = delegate.getByNameAndType(name, type);
+        generations.putIfCurrent(cache, key, generation, loaded);
+        return loaded;
+    }
+
+    @Override
+    public void add(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        invalidate(rrset.getName(), rrset.getType());
+        try {
+            delegate.add(rrset);
+        } finally {
+            invalidate(rrset.getName(), rrset.getType());
+        }
+    }
+
+    @Override
+    public void applyTTLToNameAndType(int ttl, String name, String type) {
+        invalidate(name, type);
+        try {
+            delegate.applyTTLToNameAndType(ttl, name, type);
+        } finally {
+            invalidate(name, type);
+        }
+    }
+
+    @Override
+    public void replace(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        invalidate(rrset.getName(), rrset.getType());
+        try {
+            delegate.replace(rrset);
+        } finally {
+            invalidate(rrset.getName(), rrset.getType());
+        }
+    }
+
+    @Override
+    public void remove(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        invalidate(rrset.getName(), rrset.getType());
+        try {
+            delegate.remove(rrset);
+        } finally {
+            invalidate(rrset.getName(), rrset.getType());
+        }
+    }
+
+    @Override
+    public void deleteByNameAndType(String name, String type) {
+        invalidate(name, type);
+        try {
+            delegate.deleteByNameAndType(name, type);
+        } finally {
+            invalidate(name, type);
+        }
+    }
+
+    /**
+     * stages changes in the delegate's batch, invalidating the names and types
+     * they affect on commit.
+     */
+    @Override
+    public Batch begin() {
+        final Batch delegateBatch = delegate.begin();
+        return new Batch() {
+            private final List<List<String>> touched = Lists.newArrayList();
+
+            public Batch add(ResourceRecordSet<?> rrset) {
+                delegateBatch.add(rrset);
+                return touched(rrset.getName(), rrset.getType());
+            }
+
+            public Batch applyTTLToNameAndType(int ttl, String name, String type) {
+                delegateBatch.applyTTLToNameAndType(ttl, name, type);
+                return touched(name, type);
+            }
+
+            public Batch replace(ResourceRecordSet<?> rrset) {
+                delegateBatch.replace(rrset);
+                return touched(rrset.getName(), rrset.getType());
+            }
+
+            public Batch remove(ResourceRecordSet<?> rrset) {
+                delegateBatch.remove(rrset);
+                return touched(rrset.getName(), rrset.getType());
+            }
+
+            public Batch deleteByNameAndType(String name, String type) {
+                delegateBatch.deleteByNameAndType(name, type);
+                return touched(name, type);
+            }
+
+            private synchronized Batch touched(String name, String type) {
+                touched.add(key(name, type));
+                return this;
+            }
+
+            public synchronized void commit() {
+                invalidateAll(touched);
+                try {
+                    delegateBatch.commit();
+                } finally {
+                    invalidateAll(touched);
+                }
+            }
+        };
+    }
+
+    private void invalidate(String name, String type) {
+        if (name != null && type != null)
+            generations.advance(cache, key(name, type));
+    }
+
+    private void invalidateAll(List<List<String>> keys) {
+        for (List<String> key : keys)
+            generations.advance(cache, key);
+    }
+
+    private List<String> key(String name, String type) {
+        return ImmutableList.of(zoneName, name, type);
+    }
+
+    @Override
+    public String toString() {
+        return "Caching(" + delegate + ")";
+    }
+
+    /**
+     * counts writes per name and type, striped so that memory is fixed. A
+     * lookup records the generation of its key before calling the delegate,
+     * and only caches its result if no write advanced it since. Advancing and
+     * conditionally caching hold the stripe's lock, so a result is either
+     * rejected or cached before the write invalidates it.
+     */
+    static final class WriteGenerations {
+        private static final int STRIPES = 64;
+        private final long[] generations = new long[STRIPES];
+        private final Object[] locks = new Object[STRIPES];
+
+        WriteGenerations() {
+            for (int i = 0; i < STRIPES; i++)
+                locks[i] = new Object();
+        }
+
+        long current(List<String> key) {
+            int stripe = stripe(key);
+            synchronized (locks[stripe]) {
+                return generations[stripe];
+            }
+        }
+
+        void advance(Cache<List<String>, Optional<ResourceRecordSet<?>>> cache, List<String> key) {
+            int stripe = stripe(key);
+            synchronized (locks[stripe]) {
+                generations[stripe]++;
+                cache.invalidate(key);
+            }
+        }
+
+        void putIfCurrent(Cache<List<String>, Optional<ResourceRecordSet<?>>> cache, List<String> key, long generation,
+                Optional<ResourceRecordSet<?>> value) {
+            int stripe = stripe(key);
+            synchronized (locks[stripe]) {
+                if (generations[stripe] == generation)
+                    cache.put(key, value);
+            }
+        }
+
+        private static int stripe(List<String> key) {
+            int h = key.hashCode();
+            return (h ^ (h >>> 16)) & (STRIPES - 1);
+        }
+    }
+}
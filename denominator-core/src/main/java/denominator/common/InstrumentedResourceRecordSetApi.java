@@ -0,0 +1,260 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+
+import denominator.ResourceRecordSetApi;
+import denominator.ZoneApi;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Records the latency, outcome, and {@link RemoteCalls remote calls} of each
+ * call into {@link OperationStats}, keyed on provider and method name.
+ * Batches are recorded as {@code commit}, and creating the api for a zone as
+ * {@code getResourceRecordSetApiForZone}.
+ *
+ * Listings are lazy on some providers, so their latency and remote calls only
+ * include work done before the iterator is returned.
+ *
+ * @see denominator.config.InstrumentOperations
+ */
+@Beta
+public final class InstrumentedResourceRecordSetApi implements ResourceRecordSetApi {
+
+    public static final class Factory implements ResourceRecordSetApi.Factory {
+        private final ResourceRecordSetApi.Factory delegate;
+        private final String provider;
+        private final OperationStats stats;
+
+        /**
+         * @param delegate
+         *            factory of the provider
+         * @param provider
+         *            {@link denominator.Provider#getName() name} of the provider
+         */
+        public Factory(ResourceRecordSetApi.Factory delegate, String provider, OperationStats stats) {
+            this.delegate = checkNotNull(delegate, "delegate");
+            this.provider = checkNotNull(provider, "provider");
+            this.stats = checkNotNull(stats, "stats");
+        }
+
+        /**
+         * recorded, as some providers call the api to look up the zone.
+         */
+        @Override
+        public ResourceRecordSetApi create(String zoneName) {
+            Call call = new Call(provider, "getResourceRecordSetApiForZone", stats);
+            try {
+                return new InstrumentedResourceRecordSetApi(call.succeeded(delegate.create(zoneName)), provider,
+                        stats);
+            } finally {
+                call.end();
+            }
+        }
+    }
+
+    /**
+     * @see InstrumentedResourceRecordSetApi
+     */
+    public static ZoneApi instrument(final ZoneApi delegate, final String provider, final OperationStats stats) {
+        checkNotNull(delegate, "delegate");
+        checkNotNull(provider, "provider");
+        checkNotNull(stats, "stats");
+        return new ZoneApi() {
+            public Iterator<String> list() {
+                Call call = new Call(provider, "listZones", stats);
+                try {
+                    return call.succeeded(delegate.list());
+                } finally {
+                    call.end();
+                }
+            }
+
+            @Override
+            public String toString() {
+                return "Instrumented(" + delegate + ")";
+            }
+        };
+    }
+
+    private final ResourceRecordSetApi delegate;
+    private final String provider;
+    private final OperationStats stats;
+
+    InstrumentedResourceRecordSetApi(ResourceRecordSetApi delegate, String provider, OperationStats stats) {
+        this.delegate = delegate;
+        this.provider = provider;
+        this.stats = stats;
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> list() {
+        Call call = start("list");
+        try {
+            return call.succeeded(delegate.list());
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> listByName(String name) {
+        Call call = start("listByName");
+        try {
+            return call.succeeded(delegate.listByName(name));
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public Optional<ResourceRecordSet<?>> getByNameAndType(String name, String type) {
+        Call call = start("getByNameAndType");
+        try {
+            return call.succeeded(delegate.getByNameAndType(name, type));
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public void add(ResourceRecordSet<?> rrset) {
+        Call call = start("add");
+        try {
+            delegate.add(rrset);
+            call.succeeded(null);
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public void applyTTLToNameAndType(int ttl, String name, String type) {
+        Call call = start("applyTTLToNameAndType");
+        try {
+            delegate.applyTTLToNameAndType(ttl, name, type);
+            call.succeeded(null);
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public void replace(ResourceRecordSet<?> rrset) {
+        Call call = start("replace");
+        try {
+            delegate.replace(rrset);
+            call.succeeded(null);
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public void remove(ResourceRecordSet<?> rrset) {
+        Call call = start("remove");
+        try {
+            delegate.remove(rrset);
+            call.succeeded(null);
+        } finally {
+            call.end();
+        }
+    }
+
+    @Override
+    public void deleteByNameAndType(String name, String type) {
+        Call call = start("deleteByNameAndType");
+        try {
+            delegate.deleteByNameAndType(name, type);
+            call.succeeded(null);
+        } finally {
+            call.end();
+        }
+    }
+
+    /**
+     * staging is not recorded, as it is usually local.
+     */
+    @Override
+    public Batch begin() {
+        final Batch delegateBatch = delegate.begin();
+        return new Batch() {
+            public Batch add(ResourceRecordSet<?> rrset) {
+                delegateBatch.add(rrset);
+                return this;
+            }
+
+            public Batch applyTTLToNameAndType(int ttl, String name, String type) {
+                delegateBatch.applyTTLToNameAndType(ttl, name, type);
+                return this;
+            }
+
+            public Batch replace(ResourceRecordSet<?> rrset) {
+                delegateBatch.replace(rrset);
+                return this;
+            }
+
+            public Batch remove(ResourceRecordSet<?> rrset) {
+                delegateBatch.remove(rrset);
+                return this;
+            }
+
+            public Batch deleteByNameAndType(String name, String type) {
+                delegateBatch.deleteByNameAndType(name, type);
+                return this;
+            }
+
+            public void commit() {
+                Call call = start("commit");
+                try {
+                    delegateBatch.commit();
+                    call.succeeded(null);
+                } finally {
+                    call.end();
+                }
+            }
+        };
+    }
+
+    private Call start(String operation) {
+        return new Call(provider, operation, stats);
+    }
+
+    /**
+     * measures one call from construction until {@link #end()}, which is
+     * recorded as an error unless {@link #succeeded(Object)} was called.
+     */
+    private static final class Call {
+        private final String provider;
+        private final String operation;
+        private final OperationStats stats;
+        private final long startNanos = System.nanoTime();
+        private final long startRemoteCalls = RemoteCalls.count();
+        private boolean failed = true;
+
+        private Call(String provider, String operation, OperationStats stats) {
+            this.provider = provider;
+            this.operation = operation;
+            this.stats = stats;
+        }
+
+        <T> T succeeded(T result) {
+            failed = false;
+            return result;
+        }
+
+        void end() {
+            stats.record(provider, operation, System.nanoTime() - startNanos, failed, RemoteCalls.count()
+                    - startRemoteCalls);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Instrumented(" + delegate + ")";
+    }
+}
@@ -0,0 +1,139 @@
+package denominator.common;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Fans out per-element fetches, such as a {@code GET} for each record id in a
+ * zone, over a bounded pool of threads. Results are returned in the same order
+ * as the input, so sorted input remains sorted and can be fed directly into a
+ * grouping iterator.
+ *
+ * <h4>Memory</h4>
+ *
+ * At most {@link #getConcurrency() concurrency} fetches are in flight or
+ * buffered at any time, regardless of the size of the input.
+ *
+ * @see denominator.config.ConcurrentListing
+ */
+@Beta
+public final class ListingExecutor implements Closeable {
+
+    /**
+     * fetches each element lazily in the caller's thread. Useful for tests or
+     * providers who can list in a single request.
+     */
+    public static ListingExecutor sameThread() {
+        return SAME_THREAD;
+    }
+
+    private static final ListingExecutor SAME_THREAD = new ListingExecutor(sameThreadExecutor(), 1);
+
+    /**
+     * @param concurrency
+     *            maximum count of fetches in flight at the same time.
+     */
+    public static ListingExecutor withConcurrency(int concurrency) {
+        checkArgument(concurrency > 0, "concurrency must be positive, not %s", concurrency);
+        if (concurrency == 1)
+            return sameThread();
+        ThreadFactoryBuilder threads = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("denominator-list-%d");
+        return new ListingExecutor(newFixedThreadPool(concurrency, threads.build()), concurrency);
+    }
+
+    private final ExecutorService executor;
+    private final int concurrency;
+
+    ListingExecutor(ExecutorService executor, int concurrency) {
+        this.executor = checkNotNull(executor, "executor");
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * maximum count of fetches in flight at the same time.
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * lazily applies {@code function} to each element of {@code input},
+     * keeping up to {@link #getConcurrency()} invocations in flight.
+     *
+     * @param input
+     *            ordered input, such as record ids
+     * @param function
+     *            remote call, such as a get by record id. Return values may be
+     *            null, for example if a record was deleted after it was listed.
+     * @return iterator in the same order as {@code input}. Exceptions thrown
+     *         by {@code function} are propagated from {@code next()}.
+     */
+    public <F, T> Iterator<T> transform(Iterator<F> input, Function<? super F, ? extends T> function) {
+        return new OrderedTransformIterator<F, T>(checkNotNull(input, "input"), checkNotNull(function, "function"));
+    }
+
+    private final class OrderedTransformIterator<F, T> extends AbstractIterator<T> {
+        private final Iterator<F> input;
+        private final Function<? super F, ? extends T> function;
+        private final Deque<Future<? extends T>> inFlight = new ArrayDeque<Future<? extends T>>(concurrency);
+
+        private OrderedTransformIterator(Iterator<F> input, Function<? super F, ? extends T> function) {
+            this.input = input;
+            this.function = function;
+        }
+
+        @Override
+        protected T computeNext() {
+            while (inFlight.size() < concurrency && input.hasNext()) {
+                final F next = input.next();
+                inFlight.add(executor.submit(RemoteCalls.countedByCaller(new Callable<T>() {
+                    public T call() {
+                        return function.apply(next);
+                    }
+                })));
+            }
+            if (inFlight.isEmpty())
+                return endOfData();
+            try {
+                return inFlight.remove().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw Throwables.propagate(e);
+            } catch (ExecutionException e) {
+                throw Throwables.propagate(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * stops threads associated with this executor.
+     */
+    @Override
+    public void close() {
+        if (this != SAME_THREAD)
+            executor.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("concurrency", concurrency).toString();
+    }
+}
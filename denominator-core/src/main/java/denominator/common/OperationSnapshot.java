@@ -0,0 +1,113 @@
+package denominator.common;
+
+import static com.google.common.base.Objects.toStringHelper;
+
+import java.beans.ConstructorProperties;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * statistics of one operation, such as {@code replace}, on one provider, since
+ * the last {@link OperationStats#reset() reset}. Latencies are in
+ * milliseconds. Percentiles are accurate to within 25%.
+ */
+@Beta
+public final class OperationSnapshot {
+    private final String provider;
+    private final String operation;
+    private final long count;
+    private final long errors;
+    private final long remoteCalls;
+    private final double meanMillis;
+    private final double p50Millis;
+    private final double p90Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+
+    @ConstructorProperties({ "provider", "operation", "count", "errors", "remoteCalls", "meanMillis", "p50Millis",
+            "p90Millis", "p99Millis", "maxMillis" })
+    public OperationSnapshot(String provider, String operation, long count, long errors, long remoteCalls,
+            double meanMillis, double p50Millis, double p90Millis, double p99Millis, double maxMillis) {
+        this.provider = provider;
+        this.operation = operation;
+        this.count = count;
+        this.errors = errors;
+        this.remoteCalls = remoteCalls;
+        this.meanMillis = meanMillis;
+        this.p50Millis = p50Millis;
+        this.p90Millis = p90Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * {@link denominator.Provider#getName() name} of the provider.
+     */
+    public String getProvider() {
+        return provider;
+    }
+
+    /**
+     * method name, such as {@code getByNameAndType}.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * calls, including those that failed.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * calls that threw an exception.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * requests made to the provider's remote api, summed across all calls.
+     * 
+     * @see RemoteCalls
+     */
+    public long getRemoteCalls() {
+        return remoteCalls;
+    }
+
+    public double getMeanMillis() {
+        return meanMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP90Millis() {
+        return p90Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("provider", provider)
+                                   .add("operation", operation)
+                                   .add("count", count)
+                                   .add("errors", errors)
+                                   .add("remoteCalls", remoteCalls)
+                                   .add("meanMillis", meanMillis)
+                                   .add("p50Millis", p50Millis)
+                                   .add("p90Millis", p90Millis)
+                                   .add("p99Millis", p99Millis)
+                                   .add("maxMillis", maxMillis).toString();
+    }
+}
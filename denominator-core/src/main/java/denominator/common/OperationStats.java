@@ -0,0 +1,167 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+/**
+ * Counts, errors, remote calls, and latency of each operation, per provider.
+ * Recording is lock-free, and memory is fixed per operation, regardless of
+ * how many calls are recorded.
+ *
+ * @see InstrumentedResourceRecordSetApi
+ * @see denominator.config.InstrumentOperations
+ */
+@Beta
+public final class OperationStats implements OperationStatsMXBean {
+    private final ConcurrentMap<List<String>, Recorder> recorders = Maps.newConcurrentMap();
+
+    void record(String provider, String operation, long nanos, boolean failed, long remoteCalls) {
+        List<String> key = ImmutableList.of(provider, operation);
+        Recorder recorder = recorders.get(key);
+        if (recorder == null) {
+            Recorder newRecorder = new Recorder();
+            recorder = recorders.putIfAbsent(key, newRecorder);
+            if (recorder == null)
+                recorder = newRecorder;
+        }
+        recorder.record(nanos, failed, remoteCalls);
+    }
+
+    /**
+     * statistics for each operation called, sorted by provider, then
+     * operation.
+     */
+    public List<OperationSnapshot> snapshot() {
+        ImmutableList.Builder<OperationSnapshot> snapshots = ImmutableList.builder();
+        for (Map.Entry<List<String>, Recorder> entry : BY_PROVIDER_AND_OPERATION.sortedCopy(recorders.entrySet())) {
+            snapshots.add(entry.getValue().snapshot(entry.getKey().get(0), entry.getKey().get(1)));
+        }
+        return snapshots.build();
+    }
+
+    /**
+     * returns statistics for {@code operation} on {@code provider}, if it has
+     * been called.
+     */
+    public OperationSnapshot snapshot(String provider, String operation) {
+        Recorder recorder = recorders.get(ImmutableList.of(checkNotNull(provider, "provider"),
+                checkNotNull(operation, "operation")));
+        return recorder != null ? recorder.snapshot(provider, operation) : null;
+    }
+
+    @Override
+    public List<OperationSnapshot> getOperations() {
+        return snapshot();
+    }
+
+    /**
+     * discards all statistics recorded so far.
+     */
+    @Override
+    public void reset() {
+        recorders.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "OperationStats(" + recorders.keySet() + ")";
+    }
+
+    private static final Ordering<Map.Entry<List<String>, Recorder>> BY_PROVIDER_AND_OPERATION = Ordering
+            .<String> natural().lexicographical().onResultOf(
+                    new Function<Map.Entry<List<String>, Recorder>, List<String>>() {
+                        public List<String> apply(Map.Entry<List<String>, Recorder> input) {
+                            return input.getKey();
+                        }
+                    });
+
+    /**
+     * Latency is recorded in microseconds into exponential buckets, four per
+     * power of two. Percentiles report the upper bound of their bucket.
+     */
+    static final class Recorder {
+        static final int SUB_BUCKETS = 4;
+        // covers up to 2^40 microseconds, or about 12 days
+        static final int BUCKETS = 40 * SUB_BUCKETS;
+
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong remoteCalls = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos, boolean failed, long calls) {
+            count.incrementAndGet();
+            if (failed)
+                errors.incrementAndGet();
+            remoteCalls.addAndGet(calls);
+            totalNanos.addAndGet(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos))
+                ;
+            buckets.incrementAndGet(bucket(NANOSECONDS.toMicros(nanos)));
+        }
+
+        OperationSnapshot snapshot(String provider, String operation) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            long calls = count.get();
+            return new OperationSnapshot(provider, operation, calls, errors.get(), remoteCalls.get(),
+                    calls == 0 ? 0 : millis(totalNanos.get()) / calls,
+                    percentile(counts, total, 0.50),
+                    percentile(counts, total, 0.90),
+                    percentile(counts, total, 0.99),
+                    millis(maxNanos.get()));
+        }
+
+        static int bucket(long micros) {
+            if (micros < SUB_BUCKETS)
+                return (int) Math.max(micros, 0);
+            int exponent = 63 - Long.numberOfLeadingZeros(micros);
+            int subBucket = (int) (micros >> (exponent - 2)) & (SUB_BUCKETS - 1);
+            return Math.min((exponent - 1) * SUB_BUCKETS + subBucket, BUCKETS - 1);
+        }
+
+        static long upperBoundMicros(int bucket) {
+            if (bucket < SUB_BUCKETS)
+                return bucket;
+            int exponent = bucket / SUB_BUCKETS + 1;
+            long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 2);
+            return lowerBound + (1L << (exponent - 2)) - 1;
+        }
+
+        static double percentile(long[] counts, long total, double percentile) {
+            if (total == 0)
+                return 0;
+            long rank = (long) Math.ceil(total * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return upperBoundMicros(i) / 1000.0;
+            }
+            return upperBoundMicros(counts.length - 1) / 1000.0;
+        }
+
+        static double millis(long nanos) {
+            return nanos / 1000000.0;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package denominator.common;
+
+import java.util.List;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * JMX view of {@link OperationStats}.
+ */
+@Beta
+public interface OperationStatsMXBean {
+
+    /**
+     * @see OperationStats#snapshot()
+     */
+    List<OperationSnapshot> getOperations();
+
+    /**
+     * @see OperationStats#reset()
+     */
+    void reset();
+}
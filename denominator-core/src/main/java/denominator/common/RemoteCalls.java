@@ -0,0 +1,134 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Counts requests made to a provider's remote api, such as an http or soap
+ * call, so that they can be attributed to the denominator call that caused
+ * them.
+ *
+ * Counts are per thread. Work handed to other threads, such as by
+ * {@link ListingExecutor}, is counted against the thread that submitted it.
+ *
+ * @see InstrumentedResourceRecordSetApi
+ */
+@Beta
+public final class RemoteCalls {
+
+    private static final ThreadLocal<AtomicLong> COUNT = new ThreadLocal<AtomicLong>() {
+        @Override
+        protected AtomicLong initialValue() {
+            return new AtomicLong();
+        }
+    };
+
+    /**
+     * count of remote calls made by the current thread so far. Only the
+     * difference between two reads is meaningful.
+     */
+    public static long count() {
+        return COUNT.get().get();
+    }
+
+    /**
+     * counts each call to {@code delegate} as one remote call. Methods that
+     * return an interface in the same package or a subpackage of {@code type},
+     * such as accessors of feature apis, are not counted themselves. Instead,
+     * the interface they return is counted the same way. Methods of
+     * {@link Object} and {@link Closeable} are not counted.
+     *
+     * Follow-on requests made by lazy return values, such as the next page of
+     * a listing, are not counted. Providers should request each page through
+     * the returned api instead.
+     *
+     * @param type
+     *            remote api, such as {@code org.jclouds.route53.Route53Api}
+     */
+    public static <T> T counting(Class<T> type, T delegate) {
+        return intercept(type, delegate, new Interceptor() {
+            Object invoke(Method method, Object delegate, Object[] args) throws Throwable {
+                COUNT.get().incrementAndGet();
+                return proceed(method, delegate, args);
+            }
+        });
+    }
+
+    /**
+     * invoked around each remote call of an api proxied by
+     * {@link RemoteCalls#intercept(Class, Object, Interceptor)}.
+     */
+    abstract static class Interceptor {
+        abstract Object invoke(Method method, Object delegate, Object[] args) throws Throwable;
+
+        static Object proceed(Method method, Object delegate, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * proxies {@code delegate}, passing remote calls through
+     * {@code interceptor}. Which methods are remote calls is described in
+     * {@link #counting(Class, Object)}.
+     */
+    static <T> T intercept(Class<T> type, T delegate, Interceptor interceptor) {
+        checkArgument(checkNotNull(type, "type").isInterface(), "%s is not an interface", type);
+        checkNotNull(delegate, "delegate");
+        checkNotNull(interceptor, "interceptor");
+        return type.cast(intercept(type, delegate, type.getPackage().getName(), interceptor));
+    }
+
+    private static Object intercept(Class<?> type, final Object delegate, final String rootPackage,
+            final Interceptor interceptor) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Class<?> returnType = method.getReturnType();
+                if (returnType.isInterface() && returnType.getName().startsWith(rootPackage + ".")) {
+                    Object featureApi = Interceptor.proceed(method, delegate, args);
+                    return featureApi != null ? intercept(returnType, featureApi, rootPackage, interceptor) : null;
+                }
+                Class<?> declaring = method.getDeclaringClass();
+                if (declaring == Object.class || declaring == Closeable.class)
+                    return Interceptor.proceed(method, delegate, args);
+                return interceptor.invoke(method, delegate, args);
+            }
+        });
+    }
+
+    /**
+     * runs {@code task} counting remote calls against the thread calling this
+     * method.
+     */
+    public static <T> Callable<T> countedByCaller(final Callable<T> task) {
+        checkNotNull(task, "task");
+        final AtomicLong callers = COUNT.get();
+        return new Callable<T>() {
+            public T call() throws Exception {
+                AtomicLong previous = COUNT.get();
+                COUNT.set(callers);
+                try {
+                    return task.call();
+                } finally {
+                    COUNT.set(previous);
+                }
+            }
+        };
+    }
+
+    private RemoteCalls() {
+    }
+}
@@ -0,0 +1,110 @@
+package denominator.common;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.List;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Lists;
+
+import denominator.ResourceRecordSetApi;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * A {@link Batch} for providers who cannot apply multiple changes in one
+ * request. Changes are applied one at a time, in the order they were staged.
+ * If a change fails, the changes before it remain applied and the ones after
+ * it are not attempted.
+ */
+@Beta
+public final class SequentialBatch implements Batch {
+    private final ResourceRecordSetApi api;
+    private final List<Change> changes = Lists.newArrayList();
+    private boolean committed;
+
+    public SequentialBatch(ResourceRecordSetApi api) {
+        this.api = checkNotNull(api, "api");
+    }
+
+    private abstract static class Change {
+        abstract void apply(ResourceRecordSetApi api);
+    }
+
+    @Override
+    public Batch add(final ResourceRecordSet<?> rrset) {
+        return stage(rrset, new Change() {
+            void apply(ResourceRecordSetApi api) {
+                api.add(rrset);
+            }
+        });
+    }
+
+    @Override
+    public Batch applyTTLToNameAndType(final int ttl, final String name, final String type) {
+        return stage(name, type, new Change() {
+            void apply(ResourceRecordSetApi api) {
+                api.applyTTLToNameAndType(ttl, name, type);
+            }
+        });
+    }
+
+    @Override
+    public Batch replace(final ResourceRecordSet<?> rrset) {
+        return stage(rrset, new Change() {
+            void apply(ResourceRecordSetApi api) {
+                api.replace(rrset);
+            }
+        });
+    }
+
+    @Override
+    public Batch remove(final ResourceRecordSet<?> rrset) {
+        return stage(rrset, new Change() {
+            void apply(ResourceRecordSetApi api) {
+                api.remove(rrset);
+            }
+        });
+    }
+
+    @Override
+    public Batch deleteByNameAndType(final String name, final String type) {
+        return stage(name, type, new Change() {
+            void apply(ResourceRecordSetApi api) {
+                api.deleteByNameAndType(name, type);
+            }
+        });
+    }
+
+    private Batch stage(ResourceRecordSet<?> rrset, Change change) {
+        checkNotNull(rrset, "rrset was null");
+        return stage(change);
+    }
+
+    private Batch stage(String name, String type, Change change) {
+        checkNotNull(name, "name");
+        checkNotNull(type, "type");
+        return stage(change);
+    }
+
+    private synchronized Batch stage(Change change) {
+        checkState(!committed, "batch already committed");
+        changes.add(change);
+        return this;
+    }
+
+    @Override
+    public synchronized void commit() {
+        checkState(!committed, "batch already committed");
+        committed = true;
+        for (Change change : changes)
+            change.apply(api);
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this).add("api", api).add("changes", changes.size()).toString();
+    }
+}
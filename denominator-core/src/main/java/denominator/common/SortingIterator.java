@@ -0,0 +1,99 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+
+/**
+ * Sorts lazily, returning the least element first. This is an alternative to
+ * {@code FluentIterable.toSortedList()} when the consumer is an iterator, such
+ * as one that groups records into rrsets.
+ *
+ * <h4>Performance</h4>
+ *
+ * The input is arranged into a binary heap in linear time, so the first
+ * element is available without sorting the rest. Each subsequent element costs
+ * {@code O(log n)}. The heap holds references to the input elements, not
+ * copies. Elements are released as they are returned, so a consumer who
+ * discards them keeps memory usage falling as iteration proceeds.
+ *
+ * <h4>Stability</h4>
+ *
+ * Elements that compare equal are returned in the order of the input, the
+ * same as a stable sort.
+ */
+@Beta
+public final class SortingIterator<T> extends AbstractIterator<T> {
+
+    /**
+     * @param unsorted
+     *            elements to sort, which are consumed on construction.
+     * @param comparator
+     *            defines the order of elements returned.
+     */
+    public static <T> SortingIterator<T> sort(Iterator<? extends T> unsorted, Comparator<? super T> comparator) {
+        return new SortingIterator<T>(checkNotNull(unsorted, "unsorted"), checkNotNull(comparator, "comparator"));
+    }
+
+    private final Comparator<? super T> comparator;
+    private final List<T> heap;
+    // original position of each element in the heap, used to break ties.
+    private final int[] positions;
+
+    private SortingIterator(Iterator<? extends T> unsorted, Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.heap = Lists.newArrayList(unsorted);
+        this.positions = new int[heap.size()];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = i;
+        for (int i = heap.size() / 2 - 1; i >= 0; i--)
+            siftDown(i);
+    }
+
+    @Override
+    protected T computeNext() {
+        if (heap.isEmpty())
+            return endOfData();
+        T least = heap.get(0);
+        int last = heap.size() - 1;
+        swap(0, last);
+        heap.remove(last);
+        siftDown(0);
+        return least;
+    }
+
+    private void siftDown(int index) {
+        int size = heap.size();
+        while (true) {
+            int least = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && lessThan(left, least))
+                least = left;
+            if (right < size && lessThan(right, least))
+                least = right;
+            if (least == index)
+                return;
+            swap(index, least);
+            index = least;
+        }
+    }
+
+    private boolean lessThan(int i, int j) {
+        int result = comparator.compare(heap.get(i), heap.get(j));
+        return result < 0 || (result == 0 && positions[i] < positions[j]);
+    }
+
+    private void swap(int i, int j) {
+        heap.set(i, heap.set(j, heap.get(i)));
+        int position = positions[i];
+        positions[i] = positions[j];
+        positions[j] = position;
+    }
+}
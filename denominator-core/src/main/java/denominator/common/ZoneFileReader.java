@@ -0,0 +1,400 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Lists;
+
+import denominator.model.RDataCodec;
+import denominator.model.ResourceRecordSet;
+import denominator.model.Symbols;
+
+/**
+ * Reads resource record sets from a file in <a
+ * href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a> master file format,
+ * such as one written by BIND or {@link ZoneFileWriter}.
+ *
+ * Records are parsed as the iterator advances, so memory use does not depend
+ * on the size of the file. Consecutive records with the same name, type, and
+ * ttl are returned as one record set. Files that list the records of a set
+ * apart from each other will return more than one record set for it, which
+ * {@link denominator.ResourceRecordSetApi#add(ResourceRecordSet) add} merges.
+ *
+ * <pre>
+ * ZoneFileReader reader = ZoneFileReader.create(new FileInputStream(&quot;denominator.io.zone&quot;), false,
+ *         &quot;denominator.io.&quot;);
+ * try {
+ *     Batch batch = api.getResourceRecordSetApiForZone(&quot;denominator.io.&quot;).begin();
+ *     while (reader.hasNext())
+ *         batch.add(reader.next());
+ *     batch.commit();
+ * } finally {
+ *     reader.close();
+ * }
+ * </pre>
+ *
+ * {@code $ORIGIN} and {@code $TTL} directives, comments, parentheses, omitted
+ * owner names, and ttls with units such as {@code 1h} are supported. Relative
+ * names are qualified with the current origin. Records without a ttl and
+ * without a preceding {@code $TTL} have no ttl, so that they take the zone's
+ * default. Only the {@code IN} class and types with an {@link RDataCodec} are
+ * supported.
+ *
+ * @see ZoneFileWriter
+ */
+@Beta
+public final class ZoneFileReader extends AbstractIterator<ResourceRecordSet<?>> implements Closeable {
+
+    /**
+     * reads from {@code in}, optionally decompressing with gzip.
+     *
+     * @param origin
+     *            initial origin, usually the zone name, or null if the file
+     *            starts with an {@code $ORIGIN} directive.
+     */
+    public static ZoneFileReader create(InputStream in, boolean gzip, String origin) throws IOException {
+        checkNotNull(in, "in");
+        if (gzip)
+            in = new GZIPInputStream(in, ZoneFileWriter.BUFFER_SIZE);
+        return new ZoneFileReader(new InputStreamReader(in, Charsets.UTF_8), origin);
+    }
+
+    private final BufferedReader in;
+    private String origin;
+    private Integer defaultTTL;
+    private String previousName;
+    private int lineNumber;
+
+    // tokens of the current logical line, reused between lines
+    private final List<String> tokens = Lists.newArrayList();
+    private final StringBuilder token = new StringBuilder();
+    private boolean ownerOmitted;
+
+    // record read ahead, but not yet added to a record set
+    private String name;
+    private String type;
+    private Integer ttl;
+    private Map<String, Object> rdata;
+
+    /**
+     * @param in
+     *            buffered unless it is already a {@link BufferedReader}.
+     * @param origin
+     *            initial origin, usually the zone name, or null if the file
+     *            starts with an {@code $ORIGIN} directive.
+     */
+    public ZoneFileReader(Reader in, String origin) {
+        checkNotNull(in, "in");
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in,
+                ZoneFileWriter.BUFFER_SIZE);
+        this.origin = origin != null ? absolute(origin) : null;
+    }
+
+    /**
+     * @throws IllegalArgumentException
+     *             if a line could not be parsed. The message includes the line
+     *             number.
+     */
+    @Override
+    protected ResourceRecordSet<?> computeNext() {
+        ResourceRecordSet.Builder<Map<String, Object>> builder = null;
+        String builderName = null;
+        String builderType = null;
+        Integer builderTTL = null;
+        while (rdata != null || readRecord()) {
+            if (builder == null) {
+                builderName = name;
+                builderType = type;
+                builderTTL = ttl;
+                builder = ResourceRecordSet.<Map<String, Object>> builder().name(name).type(type).ttl(ttl);
+            } else if (!builderName.equals(name) || !builderType.equals(type) || !Objects.equal(builderTTL, ttl)) {
+                return builder.build();
+            }
+            builder.add(rdata);
+            rdata = null;
+        }
+        return builder != null ? builder.build() : endOfData();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * reads up to the next record, returning false at the end of the file.
+     */
+    private boolean readRecord() {
+        while (readLine()) {
+            String first = tokens.get(0);
+            if (!ownerOmitted && first.startsWith("$")) {
+                directive(first);
+                continue;
+            }
+            int i = 0;
+            if (ownerOmitted) {
+                if (previousName == null)
+                    throw error("no previous owner name");
+            } else {
+                previousName = qualify(tokens.get(i++));
+            }
+            Integer ttl = defaultTTL;
+            // ttl and class are optional, and can be in either order
+            for (int j = 0; j < 2 && i < tokens.size() - 1; j++) {
+                String next = tokens.get(i);
+                if (next.length() > 0 && Character.isDigit(next.charAt(0))) {
+                    ttl = parseTTL(next);
+                    i++;
+                } else if ("IN".equalsIgnoreCase(next)) {
+                    i++;
+                } else if ("CH".equalsIgnoreCase(next) || "HS".equalsIgnoreCase(next)
+                        || "CS".equalsIgnoreCase(next)) {
+                    throw error("unsupported class " + next);
+                } else {
+                    break;
+                }
+            }
+            if (i >= tokens.size())
+                throw error("missing type");
+            this.name = previousName;
+            this.type = Symbols.intern(tokens.get(i++).toUpperCase());
+            this.ttl = ttl;
+            this.rdata = parseRData(type, i);
+            return true;
+        }
+        return false;
+    }
+
+    private void directive(String directive) {
+        if ("$ORIGIN".equalsIgnoreCase(directive) && tokens.size() == 2) {
+            origin = qualify(tokens.get(1));
+        } else if ("$TTL".equalsIgnoreCase(directive) && tokens.size() == 2) {
+            defaultTTL = parseTTL(tokens.get(1));
+        } else {
+            throw error("unsupported directive " + directive);
+        }
+    }
+
+    private Map<String, Object> parseRData(String type, int i) {
+        RDataCodec<?> codec = RDataCodec.forType(type);
+        if (codec == null)
+            throw error("unsupported type " + type);
+        List<String> fields = tokens.subList(i, tokens.size());
+        try {
+            for (int field = 0; field < fields.size(); field++) {
+                if (codec.isDomainName(field))
+                    fields.set(field, qualify(fields.get(field)));
+            }
+            // timers after the serial can have units, like ttls
+            if ("SOA".equals(type)) {
+                for (int field = 3; field < fields.size(); field++)
+                    fields.set(field, Integer.toString(parseTTL(fields.get(field))));
+            }
+            return codec.parse(fields);
+        } catch (ParseException e) {
+            throw e;
+        } catch (IllegalArgumentException e) {
+            // invalid rdata, including NumberFormatException
+            throw error(format("invalid %s rdata: %s", type, e.getMessage()));
+        }
+    }
+
+    private String qualify(String name) {
+        if ("@".equals(name)) {
+            if (origin == null)
+                throw error("@ used before $ORIGIN");
+            return origin;
+        }
+        if (name.endsWith("."))
+            return Symbols.intern(name);
+        if (origin == null)
+            throw error(format("relative name %s used before $ORIGIN", name));
+        return Symbols.intern(name + '.' + origin);
+    }
+
+    private static String absolute(String origin) {
+        return Symbols.intern(origin.endsWith(".") ? origin : origin + '.');
+    }
+
+    /**
+     * parses seconds, or a ttl with units such as {@code 1h30m}, as BIND does.
+     */
+    private int parseTTL(String value) {
+        long seconds = 0;
+        long number = -1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = (number == -1 ? 0 : number * 10) + (c - '0');
+            } else {
+                long unit = unit(c);
+                if (number == -1 || unit == -1)
+                    throw error("invalid ttl " + value);
+                seconds += number * unit;
+                number = -1;
+            }
+            if (seconds > Integer.MAX_VALUE || number > Integer.MAX_VALUE)
+                throw error("invalid ttl " + value);
+        }
+        if (number != -1)
+            seconds += number;
+        if (seconds > Integer.MAX_VALUE)
+            throw error("invalid ttl " + value);
+        return (int) seconds;
+    }
+
+    private static long unit(char c) {
+        switch (Character.toLowerCase(c)) {
+        case 's':
+            return 1;
+        case 'm':
+            return 60;
+        case 'h':
+            return 60 * 60;
+        case 'd':
+            return 24 * 60 * 60;
+        case 'w':
+            return 7 * 24 * 60 * 60;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * reads the next line with tokens into {@link #tokens}, joining lines
+     * continued by parentheses. Returns false at the end of the file.
+     */
+    private boolean readLine() {
+        tokens.clear();
+        ownerOmitted = false;
+        int depth = 0;
+        String line;
+        do {
+            line = nextPhysicalLine();
+            if (line == null) {
+                if (depth > 0)
+                    throw error("unbalanced parentheses");
+                return false;
+            }
+            if (depth == 0 && tokens.isEmpty())
+                ownerOmitted = line.length() > 0 && Character.isWhitespace(line.charAt(0));
+            depth = tokenize(line, depth);
+        } while (depth > 0 || tokens.isEmpty());
+        return true;
+    }
+
+    private String nextPhysicalLine() {
+        try {
+            String line = in.readLine();
+            if (line != null)
+                lineNumber++;
+            return line;
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * adds the tokens in {@code line} and returns the parenthesis depth at
+     * its end.
+     */
+    private int tokenize(String line, int depth) {
+        int i = 0;
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == ';') {
+                break;
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                if (--depth < 0)
+                    throw error("unbalanced parentheses");
+                i++;
+            } else if (c == '"') {
+                i = quoted(line, i + 1);
+            } else {
+                token.setLength(0);
+                while (i < length && !isDelimiter(c = line.charAt(i))) {
+                    token.append(c);
+                    i++;
+                }
+                tokens.add(token.toString());
+            }
+        }
+        return depth;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return Character.isWhitespace(c) || c == ';' || c == '(' || c == ')' || c == '"';
+    }
+
+    /**
+     * adds the quoted string starting at {@code i}, unescaping {@code \"},
+     * {@code \\}, and {@code \DDD}, and returns the index after its closing
+     * quote.
+     */
+    private int quoted(String line, int i) {
+        token.setLength(0);
+        int length = line.length();
+        while (i < length) {
+            char c = line.charAt(i++);
+            if (c == '"') {
+                tokens.add(token.toString());
+                return i;
+            } else if (c == '\\' && i < length) {
+                if (i + 3 <= length && isDigits(line, i, i + 3)) {
+                    token.append((char) Integer.parseInt(line.substring(i, i + 3)));
+                    i += 3;
+                } else {
+                    token.append(line.charAt(i++));
+                }
+            } else {
+                token.append(c);
+            }
+        }
+        throw error("unterminated quoted string");
+    }
+
+    private static boolean isDigits(String line, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private ParseException error(String message) {
+        return new ParseException(format("line %s: %s", lineNumber, message));
+    }
+
+    /**
+     * distinguishes errors that already include the line number.
+     */
+    private static final class ParseException extends IllegalArgumentException {
+        private static final long serialVersionUID = 1L;
+
+        ParseException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package denominator.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+
+import denominator.model.RDataCodec;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Writes resource record sets in <a
+ * href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a> master file format,
+ * one record per line.
+ *
+ * Record sets are written as they are read from the iterator, through a
+ * buffer, so memory use does not depend on the size of the zone.
+ *
+ * <pre>
+ * ZoneFileWriter writer = ZoneFileWriter.create(new FileOutputStream(&quot;denominator.io.zone.gz&quot;), true);
+ * try {
+ *     writer.origin(&quot;denominator.io.&quot;);
+ *     writer.writeAll(api.getResourceRecordSetApiForZone(&quot;denominator.io.&quot;).list());
+ * } finally {
+ *     writer.close();
+ * }
+ * </pre>
+ *
+ * Names are always written absolute. The origin, owner names, and domain
+ * names in rdata are given a trailing dot when the provider returns them
+ * without one, as DynECT does, so that they aren't read back relative to the
+ * origin. Record sets without a ttl are written without one, so
+ * that they take the zone's default. Rdata is formatted by its
+ * {@link RDataCodec}, or if there is none, written in order, separated by
+ * spaces.
+ *
+ * @see ZoneFileReader
+ */
+@Beta
+public final class ZoneFileWriter implements Closeable, Flushable {
+
+    /**
+     * writes to {@code out}, optionally compressing with gzip.
+     */
+    public static ZoneFileWriter create(OutputStream out, boolean gzip) throws IOException {
+        checkNotNull(out, "out");
+        if (gzip)
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        return new ZoneFileWriter(new OutputStreamWriter(out, Charsets.UTF_8));
+    }
+
+    /**
+     * writes to {@code channel}, optionally compressing with gzip.
+     */
+    public static ZoneFileWriter create(WritableByteChannel channel, boolean gzip) throws IOException {
+        return create(Channels.newOutputStream(checkNotNull(channel, "channel")), gzip);
+    }
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer out;
+
+    /**
+     * @param out
+     *            buffered unless it is already a {@link BufferedWriter}.
+     */
+    public ZoneFileWriter(Writer out) {
+        checkNotNull(out, "out");
+        this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, BUFFER_SIZE);
+    }
+
+    /**
+     * writes an {@code $ORIGIN} directive, usually the zone name.
+     */
+    public ZoneFileWriter origin(String origin) throws IOException {
+        out.append("$ORIGIN ").append(absolute(checkNotNull(origin, "origin"))).append('\n');
+        return this;
+    }
+
+    /**
+     * writes a line for each rdata in the record set.
+     */
+    public ZoneFileWriter write(ResourceRecordSet<?> rrset) throws IOException {
+        checkNotNull(rrset, "rrset");
+        RDataCodec<?> codec = RDataCodec.forType(rrset.getType());
+        for (Map<String, Object> rdata : rrset) {
+            out.append(absolute(rrset.getName())).append('\t');
+            if (rrset.getTTL().isPresent())
+                out.append(rrset.getTTL().get().toString()).append('\t');
+            out.append("IN\t").append(rrset.getType()).append('\t');
+            if (codec != null) {
+                out.append(codec.formatText(absoluteDomainNames(codec, rdata)));
+            } else {
+                appendRData(rdata);
+            }
+            out.append('\n');
+        }
+        return this;
+    }
+
+    /**
+     * writes each record set from the iterator, such as
+     * {@link denominator.ResourceRecordSetApi#list()}, until it is exhausted.
+     *
+     * @return count of record sets written.
+     */
+    public long writeAll(Iterator<? extends ResourceRecordSet<?>> rrsets) throws IOException {
+        checkNotNull(rrsets, "rrsets");
+        long count = 0;
+        while (rrsets.hasNext()) {
+            write(rrsets.next());
+            count++;
+        }
+        return count;
+    }
+
+    static String absolute(String name) {
+        return name.endsWith(".") ? name : name + ".";
+    }
+
+    /**
+     * {@code rdata}, or a copy if any of its domain names needed a trailing
+     * dot.
+     */
+    private static Map<String, ?> absoluteDomainNames(RDataCodec<?> codec, Map<String, Object> rdata) {
+        Map<String, Object> absolute = null;
+        int index = 0;
+        for (Entry<String, Object> field : rdata.entrySet()) {
+            if (codec.isDomainName(index++) && field.getValue() != null) {
+                String name = field.getValue().toString();
+                if (!name.endsWith(".")) {
+                    if (absolute == null)
+                        absolute = Maps.newLinkedHashMap(rdata);
+                    absolute.put(field.getKey(), name + ".");
+                }
+            }
+        }
+        return absolute != null ? absolute : rdata;
+    }
+
+    private void appendRData(Map<String, Object> rdata) throws IOException {
+        boolean first = true;
+        for (Object value : rdata.values()) {
+            if (!first)
+                out.append(' ');
+            first = false;
+            out.append(value.toString());
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * flushes and closes the underlying output, finishing gzip compression if
+     * enabled.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,193 @@
+package denominator.common;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Maps;
+
+import denominator.ResourceRecordSetApi;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Converges a zone to a desired set of resource record sets, writing only the
+ * record sets that differ.
+ *
+ * The zone is listed once. Desired record sets are indexed by name and type,
+ * then each listed record set is matched against the index as it streams by.
+ * The desired state is held in memory, as are listed record sets that differ
+ * from it or are to be removed. Those that already match are not retained.
+ *
+ * Record sets are equivalent when they have the same rdata, in any order, and
+ * the same ttl. A desired record set without a ttl matches any ttl.
+ *
+ * The {@code SOA} record set, and the {@code NS} record set at the zone name,
+ * are never removed, as providers manage these. They are still replaced if
+ * present in the desired state and different.
+ */
+@Beta
+public final class ZoneSync {
+
+    /**
+     * calculates the changes needed for {@code existing} to become
+     * {@code desired}.
+     *
+     * @param zoneName
+     *            name of the zone, with or without a trailing dot, whose
+     *            {@code NS} record set is not removed.
+     * @param existing
+     *            typically {@link ResourceRecordSetApi#list()}
+     * @param desired
+     *            at most one record set per name and type.
+     * @throws IllegalArgumentException
+     *             if {@code desired} has more than one record set with the
+     *             same name and type.
+     */
+    public static Changes diff(String zoneName, Iterator<? extends ResourceRecordSet<?>> existing,
+            Iterable<? extends ResourceRecordSet<?>> desired) {
+        String apex = withoutTrailingDot(checkNotNull(zoneName, "zoneName"));
+        checkNotNull(existing, "existing");
+        Map<List<String>, ResourceRecordSet<?>> unmatched = Maps.newLinkedHashMap();
+        for (ResourceRecordSet<?> rrset : checkNotNull(desired, "desired")) {
+            checkNotNull(rrset, "desired contained null");
+            if (unmatched.put(key(rrset), rrset) != null)
+                throw new IllegalArgumentException("desired contains more than one record set for " + key(rrset));
+        }
+
+        ImmutableList.Builder<ResourceRecordSet<?>> replace = ImmutableList.builder();
+        ImmutableList.Builder<ResourceRecordSet<?>> remove = ImmutableList.builder();
+        while (existing.hasNext()) {
+            ResourceRecordSet<?> current = existing.next();
+            ResourceRecordSet<?> wanted = unmatched.remove(key(current));
+            if (wanted == null) {
+                if (!providerManaged(apex, current))
+                    remove.add(current);
+            } else if (!equivalent(current, wanted)) {
+                replace.add(wanted);
+            }
+        }
+        return new Changes(ImmutableList.copyOf(unmatched.values()), replace.build(), remove.build());
+    }
+
+    /**
+     * lists {@code api} once, and applies the changes needed for it to become
+     * {@code desired} in a single {@link ResourceRecordSetApi#begin() batch}.
+     *
+     * @param zoneName
+     *            name of the zone {@code api} is for.
+     * @return changes applied, which are {@link Changes#isEmpty() empty} if
+     *         the zone was already in sync.
+     * @see #diff(String, Iterator, Iterable)
+     */
+    public static Changes sync(String zoneName, ResourceRecordSetApi api,
+            Iterable<? extends ResourceRecordSet<?>> desired) {
+        checkNotNull(api, "api");
+        Changes changes = diff(zoneName, api.list(), desired);
+        if (changes.isEmpty())
+            return changes;
+        Batch batch = api.begin();
+        for (ResourceRecordSet<?> rrset : changes.getRemove())
+            batch.remove(rrset);
+        for (ResourceRecordSet<?> rrset : changes.getReplace())
+            batch.replace(rrset);
+        for (ResourceRecordSet<?> rrset : changes.getAdd())
+            batch.add(rrset);
+        batch.commit();
+        return changes;
+    }
+
+    /**
+     * record sets to add, replace, or remove, in the order they were
+     * encountered.
+     */
+    public static final class Changes {
+        private final ImmutableList<ResourceRecordSet<?>> add;
+        private final ImmutableList<ResourceRecordSet<?>> replace;
+        private final ImmutableList<ResourceRecordSet<?>> remove;
+
+        Changes(ImmutableList<ResourceRecordSet<?>> add, ImmutableList<ResourceRecordSet<?>> replace,
+                ImmutableList<ResourceRecordSet<?>> remove) {
+            this.add = add;
+            this.replace = replace;
+            this.remove = remove;
+        }
+
+        /**
+         * desired record sets whose name and type were not in the zone.
+         */
+        public ImmutableList<ResourceRecordSet<?>> getAdd() {
+            return add;
+        }
+
+        /**
+         * desired record sets whose name and type were in the zone with
+         * different rdata or ttl.
+         */
+        public ImmutableList<ResourceRecordSet<?>> getReplace() {
+            return replace;
+        }
+
+        /**
+         * existing record sets whose name and type were not desired.
+         */
+        public ImmutableList<ResourceRecordSet<?>> getRemove() {
+            return remove;
+        }
+
+        public boolean isEmpty() {
+            return add.isEmpty() && replace.isEmpty() && remove.isEmpty();
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(add, replace, remove);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null || !(obj instanceof Changes))
+                return false;
+            Changes that = Changes.class.cast(obj);
+            return add.equals(that.add) && replace.equals(that.replace) && remove.equals(that.remove);
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this).add("add", add.size()).add("replace", replace.size())
+                    .add("remove", remove.size()).toString();
+        }
+    }
+
+    private static boolean providerManaged(String apex, ResourceRecordSet<?> rrset) {
+        if ("SOA".equals(rrset.getType()))
+            return true;
+        return "NS".equals(rrset.getType()) && withoutTrailingDot(rrset.getName()).equalsIgnoreCase(apex);
+    }
+
+    private static String withoutTrailingDot(String name) {
+        return name.endsWith(".") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    private static List<String> key(ResourceRecordSet<?> rrset) {
+        return ImmutableList.of(rrset.getName(), rrset.getType());
+    }
+
+    private static boolean equivalent(ResourceRecordSet<?> existing, ResourceRecordSet<?> desired) {
+        if (desired.getTTL().isPresent() && !desired.getTTL().equals(existing.getTTL()))
+            return false;
+        return ImmutableMultiset.copyOf(existing).equals(ImmutableMultiset.copyOf(desired));
+    }
+
+    private ZoneSync() {
+    }
+}
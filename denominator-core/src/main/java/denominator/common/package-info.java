@@ -0,0 +1,4 @@
+/**
+ * utilities shared by {@link denominator.Provider} implementations.
+ */
+package denominator.common;
@@ -0,0 +1,78 @@
+package denominator.config;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static dagger.Provides.Type.SET;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.Decorator;
+import denominator.ResourceRecordSetApi;
+import denominator.common.CachingResourceRecordSetApi;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Caches {@link ResourceRecordSetApi#getByNameAndType(String, String)} for
+ * any provider. This is not enabled by default. To enable it, pass an instance
+ * to {@link denominator.Denominator#create(denominator.Provider, Object...)}.
+ *
+ * <pre>
+ * route53 = Denominator.create(&quot;route53&quot;, credentials(accesskey, secretkey), new CacheResourceRecordSets());
+ * </pre>
+ *
+ * @see CachingResourceRecordSetApi
+ */
+@Module(entryPoints = DNSApiManager.class, complete = false)
+public class CacheResourceRecordSets {
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+    public static final long DEFAULT_EXPIRE_AFTER_WRITE_SECONDS = 60;
+
+    private final long maximumSize;
+    private final long expireAfterWrite;
+    private final TimeUnit unit;
+
+    public CacheResourceRecordSets() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_EXPIRE_AFTER_WRITE_SECONDS, SECONDS);
+    }
+
+    /**
+     * @param maximumSize
+     *            maximum count of name and type entries cached across all
+     *            zones.
+     * @param expireAfterWrite
+     *            how long an entry is cached, which bounds how long changes
+     *            made outside this process are not visible.
+     * @param unit
+     *            unit of {@code expireAfterWrite}
+     */
+    public CacheResourceRecordSets(long maximumSize, long expireAfterWrite, TimeUnit unit) {
+        checkArgument(maximumSize >= 0, "maximumSize must not be negative, not %s", maximumSize);
+        checkArgument(expireAfterWrite >= 0, "expireAfterWrite must not be negative, not %s", expireAfterWrite);
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+        this.unit = checkNotNull(unit, "unit");
+    }
+
+    @Provides(type = SET)
+    @Singleton
+    Decorator<ResourceRecordSetApi.Factory> provideCachingDecorator() {
+        final Cache<List<String>, Optional<ResourceRecordSet<?>>> cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize).expireAfterWrite(expireAfterWrite, unit).build();
+        return new Decorator<ResourceRecordSetApi.Factory>() {
+            public ResourceRecordSetApi.Factory decorate(ResourceRecordSetApi.Factory delegate) {
+                return new CachingResourceRecordSetApi.Factory(delegate, cache);
+            }
+        };
+    }
+}
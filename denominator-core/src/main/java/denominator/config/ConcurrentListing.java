@@ -0,0 +1,53 @@
+package denominator.config;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import javax.inject.Singleton;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.common.ListingExecutor;
+
+/**
+ * Controls how many requests a provider may issue at the same time when
+ * listing a zone. This only affects providers whose listings require a request
+ * per record, such as {@code dynect}.
+ *
+ * Providers {@link Module#includes include} this with the
+ * {@link #DEFAULT_CONCURRENCY default}. To change it, pass an instance to
+ * {@link denominator.Denominator#create(denominator.Provider, Object...)}.
+ *
+ * <pre>
+ * dynect = Denominator.create(&quot;dynect&quot;, credentials(customer, username, password), new ConcurrentListing(20));
+ * </pre>
+ *
+ * Make sure the {@link java.io.Closeable} of the provider closes the
+ * {@link ListingExecutor}.
+ */
+@Module(entryPoints = DNSApiManager.class, complete = false)
+public class ConcurrentListing {
+    public static final int DEFAULT_CONCURRENCY = 10;
+
+    private final int concurrency;
+
+    public ConcurrentListing() {
+        this(DEFAULT_CONCURRENCY);
+    }
+
+    /**
+     * @param concurrency
+     *            maximum count of requests in flight per listing. {@code 1}
+     *            means list serially.
+     */
+    public ConcurrentListing(int concurrency) {
+        checkArgument(concurrency > 0, "concurrency must be positive, not %s", concurrency);
+        this.concurrency = concurrency;
+    }
+
+    @Provides
+    @Singleton
+    ListingExecutor provideListingExecutor() {
+        return ListingExecutor.withConcurrency(concurrency);
+    }
+}
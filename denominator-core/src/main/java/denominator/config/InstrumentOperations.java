@@ -0,0 +1,123 @@
+package denominator.config;
+
+import static dagger.Provides.Type.SET;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Singleton;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.google.common.base.Throwables;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.Decorator;
+import denominator.Provider;
+import denominator.ResourceRecordSetApi;
+import denominator.ZoneApi;
+import denominator.common.InstrumentedResourceRecordSetApi;
+import denominator.common.OperationStats;
+
+/**
+ * Records count, errors, remote calls, and latency percentiles of each
+ * {@link ZoneApi} and {@link ResourceRecordSetApi} operation. This is not
+ * enabled by default. To enable it, pass an instance to
+ * {@link denominator.Denominator#create(denominator.Provider, Object...)}, and
+ * read statistics from {@link #getStats()}.
+ *
+ * <pre>
+ * InstrumentOperations instrumentation = new InstrumentOperations();
+ * route53 = Denominator.create(&quot;route53&quot;, credentials(accesskey, secretkey), instrumentation);
+ * ...
+ * instrumentation.getStats().snapshot();
+ * </pre>
+ *
+ * The same instance can be passed to several providers, which records
+ * statistics for each separately. Statistics are also registered with the
+ * platform {@link MBeanServer}, by default as {@link #DEFAULT_OBJECT_NAME} with
+ * an {@code instance} key unique to each module, such as
+ * {@code denominator:type=OperationStats,instance=1}.
+ *
+ * @see InstrumentedResourceRecordSetApi
+ */
+@Module(entryPoints = DNSApiManager.class, complete = false)
+public class InstrumentOperations {
+    public static final String DEFAULT_OBJECT_NAME = "denominator:type=OperationStats";
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final OperationStats stats = new OperationStats();
+    private final String objectName;
+    private boolean registered;
+
+    public InstrumentOperations() {
+        this(DEFAULT_OBJECT_NAME + ",instance=" + INSTANCES.incrementAndGet());
+    }
+
+    /**
+     * @param objectName
+     *            name to register statistics with the platform
+     *            {@link MBeanServer}, or null to not register them.
+     *            Registration fails with {@link IllegalStateException} if
+     *            another module already registered this name.
+     */
+    public InstrumentOperations(String objectName) {
+        this.objectName = objectName;
+    }
+
+    /**
+     * name statistics are registered as with the platform {@link MBeanServer},
+     * or null if they are not.
+     */
+    public String getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * statistics of operations on all providers created with this module.
+     */
+    public OperationStats getStats() {
+        return stats;
+    }
+
+    @Provides(type = SET)
+    @Singleton
+    Decorator<ResourceRecordSetApi.Factory> provideInstrumentedResourceRecordSetApiFactory(final Provider provider) {
+        registerMXBean();
+        return new Decorator<ResourceRecordSetApi.Factory>() {
+            public ResourceRecordSetApi.Factory decorate(ResourceRecordSetApi.Factory delegate) {
+                return new InstrumentedResourceRecordSetApi.Factory(delegate, provider.getName(), stats);
+            }
+        };
+    }
+
+    @Provides(type = SET)
+    @Singleton
+    Decorator<ZoneApi> provideInstrumentedZoneApi(final Provider provider) {
+        registerMXBean();
+        return new Decorator<ZoneApi>() {
+            public ZoneApi decorate(ZoneApi delegate) {
+                return InstrumentedResourceRecordSetApi.instrument(delegate, provider.getName(), stats);
+            }
+        };
+    }
+
+    private synchronized void registerMXBean() {
+        if (objectName == null || registered)
+            return;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(stats, new ObjectName(objectName));
+            registered = true;
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalStateException(objectName + " is already registered by another module", e);
+        } catch (JMException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+}
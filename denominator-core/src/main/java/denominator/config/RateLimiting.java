@@ -0,0 +1,80 @@
+package denominator.config;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.inject.Singleton;
+
+import com.google.common.base.Predicate;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.common.AdaptiveRateLimiter;
+
+/**
+ * Limits the rate of requests a provider makes, adapting when the provider
+ * throttles. This only affects providers who throttle, such as
+ * {@code route53} and {@code dynect}.
+ *
+ * Providers {@link Module#includes include} this and bind {@link Defaults}
+ * matching their documented limits. To change the limit, pass an instance to
+ * {@link denominator.Denominator#create(denominator.Provider, Object...)}.
+ *
+ * <pre>
+ * route53 = Denominator.create(&quot;route53&quot;, credentials(accesskey, secretkey), new RateLimiting(2));
+ * </pre>
+ *
+ * @see AdaptiveRateLimiter
+ */
+@Module(entryPoints = DNSApiManager.class, complete = false)
+public class RateLimiting {
+
+    /**
+     * limit and throttling detection of a provider.
+     */
+    public static final class Defaults {
+        private final double maxRequestsPerSecond;
+        private final Predicate<? super Throwable> isThrottled;
+
+        /**
+         * @param maxRequestsPerSecond
+         *            documented limit of the provider
+         * @param isThrottled
+         *            true if an exception from the provider means it throttled
+         *            the request.
+         */
+        public Defaults(double maxRequestsPerSecond, Predicate<? super Throwable> isThrottled) {
+            checkArgument(maxRequestsPerSecond > 0, "maxRequestsPerSecond must be positive, not %s",
+                    maxRequestsPerSecond);
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            this.isThrottled = checkNotNull(isThrottled, "isThrottled");
+        }
+    }
+
+    private final Double maxRequestsPerSecond;
+
+    /**
+     * uses the limit in the provider's {@link Defaults}.
+     */
+    public RateLimiting() {
+        this.maxRequestsPerSecond = null;
+    }
+
+    /**
+     * @param maxRequestsPerSecond
+     *            rate to start at and never exceed, overriding the provider's
+     *            default.
+     */
+    public RateLimiting(double maxRequestsPerSecond) {
+        checkArgument(maxRequestsPerSecond > 0, "maxRequestsPerSecond must be positive, not %s", maxRequestsPerSecond);
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    @Provides
+    @Singleton
+    AdaptiveRateLimiter provideRateLimiter(Defaults defaults) {
+        double max = maxRequestsPerSecond != null ? maxRequestsPerSecond : defaults.maxRequestsPerSecond;
+        return AdaptiveRateLimiter.create(max, defaults.isThrottled);
+    }
+}
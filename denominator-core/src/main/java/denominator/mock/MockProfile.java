@@ -0,0 +1,343 @@
+package denominator.mock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
+import static dagger.Provides.Type.SET;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Singleton;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+
+import dagger.Module;
+import dagger.Provides;
+import denominator.DNSApiManager;
+import denominator.Decorator;
+import denominator.ResourceRecordSetApi;
+import denominator.ZoneApi;
+
+/**
+ * Makes the {@code mock} provider behave like a remote one, so that batching,
+ * caching, and concurrency can be load tested locally and reproducibly. This
+ * is not enabled by default. To enable it, pass an instance to
+ * {@link denominator.Denominator#create(denominator.Provider, Object...)}.
+ *
+ * <pre>
+ * MockProfile profile = MockProfile.builder()
+ *                                  .latency(Latency.uniform(20, 80, MILLISECONDS))
+ *                                  .latency(&quot;getByNameAndType&quot;, Latency.fixed(10, MILLISECONDS))
+ *                                  .listPageSize(100)
+ *                                  .maxRequestsPerSecond(5)
+ *                                  .consistencyDelay(2, SECONDS)
+ *                                  .seed(42).build();
+ * mock = Denominator.create(&quot;mock&quot;, profile);
+ * </pre>
+ *
+ * Operations are named as in {@link denominator.config.InstrumentOperations}:
+ * {@code listZones}, {@code list}, {@code listByName},
+ * {@code getByNameAndType}, {@code add}, {@code applyTTLToNameAndType},
+ * {@code replace}, {@code remove}, {@code deleteByNameAndType}, and
+ * {@code commit}, which applies a batch in one request. Each page of a listing
+ * is a request of the listing's operation.
+ *
+ * Throttling and failures are decided per {@code DNSApiManager}, after the
+ * request's latency, as a provider would respond.
+ */
+@Beta
+@Module(entryPoints = DNSApiManager.class, complete = false)
+public class MockProfile {
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * thrown when a request fails due to {@link Builder#failureRate(double)}.
+     */
+    public static class InjectedFailure extends RuntimeException {
+        InjectedFailure(String message) {
+            super(message);
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * thrown when a request exceeds {@link Builder#maxRequestsPerSecond(int)}.
+     */
+    public static final class Throttled extends InjectedFailure {
+        Throttled(String message) {
+            super(message);
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * distribution of the time a request takes.
+     */
+    public abstract static class Latency {
+
+        /**
+         * always {@code duration}.
+         */
+        public static Latency fixed(long duration, TimeUnit unit) {
+            final long nanos = toNanos(duration, unit);
+            return new Latency("fixed(" + nanos + "ns)") {
+                long nextNanos(Random random) {
+                    return nanos;
+                }
+            };
+        }
+
+        /**
+         * evenly distributed between {@code min} and {@code max}.
+         */
+        public static Latency uniform(long min, long max, TimeUnit unit) {
+            final long minNanos = toNanos(min, unit);
+            final long maxNanos = toNanos(max, unit);
+            checkArgument(minNanos <= maxNanos, "min must not exceed max, not %s > %s", min, max);
+            return new Latency("uniform(" + minNanos + "ns, " + maxNanos + "ns)") {
+                long nextNanos(Random random) {
+                    return minNanos + (long) (random.nextDouble() * (maxNanos - minNanos));
+                }
+            };
+        }
+
+        /**
+         * exponentially distributed with {@code mean}, which is mostly fast
+         * with a long tail of slow requests.
+         */
+        public static Latency exponential(long mean, TimeUnit unit) {
+            final long meanNanos = toNanos(mean, unit);
+            return new Latency("exponential(" + meanNanos + "ns)") {
+                long nextNanos(Random random) {
+                    return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+                }
+            };
+        }
+
+        private static long toNanos(long duration, TimeUnit unit) {
+            checkArgument(duration >= 0, "duration must not be negative, not %s", duration);
+            return checkNotNull(unit, "unit").toNanos(duration);
+        }
+
+        private final String description;
+
+        private Latency(String description) {
+            this.description = description;
+        }
+
+        abstract long nextNanos(Random random);
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    public static final class Builder {
+        private Latency defaultLatency = Latency.fixed(0, NANOSECONDS);
+        private final ImmutableMap.Builder<String, Latency> latencies = ImmutableMap.builder();
+        private int listPageSize = Integer.MAX_VALUE;
+        private int maxRequestsPerSecond = Integer.MAX_VALUE;
+        private long consistencyDelayNanos;
+        private double failureRate;
+        private Long seed;
+
+        /**
+         * latency of operations without their own
+         * {@link #latency(String, Latency)}. Defaults to none.
+         */
+        public Builder latency(Latency latency) {
+            this.defaultLatency = checkNotNull(latency, "latency");
+            return this;
+        }
+
+        /**
+         * latency of {@code operation}, such as {@code getByNameAndType}.
+         */
+        public Builder latency(String operation, Latency latency) {
+            this.latencies.put(checkNotNull(operation, "operation"), checkNotNull(latency, "latency"));
+            return this;
+        }
+
+        /**
+         * record sets or zones returned per request while listing. Defaults to
+         * all of them in one request.
+         */
+        public Builder listPageSize(int listPageSize) {
+            checkArgument(listPageSize > 0, "listPageSize must be positive, not %s", listPageSize);
+            this.listPageSize = listPageSize;
+            return this;
+        }
+
+        /**
+         * requests allowed per second, after which requests are
+         * {@link Throttled} until the next second. Defaults to no limit.
+         */
+        public Builder maxRequestsPerSecond(int maxRequestsPerSecond) {
+            checkArgument(maxRequestsPerSecond > 0, "maxRequestsPerSecond must be positive, not %s",
+                    maxRequestsPerSecond);
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * how long {@link ResourceRecordSetApi#getByNameAndType(String, String)}
+         * returns the record set as it was before a write to it. Each write
+         * restarts the delay. Defaults to none.
+         */
+        public Builder consistencyDelay(long consistencyDelay, TimeUnit unit) {
+            checkArgument(consistencyDelay >= 0, "consistencyDelay must not be negative, not %s", consistencyDelay);
+            this.consistencyDelayNanos = checkNotNull(unit, "unit").toNanos(consistencyDelay);
+            return this;
+        }
+
+        /**
+         * fraction of requests, between 0 and 1, that fail with an
+         * {@link InjectedFailure}. Defaults to none.
+         */
+        public Builder failureRate(double failureRate) {
+            checkArgument(failureRate >= 0 && failureRate <= 1, "failureRate must be between 0 and 1, not %s",
+                    failureRate);
+            this.failureRate = failureRate;
+            return this;
+        }
+
+        /**
+         * seeds latencies and failures, so that runs are repeatable. Defaults
+         * to a different seed each time.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public MockProfile build() {
+            return new MockProfile(this);
+        }
+    }
+
+    private final Latency defaultLatency;
+    private final Map<String, Latency> latencies;
+    private final int listPageSize;
+    private final int maxRequestsPerSecond;
+    private final long consistencyDelayNanos;
+    private final double failureRate;
+    private final Long seed;
+
+    private MockProfile(Builder builder) {
+        this.defaultLatency = builder.defaultLatency;
+        this.latencies = builder.latencies.build();
+        this.listPageSize = builder.listPageSize;
+        this.maxRequestsPerSecond = builder.maxRequestsPerSecond;
+        this.consistencyDelayNanos = builder.consistencyDelayNanos;
+        this.failureRate = builder.failureRate;
+        this.seed = builder.seed;
+    }
+
+    int getListPageSize() {
+        return listPageSize;
+    }
+
+    long getConsistencyDelayNanos() {
+        return consistencyDelayNanos;
+    }
+
+    @Provides
+    @Singleton
+    SimulatedRemote provideSimulatedRemote() {
+        return new SimulatedRemote(this, Ticker.systemTicker());
+    }
+
+    @Provides(type = SET)
+    @Singleton
+    Decorator<ResourceRecordSetApi.Factory> provideProfiledResourceRecordSetApiFactory(final SimulatedRemote remote) {
+        return new Decorator<ResourceRecordSetApi.Factory>() {
+            public ResourceRecordSetApi.Factory decorate(ResourceRecordSetApi.Factory delegate) {
+                return new ProfiledResourceRecordSetApi.Factory(delegate, remote);
+            }
+        };
+    }
+
+    @Provides(type = SET)
+    @Singleton
+    Decorator<ZoneApi> provideProfiledZoneApi(final SimulatedRemote remote) {
+        return new Decorator<ZoneApi>() {
+            public ZoneApi decorate(ZoneApi delegate) {
+                return ProfiledResourceRecordSetApi.profile(delegate, remote);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "MockProfile(latency=" + defaultLatency + ", latencies=" + latencies + ", listPageSize="
+                + listPageSize + ", maxRequestsPerSecond=" + maxRequestsPerSecond + ", consistencyDelayNanos="
+                + consistencyDelayNanos + ", failureRate=" + failureRate + ", seed=" + seed + ")";
+    }
+
+    /**
+     * the request state shared by all apis of one {@code DNSApiManager}.
+     */
+    static final class SimulatedRemote {
+        private final MockProfile profile;
+        private final Ticker ticker;
+        private final Random random;
+        private long windowStartNanos;
+        private int requestsInWindow;
+
+        SimulatedRemote(MockProfile profile, Ticker ticker) {
+            this.profile = checkNotNull(profile, "profile");
+            this.ticker = checkNotNull(ticker, "ticker");
+            this.random = profile.seed != null ? new Random(profile.seed) : new Random();
+            this.windowStartNanos = ticker.read();
+        }
+
+        MockProfile getProfile() {
+            return profile;
+        }
+
+        Ticker getTicker() {
+            return ticker;
+        }
+
+        /**
+         * waits for the latency of {@code operation}, then fails if the
+         * request is throttled or chosen to fail.
+         */
+        void request(String operation) {
+            Latency latency = profile.latencies.get(operation);
+            sleep((latency != null ? latency : profile.defaultLatency).nextNanos(random));
+            if (!permit())
+                throw new Throttled(operation + " exceeded " + profile.maxRequestsPerSecond + " requests per second");
+            if (profile.failureRate > 0 && random.nextDouble() < profile.failureRate)
+                throw new InjectedFailure(operation + " failed");
+        }
+
+        private synchronized boolean permit() {
+            long now = ticker.read();
+            if (now - windowStartNanos >= TimeUnit.SECONDS.toNanos(1)) {
+                windowStartNanos = now;
+                requestsInWindow = 0;
+            }
+            if (requestsInWindow >= profile.maxRequestsPerSecond)
+                return false;
+            requestsInWindow++;
+            return true;
+        }
+
+        private void sleep(long nanos) {
+            if (nanos > 0)
+                sleepUninterruptibly(nanos, NANOSECONDS);
+        }
+    }
+}
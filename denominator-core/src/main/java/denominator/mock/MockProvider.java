@@ -1,6 +1,5 @@
 package denominator.mock;
 
-import static com.google.common.collect.Multimaps.synchronizedListMultimap;
 import static denominator.model.ResourceRecordSets.a;
 import static denominator.model.ResourceRecordSets.cname;
 import static denominator.model.ResourceRecordSets.ns;
@@ -43,6 +42,9 @@ public class MockProvider extends Provider {
         return in;
     }
 
+    /**
+     * initial record sets, copied into {@link MockZones}.
+     */
     // wildcard types are not currently injectable in dagger
     @SuppressWarnings({ "rawtypes", "unchecked" })
     @Provides
@@ -50,7 +52,6 @@ public class MockProvider extends Provider {
     Multimap<String, ResourceRecordSet> provideData() {
         String zoneName = "denominator.io.";
         ListMultimap<String, ResourceRecordSet<?>> data = LinkedListMultimap.create();
-        data = synchronizedListMultimap(data);
         data.put(zoneName, ResourceRecordSet.builder()
                                             .type("SOA")
                                             .name(zoneName)
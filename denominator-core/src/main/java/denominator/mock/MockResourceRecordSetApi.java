@@ -2,25 +2,24 @@ package denominator.mock;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.not;
-import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Ordering.usingToString;
-import static denominator.model.ResourceRecordSets.nameEqualTo;
-import static denominator.model.ResourceRecordSets.typeEqualTo;
+import static com.google.common.collect.Iterables.isEmpty;
+import static denominator.mock.MockZones.NameAndType.withName;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
 
 import javax.inject.Inject;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
-import com.google.common.collect.FluentIterable;
-import com.google.common.collect.Multimap;
 
 import denominator.ResourceRecordSetApi;
+import denominator.common.SequentialBatch;
+import denominator.mock.MockZones.NameAndType;
 import denominator.model.ResourceRecordSet;
 import denominator.model.ResourceRecordSet.Builder;
 
@@ -28,118 +27,133 @@ import denominator.model.ResourceRecordSet.Builder;
 public final class MockResourceRecordSetApi implements denominator.ResourceRecordSetApi {
     public static final class Factory implements denominator.ResourceRecordSetApi.Factory {
 
-        private final Multimap<String, ResourceRecordSet<?>> data;
+        private final MockZones zones;
 
-        // wildcard types are not currently injectable in dagger
-        @SuppressWarnings({ "rawtypes", "unchecked" })
         @Inject
-        Factory(Multimap<String, ResourceRecordSet> data) {
-            this.data = Multimap.class.cast(data);
+        Factory(MockZones zones) {
+            this.zones = zones;
         }
 
         @Override
         public ResourceRecordSetApi create(String zoneName) {
-            checkArgument(data.keySet().contains(zoneName), "zone %s not found", zoneName);
-            return new MockResourceRecordSetApi(data, zoneName);
+            ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>> zone = zones.zone(zoneName);
+            checkArgument(zone != null, "zone %s not found", zoneName);
+            return new MockResourceRecordSetApi(zone);
         }
     }
 
-    private final Multimap<String, ResourceRecordSet<?>> data;
-    private final String zoneName;
+    private final ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>> zone;
 
-    MockResourceRecordSetApi(Multimap<String, ResourceRecordSet<?>> data, String zoneName) {
-        this.data = data;
-        this.zoneName = zoneName;
+    MockResourceRecordSetApi(ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>> zone) {
+        this.zone = zone;
     }
 
     /**
-     * sorted to help tests from breaking
+     * sorted by name and type, to help tests from breaking
      */
     @Override
     public Iterator<ResourceRecordSet<?>> list() {
-        return FluentIterable.from(data.get(zoneName)).toSortedList(usingToString()).iterator();
+        return zone.values().iterator();
     }
 
     @Override
     public Optional<ResourceRecordSet<?>> getByNameAndType(String name, String type) {
-        checkNotNull(name, "name");
-        checkNotNull(type, "type");
-        return from(data.get(zoneName)).firstMatch(and(nameEqualTo(name), typeEqualTo(type)));
+        return Optional.<ResourceRecordSet<?>> fromNullable(zone.get(new NameAndType(name, type)));
     }
 
     @Override
     public Iterator<ResourceRecordSet<?>> listByName(String name) {
         checkNotNull(name, "name");
-        return from(data.get(zoneName)).filter(nameEqualTo(name)).iterator();
+        return withName(zone, name).values().iterator();
     }
 
     @Override
-    public void applyTTLToNameAndType(int ttl, String name, String type) {
-        checkNotNull(ttl, "ttl");
-        Optional<ResourceRecordSet<?>> existing = getByNameAndType(name, type);
-        if (!existing.isPresent())
-            return;
-        ResourceRecordSet<?> rrset = existing.get();
-        if (rrset.getTTL().isPresent() && rrset.getTTL().get().equals(ttl))
-            return;
-        ResourceRecordSet<Map<String, Object>> rrs  = ResourceRecordSet.<Map<String, Object>> builder()
-                                                                       .name(rrset.getName())
-                                                                       .type(rrset.getType())
-                                                                       .ttl(ttl)
-                                                                       .addAll(rrset).build();
-        replace(rrs);
+    public void applyTTLToNameAndType(final int ttl, String name, String type) {
+        update(name, type, new Function<ResourceRecordSet<?>, ResourceRecordSet<?>>() {
+            public ResourceRecordSet<?> apply(ResourceRecordSet<?> rrset) {
+                if (rrset == null || rrset.getTTL().isPresent() && rrset.getTTL().get().equals(ttl))
+                    return rrset;
+                return ResourceRecordSet.<Map<String, Object>> builder()
+                                        .name(rrset.getName())
+                                        .type(rrset.getType())
+                                        .ttl(ttl)
+                                        .addAll(rrset).build();
+            }
+        });
     }
 
     @Override
-    public void add(ResourceRecordSet<?> rrset) {
+    public void add(final ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
-        Optional<ResourceRecordSet<?>> rrsMatch = getByNameAndType(rrset.getName(), rrset.getType());
-        Builder<Map<String, Object>> rrs  = ResourceRecordSet.<Map<String, Object>>builder()
-                                                             .name(rrset.getName())
-                                                             .type(rrset.getType())
-                                                             .ttl(rrset.getTTL().or(3600));
-        if (rrsMatch.isPresent()) {
-            rrs.addAll(rrsMatch.get());
-            rrs.addAll(filter(rrset, not(in(rrsMatch.get()))));
-            data.remove(zoneName, rrsMatch.get());
-        } else {
-            rrs.addAll(rrset);
-        }
-        data.put(zoneName, rrs.build());
+        update(rrset.getName(), rrset.getType(), new Function<ResourceRecordSet<?>, ResourceRecordSet<?>>() {
+            public ResourceRecordSet<?> apply(ResourceRecordSet<?> rrsMatch) {
+                Builder<Map<String, Object>> rrs = ResourceRecordSet.<Map<String, Object>> builder()
+                                                                    .name(rrset.getName())
+                                                                    .type(rrset.getType())
+                                                                    .ttl(rrset.getTTL().or(3600));
+                if (rrsMatch != null) {
+                    rrs.addAll(rrsMatch);
+                    rrs.addAll(filter(rrset, not(in(rrsMatch))));
+                } else {
+                    rrs.addAll(rrset);
+                }
+                return rrs.build();
+            }
+        });
     }
 
     @Override
     public void replace(ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
-        Optional<ResourceRecordSet<?>> rrsMatch = getByNameAndType(rrset.getName(), rrset.getType());
-        if (rrsMatch.isPresent()) {
-            data.remove(zoneName, rrsMatch.get());
-        }
-        data.put(zoneName, rrset);
+        zone.put(new NameAndType(rrset.getName(), rrset.getType()), rrset);
     }
 
     @Override
-    public void remove(ResourceRecordSet<?> rrset) {
+    public void remove(final ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
-        Optional<ResourceRecordSet<?>> rrsMatch = getByNameAndType(rrset.getName(), rrset.getType());
-        if (rrsMatch.isPresent()) {
-            data.remove(zoneName, rrsMatch.get());
-            if (rrsMatch.get().size() > 1) {
-                data.put(zoneName, ResourceRecordSet.<Map<String, Object>> builder()
-                                                    .name(rrset.getName())
-                                                    .type(rrset.getType())
-                                                    .ttl(rrsMatch.get().getTTL().get())
-                                                    .addAll(filter(rrsMatch.get(), not(in(rrset))))
-                                                    .build());
+        update(rrset.getName(), rrset.getType(), new Function<ResourceRecordSet<?>, ResourceRecordSet<?>>() {
+            public ResourceRecordSet<?> apply(ResourceRecordSet<?> rrsMatch) {
+                if (rrsMatch == null || rrsMatch.size() == 1)
+                    return null;
+                Iterable<? extends Map<String, Object>> remaining = filter(rrsMatch, not(in(rrset)));
+                if (isEmpty(remaining))
+                    return null;
+                return ResourceRecordSet.<Map<String, Object>> builder()
+                                        .name(rrset.getName())
+                                        .type(rrset.getType())
+                                        .ttl(rrsMatch.getTTL().orNull())
+                                        .addAll(remaining)
+                                        .build();
             }
-        }
+        });
     }
 
     @Override
     public void deleteByNameAndType(String name, String type) {
-        Optional<ResourceRecordSet<?>> rrsMatch = getByNameAndType(name, type);
-        if (rrsMatch.isPresent()) {
-            data.remove(zoneName, rrsMatch.get());
+        zone.remove(new NameAndType(name, type));
+    }
+
+    @Override
+    public Batch begin() {
+        return new SequentialBatch(this);
+    }
+
+    /**
+     * replaces the record set at {@code name} and {@code type} with the result
+     * of {@code update}, or removes it if the result is null. Retries if
+     * another write changed the record set in the meantime.
+     */
+    private void update(String name, String type, Function<ResourceRecordSet<?>, ResourceRecordSet<?>> update) {
+        NameAndType key = new NameAndType(name, type);
+        while (true) {
+            ResourceRecordSet<?> existing = zone.get(key);
+            ResourceRecordSet<?> updated = update.apply(existing);
+            if (existing == null) {
+                if (updated == null || zone.putIfAbsent(key, updated) == null)
+                    return;
+            } else if (updated == null ? zone.remove(key, existing) : zone.replace(key, existing, updated)) {
+                return;
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package denominator.mock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Multimap;
+
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Zones of the mock provider, each a concurrent map of record sets sorted by
+ * name and type.
+ *
+ * Reads do not lock, and iterate in order without copying the zone. Writes
+ * replace the record set at a name and type atomically, so concurrent writes
+ * to different record sets do not contend. This lets the mock stand in for a
+ * provider under load, with zones of millions of records.
+ */
+@Singleton
+final class MockZones {
+    private final ConcurrentNavigableMap<String, ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>>> zones =
+            new ConcurrentSkipListMap<String, ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>>>();
+
+    /**
+     * @param data
+     *            initial record sets by zone name.
+     */
+    // wildcard types are not currently injectable in dagger
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    @Inject
+    MockZones(Multimap<String, ResourceRecordSet> data) {
+        for (Map.Entry<String, ResourceRecordSet> entry : data.entries()) {
+            ResourceRecordSet<?> rrset = entry.getValue();
+            ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>> zone = zones.get(entry.getKey());
+            if (zone == null) {
+                zone = new ConcurrentSkipListMap<NameAndType, ResourceRecordSet<?>>();
+                zones.put(entry.getKey(), zone);
+            }
+            zone.put(new NameAndType(rrset.getName(), rrset.getType()), rrset);
+        }
+    }
+
+    /**
+     * zone names, in order.
+     */
+    Iterable<String> names() {
+        return zones.keySet();
+    }
+
+    /**
+     * record sets in the zone, or null if there is no zone by that name.
+     */
+    ConcurrentNavigableMap<NameAndType, ResourceRecordSet<?>> zone(String zoneName) {
+        return zones.get(checkNotNull(zoneName, "zoneName"));
+    }
+
+    /**
+     * sorted by name, then type.
+     */
+    static final class NameAndType implements Comparable<NameAndType> {
+        /**
+         * record sets with {@code name}, of any type.
+         */
+        static <V> ConcurrentNavigableMap<NameAndType, V> withName(ConcurrentNavigableMap<NameAndType, V> zone,
+                String name) {
+            // "\0" is the least character, so name + "\0" is the next name
+            return zone.subMap(new NameAndType(name, ""), true, new NameAndType(name + '\0', ""), false);
+        }
+
+        private final String name;
+        private final String type;
+
+        NameAndType(String name, String type) {
+            this.name = checkNotNull(name, "name");
+            this.type = checkNotNull(type, "type");
+        }
+
+        @Override
+        public int compareTo(NameAndType that) {
+            return ComparisonChain.start().compare(name, that.name).compare(type, that.type).result();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + type.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof NameAndType))
+                return false;
+            NameAndType that = NameAndType.class.cast(obj);
+            return name.equals(that.name) && type.equals(that.type);
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + type;
+        }
+    }
+}
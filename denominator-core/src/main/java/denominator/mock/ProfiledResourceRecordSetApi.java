@@ -0,0 +1,239 @@
+package denominator.mock;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+import denominator.ResourceRecordSetApi;
+import denominator.ZoneApi;
+import denominator.mock.MockProfile.SimulatedRemote;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Applies a {@link MockProfile} to each call, as if it were a request to a
+ * remote provider.
+ *
+ * Until the consistency delay after a write elapses,
+ * {@link #getByNameAndType(String, String)} returns the record set as it was
+ * before the write. Listings are always current.
+ */
+final class ProfiledResourceRecordSetApi implements ResourceRecordSetApi {
+
+    static final class Factory implements ResourceRecordSetApi.Factory {
+        private final ResourceRecordSetApi.Factory delegate;
+        private final SimulatedRemote remote;
+        // record sets as they were before recent writes, or null if writes
+        // are visible immediately
+        private final Cache<List<String>, Optional<ResourceRecordSet<?>>> stale;
+
+        Factory(ResourceRecordSetApi.Factory delegate, SimulatedRemote remote) {
+            this.delegate = checkNotNull(delegate, "delegate");
+            this.remote = checkNotNull(remote, "remote");
+            long delayNanos = remote.getProfile().getConsistencyDelayNanos();
+            this.stale = delayNanos > 0 ? CacheBuilder.newBuilder().ticker(remote.getTicker())
+                    .expireAfterWrite(delayNanos, NANOSECONDS).<List<String>, Optional<ResourceRecordSet<?>>> build()
+                    : null;
+        }
+
+        @Override
+        public ResourceRecordSetApi create(String zoneName) {
+            return new ProfiledResourceRecordSetApi(delegate.create(zoneName), zoneName, remote, stale);
+        }
+    }
+
+    /**
+     * @see ProfiledResourceRecordSetApi
+     */
+    static ZoneApi profile(final ZoneApi delegate, final SimulatedRemote remote) {
+        checkNotNull(delegate, "delegate");
+        checkNotNull(remote, "remote");
+        return new ZoneApi() {
+            public Iterator<String> list() {
+                return paged("listZones", delegate.list(), remote);
+            }
+
+            @Override
+            public String toString() {
+                return "Profiled(" + delegate + ")";
+            }
+        };
+    }
+
+    private final ResourceRecordSetApi delegate;
+    private final String zoneName;
+    private final SimulatedRemote remote;
+    private final Cache<List<String>, Optional<ResourceRecordSet<?>>> stale;
+
+    ProfiledResourceRecordSetApi(ResourceRecordSetApi delegate, String zoneName, SimulatedRemote remote,
+            Cache<List<String>, Optional<ResourceRecordSet<?>>> stale) {
+        this.delegate = delegate;
+        this.zoneName = zoneName;
+        this.remote = remote;
+        this.stale = stale;
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> list() {
+        return paged("list", delegate.list(), remote);
+    }
+
+    @Override
+    public Iterator<ResourceRecordSet<?>> listByName(String name) {
+        return paged("listByName", delegate.listByName(name), remote);
+    }
+
+    @Override
+    public Optional<ResourceRecordSet<?>> getByNameAndType(String name, String type) {
+        checkNotNull(name, "name");
+        checkNotNull(type, "type");
+        remote.request("getByNameAndType");
+        if (stale != null) {
+            Optional<ResourceRecordSet<?>> before = stale.getIfPresent(key(name, type));
+            if (before != null)
+                return before;
+        }
+        return delegate.getByNameAndType(name, type);
+    }
+
+    @Override
+    public void add(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        remote.request("add");
+        beforeWrite(rrset.getName(), rrset.getType());
+        delegate.add(rrset);
+    }
+
+    @Override
+    public void applyTTLToNameAndType(int ttl, String name, String type) {
+        remote.request("applyTTLToNameAndType");
+        beforeWrite(name, type);
+        delegate.applyTTLToNameAndType(ttl, name, type);
+    }
+
+    @Override
+    public void replace(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        remote.request("replace");
+        beforeWrite(rrset.getName(), rrset.getType());
+        delegate.replace(rrset);
+    }
+
+    @Override
+    public void remove(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        remote.request("remove");
+        beforeWrite(rrset.getName(), rrset.getType());
+        delegate.remove(rrset);
+    }
+
+    @Override
+    public void deleteByNameAndType(String name, String type) {
+        remote.request("deleteByNameAndType");
+        beforeWrite(name, type);
+        delegate.deleteByNameAndType(name, type);
+    }
+
+    /**
+     * staging is local, and the batch is committed in one request.
+     */
+    @Override
+    public Batch begin() {
+        final Batch delegateBatch = delegate.begin();
+        final List<ResourceRecordSet<?>> staged = Lists.newArrayList();
+        final List<List<String>> stagedNamesAndTypes = Lists.newArrayList();
+        return new Batch() {
+            public Batch add(ResourceRecordSet<?> rrset) {
+                delegateBatch.add(rrset);
+                staged.add(rrset);
+                return this;
+            }
+
+            public Batch applyTTLToNameAndType(int ttl, String name, String type) {
+                delegateBatch.applyTTLToNameAndType(ttl, name, type);
+                stagedNamesAndTypes.add(ImmutableList.of(name, type));
+                return this;
+            }
+
+            public Batch replace(ResourceRecordSet<?> rrset) {
+                delegateBatch.replace(rrset);
+                staged.add(rrset);
+                return this;
+            }
+
+            public Batch remove(ResourceRecordSet<?> rrset) {
+                delegateBatch.remove(rrset);
+                staged.add(rrset);
+                return this;
+            }
+
+            public Batch deleteByNameAndType(String name, String type) {
+                delegateBatch.deleteByNameAndType(name, type);
+                stagedNamesAndTypes.add(ImmutableList.of(name, type));
+                return this;
+            }
+
+            public void commit() {
+                remote.request("commit");
+                for (ResourceRecordSet<?> rrset : staged)
+                    beforeWrite(rrset.getName(), rrset.getType());
+                for (List<String> nameAndType : stagedNamesAndTypes)
+                    beforeWrite(nameAndType.get(0), nameAndType.get(1));
+                delegateBatch.commit();
+            }
+        };
+    }
+
+    /**
+     * keeps the record set as it is now, unless an earlier write is still
+     * pending, and restarts the consistency delay.
+     */
+    private void beforeWrite(String name, String type) {
+        if (stale == null)
+            return;
+        List<String> key = key(name, type);
+        Optional<ResourceRecordSet<?>> before = stale.getIfPresent(key);
+        stale.put(key, before != null ? before : delegate.getByNameAndType(name, type));
+    }
+
+    private List<String> key(String name, String type) {
+        return ImmutableList.of(zoneName, name, type);
+    }
+
+    /**
+     * requests the first page now, and each following page as the iterator
+     * reaches it.
+     */
+    static <T> Iterator<T> paged(final String operation, final Iterator<T> delegate, final SimulatedRemote remote) {
+        final int pageSize = remote.getProfile().getListPageSize();
+        remote.request(operation);
+        return new AbstractIterator<T>() {
+            int remainingInPage = pageSize;
+
+            @Override
+            protected T computeNext() {
+                if (!delegate.hasNext())
+                    return endOfData();
+                if (remainingInPage == 0) {
+                    remote.request(operation);
+                    remainingInPage = pageSize;
+                }
+                remainingInPage--;
+                return delegate.next();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "Profiled(" + delegate + ")";
+    }
+}
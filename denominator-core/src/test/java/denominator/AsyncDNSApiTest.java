@@ -0,0 +1,82 @@
+package denominator;
+
+import static denominator.model.ResourceRecordSets.a;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import denominator.mock.MockProvider;
+
+public class AsyncDNSApiTest {
+    static final String ZONE = "denominator.io.";
+
+    ExecutorService executor = newFixedThreadPool(2);
+    AsyncDNSApi async = AsyncDNSApi.create(Denominator.create(new MockProvider()).getApi(), executor);
+
+    @AfterClass
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void listsZones() throws InterruptedException, ExecutionException {
+        assertEquals(ImmutableList.copyOf(async.getZoneApi().list().get()), ImmutableList.of(ZONE));
+    }
+
+    @Test
+    public void writesCompose() throws InterruptedException, ExecutionException {
+        AsyncResourceRecordSetApi api = async.getResourceRecordSetApiForZone(ZONE);
+        List<ListenableFuture<Void>> writes = ImmutableList.of(
+                api.replace(a("www4." + ZONE, 3600, "192.0.2.4")),
+                api.replace(a("www5." + ZONE, 3600, "192.0.2.5")));
+        Futures.allAsList(writes).get();
+
+        assertEquals(api.getByNameAndType("www4." + ZONE, "A").get().get(), a("www4." + ZONE, 3600, "192.0.2.4"));
+        assertEquals(api.getByNameAndType("www5." + ZONE, "A").get().get(), a("www5." + ZONE, 3600, "192.0.2.5"));
+
+        api.deleteByNameAndType("www4." + ZONE, "A").get();
+        assertFalse(api.getByNameAndType("www4." + ZONE, "A").get().isPresent());
+    }
+
+    @Test
+    public void createsZoneApiOnTheExecutorOnce() throws InterruptedException, ExecutionException {
+        final DNSApi mock = Denominator.create(new MockProvider()).getApi();
+        final AtomicInteger creates = new AtomicInteger();
+        final AtomicReference<Thread> createdOn = new AtomicReference<Thread>();
+        ResourceRecordSetApi.Factory factory = new ResourceRecordSetApi.Factory() {
+            public ResourceRecordSetApi create(String zoneName) {
+                creates.incrementAndGet();
+                createdOn.set(Thread.currentThread());
+                return mock.getResourceRecordSetApiForZone(zoneName);
+            }
+        };
+        DNSApi api = new DNSApi(mock.getZoneApi(), ImmutableSet.<Decorator<ZoneApi>> of(), factory,
+                ImmutableSet.<Decorator<ResourceRecordSetApi.Factory>> of());
+
+        AsyncResourceRecordSetApi zone = AsyncDNSApi.create(api, executor).getResourceRecordSetApiForZone(ZONE);
+        Futures.allAsList(zone.list(), zone.getByNameAndType("www1." + ZONE, "A")).get();
+
+        assertEquals(creates.get(), 1);
+        assertNotEquals(createdOn.get(), Thread.currentThread());
+    }
+
+    @Test(expectedExceptions = ExecutionException.class)
+    public void failuresFailTheFuture() throws InterruptedException, ExecutionException {
+        async.getResourceRecordSetApiForZone(ZONE).add(null).get();
+    }
+}
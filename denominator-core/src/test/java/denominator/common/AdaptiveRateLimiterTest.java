@@ -0,0 +1,96 @@
+package denominator.common;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicates;
+import com.google.common.base.Ticker;
+
+public class AdaptiveRateLimiterTest {
+    static class FakeTicker extends Ticker {
+        final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advanceMillis(long millis) {
+            nanos.addAndGet(MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    static class ThrottledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    FakeTicker ticker;
+    AdaptiveRateLimiter limiter;
+
+    @BeforeMethod
+    public void resetLimiter() {
+        ticker = new FakeTicker();
+        limiter = new AdaptiveRateLimiter(100, Predicates.instanceOf(ThrottledException.class), ticker);
+    }
+
+    @Test
+    public void halvesOncePerInterval() {
+        limiter.onThrottled();
+        limiter.onThrottled();
+        assertEquals(limiter.getRate(), 50.0);
+
+        ticker.advanceMillis(1000);
+        limiter.onThrottled();
+        assertEquals(limiter.getRate(), 25.0);
+    }
+
+    @Test
+    public void neverBelowMinimum() {
+        for (int i = 0; i < 10; i++) {
+            limiter.onThrottled();
+            ticker.advanceMillis(1000);
+        }
+        assertEquals(limiter.getRate(), 100 * AdaptiveRateLimiter.MINIMUM_FRACTION);
+    }
+
+    @Test
+    public void recoversAdditivelyAfterQuietInterval() {
+        limiter.onThrottled();
+        limiter.onSuccess();
+        assertEquals(limiter.getRate(), 50.0);
+
+        ticker.advanceMillis(1000);
+        limiter.onSuccess();
+        limiter.onSuccess();
+        assertEquals(limiter.getRate(), 60.0);
+
+        for (int i = 0; i < 10; i++) {
+            ticker.advanceMillis(1000);
+            limiter.onSuccess();
+        }
+        assertEquals(limiter.getRate(), 100.0);
+    }
+
+    @Test
+    public void limitingAdjustsOnThrottledCalls() throws Exception {
+        @SuppressWarnings("unchecked")
+        Callable<String> throttled = limiter.limiting(Callable.class, new Callable<String>() {
+            public String call() {
+                throw new ThrottledException();
+            }
+        });
+        try {
+            throttled.call();
+            fail("expected ThrottledException");
+        } catch (ThrottledException e) {
+        }
+        assertEquals(limiter.getRate(), 50.0);
+    }
+}
@@ -0,0 +1,155 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import denominator.DNSApi;
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.config.CacheResourceRecordSets;
+import denominator.mock.MockProvider;
+import denominator.model.ResourceRecordSet;
+
+public class CachingResourceRecordSetApiTest {
+    static final String ZONE = "denominator.io.";
+
+    /**
+     * counts calls to getByNameAndType against a mock provider.
+     */
+    static class CountingFactory implements ResourceRecordSetApi.Factory {
+        final DNSApi mock = Denominator.create(new MockProvider()).getApi();
+        final AtomicInteger gets = new AtomicInteger();
+
+        public ResourceRecordSetApi create(String zoneName) {
+            final ResourceRecordSetApi delegate = mock.getResourceRecordSetApiForZone(zoneName);
+            return ResourceRecordSetApi.class.cast(Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ResourceRecordSetApi.class }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if (method.getName().equals("getByNameAndType"))
+                                gets.incrementAndGet();
+                            try {
+                                return method.invoke(delegate, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }));
+        }
+    }
+
+    CountingFactory counting;
+    ResourceRecordSetApi api;
+
+    @BeforeMethod
+    public void resetCounterAndCache() {
+        counting = new CountingFactory();
+        Cache<List<String>, Optional<ResourceRecordSet<?>>> cache = CacheBuilder.newBuilder().maximumSize(10).build();
+        api = new CachingResourceRecordSetApi.Factory(counting, cache).create(ZONE);
+    }
+
+    @Test
+    public void cachesPresentAndAbsent() {
+        assertEquals(api.getByNameAndType("www2." + ZONE, "A").get(), a("www2." + ZONE, 3600, "198.51.100.1"));
+        assertEquals(api.getByNameAndType("www2." + ZONE, "A").get(), a("www2." + ZONE, 3600, "198.51.100.1"));
+        assertFalse(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+        assertFalse(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+        assertEquals(counting.gets.get(), 2);
+    }
+
+    @Test
+    public void writesInvalidate() {
+        assertFalse(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+        api.add(a("www3." + ZONE, 3600, "192.0.2.3"));
+        assertEquals(api.getByNameAndType("www3." + ZONE, "A").get(), a("www3." + ZONE, 3600, "192.0.2.3"));
+        api.deleteByNameAndType("www3." + ZONE, "A");
+        assertFalse(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+        assertEquals(counting.gets.get(), 3);
+    }
+
+    /**
+     * holds one record set, and blocks the first lookup after it has read it
+     * until released.
+     */
+    static class BlockingFactory implements ResourceRecordSetApi.Factory {
+        final AtomicReference<Optional<ResourceRecordSet<?>>> state = new AtomicReference<Optional<ResourceRecordSet<?>>>(
+                Optional.<ResourceRecordSet<?>> absent());
+        final CountDownLatch read = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        public ResourceRecordSetApi create(String zoneName) {
+            return ResourceRecordSetApi.class.cast(Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] { ResourceRecordSetApi.class }, new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if (method.getName().equals("getByNameAndType")) {
+                                Optional<ResourceRecordSet<?>> result = state.get();
+                                if (read.getCount() > 0) {
+                                    read.countDown();
+                                    release.await();
+                                }
+                                return result;
+                            } else if (method.getName().equals("add")) {
+                                state.set(Optional.<ResourceRecordSet<?>> of((ResourceRecordSet<?>) args[0]));
+                                return null;
+                            }
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }));
+        }
+    }
+
+    @Test
+    public void lookupInFlightDuringWriteIsNotCached() throws Exception {
+        BlockingFactory blocking = new BlockingFactory();
+        Cache<List<String>, Optional<ResourceRecordSet<?>>> cache = CacheBuilder.newBuilder().maximumSize(10).build();
+        final ResourceRecordSetApi api = new CachingResourceRecordSetApi.Factory(blocking, cache).create(ZONE);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<ResourceRecordSet<?>>> inFlight = executor
+                    .submit(new Callable<Optional<ResourceRecordSet<?>>>() {
+                        public Optional<ResourceRecordSet<?>> call() {
+                            return api.getByNameAndType("www3." + ZONE, "A");
+                        }
+                    });
+            blocking.read.await();
+            api.add(a("www3." + ZONE, 3600, "192.0.2.3"));
+            blocking.release.countDown();
+
+            // the lookup returns what it read before the write, but must not cache it
+            assertFalse(inFlight.get().isPresent());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+    }
+
+    @Test
+    public void moduleDecoratesProvider() {
+        ResourceRecordSetApi api = Denominator.create(new MockProvider(), new CacheResourceRecordSets()).getApi()
+                .getResourceRecordSetApiForZone(ZONE);
+        assertEquals(api.getClass(), CachingResourceRecordSetApi.class);
+    }
+}
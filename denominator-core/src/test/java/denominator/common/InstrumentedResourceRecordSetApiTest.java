@@ -0,0 +1,116 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import denominator.DNSApiManager;
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.config.InstrumentOperations;
+import denominator.mock.MockProvider;
+
+public class InstrumentedResourceRecordSetApiTest {
+    static final String ZONE = "denominator.io.";
+
+    OperationStats stats;
+    ResourceRecordSetApi api;
+
+    @BeforeMethod
+    public void resetStats() {
+        stats = new OperationStats();
+        final DNSApiManager manager = Denominator.create(new MockProvider());
+        ResourceRecordSetApi.Factory mock = new ResourceRecordSetApi.Factory() {
+            public ResourceRecordSetApi create(String zoneName) {
+                // each call to the mock counts as one remote call
+                return RemoteCalls.counting(ResourceRecordSetApi.class, manager.getApi()
+                        .getResourceRecordSetApiForZone(zoneName));
+            }
+        };
+        api = new InstrumentedResourceRecordSetApi.Factory(mock, "mock", stats).create(ZONE);
+    }
+
+    @Test
+    public void recordsCountsAndRemoteCalls() {
+        api.replace(a("www3." + ZONE, 3600, "192.0.2.3"));
+        api.getByNameAndType("www3." + ZONE, "A");
+        api.getByNameAndType("www3." + ZONE, "A");
+
+        OperationSnapshot gets = stats.snapshot("mock", "getByNameAndType");
+        assertEquals(gets.getCount(), 2);
+        assertEquals(gets.getErrors(), 0);
+        assertEquals(gets.getRemoteCalls(), 2);
+        assertTrue(gets.getP99Millis() <= gets.getMaxMillis() * 1.25 + 0.001);
+
+        assertEquals(stats.snapshot().size(), 3);
+        assertEquals(stats.snapshot().get(0).getOperation(), "getByNameAndType");
+        assertEquals(stats.snapshot().get(1).getOperation(), "getResourceRecordSetApiForZone");
+        assertEquals(stats.snapshot().get(2).getOperation(), "replace");
+    }
+
+    @Test
+    public void recordsCreatingZoneApi() {
+        OperationSnapshot create = stats.snapshot("mock", "getResourceRecordSetApiForZone");
+        assertEquals(create.getCount(), 1);
+        assertEquals(create.getErrors(), 0);
+    }
+
+    @Test
+    public void recordsErrors() {
+        try {
+            api.add(null);
+            fail("expected NullPointerException");
+        } catch (NullPointerException e) {
+        }
+        assertEquals(stats.snapshot("mock", "add").getErrors(), 1);
+    }
+
+    @Test
+    public void batchRecordedAsCommit() {
+        api.begin().add(a("www3." + ZONE, 3600, "192.0.2.3")).add(a("www4." + ZONE, 3600, "192.0.2.4")).commit();
+
+        OperationSnapshot commit = stats.snapshot("mock", "commit");
+        assertEquals(commit.getCount(), 1);
+    }
+
+    @Test
+    public void percentilesWithinBucketError() {
+        OperationStats.Recorder recorder = new OperationStats.Recorder();
+        for (int i = 1; i <= 100; i++)
+            recorder.record(i * 1000000L, false, 0);
+        OperationSnapshot snapshot = recorder.snapshot("mock", "list");
+        assertEquals(snapshot.getMeanMillis(), 50.5);
+        assertEquals(snapshot.getMaxMillis(), 100.0);
+        assertTrue(snapshot.getP50Millis() >= 50 && snapshot.getP50Millis() <= 50 * 1.25, "p50 " + snapshot);
+        assertTrue(snapshot.getP90Millis() >= 90 && snapshot.getP90Millis() <= 90 * 1.25, "p90 " + snapshot);
+        assertTrue(snapshot.getP99Millis() >= 99 && snapshot.getP99Millis() <= 99 * 1.25, "p99 " + snapshot);
+    }
+
+    @Test
+    public void moduleDecoratesProvider() {
+        InstrumentOperations instrumentation = new InstrumentOperations(null);
+        DNSApiManager manager = Denominator.create(new MockProvider(), instrumentation);
+        manager.getApi().getZoneApi().list();
+        manager.getApi().getResourceRecordSetApiForZone(ZONE).list();
+
+        assertEquals(instrumentation.getStats().snapshot("mock", "listZones").getCount(), 1);
+        assertEquals(instrumentation.getStats().snapshot("mock", "list").getCount(), 1);
+    }
+
+    @Test
+    public void defaultObjectNamesAreUnique() {
+        assertFalse(new InstrumentOperations().getObjectName().equals(new InstrumentOperations().getObjectName()));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void conflictingObjectNameFails() {
+        String objectName = "denominator:type=OperationStats,instance=conflicting";
+        Denominator.create(new MockProvider(), new InstrumentOperations(objectName));
+        Denominator.create(new MockProvider(), new InstrumentOperations(objectName));
+    }
+}
@@ -0,0 +1,122 @@
+package denominator.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+
+public class ListingExecutorTest {
+
+    @Test
+    public void concurrencyOfOneIsSameThread() {
+        assertSame(ListingExecutor.withConcurrency(1), ListingExecutor.sameThread());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "concurrency must be positive, not 0")
+    public void concurrencyMustBePositive() {
+        ListingExecutor.withConcurrency(0);
+    }
+
+    @Test
+    public void retainsOrderWhenFetchesCompleteOutOfOrder() {
+        ListingExecutor executor = ListingExecutor.withConcurrency(4);
+        try {
+            List<Integer> input = Lists.newArrayList();
+            for (int i = 0; i < 100; i++)
+                input.add(i);
+            Iterator<String> result = executor.transform(input.iterator(), new Function<Integer, String>() {
+                public String apply(Integer in) {
+                    // later elements finish first
+                    sleepQuietly(in % 4 == 0 ? 5 : 0);
+                    return in.toString();
+                }
+            });
+            assertEquals(Lists.newArrayList(result), Lists.transform(input, new Function<Integer, String>() {
+                public String apply(Integer in) {
+                    return in.toString();
+                }
+            }));
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void boundsFetchesInFlight() throws InterruptedException {
+        ListingExecutor executor = ListingExecutor.withConcurrency(3);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        try {
+            Iterator<Integer> result = executor.transform(ImmutableList.of(1, 2, 3, 4, 5, 6, 7).iterator(),
+                    new Function<Integer, Integer>() {
+                        public Integer apply(Integer in) {
+                            int current = inFlight.incrementAndGet();
+                            synchronized (maxInFlight) {
+                                maxInFlight.set(Math.max(maxInFlight.get(), current));
+                            }
+                            sleepQuietly(5);
+                            inFlight.decrementAndGet();
+                            return in;
+                        }
+                    });
+            assertEquals(ImmutableList.copyOf(result), ImmutableList.of(1, 2, 3, 4, 5, 6, 7));
+            assertTrue(maxInFlight.get() <= 3, "max in flight: " + maxInFlight);
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "record 2 is bad")
+    public void propagatesExceptionFromFetch() {
+        ListingExecutor executor = ListingExecutor.withConcurrency(2);
+        try {
+            Iterator<Integer> result = executor.transform(ImmutableList.of(1, 2, 3).iterator(),
+                    new Function<Integer, Integer>() {
+                        public Integer apply(Integer in) {
+                            if (in == 2)
+                                throw new IllegalStateException("record 2 is bad");
+                            return in;
+                        }
+                    });
+            while (result.hasNext())
+                result.next();
+        } finally {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void sameThreadIsLazy() throws InterruptedException {
+        final CountDownLatch fetches = new CountDownLatch(2);
+        Iterator<Integer> result = ListingExecutor.sameThread().transform(ImmutableList.of(1, 2).iterator(),
+                new Function<Integer, Integer>() {
+                    public Integer apply(Integer in) {
+                        fetches.countDown();
+                        return in;
+                    }
+                });
+        assertEquals(result.next(), Integer.valueOf(1));
+        assertEquals(fetches.getCount(), 1);
+        assertEquals(result.next(), Integer.valueOf(2));
+        assertTrue(fetches.await(0, TimeUnit.SECONDS));
+    }
+
+    static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
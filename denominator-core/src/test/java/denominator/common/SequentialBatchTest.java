@@ -0,0 +1,39 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.testng.annotations.Test;
+
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.mock.MockProvider;
+
+public class SequentialBatchTest {
+    static final String ZONE = "denominator.io.";
+
+    @Test
+    public void appliesChangesInOrderOnCommit() {
+        ResourceRecordSetApi api = Denominator.create(new MockProvider()).getApi().getResourceRecordSetApiForZone(ZONE);
+        Batch batch = api.begin()
+                         .add(a("www3." + ZONE, 3600, "192.0.2.3"))
+                         .add(a("www3." + ZONE, 3600, "192.0.2.4"))
+                         .remove(a("www3." + ZONE, 3600, "192.0.2.3"))
+                         .deleteByNameAndType("www2." + ZONE, "A");
+        assertFalse(api.getByNameAndType("www3." + ZONE, "A").isPresent());
+
+        batch.commit();
+        assertEquals(api.getByNameAndType("www3." + ZONE, "A").get(), a("www3." + ZONE, 3600, "192.0.2.4"));
+        assertFalse(api.getByNameAndType("www2." + ZONE, "A").isPresent());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "batch already committed")
+    public void commitOnlyOnce() {
+        Batch batch = new SequentialBatch(Denominator.create(new MockProvider()).getApi()
+                .getResourceRecordSetApiForZone(ZONE));
+        batch.commit();
+        batch.commit();
+    }
+}
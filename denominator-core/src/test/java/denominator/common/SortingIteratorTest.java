@@ -0,0 +1,54 @@
+package denominator.common;
+
+import static denominator.common.SortingIterator.sort;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
+
+public class SortingIteratorTest {
+
+    @Test
+    public void emptyInput() {
+        assertFalse(sort(ImmutableList.<Integer> of().iterator(), Ordering.natural()).hasNext());
+    }
+
+    @Test
+    public void sameOrderAsSortedList() {
+        List<Integer> input = Lists.newArrayList();
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++)
+            input.add(random.nextInt(100));
+        List<Integer> expected = Lists.newArrayList(input);
+        Collections.sort(expected);
+        assertEquals(ImmutableList.copyOf(sort(input.iterator(), Ordering.natural())), expected);
+    }
+
+    @Test
+    public void equalElementsRetainInputOrder() {
+        Ordering<String> byFirstChar = new Ordering<String>() {
+            public int compare(String left, String right) {
+                return left.charAt(0) - right.charAt(0);
+            }
+        };
+        List<String> input = ImmutableList.of("b1", "a1", "b2", "c1", "a2", "b3", "a3", "c2");
+        assertEquals(ImmutableList.copyOf(sort(input.iterator(), byFirstChar)), byFirstChar.sortedCopy(input));
+    }
+
+    @Test
+    public void consumesInputOnConstruction() {
+        Iterator<Integer> input = ImmutableList.of(3, 1, 2).iterator();
+        Iterator<Integer> sorted = sort(input, Ordering.natural());
+        assertFalse(input.hasNext());
+        assertEquals(ImmutableList.copyOf(sorted), ImmutableList.of(1, 2, 3));
+    }
+}
@@ -0,0 +1,107 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.cname;
+import static denominator.model.ResourceRecordSets.ns;
+import static denominator.model.ResourceRecordSets.txt;
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import denominator.model.ResourceRecordSet;
+import denominator.model.rdata.MXData;
+import denominator.model.rdata.SOAData;
+import denominator.model.rdata.SRVData;
+import denominator.model.rdata.SSHFPData;
+
+@Test
+public class ZoneFileReaderTest {
+    static final String ZONE = "denominator.io.";
+
+    public void readsBindFormat() {
+        String zoneFile = Joiner.on('\n').join(
+                "$ORIGIN denominator.io.",
+                "$TTL 1h",
+                "@  IN  SOA  ns1 admin (",
+                "            1      ; serial",
+                "            3600 600 1w 60 )",
+                "   86400  NS  ns1",
+                "www1  A  192.0.2.1",
+                "      A  192.0.2.2",
+                "www   IN 300 CNAME www1.denominator.io.",
+                "@  300 IN MX 10 mail",
+                "_http._tcp  SRV 0 1 80 www",
+                "www1  SSHFP 1 1 ABCDEF",
+                "; comment",
+                "",
+                "@  TXT \"say \\\"hello\\\"\" \" world\"");
+
+        ZoneFileReader reader = new ZoneFileReader(new StringReader(zoneFile), null);
+        assertEquals(ImmutableList.copyOf(reader), ImmutableList.<ResourceRecordSet<?>> builder()
+                .add(ResourceRecordSet.<SOAData> builder().name(ZONE).type("SOA").ttl(3600)
+                        .add(SOAData.builder().mname("ns1." + ZONE).rname("admin." + ZONE).serial(1).refresh(3600)
+                                .retry(600).expire(604800).minimum(60).build()).build())
+                .add(ns(ZONE, 86400, "ns1." + ZONE))
+                .add(a("www1." + ZONE, 3600, ImmutableSet.of("192.0.2.1", "192.0.2.2")))
+                .add(cname("www." + ZONE, 300, "www1." + ZONE))
+                .add(ResourceRecordSet.<MXData> builder().name(ZONE).type("MX").ttl(300)
+                        .add(MXData.create(10, "mail." + ZONE)).build())
+                .add(ResourceRecordSet.<SRVData> builder().name("_http._tcp." + ZONE).type("SRV").ttl(3600)
+                        .add(SRVData.builder().priority(0).weight(1).port(80).target("www." + ZONE).build()).build())
+                .add(ResourceRecordSet.<SSHFPData> builder().name("www1." + ZONE).type("SSHFP").ttl(3600)
+                        .add(SSHFPData.createRSA("ABCDEF")).build())
+                .add(txt(ZONE, 3600, "say \"hello\" world")).build());
+    }
+
+    public void readsWhatWriterWrites() throws IOException {
+        ImmutableList<ResourceRecordSet<?>> rrsets = ImmutableList.<ResourceRecordSet<?>> of(
+                a("www1." + ZONE, 3600, ImmutableSet.of("192.0.2.1", "192.0.2.2")),
+                cname("www." + ZONE, "www1." + ZONE),
+                txt(ZONE, 300, "v=spf1 ~all"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ZoneFileWriter writer = ZoneFileWriter.create(out, true);
+        writer.origin(ZONE).writeAll(rrsets.iterator());
+        writer.close();
+
+        ZoneFileReader reader = ZoneFileReader.create(new ByteArrayInputStream(out.toByteArray()), true, null);
+        assertEquals(ImmutableList.copyOf(reader), rrsets);
+    }
+
+    public void splitRecordSetsAreReturnedSeparately() {
+        ZoneFileReader reader = new ZoneFileReader(new StringReader(Joiner.on('\n').join(
+                "www1 60 A 192.0.2.1",
+                "www2 60 A 192.0.2.3",
+                "www1 60 A 192.0.2.2")), ZONE);
+        assertEquals(ImmutableList.copyOf(reader), ImmutableList.of(
+                a("www1." + ZONE, 60, "192.0.2.1"),
+                a("www2." + ZONE, 60, "192.0.2.3"),
+                a("www1." + ZONE, 60, "192.0.2.2")));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "line 2: unsupported type NAPTR")
+    public void unsupportedTypeIncludesLineNumber() {
+        ImmutableList.copyOf(new ZoneFileReader(new StringReader(Joiner.on('\n').join(
+                "www1 A 192.0.2.1",
+                "www2 NAPTR 100 10 \"u\" \"E2U+sip\" \"!^.*$!sip:info@example.com!\" .")), ZONE));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "line 1: invalid A rdata: .*")
+    public void invalidRDataIncludesLineNumber() {
+        ImmutableList.copyOf(new ZoneFileReader(new StringReader("www1 A 192.0.2"), ZONE));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "line 1: relative name www1 used before \\$ORIGIN")
+    public void relativeNameWithoutOrigin() {
+        ImmutableList.copyOf(new ZoneFileReader(new StringReader("www1 A 192.0.2.1"), null));
+    }
+}
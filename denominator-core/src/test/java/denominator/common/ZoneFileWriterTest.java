@@ -0,0 +1,106 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.cname;
+import static denominator.model.ResourceRecordSets.txt;
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.zip.GZIPInputStream;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.CharStreams;
+
+import denominator.model.ResourceRecordSet;
+import denominator.model.rdata.MXData;
+
+@Test
+public class ZoneFileWriterTest {
+    static final String ZONE = "denominator.io.";
+
+    ImmutableList<ResourceRecordSet<?>> rrsets = ImmutableList.<ResourceRecordSet<?>> builder()
+            .add(a("www1." + ZONE, 3600, ImmutableSet.of("192.0.2.1", "192.0.2.2")))
+            .add(cname("www." + ZONE, "www1." + ZONE))
+            .add(ResourceRecordSet.<MXData> builder().name(ZONE).type("MX").ttl(300)
+                    .add(MXData.create(10, "mail." + ZONE)).build())
+            .add(txt(ZONE, 300, "say \"hello\"")).build();
+
+    String expected = Joiner.on('\n').join(
+            "$ORIGIN denominator.io.",
+            "www1.denominator.io.\t3600\tIN\tA\t192.0.2.1",
+            "www1.denominator.io.\t3600\tIN\tA\t192.0.2.2",
+            "www.denominator.io.\tIN\tCNAME\twww1.denominator.io.",
+            "denominator.io.\t300\tIN\tMX\t10 mail.denominator.io.",
+            "denominator.io.\t300\tIN\tTXT\t\"say \\\"hello\\\"\"", "");
+
+    public void writesOneLinePerRecord() throws IOException {
+        StringWriter out = new StringWriter();
+        ZoneFileWriter writer = new ZoneFileWriter(out);
+        writer.origin(ZONE);
+        assertEquals(writer.writeAll(rrsets.iterator()), 4);
+        writer.flush();
+
+        assertEquals(out.toString(), expected);
+    }
+
+    public void gzip() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ZoneFileWriter writer = ZoneFileWriter.create(out, true);
+        writer.origin(ZONE);
+        writer.writeAll(rrsets.iterator());
+        writer.close();
+
+        InputStreamReader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())),
+                Charsets.UTF_8);
+        assertEquals(CharStreams.toString(in), expected);
+    }
+
+    public void writesAbsoluteNamesWhenProviderOmitsTrailingDot() throws IOException {
+        // as returned by DynECT
+        ImmutableList<ResourceRecordSet<?>> undotted = ImmutableList.<ResourceRecordSet<?>> builder()
+                .add(cname("www.denominator.io", 3600, "www1.denominator.io"))
+                .add(ResourceRecordSet.<MXData> builder().name("denominator.io").type("MX").ttl(300)
+                        .add(MXData.create(10, "mail.denominator.io")).build()).build();
+
+        StringWriter out = new StringWriter();
+        ZoneFileWriter writer = new ZoneFileWriter(out);
+        writer.origin("denominator.io");
+        writer.writeAll(undotted.iterator());
+        writer.flush();
+
+        assertEquals(out.toString(), Joiner.on('\n').join(
+                "$ORIGIN denominator.io.",
+                "www.denominator.io.\t3600\tIN\tCNAME\twww1.denominator.io.",
+                "denominator.io.\t300\tIN\tMX\t10 mail.denominator.io.", ""));
+        assertEquals(ImmutableList.copyOf(new ZoneFileReader(new StringReader(out.toString()), ZONE)),
+                ImmutableList.of(
+                        cname("www.denominator.io.", 3600, "www1.denominator.io."),
+                        ResourceRecordSet.<MXData> builder().name(ZONE).type("MX").ttl(300)
+                                .add(MXData.create(10, "mail.denominator.io.")).build()));
+    }
+
+    public void splitsLongCharacterStrings() throws IOException {
+        String text = Strings.repeat("a", 254) + "\"" + Strings.repeat("b", 300);
+        ResourceRecordSet<?> rrset = txt(ZONE, 300, text);
+
+        StringWriter out = new StringWriter();
+        ZoneFileWriter writer = new ZoneFileWriter(out);
+        writer.write(rrset).flush();
+
+        assertEquals(out.toString(), "denominator.io.\t300\tIN\tTXT\t\"" + Strings.repeat("a", 254) + "\\\"\" \""
+                + Strings.repeat("b", 255) + "\" \"" + Strings.repeat("b", 45) + "\"\n");
+        assertEquals(ImmutableList.copyOf(new ZoneFileReader(new StringReader(out.toString()), ZONE)),
+                ImmutableList.of(rrset));
+    }
+}
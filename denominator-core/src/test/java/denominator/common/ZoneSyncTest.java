@@ -0,0 +1,79 @@
+package denominator.common;
+
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.cname;
+import static denominator.model.ResourceRecordSets.ns;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.mock.MockProvider;
+import denominator.model.ResourceRecordSet;
+
+public class ZoneSyncTest {
+    static final String ZONE = "denominator.io.";
+
+    ImmutableList<ResourceRecordSet<?>> desired = ImmutableList.<ResourceRecordSet<?>> builder()
+            // same rdata in a different order, and no ttl
+            .add(a("www1." + ZONE, ImmutableSet.of("192.0.2.2", "192.0.2.1")))
+            .add(a("www2." + ZONE, 3600, "198.51.100.2"))
+            .add(a("www3." + ZONE, 3600, "192.0.2.3")).build();
+
+    @Test
+    public void diffOnlyIncludesDifferences() {
+        ResourceRecordSetApi api = Denominator.create(new MockProvider()).getApi().getResourceRecordSetApiForZone(ZONE);
+        ZoneSync.Changes changes = ZoneSync.diff(ZONE, api.list(), desired);
+
+        assertEquals(changes.getAdd(), ImmutableList.of(a("www3." + ZONE, 3600, "192.0.2.3")));
+        assertEquals(changes.getReplace(), ImmutableList.of(a("www2." + ZONE, 3600, "198.51.100.2")));
+        // SOA and NS at the apex are left alone
+        assertEquals(changes.getRemove(), ImmutableList.of(cname("www." + ZONE, 3600, "www1." + ZONE)));
+    }
+
+    @Test
+    public void apexNSIsKeptWithoutSOA() {
+        // ex. DynECT names zones and records without the trailing dot
+        ImmutableList<ResourceRecordSet<?>> existing = ImmutableList.<ResourceRecordSet<?>> of(
+                ns("denominator.io", 86400, "ns1.denominator.io."),
+                ns("sub.denominator.io", 86400, "ns1.denominator.io."));
+        ZoneSync.Changes changes = ZoneSync.diff("denominator.io", existing.iterator(),
+                ImmutableList.<ResourceRecordSet<?>> of());
+
+        assertEquals(changes.getRemove(), ImmutableList.of(existing.get(1)));
+    }
+
+    @Test
+    public void ttlChangeIsReplaced() {
+        ResourceRecordSetApi api = Denominator.create(new MockProvider()).getApi().getResourceRecordSetApiForZone(ZONE);
+        ZoneSync.Changes changes = ZoneSync.diff(ZONE, api.list(),
+                ImmutableList.of(a("www2." + ZONE, 60, "198.51.100.1")));
+
+        assertEquals(changes.getReplace(), ImmutableList.of(a("www2." + ZONE, 60, "198.51.100.1")));
+    }
+
+    @Test
+    public void syncConverges() {
+        ResourceRecordSetApi api = Denominator.create(new MockProvider()).getApi().getResourceRecordSetApiForZone(ZONE);
+        assertFalse(ZoneSync.sync(ZONE, api, desired).isEmpty());
+
+        assertEquals(api.getByNameAndType("www2." + ZONE, "A").get(), a("www2." + ZONE, 3600, "198.51.100.2"));
+        assertEquals(api.getByNameAndType("www3." + ZONE, "A").get(), a("www3." + ZONE, 3600, "192.0.2.3"));
+        assertFalse(api.getByNameAndType("www." + ZONE, "CNAME").isPresent());
+        assertTrue(api.getByNameAndType(ZONE, "NS").isPresent());
+
+        assertTrue(ZoneSync.sync(ZONE, api, desired).isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void duplicateNameAndTypeNotAllowed() {
+        ZoneSync.diff(ZONE, ImmutableList.<ResourceRecordSet<?>> of().iterator(),
+                ImmutableList.of(a("www3." + ZONE, "192.0.2.3"), a("www3." + ZONE, "192.0.2.4")));
+    }
+}
@@ -0,0 +1,114 @@
+package denominator.mock;
+
+import static denominator.model.ResourceRecordSets.a;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMultimap;
+
+import denominator.ResourceRecordSetApi;
+import denominator.mock.MockProfile.Latency;
+import denominator.mock.MockProfile.SimulatedRemote;
+import denominator.model.ResourceRecordSet;
+
+@Test
+public class MockProfileTest {
+    static final String ZONE = "denominator.io.";
+
+    static class FakeTicker extends Ticker {
+        final AtomicLong nanos = new AtomicLong();
+
+        @Override
+        public long read() {
+            return nanos.get();
+        }
+
+        void advanceMillis(long millis) {
+            nanos.addAndGet(MILLISECONDS.toNanos(millis));
+        }
+    }
+
+    FakeTicker ticker = new FakeTicker();
+
+    @SuppressWarnings("rawtypes")
+    ResourceRecordSetApi api(MockProfile profile) {
+        ImmutableMultimap.Builder<String, ResourceRecordSet> data = ImmutableMultimap.builder();
+        for (int i = 1; i <= 5; i++)
+            data.put(ZONE, a("www" + i + "." + ZONE, 3600, "192.0.2." + i));
+        return new ProfiledResourceRecordSetApi.Factory(new MockResourceRecordSetApi.Factory(new MockZones(
+                data.build())), new SimulatedRemote(profile, ticker)).create(ZONE);
+    }
+
+    @Test(expectedExceptions = MockProfile.Throttled.class, expectedExceptionsMessageRegExp = "list exceeded 2 requests per second")
+    public void eachPageOfListIsARequest() {
+        Iterator<ResourceRecordSet<?>> list = api(MockProfile.builder().listPageSize(2).maxRequestsPerSecond(2)
+                .build()).list();
+        for (int i = 0; i < 4; i++)
+            list.next();
+        list.next();
+    }
+
+    public void throttledUntilTheNextSecond() {
+        ResourceRecordSetApi api = api(MockProfile.builder().maxRequestsPerSecond(1).build());
+        api.getByNameAndType("www1." + ZONE, "A");
+        try {
+            api.getByNameAndType("www1." + ZONE, "A");
+            throw new AssertionError("expected throttling");
+        } catch (MockProfile.Throttled e) {
+        }
+        ticker.advanceMillis(1000);
+        assertTrue(api.getByNameAndType("www1." + ZONE, "A").isPresent());
+    }
+
+    public void writesAreVisibleAfterConsistencyDelay() {
+        ResourceRecordSetApi api = api(MockProfile.builder().consistencyDelay(2, SECONDS).build());
+        api.add(a("www6." + ZONE, 3600, "192.0.2.6"));
+        ticker.advanceMillis(1500);
+        api.remove(a("www1." + ZONE, 3600, "192.0.2.1"));
+        assertFalse(api.getByNameAndType("www6." + ZONE, "A").isPresent());
+        assertTrue(api.getByNameAndType("www1." + ZONE, "A").isPresent());
+
+        ticker.advanceMillis(500);
+        assertEquals(api.getByNameAndType("www6." + ZONE, "A"),
+                Optional.of(a("www6." + ZONE, 3600, "192.0.2.6")));
+        assertTrue(api.getByNameAndType("www1." + ZONE, "A").isPresent());
+
+        ticker.advanceMillis(1500);
+        assertFalse(api.getByNameAndType("www1." + ZONE, "A").isPresent());
+    }
+
+    public void batchedWritesAreOneRequest() {
+        ResourceRecordSetApi api = api(MockProfile.builder().maxRequestsPerSecond(1).build());
+        api.begin().deleteByNameAndType("www1." + ZONE, "A").deleteByNameAndType("www2." + ZONE, "A").commit();
+        ticker.advanceMillis(1000);
+        assertFalse(api.listByName("www1." + ZONE).hasNext());
+    }
+
+    @Test(expectedExceptions = MockProfile.InjectedFailure.class, expectedExceptionsMessageRegExp = "add failed")
+    public void injectedFailure() {
+        api(MockProfile.builder().failureRate(1).build()).add(a("www6." + ZONE, 3600, "192.0.2.6"));
+    }
+
+    public void latencyDistributions() {
+        Random random = new Random(42);
+        assertEquals(Latency.fixed(5, MILLISECONDS).nextNanos(random), MILLISECONDS.toNanos(5));
+        long sum = 0;
+        for (int i = 0; i < 10000; i++) {
+            long uniform = Latency.uniform(10, 20, MILLISECONDS).nextNanos(random);
+            assertTrue(uniform >= MILLISECONDS.toNanos(10) && uniform < MILLISECONDS.toNanos(20), "" + uniform);
+            sum += Latency.exponential(10, MILLISECONDS).nextNanos(random);
+        }
+        assertEquals(sum / 10000.0, MILLISECONDS.toNanos(10), MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,77 @@
+package denominator.mock;
+
+import static denominator.model.ResourceRecordSets.a;
+import static denominator.model.ResourceRecordSets.cname;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
+
+import denominator.ResourceRecordSetApi;
+import denominator.model.ResourceRecordSet;
+
+@Test
+public class MockResourceRecordSetApiTest {
+    static final String ZONE = "denominator.io.";
+
+    @SuppressWarnings("rawtypes")
+    ResourceRecordSetApi api = new MockResourceRecordSetApi.Factory(new MockZones(ImmutableMultimap
+            .<String, ResourceRecordSet> builder()
+            .put(ZONE, a("www2." + ZONE, 3600, "198.51.100.1"))
+            .put(ZONE, cname("www." + ZONE, 3600, "www1." + ZONE))
+            .put(ZONE, a("www1." + ZONE, 3600, "192.0.2.1")).build())).create(ZONE);
+
+    public void listIsSortedByNameAndType() {
+        api.add(cname("www1." + ZONE, 3600, "www2." + ZONE));
+        assertEquals(ImmutableList.copyOf(api.list()), ImmutableList.of(
+                cname("www." + ZONE, 3600, "www1." + ZONE),
+                a("www1." + ZONE, 3600, "192.0.2.1"),
+                cname("www1." + ZONE, 3600, "www2." + ZONE),
+                a("www2." + ZONE, 3600, "198.51.100.1")));
+    }
+
+    public void listByNameDoesntIncludeOtherNames() {
+        assertEquals(ImmutableList.copyOf(api.listByName("www." + ZONE)), ImmutableList.of(
+                cname("www." + ZONE, 3600, "www1." + ZONE)));
+        assertFalse(api.listByName("ww." + ZONE).hasNext());
+    }
+
+    public void removingLastRDataRemovesRecordSet() {
+        api.add(a("www1." + ZONE, 3600, "192.0.2.2"));
+        api.remove(a("www1." + ZONE, 3600, "192.0.2.1"));
+        assertEquals(api.getByNameAndType("www1." + ZONE, "A").get(), a("www1." + ZONE, 3600, "192.0.2.2"));
+        api.remove(a("www1." + ZONE, 3600, "192.0.2.2"));
+        assertFalse(api.getByNameAndType("www1." + ZONE, "A").isPresent());
+    }
+
+    public void concurrentAddsToSameRecordSetAreNotLost() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> futures = Lists.newArrayList();
+            for (int i = 0; i < 200; i++) {
+                final String address = "10.0." + (i / 256) + "." + (i % 256);
+                futures.add(executor.submit(new Callable<Void>() {
+                    public Void call() {
+                        api.add(a("pool." + ZONE, 60, address));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+                future.get();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(api.getByNameAndType("pool." + ZONE, "A").get().size(), 200);
+    }
+}
@@ -0,0 +1,373 @@
+package denominator.model;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import denominator.model.rdata.AAAAData;
+import denominator.model.rdata.AData;
+import denominator.model.rdata.CNAMEData;
+import denominator.model.rdata.MXData;
+import denominator.model.rdata.NSData;
+import denominator.model.rdata.PTRData;
+import denominator.model.rdata.SOAData;
+import denominator.model.rdata.SPFData;
+import denominator.model.rdata.SRVData;
+import denominator.model.rdata.SSHFPData;
+import denominator.model.rdata.TXTData;
+
+/**
+ * Parses and formats the rdata of one resource record type, such as
+ * {@code MX}. Codecs are registered by type and type code, so that providers
+ * convert records with one lookup, and a type registered once is supported by
+ * every provider that uses this registry.
+ *
+ * <pre>
+ * MXData rdata = (MXData) RDataCodec.forType(&quot;MX&quot;).parseText(&quot;10 mail.denominator.io.&quot;);
+ * </pre>
+ *
+ * Codecs for the types in {@link denominator.model.rdata} are registered by
+ * default.
+ *
+ * @param <D>
+ *            rdata type this codec parses.
+ */
+@Beta
+public abstract class RDataCodec<D extends Map<String, Object>> {
+
+    /**
+     * the codec for the mnemonic {@code type}, such as {@code AAAA}, or null
+     * if none is registered.
+     */
+    public static RDataCodec<?> forType(String type) {
+        return byType.get(checkNotNull(type, "type"));
+    }
+
+    /**
+     * the codec for the type {@code code}, such as {@code 28}, or null if none
+     * is registered.
+     */
+    public static RDataCodec<?> forCode(int code) {
+        RDataCodec<?>[] byCode = RDataCodec.byCode;
+        return code >= 0 && code < byCode.length ? byCode[code] : null;
+    }
+
+    /**
+     * registers {@code codec}, replacing any codec of the same type or code.
+     */
+    public static synchronized void register(RDataCodec<?> codec) {
+        checkNotNull(codec, "codec");
+        RDataCodec<?> sameType = RDataCodec.byType.get(codec.type);
+        RDataCodec<?>[] byCode = Arrays.copyOf(RDataCodec.byCode, Math.max(RDataCodec.byCode.length,
+                codec.code + 1));
+        if (sameType != null)
+            byCode[sameType.code] = null;
+        RDataCodec<?> sameCode = byCode[codec.code];
+        byCode[codec.code] = codec;
+        ImmutableMap.Builder<String, RDataCodec<?>> byType = ImmutableMap.builder();
+        for (RDataCodec<?> existing : RDataCodec.byType.values()) {
+            if (existing != sameType && existing != sameCode)
+                byType.put(existing.type, existing);
+        }
+        RDataCodec.byType = byType.put(codec.type, codec).build();
+        RDataCodec.byCode = byCode;
+    }
+
+    /**
+     * removes the codec registered for {@code type}, if any, shrinking the
+     * code table to the highest code still registered. Visible for tests that
+     * register their own types.
+     */
+    static synchronized void unregister(String type) {
+        RDataCodec<?> codec = RDataCodec.byType.get(checkNotNull(type, "type"));
+        if (codec == null)
+            return;
+        RDataCodec<?>[] byCode = RDataCodec.byCode.clone();
+        byCode[codec.code] = null;
+        int length = byCode.length;
+        while (length > 0 && byCode[length - 1] == null)
+            length--;
+        ImmutableMap.Builder<String, RDataCodec<?>> byType = ImmutableMap.builder();
+        for (RDataCodec<?> existing : RDataCodec.byType.values()) {
+            if (existing != codec)
+                byType.put(existing.type, existing);
+        }
+        RDataCodec.byType = byType.build();
+        RDataCodec.byCode = Arrays.copyOf(byCode, length);
+    }
+
+    // replaced on register, so that lookups need not lock
+    private static volatile RDataCodec<?>[] byCode = new RDataCodec<?>[0];
+    private static volatile ImmutableMap<String, RDataCodec<?>> byType = ImmutableMap.of();
+
+    private final String type;
+    private final int code;
+
+    /**
+     * @param type
+     *            mnemonic, such as {@code AAAA}
+     * @param code
+     *            type code, such as {@code 28}
+     */
+    protected RDataCodec(String type, int code) {
+        this.type = Symbols.intern(checkNotNull(type, "type"));
+        checkArgument(code > 0 && code <= 0xFFFF, "code of %s must be between 1 and 65535", type);
+        this.code = code;
+    }
+
+    /**
+     * mnemonic, such as {@code AAAA}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * type code, such as {@code 28}.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * parses rdata from its fields, with any quotes removed.
+     *
+     * @throws IllegalArgumentException
+     *             if the fields are not valid for this type.
+     */
+    public abstract D parse(List<String> fields);
+
+    /**
+     * parses rdata in presentation format, such as
+     * {@code 10 mail.denominator.io.} or {@code "v=spf1 -all"}.
+     *
+     * @throws IllegalArgumentException
+     *             if the rdata is not valid for this type.
+     */
+    public D parseText(String rdata) {
+        return parse(splitText(checkNotNull(rdata, "rdata")));
+    }
+
+    /**
+     * formats {@code rdata} in presentation format, its values in order,
+     * separated by spaces.
+     */
+    public String formatText(Map<String, ?> rdata) {
+        StringBuilder text = new StringBuilder();
+        for (Object value : checkNotNull(rdata, "rdata").values()) {
+            if (text.length() > 0)
+                text.append(' ');
+            text.append(value);
+        }
+        return text.toString();
+    }
+
+    /**
+     * true if the field at {@code index} is a domain name, which a zone file
+     * may write relative to its origin.
+     */
+    public boolean isDomainName(int index) {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + code + ")";
+    }
+
+    /**
+     * splits on spaces, treating quoted strings as one field, and unescaping
+     * {@code \"} and {@code \\} within them.
+     */
+    static List<String> splitText(String rdata) {
+        ImmutableList.Builder<String> fields = ImmutableList.builder();
+        StringBuilder field = new StringBuilder();
+        int length = rdata.length();
+        for (int i = 0; i < length;) {
+            char c = rdata.charAt(i);
+            if (c == ' ' || c == '\t') {
+                i++;
+            } else if (c == '"') {
+                field.setLength(0);
+                for (i++; i < length && (c = rdata.charAt(i)) != '"'; i++) {
+                    if (c == '\\' && i + 1 < length)
+                        c = rdata.charAt(++i);
+                    field.append(c);
+                }
+                checkArgument(i < length, "unterminated quoted string in %s", rdata);
+                fields.add(field.toString());
+                i++;
+            } else {
+                int start = i;
+                while (i < length && (c = rdata.charAt(i)) != ' ' && c != '\t')
+                    i++;
+                fields.add(rdata.substring(start, i));
+            }
+        }
+        return fields.build();
+    }
+
+    /**
+     * types with a fixed number of fields.
+     */
+    private abstract static class FixedFieldCodec<D extends Map<String, Object>> extends RDataCodec<D> {
+        private final int fieldCount;
+        private final int domainNames;
+
+        /**
+         * @param domainNames
+         *            bit set of the field indexes that are domain names.
+         */
+        FixedFieldCodec(String type, int code, int fieldCount, int domainNames) {
+            super(type, code);
+            this.fieldCount = fieldCount;
+            this.domainNames = domainNames;
+        }
+
+        @Override
+        public D parse(List<String> fields) {
+            checkArgument(checkNotNull(fields, "fields").size() == fieldCount,
+                    "%s rdata must have %s fields, not %s: %s", getType(), fieldCount, fields.size(), fields);
+            return parseFields(fields);
+        }
+
+        abstract D parseFields(List<String> fields);
+
+        @Override
+        public boolean isDomainName(int index) {
+            return index >= 0 && index < fieldCount && (domainNames & 1 << index) != 0;
+        }
+    }
+
+    /**
+     * types made of character strings, which are concatenated when parsed and
+     * quoted when formatted.
+     */
+    private abstract static class CharacterStringCodec<D extends Map<String, Object>> extends RDataCodec<D> {
+        /**
+         * the most characters a character string holds, as its length is one
+         * octet.
+         */
+        static final int MAX_LENGTH = 255;
+
+        CharacterStringCodec(String type, int code) {
+            super(type, code);
+        }
+
+        @Override
+        public D parse(List<String> fields) {
+            checkArgument(!checkNotNull(fields, "fields").isEmpty(), "%s rdata must have at least one field", getType());
+            if (fields.size() == 1)
+                return create(fields.get(0));
+            StringBuilder text = new StringBuilder();
+            for (String field : fields)
+                text.append(field);
+            return create(text.toString());
+        }
+
+        abstract D create(String text);
+
+        /**
+         * quotes the text, splitting it into character strings of at most
+         * {@value #MAX_LENGTH} characters, separated by spaces.
+         */
+        @Override
+        public String formatText(Map<String, ?> rdata) {
+            String text = super.formatText(rdata);
+            StringBuilder quoted = new StringBuilder(text.length() + 2);
+            int i = 0;
+            do {
+                if (i > 0)
+                    quoted.append(' ');
+                quoted.append('"');
+                for (int end = Math.min(text.length(), i + MAX_LENGTH); i < end; i++) {
+                    char c = text.charAt(i);
+                    if (c == '"' || c == '\\')
+                        quoted.append('\\');
+                    quoted.append(c);
+                }
+                quoted.append('"');
+            } while (i < text.length());
+            return quoted.toString();
+        }
+    }
+
+    static {
+        register(new FixedFieldCodec<AData>("A", 1, 1, 0) {
+            AData parseFields(List<String> fields) {
+                return AData.create(fields.get(0));
+            }
+        });
+        register(new FixedFieldCodec<NSData>("NS", 2, 1, 1) {
+            NSData parseFields(List<String> fields) {
+                return NSData.create(fields.get(0));
+            }
+        });
+        register(new FixedFieldCodec<CNAMEData>("CNAME", 5, 1, 1) {
+            CNAMEData parseFields(List<String> fields) {
+                return CNAMEData.create(fields.get(0));
+            }
+        });
+        register(new FixedFieldCodec<SOAData>("SOA", 6, 7, 1 | 1 << 1) {
+            SOAData parseFields(List<String> fields) {
+                return SOAData.builder()
+                              .mname(fields.get(0))
+                              .rname(fields.get(1))
+                              .serial(Integer.valueOf(fields.get(2)))
+                              .refresh(Integer.valueOf(fields.get(3)))
+                              .retry(Integer.valueOf(fields.get(4)))
+                              .expire(Integer.valueOf(fields.get(5)))
+                              .minimum(Integer.valueOf(fields.get(6))).build();
+            }
+        });
+        register(new FixedFieldCodec<PTRData>("PTR", 12, 1, 1) {
+            PTRData parseFields(List<String> fields) {
+                return PTRData.create(fields.get(0));
+            }
+        });
+        register(new FixedFieldCodec<MXData>("MX", 15, 2, 1 << 1) {
+            MXData parseFields(List<String> fields) {
+                return MXData.create(Integer.valueOf(fields.get(0)), fields.get(1));
+            }
+        });
+        register(new CharacterStringCodec<TXTData>("TXT", 16) {
+            TXTData create(String text) {
+                return TXTData.create(text);
+            }
+        });
+        register(new FixedFieldCodec<AAAAData>("AAAA", 28, 1, 0) {
+            AAAAData parseFields(List<String> fields) {
+                return AAAAData.create(fields.get(0));
+            }
+        });
+        register(new FixedFieldCodec<SRVData>("SRV", 33, 4, 1 << 3) {
+            SRVData parseFields(List<String> fields) {
+                return SRVData.builder()
+                              .priority(Integer.valueOf(fields.get(0)))
+                              .weight(Integer.valueOf(fields.get(1)))
+                              .port(Integer.valueOf(fields.get(2)))
+                              .target(fields.get(3)).build();
+            }
+        });
+        register(new FixedFieldCodec<SSHFPData>("SSHFP", 44, 3, 0) {
+            SSHFPData parseFields(List<String> fields) {
+                return SSHFPData.builder()
+                                .algorithm(Integer.valueOf(fields.get(0)))
+                                .fptype(Integer.valueOf(fields.get(1)))
+                                .fingerprint(fields.get(2)).build();
+            }
+        });
+        register(new CharacterStringCodec<SPFData>("SPF", 99) {
+            SPFData create(String text) {
+                return SPFData.create(text);
+            }
+        });
+    }
+}
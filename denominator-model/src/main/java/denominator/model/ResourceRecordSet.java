@@ -4,6 +4,7 @@ import static com.google.common.base.Objects.equal;
 import static com.google.common.base.Objects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
 import java.util.Map;
@@ -34,9 +35,9 @@ public class ResourceRecordSet<D extends Map<String, Object>> extends Forwarding
 
     @ConstructorProperties({ "name", "type", "ttl", "rdata" })
     ResourceRecordSet(String name, String type, Optional<Integer> ttl, ImmutableList<D> rdata) {
-        this.name = checkNotNull(name, "name");
+        this.name = intern(checkNotNull(name, "name"));
         checkArgument(name.length() <= 255, "Name must be limited to 255 characters"); 
-        this.type = checkNotNull(type, "type of %s", name);
+        this.type = intern(checkNotNull(type, "type of %s", name));
         this.ttl = ttl != null ? ttl : Optional.<Integer> absent(); //temporary until jcloud 1.6.0-rc.2
         checkArgument(UnsignedInteger.fromIntBits(this.ttl.or(0)).longValue() <= 0x7FFFFFFFL, // Per RFC 2181 
                 "Invalid ttl value: %s, must be 0-2147483647", this.ttl);
@@ -0,0 +1,35 @@
+package denominator.model;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Shared symbol table for names, types, and hostnames in rdata.
+ *
+ * Record sets in a zone repeat the same few types, and often the same names
+ * and hostnames, such as the targets of {@code CNAME} or {@code NS} records.
+ * {@link ResourceRecordSet} and the rdata types in
+ * {@link denominator.model.rdata} intern these, so that a zone held in memory
+ * retains one instance of each, and equal values are usually the same
+ * instance, which {@link String#equals(Object)} checks first.
+ *
+ * Symbols are weakly held, so they are released once no record set uses
+ * them.
+ */
+@Beta
+public final class Symbols {
+    private static final Interner<String> SYMBOLS = Interners.newWeakInterner();
+
+    /**
+     * returns the shared instance equal to {@code symbol}.
+     */
+    public static String intern(String symbol) {
+        return SYMBOLS.intern(checkNotNull(symbol, "symbol"));
+    }
+
+    private Symbols() {
+    }
+}
@@ -5,10 +5,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
 import java.net.Inet6Address;
-import java.util.Map;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.net.InetAddresses;
 
 /**
@@ -22,7 +25,7 @@ import com.google.common.net.InetAddresses;
  * 
  * @see <aaaa href="http://www.ietf.org/rfc/rfc3596.txt">RFC 3596</aaaa>
  */
-public class AAAAData extends ForwardingMap<String, Object> {
+public class AAAAData extends AbstractRData {
 
     /**
      * 
@@ -36,28 +39,105 @@ public class AAAAData extends ForwardingMap<String, Object> {
         return new AAAAData(ipv6address);
     }
 
+    // the address is kept as two longs when it can be formatted back exactly,
+    // which is the case for addresses in RFC 5952 form, such as 2001:db8::1
+    private final long high;
+    private final long low;
     private final String address;
 
     @ConstructorProperties("address")
     private AAAAData(String ipv6address) {
-        checkArgument(InetAddresses.forString(checkNotNull(ipv6address, "address")) instanceof Inet6Address,
-                "%s should be a ipv6 address", ipv6address);
-        this.address = ipv6address;
-        this.delegate = ImmutableMap.<String, Object> of("address", ipv6address);
+        InetAddress parsed = InetAddresses.forString(checkNotNull(ipv6address, "address"));
+        checkArgument(parsed instanceof Inet6Address, "%s should be a ipv6 address", ipv6address);
+        ByteBuffer bytes = ByteBuffer.wrap(parsed.getAddress());
+        this.high = bytes.getLong();
+        this.low = bytes.getLong();
+        this.address = ipv6address.equals(InetAddresses.toAddrString(parsed)) ? null : ipv6address;
     }
 
     /**
      * a 128 bit IPv6 address
      */
     public String getAddress() {
-        return address;
+        if (address != null)
+            return address;
+        byte[] bytes = ByteBuffer.allocate(16).putLong(high).putLong(low).array();
+        try {
+            return InetAddresses.toAddrString(InetAddress.getByAddress(bytes));
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
+    // serialized as a map, for example {"address": "2001:db8::1"} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("address");
 
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return getAddress();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof AAAAData) {
+            AAAAData that = (AAAAData) obj;
+            return high == that.high && low == that.low && Objects.equal(address, that.address);
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return "address".hashCode() ^ (address != null ? address.hashCode() : rfc5952HashCode(high, low));
+    }
+
+    /**
+     * {@link String#hashCode()} of the RFC 5952 form of the address, as
+     * formatted by {@link InetAddresses#toAddrString(InetAddress)}, without
+     * formatting it.
+     */
+    static int rfc5952HashCode(long high, long low) {
+        // the longest run of two or more zero hextets, first wins, is "::"
+        int runStart = -1, runLength = 0;
+        for (int i = 0, start = -1; i <= 8; i++) {
+            if (i < 8 && hextet(high, low, i) == 0) {
+                if (start == -1)
+                    start = i;
+            } else if (start != -1) {
+                if (i - start > runLength && i - start >= 2) {
+                    runStart = start;
+                    runLength = i - start;
+                }
+                start = -1;
+            }
+        }
+        int hash = 0;
+        boolean lastWasNumber = false;
+        for (int i = 0; i < 8; i++) {
+            if (i >= runStart && i < runStart + runLength) {
+                if (i == 0 || lastWasNumber)
+                    hash = 31 * (31 * hash + ':') + ':';
+                lastWasNumber = false;
+                continue;
+            }
+            if (lastWasNumber)
+                hash = 31 * hash + ':';
+            int hextet = hextet(high, low, i);
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                if (shift == 0 || hextet >>> shift != 0)
+                    hash = 31 * hash + Character.forDigit(hextet >>> shift & 0xf, 16);
+            }
+            lastWasNumber = true;
+        }
+        return hash;
+    }
+
+    private static int hextet(long high, long low, int index) {
+        return (int) ((index < 4 ? high : low) >>> (48 - 16 * (index % 4)) & 0xffff);
     }
 }
@@ -5,10 +5,11 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
 import java.net.Inet4Address;
-import java.util.Map;
+import java.net.InetAddress;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
 import com.google.common.net.InetAddresses;
 
 /**
@@ -22,7 +23,7 @@ import com.google.common.net.InetAddresses;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class AData extends ForwardingMap<String, Object> {
+public class AData extends AbstractRData {
 
     /**
      * 
@@ -36,28 +37,69 @@ public class AData extends ForwardingMap<String, Object> {
         return new AData(ipv4address);
     }
 
+    // the address is kept as an int when it can be formatted back exactly,
+    // which is the case for addresses in dotted-quad form.
+    private final int bits;
     private final String address;
 
     @ConstructorProperties("address")
     private AData(String ipv4address) {
-        checkArgument(InetAddresses.forString(checkNotNull(ipv4address, "address")) instanceof Inet4Address,
-                "%s should be a ipv4 address", ipv4address);
-        this.address = ipv4address;
-        this.delegate = ImmutableMap.<String, Object> of("address", ipv4address);
+        InetAddress parsed = InetAddresses.forString(checkNotNull(ipv4address, "address"));
+        checkArgument(parsed instanceof Inet4Address, "%s should be a ipv4 address", ipv4address);
+        this.bits = InetAddresses.coerceToInteger(parsed);
+        this.address = ipv4address.equals(parsed.getHostAddress()) ? null : ipv4address;
     }
 
     /**
      * a 32-bit internet address
      */
     public String getAddress() {
-        return address;
+        return address != null ? address : InetAddresses.fromInteger(bits).getHostAddress();
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
+    // serialized as a map, for example {"address": "192.0.2.1"} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("address");
 
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return getAddress();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof AData) {
+            AData that = (AData) obj;
+            return bits == that.bits && Objects.equal(address, that.address);
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return "address".hashCode() ^ (address != null ? address.hashCode() : dottedQuadHashCode(bits));
+    }
+
+    /**
+     * {@link String#hashCode()} of the dotted-quad form of {@code bits},
+     * without formatting it.
+     */
+    static int dottedQuadHashCode(int bits) {
+        int hash = 0;
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            if (shift != 24)
+                hash = 31 * hash + '.';
+            int octet = bits >>> shift & 0xff;
+            if (octet >= 100)
+                hash = 31 * hash + '0' + octet / 100;
+            if (octet >= 10)
+                hash = 31 * hash + '0' + octet / 10 % 10;
+            hash = 31 * hash + '0' + octet % 10;
+        }
+        return hash;
     }
 }
@@ -0,0 +1,80 @@
+package denominator.model.rdata;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
+
+/**
+ * Read-only {@code Map<String, Object>} view of an rdata type, whose entries
+ * are read from the fields of the subclass. Only the fields are retained, and
+ * no map is built when the view is used.
+ *
+ * Subclasses compare and hash their fields directly, consistently with
+ * {@link Map#equals(Object)} and {@link Map#hashCode()}, so that they remain
+ * equal to other maps with the same entries.
+ */
+abstract class AbstractRData extends AbstractMap<String, Object> {
+
+    /**
+     * keys of the map view, in order, shared by all instances of the type.
+     */
+    abstract List<String> keys();
+
+    /**
+     * value of the key at {@code index} in {@link #keys()}.
+     */
+    abstract Object value(int index);
+
+    @Override
+    public int size() {
+        return keys().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return keys().contains(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = keys().indexOf(key);
+        return index != -1 ? value(index) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public int size() {
+                return keys().size();
+            }
+
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new UnmodifiableIterator<Entry<String, Object>>() {
+                    int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < keys().size();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (!hasNext())
+                            throw new NoSuchElementException();
+                        String key = keys().get(index);
+                        return Maps.immutableEntry(key, value(index++));
+                    }
+                };
+            }
+        };
+    }
+}
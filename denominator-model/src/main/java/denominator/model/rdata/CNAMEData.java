@@ -1,12 +1,12 @@
 package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code CNAME} (Canonical
@@ -20,7 +20,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class CNAMEData extends ForwardingMap<String, Object> {
+public class CNAMEData extends AbstractRData {
 
     public static CNAMEData create(String cname) {
         return new CNAMEData(cname);
@@ -30,8 +30,7 @@ public class CNAMEData extends ForwardingMap<String, Object> {
 
     @ConstructorProperties("cname")
     private CNAMEData(String cname) {
-        this.cname = checkNotNull(cname, "cname");
-        this.delegate = ImmutableMap.<String, Object> of("cname", cname);
+        this.cname = intern(checkNotNull(cname, "cname"));
     }
 
     /**
@@ -42,11 +41,30 @@ public class CNAMEData extends ForwardingMap<String, Object> {
         return cname;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map, for example {"cname": "..."} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("cname");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return cname;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof CNAMEData) {
+            CNAMEData that = (CNAMEData) obj;
+            return cname.equals(that.cname);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return "cname".hashCode() ^ cname.hashCode();
     }
 }
@@ -2,12 +2,12 @@ package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code MX} (Mail Exchange)
@@ -21,7 +21,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class MXData extends ForwardingMap<String, Object> {
+public class MXData extends AbstractRData {
 
     public static MXData create(int preference, String exchange) {
         return new MXData(preference, exchange);
@@ -34,10 +34,7 @@ public class MXData extends ForwardingMap<String, Object> {
     private MXData(int preference, String exchange) {
         checkArgument(preference <= 0xFFFF, "preference must be 65535 or less");
         this.preference = preference;
-        this.exchange = checkNotNull(exchange, "exchange");
-        this.delegate = ImmutableMap.<String, Object> builder()
-                                    .put("preference", preference)
-                                    .put("exchange", exchange).build();
+        this.exchange = intern(checkNotNull(exchange, "exchange"));
     }
 
     /**
@@ -56,11 +53,36 @@ public class MXData extends ForwardingMap<String, Object> {
         return exchange;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map of these keys, for example in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("preference", "exchange");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        switch (index) {
+        case 0:
+            return preference;
+        }
+        return exchange;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof MXData) {
+            MXData that = (MXData) obj;
+            return preference == that.preference
+                    && exchange.equals(that.exchange);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return ("preference".hashCode() ^ preference)
+                + ("exchange".hashCode() ^ exchange.hashCode());
     }
 }
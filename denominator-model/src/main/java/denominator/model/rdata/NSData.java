@@ -1,12 +1,12 @@
 package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code NS} (Name Server)
@@ -20,7 +20,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class NSData extends ForwardingMap<String, Object> {
+public class NSData extends AbstractRData {
 
     public static NSData create(String nsdname) {
         return new NSData(nsdname);
@@ -30,8 +30,7 @@ public class NSData extends ForwardingMap<String, Object> {
 
     @ConstructorProperties("nsdname")
     private NSData(String nsdname) {
-        this.nsdname = checkNotNull(nsdname, "nsdname");
-        this.delegate = ImmutableMap.<String, Object> of("nsdname", nsdname);
+        this.nsdname = intern(checkNotNull(nsdname, "nsdname"));
     }
 
     /**
@@ -42,11 +41,30 @@ public class NSData extends ForwardingMap<String, Object> {
         return nsdname;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map, for example {"nsdname": "..."} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("nsdname");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return nsdname;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof NSData) {
+            NSData that = (NSData) obj;
+            return nsdname.equals(that.nsdname);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return "nsdname".hashCode() ^ nsdname.hashCode();
     }
 }
@@ -1,12 +1,12 @@
 package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code PTR} (Pointer) RData
@@ -19,7 +19,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class PTRData extends ForwardingMap<String, Object> {
+public class PTRData extends AbstractRData {
 
     public static PTRData create(String ptrdname) {
         return new PTRData(ptrdname);
@@ -29,8 +29,7 @@ public class PTRData extends ForwardingMap<String, Object> {
 
     @ConstructorProperties("ptrdname")
     private PTRData(String ptrdname) {
-        this.ptrdname = checkNotNull(ptrdname, "ptrdname");
-        this.delegate = ImmutableMap.<String, Object> of("ptrdname", ptrdname);
+        this.ptrdname = intern(checkNotNull(ptrdname, "ptrdname"));
     }
 
     /**
@@ -40,11 +39,30 @@ public class PTRData extends ForwardingMap<String, Object> {
         return ptrdname;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map, for example {"ptrdname": "..."} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("ptrdname");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return ptrdname;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof PTRData) {
+            PTRData that = (PTRData) obj;
+            return ptrdname.equals(that.ptrdname);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return "ptrdname".hashCode() ^ ptrdname.hashCode();
     }
 }
@@ -2,12 +2,12 @@ package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code SOA} (Start of
@@ -28,7 +28,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class SOAData extends ForwardingMap<String, Object> {
+public class SOAData extends AbstractRData {
 
     private final String mname;
     private final String rname;
@@ -41,8 +41,8 @@ public class SOAData extends ForwardingMap<String, Object> {
     @ConstructorProperties({ "mname", "rname", "serial", "refresh", "retry", "expire", "minimum" })
     private SOAData(String mname, String rname, int serial, int refresh, int retry,
             int expire, int minimum) {
-        this.mname = checkNotNull(mname, "mname");
-        this.rname = checkNotNull(rname, "rname of %s", mname);
+        this.mname = intern(checkNotNull(mname, "mname"));
+        this.rname = intern(checkNotNull(rname, "rname of %s", mname));
         checkArgument(serial >= 0, "serial of %s must be unsigned", mname);
         this.serial = serial;
         checkArgument(refresh >= 0, "refresh of %s must be unsigned", mname);
@@ -53,14 +53,6 @@ public class SOAData extends ForwardingMap<String, Object> {
         this.expire = expire;
         checkArgument(minimum >= 0, "minimum of %s must be unsigned", mname);
         this.minimum = minimum;
-        this.delegate = ImmutableMap.<String, Object> builder()
-                                    .put("mname", mname)
-                                    .put("rname", rname)
-                                    .put("serial", serial)
-                                    .put("refresh", refresh)
-                                    .put("retry", retry)
-                                    .put("expire", expire)
-                                    .put("minimum", minimum).build();
     }
 
     /**
@@ -199,11 +191,57 @@ public class SOAData extends ForwardingMap<String, Object> {
         return new Builder();
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map of these keys, for example in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("mname", "rname", "serial", "refresh", "retry",
+            "expire", "minimum");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        switch (index) {
+        case 0:
+            return mname;
+        case 1:
+            return rname;
+        case 2:
+            return serial;
+        case 3:
+            return refresh;
+        case 4:
+            return retry;
+        case 5:
+            return expire;
+        }
+        return minimum;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SOAData) {
+            SOAData that = (SOAData) obj;
+            return mname.equals(that.mname)
+                    && rname.equals(that.rname)
+                    && serial == that.serial
+                    && refresh == that.refresh
+                    && retry == that.retry
+                    && expire == that.expire
+                    && minimum == that.minimum;
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return ("mname".hashCode() ^ mname.hashCode())
+                + ("rname".hashCode() ^ rname.hashCode())
+                + ("serial".hashCode() ^ serial)
+                + ("refresh".hashCode() ^ refresh)
+                + ("retry".hashCode() ^ retry)
+                + ("expire".hashCode() ^ expire)
+                + ("minimum".hashCode() ^ minimum);
     }
 }
@@ -3,10 +3,9 @@ package denominator.model.rdata;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code SPF} (Sender Policy Framework) RData
@@ -21,7 +20,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://tools.ietf.org/html/rfc4408#section-3.1.1">RFC 4408</a>
  */
-public class SPFData extends ForwardingMap<String, Object> {
+public class SPFData extends AbstractRData {
 
     public static SPFData create(String txtdata) {
         return new SPFData(txtdata);
@@ -32,7 +31,6 @@ public class SPFData extends ForwardingMap<String, Object> {
     @ConstructorProperties("txtdata")
     private SPFData(String txtdata) {
         this.txtdata = checkNotNull(txtdata, "txtdata");
-        this.delegate = ImmutableMap.<String, Object> of("txtdata", txtdata);
     }
 
     /**
@@ -42,11 +40,30 @@ public class SPFData extends ForwardingMap<String, Object> {
         return txtdata;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map, for example {"txtdata": "..."} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("txtdata");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return txtdata;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SPFData) {
+            SPFData that = (SPFData) obj;
+            return txtdata.equals(that.txtdata);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return "txtdata".hashCode() ^ txtdata.hashCode();
     }
 }
@@ -2,12 +2,12 @@ package denominator.model.rdata;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.model.Symbols.intern;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code SRV} (Service) RData
@@ -24,7 +24,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc2782.txt">RFC 2782</a>
  */
-public class SRVData extends ForwardingMap<String, Object> {
+public class SRVData extends AbstractRData {
 
     private final int priority;
     private final int weight;
@@ -39,12 +39,7 @@ public class SRVData extends ForwardingMap<String, Object> {
         this.priority = priority;
         this.weight = weight;
         this.port = port;
-        this.target = checkNotNull(target, "target");
-        this.delegate = ImmutableMap.<String, Object> builder()
-                                    .put("priority", priority)
-                                    .put("weight", weight)
-                                    .put("port", port)
-                                    .put("target", target).build();
+        this.target = intern(checkNotNull(target, "target"));
     }
 
     /**
@@ -136,11 +131,44 @@ public class SRVData extends ForwardingMap<String, Object> {
         return new Builder();
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map of these keys, for example in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("priority", "weight", "port", "target");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        switch (index) {
+        case 0:
+            return priority;
+        case 1:
+            return weight;
+        case 2:
+            return port;
+        }
+        return target;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SRVData) {
+            SRVData that = (SRVData) obj;
+            return priority == that.priority
+                    && weight == that.weight
+                    && port == that.port
+                    && target.equals(that.target);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return ("priority".hashCode() ^ priority)
+                + ("weight".hashCode() ^ weight)
+                + ("port".hashCode() ^ port)
+                + ("target".hashCode() ^ target.hashCode());
     }
 }
@@ -4,10 +4,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code SSHFP} (SSH Fingerprint) RData
@@ -25,7 +24,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.rfc-editor.org/rfc/rfc4255.txt">RFC 4255</a>
  */
-public class SSHFPData extends ForwardingMap<String, Object> {
+public class SSHFPData extends AbstractRData {
 
     /**
      * @param fingerprint {@code DSA} {@code SHA-1} fingerprint 
@@ -52,10 +51,6 @@ public class SSHFPData extends ForwardingMap<String, Object> {
         checkArgument(fptype >= 0, "fptype of %s must be unsigned", fingerprint);
         this.fptype = fptype;
         this.fingerprint = checkNotNull(fingerprint, "fingerprint");
-        this.delegate = ImmutableMap.<String, Object> builder()
-                                    .put("algorithm", algorithm)
-                                    .put("fptype", fptype)
-                                    .put("fingerprint", fingerprint).build();
     }
 
     /**
@@ -121,11 +116,40 @@ public class SSHFPData extends ForwardingMap<String, Object> {
         return new Builder();
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map of these keys, for example in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("algorithm", "fptype", "fingerprint");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        switch (index) {
+        case 0:
+            return algorithm;
+        case 1:
+            return fptype;
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof SSHFPData) {
+            SSHFPData that = (SSHFPData) obj;
+            return algorithm == that.algorithm
+                    && fptype == that.fptype
+                    && fingerprint.equals(that.fingerprint);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return ("algorithm".hashCode() ^ algorithm)
+                + ("fptype".hashCode() ^ fptype)
+                + ("fingerprint".hashCode() ^ fingerprint.hashCode());
     }
 }
@@ -4,10 +4,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
-import java.util.Map;
+import java.util.List;
 
-import com.google.common.collect.ForwardingMap;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Corresponds to the binary representation of the {@code TXT} (Text) RData
@@ -20,7 +19,7 @@ import com.google.common.collect.ImmutableMap;
  * 
  * @see <a href="http://www.ietf.org/rfc/rfc1035.txt">RFC 1035</a>
  */
-public class TXTData extends ForwardingMap<String, Object> {
+public class TXTData extends AbstractRData {
 
     public static TXTData create(String txtdata) {
         return new TXTData(txtdata);
@@ -32,7 +31,6 @@ public class TXTData extends ForwardingMap<String, Object> {
     private TXTData(String txtdata) {
         checkArgument(checkNotNull(txtdata, "txtdata").length() <= 65535 , "txt data is limited to 65535");
         this.txtdata = txtdata;
-        this.delegate = ImmutableMap.<String, Object> of("txtdata", txtdata);
     }
 
     /**
@@ -42,11 +40,30 @@ public class TXTData extends ForwardingMap<String, Object> {
         return txtdata;
     }
 
-    // transient to avoid serializing by default, for example in json
-    private final transient ImmutableMap<String, Object> delegate;
-    
+    // serialized as a map, for example {"txtdata": "..."} in json, rather than by field
+    private static final List<String> KEYS = ImmutableList.of("txtdata");
+
+    @Override
+    List<String> keys() {
+        return KEYS;
+    }
+
+    @Override
+    Object value(int index) {
+        return txtdata;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof TXTData) {
+            TXTData that = (TXTData) obj;
+            return txtdata.equals(that.txtdata);
+        }
+        return super.equals(obj);
+    }
+
     @Override
-    protected Map<String, Object> delegate() {
-        return delegate;
+    public int hashCode() {
+        return "txtdata".hashCode() ^ txtdata.hashCode();
     }
 }
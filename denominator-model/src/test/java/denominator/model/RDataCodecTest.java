@@ -0,0 +1,95 @@
+package denominator.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import denominator.model.rdata.MXData;
+import denominator.model.rdata.SOAData;
+import denominator.model.rdata.TXTData;
+
+@Test
+public class RDataCodecTest {
+
+    public void lookupByTypeOrCode() {
+        assertSame(RDataCodec.forType("AAAA"), RDataCodec.forCode(28));
+        assertEquals(RDataCodec.forType("AAAA").getCode(), 28);
+        assertNull(RDataCodec.forType("NAPTR"));
+        assertNull(RDataCodec.forCode(35));
+        assertNull(RDataCodec.forCode(65535));
+    }
+
+    public void parseAndFormatText() {
+        RDataCodec<?> mx = RDataCodec.forType("MX");
+        assertEquals(mx.parseText("10 mail.denominator.io."), MXData.create(10, "mail.denominator.io."));
+        assertEquals(mx.formatText(MXData.create(10, "mail.denominator.io.")), "10 mail.denominator.io.");
+        assertEquals(RDataCodec.forType("SOA").parse(ImmutableList.of("ns1.denominator.io.", "admin.denominator.io.",
+                "1", "3600", "600", "604800", "60")), SOAData.builder().mname("ns1.denominator.io.")
+                .rname("admin.denominator.io.").serial(1).refresh(3600).retry(600).expire(604800).minimum(60).build());
+    }
+
+    public void characterStringsAreQuotedAndConcatenated() {
+        RDataCodec<?> txt = RDataCodec.forType("TXT");
+        assertEquals(txt.formatText(TXTData.create("say \"hello\"")), "\"say \\\"hello\\\"\"");
+        assertEquals(txt.parseText("\"say \\\"hello\\\"\""), TXTData.create("say \"hello\""));
+        assertEquals(txt.parseText("\"v=spf1 \" \"-all\""), TXTData.create("v=spf1 -all"));
+    }
+
+    public void domainNameFields() {
+        assertTrue(RDataCodec.forType("MX").isDomainName(1));
+        assertFalse(RDataCodec.forType("MX").isDomainName(0));
+        assertFalse(RDataCodec.forType("A").isDomainName(0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = "MX rdata must have 2 fields, not 1: \\[mail.denominator.io.\\]")
+    public void wrongFieldCount() {
+        RDataCodec.forType("MX").parseText("mail.denominator.io.");
+    }
+
+    @AfterMethod
+    public void unregisterPrivateTypes() {
+        RDataCodec.unregister("PRIVATE1");
+        RDataCodec.unregister("PRIVATE2");
+    }
+
+    public void registerReplacesTypeAndCode() {
+        // private use type code
+        RDataCodec.register(new Private("PRIVATE1", 65280));
+        assertSame(RDataCodec.forType("PRIVATE1"), RDataCodec.forCode(65280));
+
+        RDataCodec.register(new Private("PRIVATE2", 65280));
+        assertNull(RDataCodec.forType("PRIVATE1"));
+        assertSame(RDataCodec.forType("PRIVATE2"), RDataCodec.forCode(65280));
+    }
+
+    public void unregisterRestoresRegistry() {
+        RDataCodec<?> txt = RDataCodec.forType("TXT");
+        RDataCodec.register(new Private("PRIVATE1", 65280));
+        RDataCodec.unregister("PRIVATE1");
+        assertNull(RDataCodec.forType("PRIVATE1"));
+        assertNull(RDataCodec.forCode(65280));
+        assertSame(RDataCodec.forCode(16), txt);
+    }
+
+    static class Private extends RDataCodec<Map<String, Object>> {
+        Private(String type, int code) {
+            super(type, code);
+        }
+
+        @Override
+        public Map<String, Object> parse(List<String> fields) {
+            return ImmutableMap.<String, Object> of("rdata", fields.get(0));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package denominator.model;
 
+import static denominator.model.ResourceRecordSets.cname;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
 import org.testng.annotations.Test;
 
@@ -23,6 +25,15 @@ public class ResourceRecordSetTest {
         assertEquals(record.get(0), AData.create("192.0.2.1"));
     }
 
+    public void namesTypesAndHostnamesAreInterned() {
+        ResourceRecordSet<?> first = cname(new String("www.denominator.io."), new String("www1.denominator.io."));
+        ResourceRecordSet<?> second = cname(new String("www.denominator.io."), new String("www1.denominator.io."));
+
+        assertSame(first.getName(), second.getName());
+        assertSame(first.getType(), second.getType());
+        assertSame(first.get(0).get("cname"), second.get(0).get("cname"));
+    }
+
     @Test(expectedExceptions = NullPointerException.class, expectedExceptionsMessageRegExp = "rdata")
     public void testNullRdataNPE() {
         ResourceRecordSet.<AData> builder().add(null);
@@ -1,9 +1,14 @@
 package denominator.model.rdata;
 
 import static denominator.model.ResourceRecordSets.aaaa;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
 
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableMap;
+
 @Test
 public class AAAADataTest {
 
@@ -20,4 +25,36 @@ public class AAAADataTest {
     public void testGoodIPv6() {
         aaaa("www.denominator.io.", "2001:db8:1cfe:face:b00c::3");
     }
+
+    public void compactFormIsEqualToMap() {
+        AAAAData rdata = AAAAData.create("2001:db8:1cfe:face:b00c::3");
+        assertEquals(rdata.getAddress(), "2001:db8:1cfe:face:b00c::3");
+        assertEquals(rdata, ImmutableMap.<String, Object> of("address", "2001:db8:1cfe:face:b00c::3"));
+    }
+
+    public void addressNotInCanonicalFormIsUnchanged() {
+        AAAAData rdata = AAAAData.create("2001:0DB8:85A3:0000:0000:8A2E:0370:7334");
+        assertEquals(rdata.getAddress(), "2001:0DB8:85A3:0000:0000:8A2E:0370:7334");
+        assertEquals(rdata, ImmutableMap.<String, Object> of("address", "2001:0DB8:85A3:0000:0000:8A2E:0370:7334"));
+    }
+
+    @DataProvider(name = "addresses")
+    public Object[][] addresses() {
+        return new Object[][] { { "::" }, { "::1" }, { "1::" }, { "2001:db8::1" }, { "2001:db8:0:1:1:1:1:1" },
+                { "2001:0:0:1::1" }, { "1::2:0:0:3:4" }, { "fe80::abcd:ef01:2345:6789" },
+                { "2001:db8:1cfe:face:b00c::3" }, { "2001:0DB8:85A3:0000:0000:8A2E:0370:7334" } };
+    }
+
+    @Test(dataProvider = "addresses")
+    public void hashCodeIsMapHashCode(String address) {
+        AAAAData rdata = AAAAData.create(address);
+        assertEquals(rdata.getAddress(), address);
+        assertEquals(rdata.hashCode(), ImmutableMap.<String, Object> of("address", address).hashCode());
+    }
+
+    public void equalsComparesFormAsWellAsAddress() {
+        assertEquals(AAAAData.create("2001:db8::1"), AAAAData.create("2001:db8::1"));
+        assertNotEquals(AAAAData.create("2001:db8::1"), AAAAData.create("2001:DB8::1"));
+        assertNotEquals(AAAAData.create("2001:db8::1"), AAAAData.create("2001:db8::2"));
+    }
 }
@@ -1,9 +1,17 @@
 package denominator.model.rdata;
 
 import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
 @Test
 public class ADataTest {
 
@@ -20,4 +28,39 @@ public class ADataTest {
     public void testGoodIPv4() {
         a("www.denominator.io.", "192.0.2.1");
     }
+
+    public void compactFormIsEqualToMap() {
+        AData rdata = AData.create("192.0.2.1");
+        assertEquals(rdata.getAddress(), "192.0.2.1");
+        assertEquals(rdata, ImmutableMap.<String, Object> of("address", "192.0.2.1"));
+        assertEquals(rdata.hashCode(), ImmutableMap.<String, Object> of("address", "192.0.2.1").hashCode());
+    }
+
+    @DataProvider(name = "addresses")
+    public Object[][] addresses() {
+        return new Object[][] { { "0.0.0.0" }, { "10.0.0.1" }, { "1.22.133.4" }, { "192.0.2.1" },
+                { "255.255.255.255" } };
+    }
+
+    @Test(dataProvider = "addresses")
+    public void hashCodeIsMapHashCode(String address) {
+        assertEquals(AData.create(address).hashCode(),
+                ImmutableMap.<String, Object> of("address", address).hashCode());
+    }
+
+    public void mapViewReadsFields() {
+        AData rdata = AData.create("192.0.2.1");
+        assertEquals(rdata.get("address"), "192.0.2.1");
+        assertNull(rdata.get("cname"));
+        assertTrue(rdata.containsKey("address"));
+        assertEquals(rdata.keySet(), ImmutableSet.of("address"));
+        assertEquals(rdata.toString(), "{address=192.0.2.1}");
+        assertEquals(rdata, AData.create("192.0.2.1"));
+        assertNotEquals(rdata, AData.create("192.0.2.2"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void mapViewIsReadOnly() {
+        AData.create("192.0.2.1").put("address", "192.0.2.2");
+    }
 }
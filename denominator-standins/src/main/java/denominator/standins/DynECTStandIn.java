@@ -0,0 +1,320 @@
+package denominator.standins;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import denominator.standins.StandInZone.Record;
+
+/**
+ * Serves the DynECT REST api for sessions, zones, and records. Operations are
+ * counted by method and resource, such as {@code POST Session},
+ * {@code GET AllRecord}, {@code GET ARecord}, and {@code PUT Zone}.
+ *
+ * As in DynECT, record creates and deletes are pending until the zone is
+ * published, and reads return the zone as last published. Pending changes
+ * are kept per zone, rather than per session. Zone names have no trailing
+ * dot, such as {@code denominator.io}.
+ */
+@Beta
+public final class DynECTStandIn extends StandIn {
+    private static final Pattern PATH = Pattern.compile("(?:/REST)?/([A-Za-z0-9]+)/?(?:([^/]+)/?)?(?:([^/]+)/?)?(?:(\\d+)/?)?");
+    private static final Pattern RECORD = Pattern.compile("([A-Z0-9]+)Record");
+
+    private final ConcurrentMap<String, Integer> serials = Maps.newConcurrentMap();
+    // zone name -> changes scheduled since the last publish, guarded by the zone
+    private final Map<String, List<Change>> pending = Maps.newHashMap();
+    private final AtomicLong jobIds = new AtomicLong();
+
+    @Override
+    String zoneId(long id) {
+        return Long.toString(id);
+    }
+
+    @Override
+    Response serve(Request request) {
+        Matcher matcher = PATH.matcher(request.path);
+        if (!matcher.matches())
+            return failure(404, "NOT_FOUND", "no api at " + request);
+        String resource = matcher.group(1);
+        String zoneName = matcher.group(2);
+        String fqdn = matcher.group(3);
+        String id = matcher.group(4);
+        count(request.method + " " + resource);
+        try {
+            if ("Session".equals(resource))
+                return session(request);
+            if (zoneName == null) {
+                if ("Zone".equals(resource) && "GET".equals(request.method))
+                    return listZones();
+                return failure(400, "INVALID_REQUEST", "unsupported request " + request);
+            }
+            StandInZone zone = zone(zoneName);
+            if (zone == null)
+                return failure(404, "NOT_FOUND", "zone: No such zone");
+            if ("Zone".equals(resource))
+                return zone(request, zone);
+            if ("ZoneChanges".equals(resource))
+                return zoneChanges(request, zone);
+            if ("AllRecord".equals(resource) && "GET".equals(request.method))
+                return listRecordIds(zone.list(), fqdn, zone.name());
+            Matcher record = RECORD.matcher(resource);
+            if (record.matches() && fqdn != null)
+                return record(request, zone, record.group(1), fqdn, id);
+            return failure(400, "INVALID_REQUEST", "unsupported request " + request);
+        } catch (IllegalArgumentException e) {
+            return failure(400, "INVALID_DATA", e.getMessage());
+        } catch (JsonParseException e) {
+            return failure(400, "INVALID_DATA", e.getMessage());
+        }
+    }
+
+    private Response session(Request request) {
+        if ("POST".equals(request.method)) {
+            JsonObject data = new JsonObject();
+            data.addProperty("token", UUID.randomUUID().toString().replace("-", ""));
+            data.addProperty("version", "3.3.8");
+            return success(data, "login: Login successful");
+        }
+        return success(new JsonObject(), "session: ok");
+    }
+
+    private Response listZones() {
+        JsonArray data = new JsonArray();
+        for (StandInZone zone : zones())
+            data.add(new JsonPrimitive("/REST/Zone/" + zone.name() + "/"));
+        return success(data, "get: Your " + data.size() + " zones");
+    }
+
+    private Response zone(Request request, StandInZone zone) {
+        if ("PUT".equals(request.method)) {
+            JsonObject body = parse(request.body);
+            if (body.has("publish") && body.get("publish").getAsBoolean())
+                publish(zone);
+        } else if (!"GET".equals(request.method)) {
+            return failure(400, "INVALID_REQUEST", "unsupported request " + request);
+        }
+        JsonObject data = new JsonObject();
+        data.addProperty("zone_type", "Primary");
+        data.addProperty("serial_style", "increment");
+        data.addProperty("serial", serial(zone));
+        data.addProperty("zone", zone.name());
+        return success(data, "get: Your zone, " + zone.name());
+    }
+
+    private Response zoneChanges(Request request, StandInZone zone) {
+        synchronized (zone) {
+            List<Change> changes = pending(zone);
+            if ("DELETE".equals(request.method)) {
+                changes.clear();
+                return success(new JsonObject(), "remove: Changes discarded");
+            }
+            JsonArray data = new JsonArray();
+            for (Change change : changes)
+                data.add(change.toJson(zone.name()));
+            return success(data, "get: Found " + data.size() + " changes");
+        }
+    }
+
+    private void publish(StandInZone zone) {
+        synchronized (zone) {
+            List<Change> changes = pending(zone);
+            for (Change change : changes)
+                change.apply(zone);
+            changes.clear();
+            serials.put(zone.name(), serial(zone) + 1);
+        }
+    }
+
+    private int serial(StandInZone zone) {
+        Integer serial = serials.get(zone.name());
+        return serial != null ? serial : 1;
+    }
+
+    private List<Change> pending(StandInZone zone) {
+        synchronized (pending) {
+            List<Change> changes = pending.get(zone.name());
+            if (changes == null) {
+                changes = Lists.newArrayList();
+                pending.put(zone.name(), changes);
+            }
+            return changes;
+        }
+    }
+
+    private Response record(Request request, StandInZone zone, String type, String fqdn, String id) {
+        if (id == null) {
+            if ("GET".equals(request.method))
+                return listRecordIds(zone.list(fqdn, type), fqdn, zone.name());
+            if ("POST".equals(request.method)) {
+                JsonObject body = parse(request.body);
+                checkArgument(body.has("rdata") && body.get("rdata").isJsonObject(), "rdata is required");
+                int ttl = body.has("ttl") ? body.get("ttl").getAsInt() : 0;
+                Map<String, Object> rdata = toRData(body.getAsJsonObject("rdata"));
+                Change create = new Change(fqdn, type, ttl, rdata, null);
+                synchronized (zone) {
+                    pending(zone).add(create);
+                }
+                return success(create.toJson(zone.name()), "add: Record added");
+            }
+            return failure(400, "INVALID_REQUEST", "unsupported request " + request);
+        }
+        Record record = zone.get(Long.parseLong(id));
+        if (record == null || !record.name.equals(fqdn) || !record.type.equals(type))
+            return failure(404, "NOT_FOUND", "node: Not in zone");
+        if ("GET".equals(request.method))
+            return success(toJson(zone.name(), record), "get: Found the record");
+        if ("DELETE".equals(request.method)) {
+            synchronized (zone) {
+                pending(zone).add(new Change(fqdn, type, record.ttl, record.rdata, record.id));
+            }
+            return success(new JsonObject(), "delete: Record will be deleted on zone publish");
+        }
+        return failure(400, "INVALID_REQUEST", "unsupported request " + request);
+    }
+
+    /**
+     * DynECT responds not found when there are no records at the fqdn.
+     */
+    private Response listRecordIds(List<Record> records, String fqdn, String zoneName) {
+        JsonArray data = new JsonArray();
+        for (Record record : records) {
+            if (fqdn == null || record.name.equals(fqdn)) {
+                data.add(new JsonPrimitive("/REST/" + record.type + "Record/" + zoneName + "/" + record.name + "/"
+                        + record.id));
+            }
+        }
+        if (fqdn != null && data.size() == 0)
+            return failure(404, "NOT_FOUND", "node: Not in zone");
+        return success(data, "get_tree: Here is your zone tree");
+    }
+
+    /**
+     * a pending create, or delete of record {@code id}.
+     */
+    private static final class Change {
+        final String fqdn;
+        final String type;
+        final int ttl;
+        final Map<String, Object> rdata;
+        final Long id;
+
+        Change(String fqdn, String type, int ttl, Map<String, Object> rdata, Long id) {
+            this.fqdn = fqdn;
+            this.type = type;
+            this.ttl = ttl;
+            this.rdata = rdata;
+            this.id = id;
+        }
+
+        /**
+         * creates that duplicate a record are ignored, as are deletes of
+         * records already deleted.
+         */
+        void apply(StandInZone zone) {
+            if (id != null) {
+                zone.remove(id);
+            } else if (!containsRData(zone.list(fqdn, type))) {
+                zone.add(fqdn, type, ttl, rdata);
+            }
+        }
+
+        private boolean containsRData(List<Record> records) {
+            for (Record record : records) {
+                if (record.rdata.equals(rdata))
+                    return true;
+            }
+            return false;
+        }
+
+        JsonObject toJson(String zoneName) {
+            JsonObject json = new JsonObject();
+            json.addProperty("zone", zoneName);
+            json.addProperty("ttl", ttl);
+            json.addProperty("fqdn", fqdn);
+            json.addProperty("record_type", type);
+            json.add("rdata", DynECTStandIn.toJson(rdata));
+            json.addProperty("record_id", id != null ? id : 0);
+            return json;
+        }
+    }
+
+    private static JsonObject toJson(String zoneName, Record record) {
+        return new Change(record.name, record.type, record.ttl, record.rdata, record.id).toJson(zoneName);
+    }
+
+    private static JsonObject toJson(Map<String, Object> rdata) {
+        JsonObject json = new JsonObject();
+        for (Map.Entry<String, Object> entry : rdata.entrySet()) {
+            if (entry.getValue() instanceof Number)
+                json.addProperty(entry.getKey(), (Number) entry.getValue());
+            else
+                json.addProperty(entry.getKey(), String.valueOf(entry.getValue()));
+        }
+        return json;
+    }
+
+    /**
+     * whole numbers are read as integers, as in the denominator model.
+     */
+    private static Map<String, Object> toRData(JsonObject json) {
+        Map<String, Object> rdata = Maps.newLinkedHashMap();
+        for (Map.Entry<String, JsonElement> entry : json.entrySet()) {
+            JsonPrimitive value = entry.getValue().getAsJsonPrimitive();
+            if (value.isNumber() && value.getAsDouble() == value.getAsInt())
+                rdata.put(entry.getKey(), value.getAsInt());
+            else
+                rdata.put(entry.getKey(), value.getAsString());
+        }
+        checkArgument(!rdata.isEmpty(), "rdata is empty");
+        return rdata;
+    }
+
+    private static JsonObject parse(String body) {
+        JsonElement json = new JsonParser().parse(body);
+        checkArgument(json.isJsonObject(), "expected a json object, not %s", body);
+        return json.getAsJsonObject();
+    }
+
+    private Response success(JsonElement data, String info) {
+        return respond(200, "success", data, info, null, "INFO");
+    }
+
+    private Response failure(int status, String errorCode, String info) {
+        return respond(status, "failure", new JsonObject(), info, errorCode, "ERROR");
+    }
+
+    private Response respond(int status, String result, JsonElement data, String info, String errorCode,
+            String level) {
+        JsonObject msg = new JsonObject();
+        msg.addProperty("INFO", info);
+        msg.addProperty("SOURCE", "BLL");
+        msg.add("ERR_CD", errorCode != null ? new JsonPrimitive(errorCode) : JsonNull.INSTANCE);
+        msg.addProperty("LVL", level);
+        JsonArray msgs = new JsonArray();
+        msgs.add(msg);
+        JsonObject json = new JsonObject();
+        json.addProperty("status", result);
+        json.add("data", data);
+        json.addProperty("job_id", jobIds.incrementAndGet());
+        json.add("msgs", msgs);
+        return new Response(status, "application/json", json.toString());
+    }
+}
@@ -0,0 +1,354 @@
+package denominator.standins;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.w3c.dom.Element;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Joiner;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+import denominator.model.RDataCodec;
+import denominator.standins.StandInZone.Record;
+
+/**
+ * Serves the Route53 REST api for hosted zones and their record sets.
+ * Operations are counted by their Route53 names: {@code ListHostedZones},
+ * {@code GetHostedZone}, {@code ListResourceRecordSets},
+ * {@code ChangeResourceRecordSets}, and {@code GetChange}.
+ *
+ * Change batches are validated and applied atomically, and are immediately
+ * {@code INSYNC}. Weighted, latency, and alias record sets are not
+ * supported. Record sets are listed in order of name, then type.
+ */
+@Beta
+public final class Route53StandIn extends StandIn {
+    static final int MAX_ITEMS = 100;
+
+    private static final Pattern PATH = Pattern
+            .compile("/(\\d{4}-\\d{2}-\\d{2})/(hostedzone|change)(?:/([^/]+))?(/rrset)?/?");
+
+    private final AtomicLong changeIds = new AtomicLong();
+
+    @Override
+    String zoneId(long id) {
+        return String.format("Z%013X", id);
+    }
+
+    @Override
+    Response serve(Request request) {
+        Matcher matcher = PATH.matcher(request.path);
+        if (!matcher.matches())
+            return error(404, "2012-02-29", "InvalidInput", "no api at " + request);
+        String version = matcher.group(1);
+        String id = matcher.group(3);
+        try {
+            if ("change".equals(matcher.group(2))) {
+                if (id == null || !"GET".equals(request.method))
+                    return error(400, version, "InvalidInput", "unsupported request " + request);
+                count("GetChange");
+                return changeInfo(version, "GetChangeResponse", id);
+            } else if (id == null) {
+                if (!"GET".equals(request.method))
+                    return error(400, version, "InvalidInput", "unsupported request " + request);
+                count("ListHostedZones");
+                return listHostedZones(version, request.query);
+            }
+            StandInZone zone = zoneById(id);
+            if (matcher.group(4) == null) {
+                if (!"GET".equals(request.method))
+                    return error(400, version, "InvalidInput", "unsupported request " + request);
+                count("GetHostedZone");
+                if (zone == null)
+                    return error(404, version, "NoSuchHostedZone", "No hosted zone found with ID: " + id);
+                return getHostedZone(version, zone);
+            } else if ("GET".equals(request.method)) {
+                count("ListResourceRecordSets");
+                if (zone == null)
+                    return error(404, version, "NoSuchHostedZone", "No hosted zone found with ID: " + id);
+                return listResourceRecordSets(version, zone, request.query);
+            } else if ("POST".equals(request.method)) {
+                count("ChangeResourceRecordSets");
+                if (zone == null)
+                    return error(404, version, "NoSuchHostedZone", "No hosted zone found with ID: " + id);
+                return changeResourceRecordSets(version, zone, request.body);
+            }
+            return error(400, version, "InvalidInput", "unsupported request " + request);
+        } catch (IllegalArgumentException e) {
+            return error(400, version, "InvalidInput", e.getMessage());
+        }
+    }
+
+    private StandInZone zoneById(String id) {
+        for (StandInZone zone : zones()) {
+            if (zone.id().equals(id))
+                return zone;
+        }
+        return null;
+    }
+
+    private Response listHostedZones(String version, Map<String, String> query) {
+        int maxItems = maxItems(query);
+        String marker = query.get("marker");
+        List<StandInZone> zones = Lists.newArrayList();
+        for (StandInZone zone : BY_ID.sortedCopy(zones())) {
+            if (marker == null || zone.id().compareTo(marker) >= 0)
+                zones.add(zone);
+        }
+        StringBuilder xml = start(version, "ListHostedZonesResponse").append("<HostedZones>");
+        for (StandInZone zone : zones.subList(0, Math.min(maxItems, zones.size())))
+            hostedZone(xml, zone);
+        xml.append("</HostedZones>");
+        if (marker != null)
+            xml.append("<Marker>").append(Xml.escape(marker)).append("</Marker>");
+        xml.append("<IsTruncated>").append(zones.size() > maxItems).append("</IsTruncated>");
+        if (zones.size() > maxItems)
+            xml.append("<NextMarker>").append(zones.get(maxItems).id()).append("</NextMarker>");
+        xml.append("<MaxItems>").append(maxItems).append("</MaxItems>");
+        return ok(xml.append("</ListHostedZonesResponse>"));
+    }
+
+    private Response getHostedZone(String version, StandInZone zone) {
+        StringBuilder xml = start(version, "GetHostedZoneResponse");
+        hostedZone(xml, zone);
+        xml.append("<DelegationSet><NameServers>");
+        for (Record ns : zone.list(zone.name(), "NS"))
+            xml.append("<NameServer>").append(Xml.escape(ns.rdata.get("nsdname"))).append("</NameServer>");
+        xml.append("</NameServers></DelegationSet>");
+        return ok(xml.append("</GetHostedZoneResponse>"));
+    }
+
+    private static void hostedZone(StringBuilder xml, StandInZone zone) {
+        xml.append("<HostedZone><Id>/hostedzone/").append(zone.id()).append("</Id>");
+        xml.append("<Name>").append(Xml.escape(zone.name())).append("</Name>");
+        xml.append("<CallerReference>").append(zone.id()).append("</CallerReference>");
+        xml.append("<Config/><ResourceRecordSetCount>").append(zone.recordSetCount())
+                .append("</ResourceRecordSetCount></HostedZone>");
+    }
+
+    private Response listResourceRecordSets(String version, StandInZone zone, Map<String, String> query) {
+        int maxItems = maxItems(query);
+        String name = query.get("name");
+        String type = query.get("type");
+        checkArgument(name != null || type == null, "type requires name");
+        List<List<Record>> page = zone.recordSetsFrom(name != null ? qualify(name) : null, type, maxItems + 1);
+        StringBuilder xml = start(version, "ListResourceRecordSetsResponse").append("<ResourceRecordSets>");
+        for (List<Record> recordSet : page.subList(0, Math.min(maxItems, page.size()))) {
+            Record first = recordSet.get(0);
+            resourceRecordSet(xml, first.name, first.type, first.ttl, recordSet);
+        }
+        xml.append("</ResourceRecordSets>");
+        xml.append("<IsTruncated>").append(page.size() > maxItems).append("</IsTruncated>");
+        if (page.size() > maxItems) {
+            Record next = page.get(maxItems).get(0);
+            xml.append("<NextRecordName>").append(Xml.escape(next.name)).append("</NextRecordName>");
+            xml.append("<NextRecordType>").append(next.type).append("</NextRecordType>");
+        }
+        xml.append("<MaxItems>").append(maxItems).append("</MaxItems>");
+        return ok(xml.append("</ListResourceRecordSetsResponse>"));
+    }
+
+    private static void resourceRecordSet(StringBuilder xml, String name, String type, int ttl,
+            List<Record> records) {
+        xml.append("<ResourceRecordSet><Name>").append(Xml.escape(name)).append("</Name>");
+        xml.append("<Type>").append(type).append("</Type><TTL>").append(ttl).append("</TTL><ResourceRecords>");
+        for (Record record : records) {
+            xml.append("<ResourceRecord><Value>").append(Xml.escape(formatValue(type, record.rdata)))
+                    .append("</Value></ResourceRecord>");
+        }
+        xml.append("</ResourceRecords></ResourceRecordSet>");
+    }
+
+    /**
+     * applies each {@code DELETE} and {@code CREATE} in order, or none of them
+     * if any doesn't match the zone as changed so far.
+     */
+    private Response changeResourceRecordSets(String version, StandInZone zone, String body) {
+        Element changes = Xml.child(Xml.child(Xml.parse(body), "ChangeBatch"), "Changes");
+        checkArgument(changes != null, "missing ChangeBatch/Changes");
+        List<Change> parsed = Lists.newArrayList();
+        for (Element change : Xml.children(changes, "Change"))
+            parsed.add(new Change(change));
+        checkArgument(!parsed.isEmpty(), "no changes");
+        synchronized (zone) {
+            // name and type -> record set after the changes so far, or null
+            Map<List<String>, RecordSet> changed = Maps.newLinkedHashMap();
+            List<String> errors = Lists.newArrayList();
+            for (Change change : parsed) {
+                List<String> key = ImmutableList.of(change.rrset.name, change.rrset.type);
+                RecordSet current = changed.containsKey(key) ? changed.get(key) : RecordSet.of(zone.list(
+                        change.rrset.name, change.rrset.type));
+                if ("CREATE".equals(change.action)) {
+                    if (current != null) {
+                        errors.add(String.format("Tried to create resource record set %s type %s, but it already exists",
+                                change.rrset.name, change.rrset.type));
+                    }
+                } else if (!change.rrset.equals(current)) {
+                    errors.add(String.format("Tried to delete resource record set %s type %s, but it was not found",
+                            change.rrset.name, change.rrset.type));
+                }
+                changed.put(key, "CREATE".equals(change.action) ? change.rrset : null);
+            }
+            if (!errors.isEmpty())
+                return invalidChangeBatch(version, errors);
+            for (Map.Entry<List<String>, RecordSet> entry : changed.entrySet()) {
+                for (Record existing : zone.list(entry.getKey().get(0), entry.getKey().get(1)))
+                    zone.remove(existing.id);
+                RecordSet rrset = entry.getValue();
+                if (rrset != null) {
+                    for (Map<String, Object> rdata : rrset.rdata)
+                        zone.add(rrset.name, rrset.type, rrset.ttl, rdata);
+                }
+            }
+        }
+        return changeInfo(version, "ChangeResourceRecordSetsResponse",
+                String.format("C%013X", changeIds.incrementAndGet()));
+    }
+
+    private static final class Change {
+        final String action;
+        final RecordSet rrset;
+
+        Change(Element change) {
+            this.action = Xml.text(change, "Action");
+            checkArgument("CREATE".equals(action) || "DELETE".equals(action), "invalid action %s", action);
+            Element rrset = Xml.child(change, "ResourceRecordSet");
+            checkArgument(rrset != null, "missing ResourceRecordSet");
+            checkArgument(Xml.child(rrset, "SetIdentifier") == null && Xml.child(rrset, "AliasTarget") == null,
+                    "weighted, latency, and alias record sets are not supported");
+            String name = qualify(Xml.text(rrset, "Name"));
+            String type = Xml.text(rrset, "Type");
+            String ttl = Xml.text(rrset, "TTL");
+            checkArgument(name != null && type != null && ttl != null, "Name, Type, and TTL are required");
+            ImmutableSet.Builder<Map<String, Object>> rdata = ImmutableSet.builder();
+            Element records = Xml.child(rrset, "ResourceRecords");
+            if (records != null) {
+                for (Element record : Xml.children(records, "ResourceRecord"))
+                    rdata.add(parseValue(type, Xml.text(record, "Value")));
+            }
+            this.rrset = new RecordSet(name, type, Integer.parseInt(ttl), rdata.build());
+            checkArgument(!this.rrset.rdata.isEmpty(), "%s %s has no ResourceRecords", name, type);
+        }
+    }
+
+    private static final class RecordSet {
+        static RecordSet of(List<Record> records) {
+            if (records.isEmpty())
+                return null;
+            ImmutableSet.Builder<Map<String, Object>> rdata = ImmutableSet.builder();
+            for (Record record : records)
+                rdata.add(record.rdata);
+            Record first = records.get(0);
+            return new RecordSet(first.name, first.type, first.ttl, rdata.build());
+        }
+
+        final String name;
+        final String type;
+        final int ttl;
+        final ImmutableSet<Map<String, Object>> rdata;
+
+        RecordSet(String name, String type, int ttl, ImmutableSet<Map<String, Object>> rdata) {
+            this.name = name;
+            this.type = type;
+            this.ttl = ttl;
+            this.rdata = rdata;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(name, type, ttl, rdata);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RecordSet))
+                return false;
+            RecordSet that = RecordSet.class.cast(obj);
+            return name.equals(that.name) && type.equals(that.type) && ttl == that.ttl && rdata.equals(that.rdata);
+        }
+    }
+
+    private static String formatValue(String type, Map<String, Object> rdata) {
+        RDataCodec<?> codec = RDataCodec.forType(type);
+        return codec != null ? codec.formatText(rdata) : Joiner.on(' ').join(rdata.values());
+    }
+
+    private static Map<String, Object> parseValue(String type, String value) {
+        RDataCodec<?> codec = RDataCodec.forType(type);
+        checkArgument(codec != null, "unsupported type %s", type);
+        checkArgument(value != null, "missing Value");
+        return codec.parseText(value);
+    }
+
+    /**
+     * Route53 treats names with and without the trailing dot the same.
+     */
+    private static String qualify(String name) {
+        return name == null || name.endsWith(".") ? name : name + ".";
+    }
+
+    private static int maxItems(Map<String, String> query) {
+        String maxItems = query.get("maxitems");
+        if (maxItems == null)
+            return MAX_ITEMS;
+        int value = Integer.parseInt(maxItems);
+        checkArgument(value > 0, "maxitems must be positive, not %s", value);
+        return Math.min(value, MAX_ITEMS);
+    }
+
+    private static Response changeInfo(String version, String element, String changeId) {
+        SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        iso8601.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder xml = start(version, element);
+        xml.append("<ChangeInfo><Id>/change/").append(Xml.escape(changeId)).append("</Id>");
+        xml.append("<Status>INSYNC</Status><SubmittedAt>").append(iso8601.format(new Date()))
+                .append("</SubmittedAt></ChangeInfo>");
+        return ok(xml.append("</").append(element).append(">"));
+    }
+
+    private static Response invalidChangeBatch(String version, List<String> messages) {
+        StringBuilder xml = start(version, "InvalidChangeBatch").append("<Messages>");
+        for (String message : messages)
+            xml.append("<Message>").append(Xml.escape(message)).append("</Message>");
+        xml.append("</Messages></InvalidChangeBatch>");
+        return new Response(400, "text/xml", xml.toString());
+    }
+
+    private static Response error(int status, String version, String code, String message) {
+        StringBuilder xml = start(version, "ErrorResponse");
+        xml.append("<Error><Type>Sender</Type><Code>").append(code).append("</Code><Message>")
+                .append(Xml.escape(message)).append("</Message></Error><RequestId>")
+                .append(Long.toHexString(System.nanoTime())).append("</RequestId></ErrorResponse>");
+        return new Response(status, "text/xml", xml.toString());
+    }
+
+    private static StringBuilder start(String version, String element) {
+        return new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<").append(element)
+                .append(" xmlns=\"https://route53.amazonaws.com/doc/").append(version).append("/\">");
+    }
+
+    private static Response ok(StringBuilder xml) {
+        return new Response(200, "text/xml", xml.toString());
+    }
+
+    private static final Ordering<StandInZone> BY_ID = new Ordering<StandInZone>() {
+        @Override
+        public int compare(StandInZone left, StandInZone right) {
+            return left.id().compareTo(right.id());
+        }
+    };
+}
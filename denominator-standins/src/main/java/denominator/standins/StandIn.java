@@ -0,0 +1,234 @@
+package denominator.standins;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import denominator.model.rdata.NSData;
+import denominator.model.rdata.SOAData;
+
+/**
+ * Local server implementing enough of a provider's protocol to hold zones
+ * with stateful behaviour, so that the real provider can be pointed at it to
+ * measure request counts and throughput end-to-end, without credentials.
+ *
+ * <pre>
+ * Route53StandIn route53 = new Route53StandIn();
+ * route53.addZone(&quot;denominator.io.&quot;);
+ * route53.start();
+ * DNSApiManager mgr = Denominator.create(new Route53Provider(route53.getUrl()), credentials(&quot;accessKey&quot;, &quot;secretKey&quot;));
+ * ...
+ * route53.getRequestCounts(); // {ChangeResourceRecordSets=1, ListHostedZones=1, ListResourceRecordSets=2}
+ * </pre>
+ *
+ * Credentials are not checked. Requests are served concurrently, and changes
+ * to a zone are atomic.
+ */
+@Beta
+public abstract class StandIn implements Closeable {
+    private final ConcurrentMap<String, StandInZone> zones = Maps.newConcurrentMap();
+    private final ConcurrentMap<String, AtomicLong> requestCounts = Maps.newConcurrentMap();
+    private final AtomicLong ids = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    StandIn() {
+    }
+
+    /**
+     * adds an empty zone, with only its {@code SOA} and {@code NS} records.
+     *
+     * @param name
+     *            name of the zone, as the provider formats it.
+     */
+    public void addZone(String name) {
+        checkNotNull(name, "name");
+        StandInZone zone = new StandInZone(name, zoneId(ids.incrementAndGet()), ids);
+        checkArgument(zones.putIfAbsent(name, zone) == null, "zone %s already exists", name);
+        String qualified = name.endsWith(".") ? name : name + ".";
+        zone.add(name, "SOA", 3600, SOAData.builder()
+                                           .mname("ns1." + qualified)
+                                           .rname("admin." + qualified)
+                                           .serial(1)
+                                           .refresh(3600)
+                                           .retry(600)
+                                           .expire(604800)
+                                           .minimum(60).build());
+        zone.add(name, "NS", 86400, NSData.create("ns1." + qualified));
+    }
+
+    /**
+     * starts serving on an ephemeral port of the loopback address.
+     */
+    public synchronized void start() throws IOException {
+        checkState(server == null, "already started");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setDaemon(true)
+                .setNameFormat(getClass().getSimpleName() + "-%d").build());
+        server.setExecutor(executor);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                StandIn.this.handle(exchange);
+            }
+        });
+        server.start();
+    }
+
+    /**
+     * url to pass to the provider, such as {@code http://127.0.0.1:54321/}.
+     */
+    public synchronized String getUrl() {
+        checkState(server != null, "not started");
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * count of requests served so far, by the provider's name for the
+     * operation, such as {@code ListResourceRecordSets}.
+     */
+    public Map<String, Long> getRequestCounts() {
+        ImmutableSortedMap.Builder<String, Long> counts = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, AtomicLong> entry : requestCounts.entrySet())
+            counts.put(entry.getKey(), entry.getValue().get());
+        return counts.build();
+    }
+
+    public void resetRequestCounts() {
+        requestCounts.clear();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (server == null)
+            return;
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+    }
+
+    /**
+     * formats the id of a new zone.
+     */
+    abstract String zoneId(long id);
+
+    /**
+     * serves {@code request}, {@link #count(String) counting} it by
+     * operation.
+     */
+    abstract Response serve(Request request);
+
+    final StandInZone zone(String name) {
+        return zones.get(name);
+    }
+
+    final Collection<StandInZone> zones() {
+        return zones.values();
+    }
+
+    final void count(String operation) {
+        AtomicLong count = requestCounts.get(operation);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = requestCounts.putIfAbsent(operation, newCount);
+            if (count == null)
+                count = newCount;
+        }
+        count.incrementAndGet();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        Response response;
+        try {
+            InputStream in = exchange.getRequestBody();
+            String body;
+            try {
+                body = CharStreams.toString(new InputStreamReader(in, UTF_8));
+            } finally {
+                in.close();
+            }
+            response = serve(new Request(exchange.getRequestMethod(), exchange.getRequestURI().getRawPath(),
+                    parseQuery(exchange.getRequestURI().getRawQuery()), body));
+        } catch (RuntimeException e) {
+            response = new Response(500, "text/plain", String.valueOf(e));
+        }
+        byte[] bytes = response.body.getBytes(UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, bytes.length == 0 ? -1 : bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        if (query == null || query.isEmpty())
+            return ImmutableMap.of();
+        Map<String, String> params = Maps.newLinkedHashMap();
+        for (String param : Splitter.on('&').omitEmptyStrings().split(query)) {
+            int eq = param.indexOf('=');
+            String key = eq == -1 ? param : param.substring(0, eq);
+            String value = eq == -1 ? "" : param.substring(eq + 1);
+            params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    static final class Request {
+        final String method;
+        final String path;
+        final Map<String, String> query;
+        final String body;
+
+        Request(String method, String path, Map<String, String> query, String body) {
+            this.method = method;
+            this.path = path;
+            this.query = query;
+            this.body = body;
+        }
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+
+    static final class Response {
+        final int status;
+        final String contentType;
+        final String body;
+
+        Response(int status, String contentType, String body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package denominator.standins;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+
+/**
+ * Records of one zone in a {@link StandIn}, sorted by name, then type, then
+ * creation. Each record has one rdata, as in DynECT and UltraDNS, and a record
+ * set is the records with the same name and type.
+ *
+ * Methods are synchronized on the zone, so a stand-in can apply several
+ * changes atomically by holding its lock.
+ */
+final class StandInZone {
+
+    static final class Record {
+        final long id;
+        final String name;
+        final String type;
+        final int ttl;
+        final Map<String, Object> rdata;
+        final long createdMillis;
+
+        private Record(long id, String name, String type, int ttl, Map<String, Object> rdata, long createdMillis) {
+            this.id = id;
+            this.name = name;
+            this.type = type;
+            this.ttl = ttl;
+            this.rdata = rdata;
+            this.createdMillis = createdMillis;
+        }
+
+        @Override
+        public String toString() {
+            return Objects.toStringHelper(this).add("id", id).add("name", name).add("type", type).add("ttl", ttl)
+                    .add("rdata", rdata).toString();
+        }
+    }
+
+    private static final Ordering<Iterable<String>> BY_NAME_AND_TYPE = Ordering.<String> natural().lexicographical();
+
+    private final String name;
+    private final String id;
+    private final AtomicLong ids;
+    private final NavigableMap<List<String>, List<Record>> records = Maps.newTreeMap(BY_NAME_AND_TYPE);
+    private final Map<Long, Record> byId = Maps.newHashMap();
+    private long lastCreatedMillis;
+
+    /**
+     * @param ids
+     *            shared by all zones of a stand-in, so that record ids are
+     *            unique across zones.
+     */
+    StandInZone(String name, String id, AtomicLong ids) {
+        this.name = checkNotNull(name, "name");
+        this.id = checkNotNull(id, "id");
+        this.ids = checkNotNull(ids, "ids");
+    }
+
+    String name() {
+        return name;
+    }
+
+    String id() {
+        return id;
+    }
+
+    synchronized int recordSetCount() {
+        return records.size();
+    }
+
+    /**
+     * all records, in order.
+     */
+    synchronized List<Record> list() {
+        ImmutableList.Builder<Record> all = ImmutableList.builder();
+        for (List<Record> recordSet : records.values())
+            all.addAll(recordSet);
+        return all.build();
+    }
+
+    /**
+     * records at {@code name}, of {@code type}, or of any type if null.
+     */
+    synchronized List<Record> list(String name, String type) {
+        checkNotNull(name, "name");
+        if (type != null) {
+            List<Record> recordSet = records.get(ImmutableList.of(name, type));
+            return recordSet != null ? ImmutableList.copyOf(recordSet) : ImmutableList.<Record> of();
+        }
+        ImmutableList.Builder<Record> named = ImmutableList.builder();
+        for (List<Record> recordSet : records.tailMap(ImmutableList.of(name), true).values()) {
+            if (!recordSet.get(0).name.equals(name))
+                break;
+            named.addAll(recordSet);
+        }
+        return named.build();
+    }
+
+    /**
+     * up to {@code limit} record sets, starting at {@code name} and
+     * {@code type}, or the first record set if {@code name} is null.
+     */
+    synchronized List<List<Record>> recordSetsFrom(String name, String type, int limit) {
+        NavigableMap<List<String>, List<Record>> from = records;
+        if (name != null)
+            from = records.tailMap(type != null ? ImmutableList.of(name, type) : ImmutableList.of(name), true);
+        List<List<Record>> page = Lists.newArrayList();
+        for (List<Record> recordSet : from.values()) {
+            if (page.size() == limit)
+                break;
+            page.add(ImmutableList.copyOf(recordSet));
+        }
+        return page;
+    }
+
+    synchronized Record get(long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * @throws IllegalStateException
+     *             if a record at this name and type has the same rdata.
+     */
+    synchronized Record add(String name, String type, int ttl, Map<String, Object> rdata) {
+        List<String> key = ImmutableList.of(checkNotNull(name, "name"), checkNotNull(type, "type"));
+        List<Record> recordSet = records.get(key);
+        if (recordSet == null) {
+            recordSet = Lists.newArrayList();
+            records.put(key, recordSet);
+        }
+        for (Record existing : recordSet)
+            checkState(!existing.rdata.equals(rdata), "%s %s %s already exists", name, type, rdata);
+        lastCreatedMillis = Math.max(System.currentTimeMillis(), lastCreatedMillis + 1);
+        Record record = new Record(ids.incrementAndGet(), name, type, ttl, ImmutableMap.copyOf(rdata),
+                lastCreatedMillis);
+        recordSet.add(record);
+        byId.put(record.id, record);
+        return record;
+    }
+
+    /**
+     * changes the ttl and rdata of record {@code id}, or returns null if it
+     * doesn't exist.
+     */
+    synchronized Record update(long id, int ttl, Map<String, Object> rdata) {
+        Record existing = byId.get(id);
+        if (existing == null)
+            return null;
+        Record updated = new Record(id, existing.name, existing.type, ttl, ImmutableMap.copyOf(rdata),
+                existing.createdMillis);
+        List<Record> recordSet = records.get(ImmutableList.of(existing.name, existing.type));
+        recordSet.set(recordSet.indexOf(existing), updated);
+        byId.put(id, updated);
+        return updated;
+    }
+
+    /**
+     * removes record {@code id}, or returns null if it doesn't exist.
+     */
+    synchronized Record remove(long id) {
+        Record existing = byId.remove(id);
+        if (existing == null)
+            return null;
+        List<String> key = ImmutableList.of(existing.name, existing.type);
+        List<Record> recordSet = records.get(key);
+        recordSet.remove(existing);
+        if (recordSet.isEmpty())
+            records.remove(key);
+        return existing;
+    }
+}
@@ -0,0 +1,411 @@
+package denominator.standins;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.Element;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import denominator.model.RDataCodec;
+import denominator.standins.StandInZone.Record;
+
+/**
+ * Serves the UltraDNS SOAP api for the account, zones, resource records, and
+ * round robin pools. Operations are counted by their SOAP names, such as
+ * {@code getResourceRecordsOfZone} and {@code addRecordToRRPool}.
+ *
+ * All zones belong to one account. Records added to a round robin pool are
+ * also listed as records of the zone, and deleting a pool deletes its
+ * records. Zone names are qualified, such as {@code denominator.io.}.
+ */
+@Beta
+public final class UltraDNSStandIn extends StandIn {
+    static final String ACCOUNT_ID = "AAAAAAAAAAAAAAAA";
+    static final String ACCOUNT_NAME = "denominator";
+
+    private static final String V01 = "http://webservice.api.ultra.neustar.com/v01/";
+    private static final String SCHEMA = "http://schema.ultraservice.neustar.com/v01/";
+
+    private final AtomicLong poolIds = new AtomicLong();
+    // pool id -> pool, whose records are guarded by its zone
+    private final ConcurrentMap<String, Pool> pools = Maps.newConcurrentMap();
+
+    @Override
+    String zoneId(long id) {
+        return guid(id);
+    }
+
+    @Override
+    Response serve(Request request) {
+        if (!"POST".equals(request.method) || !"/".equals(request.path))
+            return fault(null, null, "no api at " + request);
+        Element operation;
+        try {
+            Element body = Xml.child(Xml.parse(request.body), "Body");
+            operation = body != null ? Xml.firstChild(body) : null;
+        } catch (IllegalArgumentException e) {
+            return fault(null, null, e.getMessage());
+        }
+        if (operation == null)
+            return fault(null, null, "missing soap body");
+        String op = Xml.localName(operation);
+        count(op);
+        try {
+            if ("getAccountsListOfUser".equals(op))
+                return getAccountsListOfUser(op);
+            if ("getZonesOfAccount".equals(op))
+                return getZonesOfAccount(op);
+            if ("getResourceRecordsOfZone".equals(op))
+                return listRecords(op, existingZone(operation), null, rrType(operation));
+            if ("getResourceRecordsOfDNameByType".equals(op))
+                return listRecords(op, existingZone(operation), Xml.text(operation, "hostName"), rrType(operation));
+            if ("createResourceRecord".equals(op))
+                return createResourceRecord(op, Xml.child(operation, "resourceRecord"));
+            if ("updateResourceRecord".equals(op))
+                return updateResourceRecord(op, Xml.child(operation, "resourceRecord"));
+            if ("deleteResourceRecord".equals(op))
+                return deleteResourceRecord(op, Xml.text(operation, "guid"));
+            if ("getLoadBalancingPoolsByZone".equals(op))
+                return getLoadBalancingPoolsByZone(op, existingZone(operation));
+            if ("addRRLBPool".equals(op))
+                return addRRLBPool(op, existingZone(operation), operation);
+            if ("addRecordToRRPool".equals(op))
+                return addRecordToRRPool(op, Xml.child(operation, "roundRobinRecord"));
+            if ("getRRPoolRecords".equals(op))
+                return getRRPoolRecords(op, pool(Xml.text(operation, "lbPoolId")));
+            if ("deleteRecordOfRRPool".equals(op))
+                return deleteRecordOfRRPool(op, Xml.text(operation, "guid"));
+            if ("deleteLBPool".equals(op))
+                return deleteLBPool(op, pool(Xml.text(operation, "lbPoolID")));
+            return fault(null, null, "unsupported operation " + op);
+        } catch (UltraWSException e) {
+            return fault(e.code, e.getMessage(), "Fault occurred while processing.");
+        } catch (IllegalArgumentException e) {
+            return fault(null, null, e.getMessage());
+        }
+    }
+
+    private Response getAccountsListOfUser(String op) {
+        StringBuilder xml = start(op).append("<AccountsList xmlns:ns2=\"").append(SCHEMA).append("\">");
+        xml.append("<ns2:AccountDetailsData accountID=\"").append(ACCOUNT_ID).append("\" accountName=\"")
+                .append(ACCOUNT_NAME).append("\"/>");
+        return ok(op, xml.append("</AccountsList>"));
+    }
+
+    private Response getZonesOfAccount(String op) {
+        StringBuilder xml = start(op).append("<ZoneList xmlns:ns2=\"").append(SCHEMA).append("\">");
+        for (StandInZone zone : zones()) {
+            xml.append("<ns2:UltraZone zoneName=\"").append(Xml.escape(zone.name()))
+                    .append("\" zoneType=\"1\" accountId=\"").append(ACCOUNT_ID).append("\" owner=\"")
+                    .append(ACCOUNT_NAME).append("\" zoneId=\"").append(zone.id())
+                    .append("\" dnssecStatus=\"UNSIGNED\"/>");
+        }
+        return ok(op, xml.append("</ZoneList>"));
+    }
+
+    /**
+     * @param type
+     *            null for any type
+     */
+    private Response listRecords(String op, StandInZone zone, String hostName, String type) {
+        List<Record> records = hostName != null ? zone.list(hostName, type) : zone.list();
+        StringBuilder xml = start(op).append("<ResourceRecordList xmlns:ns2=\"").append(SCHEMA).append("\">");
+        for (Record record : records) {
+            if (type == null || record.type.equals(type))
+                appendRecord(xml, zone, record);
+        }
+        return ok(op, xml.append("</ResourceRecordList>"));
+    }
+
+    private Response createResourceRecord(String op, Element resourceRecord) {
+        checkArgument(resourceRecord != null, "missing resourceRecord");
+        StandInZone zone = existingZone(resourceRecord.getAttribute("ZoneName"));
+        String type = type(resourceRecord.getAttribute("Type"));
+        Map<String, Object> rdata = rdata(type, Xml.child(resourceRecord, "InfoValues"));
+        Record record;
+        synchronized (zone) {
+            checkAbsent(zone, resourceRecord.getAttribute("DName"), type, rdata);
+            record = zone.add(resourceRecord.getAttribute("DName"), type,
+                    Integer.parseInt(resourceRecord.getAttribute("TTL")), rdata);
+        }
+        return ok(op, start(op).append("<guid xmlns:ns2=\"").append(SCHEMA).append("\">").append(guid(record.id))
+                .append("</guid>"));
+    }
+
+    private Response updateResourceRecord(String op, Element resourceRecord) {
+        checkArgument(resourceRecord != null, "missing resourceRecord");
+        long id = id(resourceRecord.getAttribute("Guid"));
+        StandInZone zone = existingZone(resourceRecord.getAttribute("ZoneName"));
+        synchronized (zone) {
+            Record existing = zone.get(id);
+            if (existing == null)
+                throw new UltraWSException(2103, "No Resource Record with GUID found in the system");
+            Map<String, Object> rdata = rdata(existing.type, Xml.child(resourceRecord, "InfoValues"));
+            zone.update(id, Integer.parseInt(resourceRecord.getAttribute("TTL")), rdata);
+        }
+        return successful(op);
+    }
+
+    private Response deleteResourceRecord(String op, String guid) {
+        long id = id(guid);
+        for (StandInZone zone : zones()) {
+            synchronized (zone) {
+                if (zone.get(id) != null && poolOfRecord(zone, id) == null) {
+                    zone.remove(id);
+                    return successful(op);
+                }
+            }
+        }
+        throw new UltraWSException(2103, "No Resource Record with GUID found in the system");
+    }
+
+    private Response getLoadBalancingPoolsByZone(String op, StandInZone zone) {
+        StringBuilder xml = start(op).append("<LBPoolList xmlns:ns2=\"").append(SCHEMA).append("\">");
+        for (Pool pool : pools.values()) {
+            if (pool.zone != zone)
+                continue;
+            xml.append("<ns2:LBPoolData zoneid=\"").append(zone.id()).append("\"><ns2:PoolData PoolName=\"")
+                    .append(Xml.escape(pool.description)).append("\" PoolId=\"").append(pool.id)
+                    .append("\" PoolType=\"RD\" PoolDName=\"").append(Xml.escape(pool.hostName))
+                    .append("\" ResponseMethod=\"RR\"/></ns2:LBPoolData>");
+        }
+        return ok(op, xml.append("</LBPoolList>"));
+    }
+
+    private Response addRRLBPool(String op, StandInZone zone, Element operation) {
+        String hostName = Xml.text(operation, "hostName");
+        String type = type(Xml.text(operation, "poolRecordType"));
+        checkArgument(hostName != null, "missing hostName");
+        Pool pool;
+        synchronized (zone) {
+            for (Pool existing : pools.values()) {
+                if (existing.zone == zone && existing.hostName.equals(hostName) && existing.type.equals(type))
+                    throw new UltraWSException(2912, "Pool already created for this host name : " + hostName);
+            }
+            pool = new Pool(guid(poolIds.incrementAndGet()), zone, hostName, type,
+                    String.valueOf(Xml.text(operation, "description")));
+            pools.put(pool.id, pool);
+        }
+        return ok(op, start(op).append("<RRPoolID xmlns:ns2=\"").append(SCHEMA).append("\">").append(pool.id)
+                .append("</RRPoolID>"));
+    }
+
+    private Response addRecordToRRPool(String op, Element roundRobinRecord) {
+        checkArgument(roundRobinRecord != null, "missing roundRobinRecord");
+        Pool pool = pool(roundRobinRecord.getAttribute("lbPoolID"));
+        Map<String, Object> rdata = RDataCodec.forType(pool.type).parse(
+                ImmutableList.of(roundRobinRecord.getAttribute("info1Value")));
+        Record record;
+        synchronized (pool.zone) {
+            checkAbsent(pool.zone, pool.hostName, pool.type, rdata);
+            record = pool.zone.add(pool.hostName, pool.type, Integer.parseInt(roundRobinRecord.getAttribute("TTL")),
+                    rdata);
+            pool.records.add(record.id);
+        }
+        return ok(op, start(op).append("<guid xmlns:ns2=\"").append(SCHEMA).append("\">").append(guid(record.id))
+                .append("</guid>"));
+    }
+
+    private Response getRRPoolRecords(String op, Pool pool) {
+        StringBuilder xml = start(op).append("<ResourceRecordList xmlns:ns2=\"").append(SCHEMA).append("\">");
+        synchronized (pool.zone) {
+            for (Long id : pool.records)
+                appendRecord(xml, pool.zone, pool.zone.get(id));
+        }
+        return ok(op, xml.append("</ResourceRecordList>"));
+    }
+
+    private Response deleteRecordOfRRPool(String op, String guid) {
+        long id = id(guid);
+        for (StandInZone zone : zones()) {
+            synchronized (zone) {
+                Pool pool = poolOfRecord(zone, id);
+                if (pool != null) {
+                    pool.records.remove(id);
+                    zone.remove(id);
+                    return successful(op);
+                }
+            }
+        }
+        throw new UltraWSException(3101, "Pool Record does not exist.");
+    }
+
+    private Response deleteLBPool(String op, Pool pool) {
+        synchronized (pool.zone) {
+            for (Long id : pool.records)
+                pool.zone.remove(id);
+            pool.records.clear();
+            pools.remove(pool.id);
+        }
+        return successful(op);
+    }
+
+    private StandInZone existingZone(Element operation) {
+        return existingZone(Xml.text(operation, "zoneName"));
+    }
+
+    private StandInZone existingZone(String zoneName) {
+        StandInZone zone = zoneName != null ? zone(zoneName) : null;
+        if (zone == null)
+            throw new UltraWSException(1801, "Zone does not exist in the system.");
+        return zone;
+    }
+
+    private Pool pool(String poolId) {
+        Pool pool = poolId != null ? pools.get(poolId) : null;
+        if (pool == null)
+            throw new UltraWSException(2911, "Pool does not exist in the system");
+        return pool;
+    }
+
+    /**
+     * the pool in {@code zone} containing record {@code id}, or null. The
+     * caller holds the lock of {@code zone}.
+     */
+    private Pool poolOfRecord(StandInZone zone, long id) {
+        for (Pool pool : pools.values()) {
+            if (pool.zone == zone && pool.records.contains(id))
+                return pool;
+        }
+        return null;
+    }
+
+    private static void checkAbsent(StandInZone zone, String name, String type, Map<String, Object> rdata) {
+        checkArgument(name != null && !name.isEmpty(), "missing DName");
+        for (Record existing : zone.list(name, type)) {
+            if (existing.rdata.equals(rdata))
+                throw new UltraWSException(2111, "Resource Record of type " + RDataCodec.forType(type).getCode()
+                        + " with these attributes already exists in the system.");
+        }
+    }
+
+    /**
+     * the type of {@code rrType}, or null if it is {@code 0}, meaning any
+     * type.
+     */
+    private static String rrType(Element operation) {
+        String rrType = Xml.text(operation, "rrType");
+        return rrType == null || "0".equals(rrType) ? null : type(rrType);
+    }
+
+    private static String type(String code) {
+        checkArgument(code != null && !code.isEmpty(), "missing type");
+        RDataCodec<?> codec = RDataCodec.forCode(Integer.parseInt(code));
+        checkArgument(codec != null, "unsupported type %s", code);
+        return codec.getType();
+    }
+
+    private static Map<String, Object> rdata(String type, Element infoValues) {
+        checkArgument(infoValues != null, "missing InfoValues");
+        List<String> values = Lists.newArrayList();
+        for (int i = 1; infoValues.hasAttribute("Info" + i + "Value"); i++)
+            values.add(infoValues.getAttribute("Info" + i + "Value"));
+        return RDataCodec.forType(type).parse(values);
+    }
+
+    private static String guid(long id) {
+        return String.format("%016X", id);
+    }
+
+    private static long id(String guid) {
+        checkArgument(guid != null && !guid.isEmpty(), "missing guid");
+        try {
+            return Long.parseLong(guid, 16);
+        } catch (NumberFormatException e) {
+            throw new UltraWSException(2103, "No Resource Record with GUID found in the system");
+        }
+    }
+
+    private static void appendRecord(StringBuilder xml, StandInZone zone, Record record) {
+        SimpleDateFormat iso8601 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        iso8601.setTimeZone(TimeZone.getTimeZone("UTC"));
+        String created = iso8601.format(new Date(record.createdMillis));
+        xml.append("<ns2:ResourceRecord ZoneName=\"").append(Xml.escape(zone.name())).append("\" Type=\"")
+                .append(RDataCodec.forType(record.type).getCode()).append("\" DName=\"")
+                .append(Xml.escape(record.name)).append("\" TTL=\"").append(record.ttl).append("\" Guid=\"")
+                .append(guid(record.id)).append("\" ZoneId=\"").append(zone.id()).append("\" LName=\"")
+                .append(Xml.escape(record.name)).append("\" Created=\"").append(created).append("\" Modified=\"")
+                .append(created).append("\"><ns2:InfoValues");
+        int i = 1;
+        for (Object value : record.rdata.values())
+            xml.append(" Info").append(i++).append("Value=\"").append(Xml.escape(value)).append('"');
+        xml.append("/></ns2:ResourceRecord>");
+    }
+
+    private static Response successful(String op) {
+        return ok(op, start(op).append("<result xmlns:ns2=\"").append(SCHEMA).append("\">Successful</result>"));
+    }
+
+    private static StringBuilder start(String op) {
+        return new StringBuilder("<?xml version=\"1.0\"?><soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><ns1:")
+                .append(op).append("Response xmlns:ns1=\"").append(V01).append("\">");
+    }
+
+    private static Response ok(String op, StringBuilder xml) {
+        xml.append("</ns1:").append(op).append("Response></soap:Body></soap:Envelope>");
+        return new Response(200, "text/xml", xml.toString());
+    }
+
+    /**
+     * @param code
+     *            UltraDNS error code, or null if the request is malformed.
+     */
+    private static Response fault(Integer code, String description, String message) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><soap:Fault>");
+        xml.append("<faultcode>").append(code != null ? "soap:Server" : "soap:Client").append("</faultcode>");
+        xml.append("<faultstring>").append(Xml.escape(message)).append("</faultstring>");
+        if (code != null) {
+            xml.append("<detail><ns1:UltraWSException xmlns:ns1=\"").append(V01).append("\"><errorCode xmlns:ns2=\"")
+                    .append(SCHEMA).append("\">").append(code).append("</errorCode><errorDescription xmlns:ns2=\"")
+                    .append(SCHEMA).append("\">").append(Xml.escape(description))
+                    .append("</errorDescription></ns1:UltraWSException></detail>");
+        }
+        xml.append("</soap:Fault></soap:Body></soap:Envelope>");
+        return new Response(500, "text/xml", xml.toString());
+    }
+
+    private static final class Pool {
+        final String id;
+        final StandInZone zone;
+        final String hostName;
+        final String type;
+        final String description;
+        // ids of records in this pool, guarded by the zone
+        final Set<Long> records = Sets.newLinkedHashSet();
+
+        Pool(String id, StandInZone zone, String hostName, String type, String description) {
+            this.id = id;
+            this.zone = zone;
+            this.hostName = hostName;
+            this.type = type;
+            this.description = description;
+        }
+    }
+
+    /**
+     * surfaces as a fault with an UltraDNS error code.
+     */
+    private static final class UltraWSException extends RuntimeException {
+        final int code;
+
+        UltraWSException(int code, String description) {
+            super(description);
+            this.code = code;
+        }
+
+        private static final long serialVersionUID = 1L;
+    }
+}
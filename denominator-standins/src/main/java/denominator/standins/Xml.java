@@ -0,0 +1,114 @@
+package denominator.standins;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * reads request documents by local name, ignoring namespaces, as clients
+ * differ in the prefixes they use.
+ */
+final class Xml {
+    static Element parse(String xml) {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try {
+            return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml))).getDocumentElement();
+        } catch (ParserConfigurationException e) {
+            throw new IllegalStateException(e);
+        } catch (SAXException e) {
+            throw new IllegalArgumentException("malformed xml: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * child elements of {@code parent} with {@code localName}.
+     */
+    static List<Element> children(Element parent, String localName) {
+        ImmutableList.Builder<Element> children = ImmutableList.builder();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && localName.equals(localName(node)))
+                children.add((Element) node);
+        }
+        return children.build();
+    }
+
+    /**
+     * the first child element of {@code parent} with {@code localName}, or
+     * null.
+     */
+    static Element child(Element parent, String localName) {
+        List<Element> children = children(parent, localName);
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    /**
+     * the first child element of {@code parent}, or null.
+     */
+    static Element firstChild(Element parent) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element)
+                return (Element) node;
+        }
+        return null;
+    }
+
+    /**
+     * text of the first child element of {@code parent} with
+     * {@code localName}, or null if there is no such element.
+     */
+    static String text(Element parent, String localName) {
+        Element child = child(parent, localName);
+        return child != null ? child.getTextContent().trim() : null;
+    }
+
+    static String localName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    /**
+     * escapes {@code value} for use in text or a quoted attribute.
+     */
+    static String escape(Object value) {
+        String text = String.valueOf(value);
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '&':
+                escaped.append("&amp;");
+                break;
+            case '<':
+                escaped.append("&lt;");
+                break;
+            case '>':
+                escaped.append("&gt;");
+                break;
+            case '"':
+                escaped.append("&quot;");
+                break;
+            case '\'':
+                escaped.append("&apos;");
+                break;
+            default:
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private Xml() {
+    }
+}
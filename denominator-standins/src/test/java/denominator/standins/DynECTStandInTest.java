@@ -0,0 +1,93 @@
+package denominator.standins;
+
+import static denominator.standins.Route53StandInTest.call;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+@Test
+public class DynECTStandInTest {
+
+    static JsonObject json(String body) {
+        return new JsonParser().parse(body).getAsJsonObject();
+    }
+
+    @Test
+    public void recordsArePendingUntilPublish() throws IOException {
+        DynECTStandIn dynect = new DynECTStandIn();
+        dynect.addZone("denominator.io");
+        dynect.start();
+        try {
+            String url = dynect.getUrl();
+            JsonObject session = json(call("POST", url + "Session", "{\"customer_name\":\"jclouds\"}", 200));
+            assertTrue(session.getAsJsonObject("data").has("token"), session.toString());
+
+            call("POST", url + "ARecord/denominator.io/www.denominator.io",
+                    "{\"rdata\":{\"address\":\"192.0.2.1\"},\"ttl\":3600}", 200);
+            call("GET", url + "ARecord/denominator.io/www.denominator.io", null, 404);
+
+            JsonObject zone = json(call("PUT", url + "Zone/denominator.io", "{\"publish\":true}", 200));
+            assertEquals(zone.getAsJsonObject("data").get("serial").getAsInt(), 2);
+
+            JsonArray ids = json(call("GET", url + "ARecord/denominator.io/www.denominator.io", null, 200))
+                    .getAsJsonArray("data");
+            assertEquals(ids.size(), 1);
+            String id = ids.get(0).getAsString();
+            assertTrue(id.startsWith("/REST/ARecord/denominator.io/www.denominator.io/"), id);
+
+            JsonObject record = json(call("GET", url + id.substring("/REST/".length()), null, 200))
+                    .getAsJsonObject("data");
+            assertEquals(record.get("ttl").getAsInt(), 3600);
+            assertEquals(record.getAsJsonObject("rdata").get("address").getAsString(), "192.0.2.1");
+
+            call("DELETE", url + id.substring("/REST/".length()), null, 200);
+            call("GET", url + "AllRecord/denominator.io/www.denominator.io", null, 200);
+            call("PUT", url + "Zone/denominator.io", "{\"publish\":true}", 200);
+            call("GET", url + "AllRecord/denominator.io/www.denominator.io", null, 404);
+
+            assertEquals(dynect.getRequestCounts().get("PUT Zone"), Long.valueOf(2));
+        } finally {
+            dynect.close();
+        }
+    }
+
+    @Test
+    public void listsAllRecordsOfZone() throws IOException {
+        DynECTStandIn dynect = new DynECTStandIn();
+        dynect.addZone("denominator.io");
+        dynect.start();
+        try {
+            JsonArray zones = json(call("GET", dynect.getUrl() + "REST/Zone/", null, 200)).getAsJsonArray("data");
+            assertEquals(zones.get(0).getAsString(), "/REST/Zone/denominator.io/");
+
+            JsonArray all = json(call("GET", dynect.getUrl() + "REST/AllRecord/denominator.io", null, 200))
+                    .getAsJsonArray("data");
+            assertEquals(all.size(), 2);
+            assertTrue(all.get(0).getAsString().startsWith("/REST/NSRecord/denominator.io/denominator.io/"));
+            assertTrue(all.get(1).getAsString().startsWith("/REST/SOARecord/denominator.io/denominator.io/"));
+        } finally {
+            dynect.close();
+        }
+    }
+
+    @Test
+    public void unknownZoneIsNotFound() throws IOException {
+        DynECTStandIn dynect = new DynECTStandIn();
+        dynect.start();
+        try {
+            JsonObject failure = json(call("GET", dynect.getUrl() + "AllRecord/denominator.io", null, 404));
+            assertEquals(failure.get("status").getAsString(), "failure");
+            assertEquals(failure.getAsJsonArray("msgs").get(0).getAsJsonObject().get("ERR_CD").getAsString(),
+                    "NOT_FOUND");
+        } finally {
+            dynect.close();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package denominator.standins;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharStreams;
+
+@Test
+public class Route53StandInTest {
+
+    static String changeBatch(String action, String name, String value) {
+        return "<ChangeResourceRecordSetsRequest xmlns=\"https://route53.amazonaws.com/doc/2012-02-29/\"><ChangeBatch><Changes><Change><Action>"
+                + action + "</Action><ResourceRecordSet><Name>" + name
+                + "</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>" + value
+                + "</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></Change></Changes></ChangeBatch></ChangeResourceRecordSetsRequest>";
+    }
+
+    @Test
+    public void changesAreListedInOrder() throws IOException {
+        Route53StandIn route53 = new Route53StandIn();
+        route53.addZone("denominator.io.");
+        route53.start();
+        try {
+            String zones = call("GET", route53.getUrl() + "2012-02-29/hostedzone", null, 200);
+            assertTrue(zones.contains("<Id>/hostedzone/Z0000000000001</Id><Name>denominator.io.</Name>"), zones);
+
+            String rrset = route53.getUrl() + "2012-02-29/hostedzone/Z0000000000001/rrset";
+            call("POST", rrset, changeBatch("CREATE", "www.denominator.io.", "192.0.2.1"), 200);
+            call("POST", rrset, changeBatch("CREATE", "a.denominator.io.", "192.0.2.2"), 200);
+
+            String page = call("GET", rrset + "?maxitems=2", null, 200);
+            assertTrue(page.contains("<Name>a.denominator.io.</Name><Type>A</Type>"), page);
+            assertTrue(page.contains("<Name>denominator.io.</Name><Type>NS</Type>"), page);
+            assertTrue(page.contains("<IsTruncated>true</IsTruncated><NextRecordName>denominator.io.</NextRecordName>"
+                    + "<NextRecordType>SOA</NextRecordType>"), page);
+
+            String byName = call("GET", rrset + "?name=www.denominator.io.&type=A&maxitems=1", null, 200);
+            assertTrue(byName.contains("<ResourceRecord><Value>192.0.2.1</Value></ResourceRecord>"), byName);
+
+            assertEquals(route53.getRequestCounts(), ImmutableMap.of("ChangeResourceRecordSets", 2L,
+                    "ListHostedZones", 1L, "ListResourceRecordSets", 2L));
+        } finally {
+            route53.close();
+        }
+    }
+
+    @Test
+    public void invalidChangeBatchIsNotApplied() throws IOException {
+        Route53StandIn route53 = new Route53StandIn();
+        route53.addZone("denominator.io.");
+        route53.start();
+        try {
+            String rrset = route53.getUrl() + "2012-02-29/hostedzone/Z0000000000001/rrset";
+            call("POST", rrset, changeBatch("CREATE", "www.denominator.io.", "192.0.2.1"), 200);
+
+            String error = call("POST", rrset, changeBatch("CREATE", "www.denominator.io.", "192.0.2.2"), 400);
+            assertTrue(error.contains("<InvalidChangeBatch"), error);
+            error = call("POST", rrset, changeBatch("DELETE", "www.denominator.io.", "192.0.2.2"), 400);
+            assertTrue(error.contains("but it was not found"), error);
+
+            call("POST", rrset, changeBatch("DELETE", "www.denominator.io.", "192.0.2.1"), 200);
+            String byName = call("GET", rrset + "?name=www.denominator.io.", null, 200);
+            assertTrue(!byName.contains("www.denominator.io."), byName);
+        } finally {
+            route53.close();
+        }
+    }
+
+    @Test
+    public void unknownZoneIsNotFound() throws IOException {
+        Route53StandIn route53 = new Route53StandIn();
+        route53.start();
+        try {
+            String error = call("GET", route53.getUrl() + "2012-02-29/hostedzone/Z1/rrset", null, 404);
+            assertTrue(error.contains("<Code>NoSuchHostedZone</Code>"), error);
+        } finally {
+            route53.close();
+        }
+    }
+
+    /**
+     * returns the response body, after checking its status.
+     */
+    static String call(String method, String url, String body, int expectedStatus) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body.getBytes(UTF_8));
+            } finally {
+                out.close();
+            }
+        }
+        assertEquals(connection.getResponseCode(), expectedStatus);
+        InputStream in = expectedStatus < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in == null)
+            return "";
+        try {
+            return CharStreams.toString(new InputStreamReader(in, UTF_8));
+        } finally {
+            in.close();
+        }
+    }
+}
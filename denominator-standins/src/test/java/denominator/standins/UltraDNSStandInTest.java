@@ -0,0 +1,97 @@
+package denominator.standins;
+
+import static denominator.standins.Route53StandInTest.call;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.testng.annotations.Test;
+
+@Test
+public class UltraDNSStandInTest {
+
+    static String soap(String operation) {
+        return "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:v01=\"http://webservice.api.ultra.neustar.com/v01/\"><soapenv:Body>"
+                + operation + "</soapenv:Body></soapenv:Envelope>";
+    }
+
+    static String getResourceRecordsOfZone = soap("<v01:getResourceRecordsOfZone><zoneName>denominator.io.</zoneName><rrType>0</rrType></v01:getResourceRecordsOfZone>");
+
+    static String text(String xml, String element) {
+        Matcher matcher = Pattern.compile("<" + element + "[^>]*>([^<]*)</" + element + ">").matcher(xml);
+        assertTrue(matcher.find(), xml);
+        return matcher.group(1);
+    }
+
+    @Test
+    public void createUpdateAndDeleteRecord() throws IOException {
+        UltraDNSStandIn ultradns = new UltraDNSStandIn();
+        ultradns.addZone("denominator.io.");
+        ultradns.start();
+        try {
+            String url = ultradns.getUrl();
+            String zones = call("POST", url, soap("<v01:getZonesOfAccount><accountId>AAAAAAAAAAAAAAAA</accountId><zoneType>all</zoneType></v01:getZonesOfAccount>"), 200);
+            assertTrue(zones.contains("<ns2:UltraZone zoneName=\"denominator.io.\""), zones);
+
+            String guid = text(call("POST", url, soap("<v01:createResourceRecord><transactionID /><resourceRecord ZoneName=\"denominator.io.\" Type=\"15\" DName=\"denominator.io.\" TTL=\"3600\"><InfoValues Info1Value=\"10\" Info2Value=\"mx.denominator.io.\" /></resourceRecord></v01:createResourceRecord>"), 200), "guid");
+
+            String records = call("POST", url, getResourceRecordsOfZone, 200);
+            assertTrue(records.contains("Type=\"15\" DName=\"denominator.io.\" TTL=\"3600\" Guid=\"" + guid + "\""),
+                    records);
+            assertTrue(records.contains("<ns2:InfoValues Info1Value=\"10\" Info2Value=\"mx.denominator.io.\"/>"),
+                    records);
+
+            call("POST", url, soap("<v01:updateResourceRecord><transactionID /><resourceRecord Guid=\"" + guid + "\" ZoneName=\"denominator.io.\" Type=\"15\" DName=\"denominator.io.\" TTL=\"300\"><InfoValues Info1Value=\"10\" Info2Value=\"mx.denominator.io.\" /></resourceRecord></v01:updateResourceRecord>"), 200);
+            records = call("POST", url, getResourceRecordsOfZone, 200);
+            assertTrue(records.contains("TTL=\"300\" Guid=\"" + guid + "\""), records);
+
+            call("POST", url, soap("<v01:deleteResourceRecord><transactionID /><guid>" + guid + "</guid></v01:deleteResourceRecord>"), 200);
+            String fault = call("POST", url, soap("<v01:deleteResourceRecord><transactionID /><guid>" + guid + "</guid></v01:deleteResourceRecord>"), 500);
+            assertEquals(text(fault, "errorCode"), "2103");
+        } finally {
+            ultradns.close();
+        }
+    }
+
+    @Test
+    public void deletingPoolDeletesItsRecords() throws IOException {
+        UltraDNSStandIn ultradns = new UltraDNSStandIn();
+        ultradns.addZone("denominator.io.");
+        ultradns.start();
+        try {
+            String url = ultradns.getUrl();
+            String poolId = text(call("POST", url, soap("<v01:addRRLBPool><transactionID /><zoneName>denominator.io.</zoneName><hostName>www.denominator.io.</hostName><description>A</description><poolRecordType>1</poolRecordType><rrGUID /></v01:addRRLBPool>"), 200), "RRPoolID");
+            String fault = call("POST", url, soap("<v01:addRRLBPool><transactionID /><zoneName>denominator.io.</zoneName><hostName>www.denominator.io.</hostName><description>A</description><poolRecordType>1</poolRecordType><rrGUID /></v01:addRRLBPool>"), 500);
+            assertEquals(text(fault, "errorCode"), "2912");
+
+            call("POST", url, soap("<v01:addRecordToRRPool><transactionID /><roundRobinRecord lbPoolID=\"" + poolId + "\" info1Value=\"192.0.2.1\" ZoneName=\"denominator.io.\" Type=\"1\" TTL=\"3600\"/></v01:addRecordToRRPool>"), 200);
+
+            String pools = call("POST", url, soap("<v01:getLoadBalancingPoolsByZone><zoneName>denominator.io.</zoneName><lbPoolType>RR</lbPoolType></v01:getLoadBalancingPoolsByZone>"), 200);
+            assertTrue(pools.contains("PoolName=\"A\" PoolId=\"" + poolId + "\""), pools);
+            assertTrue(call("POST", url, getResourceRecordsOfZone, 200).contains("Info1Value=\"192.0.2.1\""));
+
+            call("POST", url, soap("<v01:deleteLBPool><transactionID /><lbPoolID>" + poolId + "</lbPoolID><DeleteAll>Yes</DeleteAll><retainRecordId /></v01:deleteLBPool>"), 200);
+            assertFalse(call("POST", url, getResourceRecordsOfZone, 200).contains("Info1Value=\"192.0.2.1\""));
+
+            assertEquals(ultradns.getRequestCounts().get("getResourceRecordsOfZone"), Long.valueOf(2));
+        } finally {
+            ultradns.close();
+        }
+    }
+
+    @Test
+    public void unknownZoneFaults() throws IOException {
+        UltraDNSStandIn ultradns = new UltraDNSStandIn();
+        ultradns.start();
+        try {
+            String fault = call("POST", ultradns.getUrl(), getResourceRecordsOfZone, 500);
+            assertEquals(text(fault, "errorCode"), "1801");
+        } finally {
+            ultradns.close();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package denominator.dynect;
 
 import static com.google.common.base.Suppliers.compose;
+import static com.google.common.base.Throwables.getCausalChain;
+import static com.google.common.collect.Iterables.filter;
 
 import java.io.Closeable;
 import java.util.List;
@@ -11,13 +13,16 @@ import org.jclouds.ContextBuilder;
 import org.jclouds.domain.Credentials;
 import org.jclouds.dynect.v3.DynECTApi;
 import org.jclouds.dynect.v3.DynECTProviderMetadata;
+import org.jclouds.http.HttpResponseException;
 import org.jclouds.logging.slf4j.config.SLF4JLoggingModule;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.io.Closer;
 
 import dagger.Module;
 import dagger.Provides;
@@ -26,9 +31,28 @@ import denominator.DNSApiManager;
 import denominator.Provider;
 import denominator.ResourceRecordSetApi;
 import denominator.ZoneApi;
+import denominator.common.AdaptiveRateLimiter;
+import denominator.common.ListingExecutor;
+import denominator.common.RemoteCalls;
+import denominator.config.ConcurrentListing;
+import denominator.config.RateLimiting;
 
-@Module(entryPoints = DNSApiManager.class)
+@Module(entryPoints = DNSApiManager.class, includes = { ConcurrentListing.class, RateLimiting.class })
 public class DynECTProvider extends Provider {
+    private final String url;
+
+    public DynECTProvider() {
+        this(null);
+    }
+
+    /**
+     * @param url
+     *            endpoint to send requests to, such as a stand-in server, or
+     *            null to use the default.
+     */
+    public DynECTProvider(String url) {
+        this.url = url;
+    }
 
     @Provides
     protected Provider provideThis() {
@@ -61,22 +85,47 @@ public class DynECTProvider extends Provider {
 
     @Provides
     @Singleton
-    ResourceRecordSetApi.Factory provideResourceRecordSetApiFactory(DynECTApi api) {
-        return new DynECTResourceRecordSetApi.Factory(api);
+    ResourceRecordSetApi.Factory provideResourceRecordSetApiFactory(DynECTApi api, ListingExecutor listingExecutor) {
+        return new DynECTResourceRecordSetApi.Factory(api, listingExecutor);
+    }
+
+    /**
+     * DynECT responds with {@code 429} when requests exceed its limit. Five
+     * per second is a conservative default.
+     */
+    @Provides
+    RateLimiting.Defaults provideRateLimitingDefaults() {
+        return new RateLimiting.Defaults(5, new IsThrottled());
+    }
+
+    private static class IsThrottled implements Predicate<Throwable> {
+        public boolean apply(Throwable in) {
+            for (HttpResponseException e : filter(getCausalChain(in), HttpResponseException.class)) {
+                if (e.getResponse() != null && e.getResponse().getStatusCode() == 429)
+                    return true;
+            }
+            return false;
+        }
     }
 
     @Provides
     @Singleton
-    DynECTApi provideApi(Supplier<Credentials> credentials) {
-        return ContextBuilder.newBuilder(new DynECTProviderMetadata())
-                             .credentialsSupplier(credentials)
-                             .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()))
-                             .buildApi(DynECTApi.class);
+    DynECTApi provideApi(Supplier<Credentials> credentials, AdaptiveRateLimiter rateLimiter) {
+        ContextBuilder builder = ContextBuilder.newBuilder(new DynECTProviderMetadata())
+                                               .credentialsSupplier(credentials)
+                                               .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()));
+        if (url != null)
+            builder.endpoint(url);
+        DynECTApi api = builder.buildApi(DynECTApi.class);
+        return RemoteCalls.counting(DynECTApi.class, rateLimiter.limiting(DynECTApi.class, api));
     }
 
     @Provides
     @Singleton
-    Closeable provideCloseable(DynECTApi api) {
-        return api;
+    Closeable provideCloseable(DynECTApi api, ListingExecutor listingExecutor) {
+        Closer closer = Closer.create();
+        closer.register(api);
+        closer.register(listingExecutor);
+        return closer;
     }
 }
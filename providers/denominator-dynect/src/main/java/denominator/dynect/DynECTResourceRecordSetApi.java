@@ -2,14 +2,17 @@ package denominator.dynect;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterators.filter;
 import static com.google.common.collect.Ordering.usingToString;
-import static denominator.dynect.GroupByRecordNameAndTypeIterator.getRecord;
+import static denominator.dynect.GroupByRecordNameAndTypeIterator.toRecord;
+import static java.lang.String.format;
 
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.inject.Inject;
 
@@ -17,38 +20,52 @@ import org.jclouds.dynect.v3.DynECTApi;
 import org.jclouds.dynect.v3.domain.CreateRecord;
 import org.jclouds.dynect.v3.domain.Record;
 import org.jclouds.dynect.v3.domain.RecordId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
+import denominator.PartialCommitException;
 import denominator.ResourceRecordSetApi;
+import denominator.common.ListingExecutor;
 import denominator.model.ResourceRecordSet;
-import denominator.model.ResourceRecordSet.Builder;
 
 public final class DynECTResourceRecordSetApi implements denominator.ResourceRecordSetApi {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynECTResourceRecordSetApi.class);
+
     static final class Factory implements denominator.ResourceRecordSetApi.Factory {
         private final DynECTApi api;
+        private final ListingExecutor listingExecutor;
 
         @Inject
-        Factory(DynECTApi api) {
+        Factory(DynECTApi api, ListingExecutor listingExecutor) {
             this.api = api;
+            this.listingExecutor = listingExecutor;
         }
 
         @Override
         public ResourceRecordSetApi create(String zoneName) {
             checkNotNull(zoneName, "zoneName was null");
-            return new DynECTResourceRecordSetApi(api, zoneName);
+            return new DynECTResourceRecordSetApi(api, zoneName, listingExecutor);
         }
     }
 
     private final DynECTApi api;
     private final String zoneFQDN;
+    private final ListingExecutor listingExecutor;
 
     DynECTResourceRecordSetApi(DynECTApi api, String zoneFQDN) {
+        this(api, zoneFQDN, ListingExecutor.sameThread());
+    }
+
+    DynECTResourceRecordSetApi(DynECTApi api, String zoneFQDN, ListingExecutor listingExecutor) {
         this.api = api;
         this.zoneFQDN = zoneFQDN;
+        this.listingExecutor = listingExecutor;
     }
 
     @Override
@@ -67,25 +84,17 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
         List<Record<?>> existingRecords = existingRecordsByNameAndType(name, type);
         if (existingRecords.isEmpty())
             return Optional.absent();
-        
-        Optional<Integer> ttl = Optional.absent();
-        Builder<Map<String, Object>> builder = ResourceRecordSet.builder()
-                                                                .name(name)
-                                                                .type(type);
-
-        for (Record<?> existingRecord : existingRecords) {
-            if (!ttl.isPresent())
-                ttl = Optional.of(existingRecord.getTTL());
-            builder.add(existingRecord.getRData());
-        }
-        return Optional.<ResourceRecordSet<?>> of(builder.ttl(ttl.get()).build());
+        return Optional.of(new GroupByRecordNameAndTypeIterator(existingRecords.iterator()).next());
     }
 
     @Override
     public void add(ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
         checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+        publishIfChanged(scheduleAdd(rrset, new Changes()));
+    }
 
+    private Changes scheduleAdd(ResourceRecordSet<?> rrset, Changes changes) {
         Optional<Integer> ttlToApply = rrset.getTTL();
 
         List<Record<?>> existingRecords = existingRecordsByNameAndType(rrset.getName(), rrset.getType());
@@ -100,9 +109,9 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                     recordsLeftToCreate.remove(existingRecord.getRData());
                     continue;
                 }
-                api.getRecordApiForZone(zoneFQDN).scheduleDelete(existingRecord);
+                changes.delete(existingRecord);
             } else if (ttlToApply.get().intValue() != existingRecord.getTTL()) {
-                api.getRecordApiForZone(zoneFQDN).scheduleDelete(existingRecord);
+                changes.delete(existingRecord);
                 recordsLeftToCreate.add(0, existingRecord.getRData());
             }
         }
@@ -113,19 +122,22 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                                                                             .type(rrset.getType())
                                                                             .ttl(ttlToApply.or(0));
             for (Map<String, Object> record : recordsLeftToCreate) {
-                api.getRecordApiForZone(zoneFQDN).scheduleCreate(builder.rdata(record).build());
+                changes.create(builder.rdata(record).build());
             }
-            api.getZoneApi().publish(zoneFQDN);
         }
+        return changes;
     }
 
     @Override
     public void applyTTLToNameAndType(int ttl, String name, String type) {
         checkNotNull(ttl, "ttl");
+        publishIfChanged(scheduleApplyTTLToNameAndType(ttl, name, type, new Changes()));
+    }
 
+    private Changes scheduleApplyTTLToNameAndType(int ttl, String name, String type, Changes changes) {
         List<Record<?>> existingRecords = existingRecordsByNameAndType(name, type);
         if (existingRecords.isEmpty())
-            return;
+            return changes;
 
         List<Record<?>> recordsToRecreate = Lists.newArrayList(existingRecords);
 
@@ -134,7 +146,7 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                 recordsToRecreate.remove(existingRecord);
                 continue;
             }
-            api.getRecordApiForZone(zoneFQDN).scheduleDelete(existingRecord);
+            changes.delete(existingRecord);
         }
 
         if (recordsToRecreate.size() > 0) {
@@ -143,16 +155,20 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                                                                             .type(type)
                                                                             .ttl(ttl);
             for (Record<?> record : recordsToRecreate) {
-                api.getRecordApiForZone(zoneFQDN).scheduleCreate(builder.rdata(record.getRData()).build());
+                changes.create(builder.rdata(record.getRData()).build());
             }
-            api.getZoneApi().publish(zoneFQDN);
         }
+        return changes;
     }
 
     @Override
     public void replace(ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
         checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+        publishIfChanged(scheduleReplace(rrset, new Changes()));
+    }
+
+    private Changes scheduleReplace(ResourceRecordSet<?> rrset, Changes changes) {
         int ttlToApply = rrset.getTTL().or(0);
 
         List<Record<?>> existingRecords = existingRecordsByNameAndType(rrset.getName(), rrset.getType());
@@ -165,7 +181,7 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                 recordsLeftToCreate.remove(existingRecord.getRData());
                 continue;
             }
-            api.getRecordApiForZone(zoneFQDN).scheduleDelete(existingRecord);
+            changes.delete(existingRecord);
         }
 
         if (recordsLeftToCreate.size() > 0) {
@@ -174,61 +190,88 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
                                                                             .type(rrset.getType())
                                                                             .ttl(ttlToApply);
             for (Map<String, Object> record : recordsLeftToCreate) {
-                api.getRecordApiForZone(zoneFQDN).scheduleCreate(builder.rdata(record).build());
+                changes.create(builder.rdata(record).build());
             }
-            api.getZoneApi().publish(zoneFQDN);
         }
+        return changes;
     }
 
+    /**
+     * gets all records of the name and type through the same
+     * {@link ListingExecutor} used for listing, so that an rrset of N records
+     * costs one list and N pipelined gets, as opposed to N sequential ones.
+     */
     private List<Record<?>> existingRecordsByNameAndType(String name, String type) {
-        return exisingRecordIdsByNameAndType(name, type).transform(new Function<RecordId, Record<?>>() {
-            public Record<?> apply(RecordId in) {
-                return getRecord(api.getRecordApiForZone(zoneFQDN), in);
-            }
-
-            public String toString() {
-                return "getRecord()";
-            }
-        }).filter(notNull()).toSortedList(usingToString());
+        Iterator<Record<?>> records = listingExecutor.transform(exisingRecordIdsByNameAndType(name, type).iterator(),
+                toRecord(api.getRecordApiForZone(zoneFQDN)));
+        return usingToString().sortedCopy(ImmutableList.copyOf(filter(records, notNull())));
     }
 
     @Override
     public void remove(ResourceRecordSet<?> rrset) {
         checkNotNull(rrset, "rrset was null");
         checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+        publishIfChanged(scheduleRemove(rrset, new Changes()));
+    }
 
-        List<RecordId> keys = exisingRecordIdsByNameAndType(rrset.getName(), rrset.getType()).toList();
-        if (keys.isEmpty())
-            return;
-        boolean shouldPublish = false;
-        for (RecordId key : keys) {
-            Record<? extends Map<String, Object>> toEvaluate = getRecord(api.getRecordApiForZone(zoneFQDN), key);
-            if (toEvaluate != null && rrset.contains(toEvaluate.getRData())) {
-                shouldPublish = true;
-                api.getRecordApiForZone(zoneFQDN).scheduleDelete(key);
+    private Changes scheduleRemove(ResourceRecordSet<?> rrset, Changes changes) {
+        for (Record<?> toEvaluate : existingRecordsByNameAndType(rrset.getName(), rrset.getType())) {
+            if (rrset.contains(toEvaluate.getRData())) {
+                changes.delete(toEvaluate);
             }
         }
-        if (shouldPublish)
-            api.getZoneApi().publish(zoneFQDN);
+        return changes;
     }
 
     @Override
     public void deleteByNameAndType(String name, String type) {
-        List<RecordId> keys = exisingRecordIdsByNameAndType(name, type).toList();
-        if (keys.isEmpty())
-            return;
-        boolean shouldPublish = false;
-        for (RecordId key : keys) {
-            shouldPublish = true;
-            api.getRecordApiForZone(zoneFQDN).scheduleDelete(key);
-        }
-        if (shouldPublish)
+        publishIfChanged(scheduleDeleteByNameAndType(name, type, new Changes()));
+    }
+
+    private Changes scheduleDeleteByNameAndType(String name, String type, Changes changes) {
+        for (RecordId key : exisingRecordIdsByNameAndType(name, type)) {
+            changes.delete(key);
+        }
+        return changes;
+    }
+
+    /**
+     * changes scheduled in the DynECT session, which are not visible until the
+     * zone is published.
+     */
+    private final class Changes {
+        private int creates;
+        private int deletes;
+
+        void create(CreateRecord<Map<String, Object>> record) {
+            api.getRecordApiForZone(zoneFQDN).scheduleCreate(record);
+            creates++;
+        }
+
+        void delete(RecordId record) {
+            api.getRecordApiForZone(zoneFQDN).scheduleDelete(record);
+            deletes++;
+        }
+
+        int size() {
+            return creates + deletes;
+        }
+    }
+
+    private void publishIfChanged(Changes changes) {
+        if (changes.size() > 0)
             api.getZoneApi().publish(zoneFQDN);
     }
 
+    /**
+     * as DynECT requires a get per record, the gets are spread across the
+     * {@link ListingExecutor}, while retaining the order of the keys.
+     */
     private Iterator<ResourceRecordSet<?>> groupByRecordNameAndType(FluentIterable<RecordId> recordIds) {
         Iterator<RecordId> orderedKeys = recordIds.toSortedList(usingToString()).iterator();
-        return filter(new GroupByRecordNameAndTypeIterator(api.getRecordApiForZone(zoneFQDN), orderedKeys), notNull());
+        Iterator<Record<?>> orderedRecords = listingExecutor.transform(orderedKeys,
+                toRecord(api.getRecordApiForZone(zoneFQDN)));
+        return new GroupByRecordNameAndTypeIterator(orderedRecords);
     }
 
     private FluentIterable<RecordId> exisingRecordIdsByNameAndType(String name, String type) {
@@ -236,4 +279,203 @@ public final class DynECTResourceRecordSetApi implements denominator.ResourceRec
         checkNotNull(type, "type");
         return api.getRecordApiForZone(zoneFQDN).listByFQDNAndType(name, type);
     }
+
+    /**
+     * schedules all changes in the DynECT session, publishing the zone once
+     * on commit, as opposed to once per change. If a name and type is changed
+     * more than once in the batch, the zone is published before the later
+     * change is scheduled, so that it is evaluated against the result of the
+     * earlier one.
+     *
+     * If scheduling or publishing fails, changes scheduled since the last
+     * publish are discarded, so that a later publish doesn't apply part of the
+     * batch. Changes already published remain, and are reported by a
+     * {@link PartialCommitException}.
+     *
+     * DynECT can only discard or publish all pending changes to a zone in the
+     * session, not those of one batch. Don't share the session with other
+     * writers to the same zone while a batch commits: a publish would apply
+     * their pending changes, and a failure would discard them.
+     *
+     * Once committed, the batch's {@code toString()} reports how many creates,
+     * deletes, and publishes it resulted in.
+     */
+    @Override
+    public Batch begin() {
+        return new DynECTBatch();
+    }
+
+    private abstract static class StagedChange {
+        final List<String> nameAndType;
+
+        StagedChange(String name, String type) {
+            this.nameAndType = ImmutableList.of(checkNotNull(name, "name"), checkNotNull(type, "type"));
+        }
+
+        abstract void schedule(Changes changes);
+    }
+
+    final class DynECTBatch implements Batch {
+        private final List<StagedChange> staged = Lists.newArrayList();
+        private final Changes changes = new Changes();
+        private boolean committed;
+        private int publishes;
+        // changes included in a publish
+        private int published;
+
+        @Override
+        public Batch add(final ResourceRecordSet<?> rrset) {
+            checkNotNull(rrset, "rrset was null");
+            checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+            return stage(new StagedChange(rrset.getName(), rrset.getType()) {
+                void schedule(Changes changes) {
+                    scheduleAdd(rrset, changes);
+                }
+            });
+        }
+
+        @Override
+        public Batch applyTTLToNameAndType(final int ttl, final String name, final String type) {
+            return stage(new StagedChange(name, type) {
+                void schedule(Changes changes) {
+                    scheduleApplyTTLToNameAndType(ttl, name, type, changes);
+                }
+            });
+        }
+
+        @Override
+        public Batch replace(final ResourceRecordSet<?> rrset) {
+            checkNotNull(rrset, "rrset was null");
+            checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+            return stage(new StagedChange(rrset.getName(), rrset.getType()) {
+                void schedule(Changes changes) {
+                    scheduleReplace(rrset, changes);
+                }
+            });
+        }
+
+        @Override
+        public Batch remove(final ResourceRecordSet<?> rrset) {
+            checkNotNull(rrset, "rrset was null");
+            checkArgument(!rrset.isEmpty(), "rrset was empty %s", rrset);
+            return stage(new StagedChange(rrset.getName(), rrset.getType()) {
+                void schedule(Changes changes) {
+                    scheduleRemove(rrset, changes);
+                }
+            });
+        }
+
+        @Override
+        public Batch deleteByNameAndType(final String name, final String type) {
+            return stage(new StagedChange(name, type) {
+                void schedule(Changes changes) {
+                    scheduleDeleteByNameAndType(name, type, changes);
+                }
+            });
+        }
+
+        private synchronized Batch stage(StagedChange change) {
+            checkState(!committed, "batch already committed");
+            staged.add(change);
+            return this;
+        }
+
+        /**
+         * publishes each run of changes that doesn't repeat a name and type,
+         * and discards the zone's unpublished changes on failure, including
+         * any another writer scheduled in the same session.
+         */
+        @Override
+        public synchronized void commit() {
+            checkState(!committed, "batch already committed");
+            committed = true;
+            List<List<StagedChange>> publishPlan = publishPlan();
+            int done = 0;
+            try {
+                for (List<StagedChange> run : publishPlan) {
+                    for (StagedChange change : run)
+                        change.schedule(changes);
+                    if (changes.size() > published)
+                        publish();
+                    done++;
+                }
+            } catch (RuntimeException e) {
+                if (changes.size() > published)
+                    discardUnpublished();
+                if (publishes == 0)
+                    throw e;
+                throw new PartialCommitException(format(
+                        "published %d of %d scheduled changes to zone %s in %d publishes before failing", published,
+                        changes.size(), zoneFQDN, publishes), done, publishPlan.size(), e);
+            }
+            LOGGER.debug("zone {}: {} changes in {} record sets resulted in {}", zoneFQDN, staged.size(),
+                    nameAndTypes(), this);
+        }
+
+        /**
+         * splits staged changes before each one whose name and type was
+         * already changed since the last split. Runs that schedule nothing
+         * skip their publish.
+         */
+        private List<List<StagedChange>> publishPlan() {
+            List<List<StagedChange>> plan = Lists.newArrayList();
+            List<StagedChange> run = Lists.newArrayList();
+            Set<List<String>> inRun = Sets.newHashSet();
+            for (StagedChange change : staged) {
+                if (!inRun.add(change.nameAndType)) {
+                    plan.add(run);
+                    run = Lists.newArrayList();
+                    inRun.clear();
+                    inRun.add(change.nameAndType);
+                }
+                run.add(change);
+            }
+            if (!run.isEmpty())
+                plan.add(run);
+            return plan;
+        }
+
+        private void publish() {
+            api.getZoneApi().publish(zoneFQDN);
+            publishes++;
+            published = changes.size();
+        }
+
+        /**
+         * a failure here is logged, so that the original one is thrown.
+         */
+        private void discardUnpublished() {
+            try {
+                api.getZoneApi().deleteChanges(zoneFQDN);
+            } catch (RuntimeException e) {
+                LOGGER.warn("zone {}: couldn't discard {} unpublished changes: {}", zoneFQDN, changes.size()
+                        - published, e.getMessage());
+            }
+        }
+
+        private int nameAndTypes() {
+            Set<List<String>> nameAndTypes = Sets.newHashSet();
+            for (StagedChange change : staged)
+                nameAndTypes.add(change.nameAndType);
+            return nameAndTypes.size();
+        }
+
+        int creates() {
+            return changes.creates;
+        }
+
+        int deletes() {
+            return changes.deletes;
+        }
+
+        int publishes() {
+            return publishes;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return format("DynECTBatch(zone=%s, creates=%d, deletes=%d, publishes=%d)", zoneFQDN, changes.creates,
+                    changes.deletes, publishes);
+        }
+    }
 }
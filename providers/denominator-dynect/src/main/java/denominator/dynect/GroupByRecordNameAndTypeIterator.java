@@ -1,7 +1,11 @@
 package denominator.dynect;
 
+import static com.google.common.base.Predicates.notNull;
+import static com.google.common.collect.Iterators.filter;
 import static com.google.common.collect.Iterators.peekingIterator;
+import static com.google.common.collect.Iterators.transform;
 
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -9,6 +13,9 @@ import org.jclouds.dynect.v3.domain.Record;
 import org.jclouds.dynect.v3.domain.RecordId;
 import org.jclouds.dynect.v3.features.RecordApi;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.collect.Maps;
 import com.google.common.collect.PeekingIterator;
 
 import denominator.model.ResourceRecordSet;
@@ -16,12 +23,23 @@ import denominator.model.ResourceRecordSet.Builder;
 
 class GroupByRecordNameAndTypeIterator implements Iterator<ResourceRecordSet<?>> {
 
-    private final PeekingIterator<RecordId> peekingIterator;
-    private final RecordApi api;
+    private final PeekingIterator<Record<?>> peekingIterator;
 
+    /**
+     * gets each record serially, in the order of {@code sortedIterator}.
+     */
     public GroupByRecordNameAndTypeIterator(RecordApi api, Iterator<RecordId> sortedIterator) {
-        this.api = api;
-        this.peekingIterator = peekingIterator(sortedIterator);
+        this(transform(sortedIterator, toRecord(api)));
+    }
+
+    /**
+     * @param sortedRecords
+     *            records sorted by fqdn and type. null elements are skipped,
+     *            as it is possible that a record was deleted between the list
+     *            and the get.
+     */
+    public GroupByRecordNameAndTypeIterator(Iterator<Record<?>> sortedRecords) {
+        this.peekingIterator = peekingIterator(filter(sortedRecords, notNull()));
     }
 
     @Override
@@ -31,21 +49,15 @@ class GroupByRecordNameAndTypeIterator implements Iterator<ResourceRecordSet<?>>
 
     @Override
     public ResourceRecordSet<?> next() {
-        Record<?> record = getRecord(api, peekingIterator.next());
-        // it is possible that the record was deleted between the list and the get
-        if (record == null)
-            return null;
+        Record<?> record = peekingIterator.next();
         Builder<Map<String, Object>> builder = ResourceRecordSet.builder()
                                                                 .name(record.getFQDN())
                                                                 .type(record.getType())
                                                                 .ttl(record.getTTL())
                                                                 .add(record.getRData());
         while (hasNext()) {
-            RecordId next = peekingIterator.peek();
-            if (next == null)
-                continue;
-            if (fqdnAndTypeEquals(next, record)) {
-                builder.add(getRecord(api, peekingIterator.next()).getRData());
+            if (fqdnAndTypeEquals(peekingIterator.peek(), record)) {
+                builder.add(peekingIterator.next().getRData());
             } else {
                 break;
             }
@@ -53,30 +65,87 @@ class GroupByRecordNameAndTypeIterator implements Iterator<ResourceRecordSet<?>>
         return builder.build();
     }
 
+    /**
+     * gets the record corresponding to the id, or null if it no longer exists.
+     */
+    static Function<RecordId, Record<?>> toRecord(final RecordApi api) {
+        return new Function<RecordId, Record<?>>() {
+            public Record<?> apply(RecordId in) {
+                return getRecord(api, in);
+            }
+
+            public String toString() {
+                return "getRecord()";
+            }
+        };
+    }
+
     static Record<? extends Map<String, Object>> getRecord(RecordApi api, RecordId recordId) {
-        if ("A".equals(recordId.getType())) {
-            return api.getA(recordId.getFQDN(), recordId.getId());
-        } else if ("AAAA".equals(recordId.getType())) {
-            return api.getAAAA(recordId.getFQDN(), recordId.getId());
-        } else if ("CNAME".equals(recordId.getType())) {
-            return api.getCNAME(recordId.getFQDN(), recordId.getId());
-        } else if ("MX".equals(recordId.getType())) {
-            return api.getMX(recordId.getFQDN(), recordId.getId());
-        } else if ("NS".equals(recordId.getType())) {
-            return api.getNS(recordId.getFQDN(), recordId.getId());
-        } else if ("PTR".equals(recordId.getType())) {
-            return api.getPTR(recordId.getFQDN(), recordId.getId());
-        } else if ("SOA".equals(recordId.getType())) {
-            return api.getSOA(recordId.getFQDN(), recordId.getId());
-        } else if ("SRV".equals(recordId.getType())) {
-            return api.getSRV(recordId.getFQDN(), recordId.getId());
-        } else if ("SSHFP".equals(recordId.getType())) {
-            return api.getSSHFP(recordId.getFQDN(), recordId.getId());
-        } else if ("TXT".equals(recordId.getType())) {
-            return api.getTXT(recordId.getFQDN(), recordId.getId());
-        } else {
-            return api.get(recordId);
-        }
+        GetRecord getRecord = GET_RECORD_BY_TYPE.get(recordId.getType());
+        if (getRecord != null)
+            return getRecord.apply(api, recordId);
+        return api.get(recordId);
+    }
+
+    private static final Map<String, GetRecord> GET_RECORD_BY_TYPE = Maps.uniqueIndex(EnumSet.allOf(GetRecord.class),
+            Functions.toStringFunction());
+
+    /**
+     * typed gets, named by the type they return.
+     */
+    private static enum GetRecord {
+        A {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getA(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        AAAA {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getAAAA(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        CNAME {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getCNAME(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        MX {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getMX(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        NS {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getNS(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        PTR {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getPTR(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        SOA {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getSOA(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        SRV {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getSRV(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        SSHFP {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getSSHFP(recordId.getFQDN(), recordId.getId());
+            }
+        },
+        TXT {
+            Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId) {
+                return api.getTXT(recordId.getFQDN(), recordId.getId());
+            }
+        };
+
+        abstract Record<? extends Map<String, Object>> apply(RecordApi api, RecordId recordId);
     }
 
     @Override
@@ -5,6 +5,7 @@ import static denominator.model.ResourceRecordSets.a;
 import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.util.Properties;
@@ -23,6 +24,9 @@ import com.google.mockwebserver.MockResponse;
 import com.google.mockwebserver.MockWebServer;
 import com.google.mockwebserver.RecordedRequest;
 
+import denominator.PartialCommitException;
+import denominator.ResourceRecordSetApi.Batch;
+
 @Test(singleThreaded = true)
 public class DynECTResourceRecordSetApiMockTest {
     static Set<Module> modules = ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor(),
@@ -75,6 +79,124 @@ public class DynECTResourceRecordSetApiMockTest {
         }
     }
 
+    @Test
+    public void batchPublishesOnce() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(session));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.play();
+
+        try {
+            DynECTResourceRecordSetApi api = new DynECTResourceRecordSetApi(
+                    mockDynECTApi(server.getUrl("/").toString()), "foo.com");
+            Batch batch = api.begin()
+                             .add(a("www.foo.com", 3600, "192.0.2.1"))
+                             .add(a("www2.foo.com", 3600, "192.0.2.1"));
+            batch.commit();
+            assertEquals(batch.toString(), "DynECTBatch(zone=foo.com, creates=2, deletes=0, publishes=1)");
+        } finally {
+            assertEquals(server.takeRequest().getRequestLine(), "POST /Session HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www2.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www2.foo.com HTTP/1.1");
+
+            RecordedRequest publish = server.takeRequest();
+            assertEquals(publish.getRequestLine(), "PUT /Zone/foo.com HTTP/1.1");
+            assertEquals(server.getRequestCount(), 6);
+
+            server.shutdown();
+        }
+    }
+
+    String failure = "{\"status\": \"failure\", \"data\": {}, \"job_id\": 262989028, \"msgs\": [{\"INFO\": \"add: Invalid rdata\", \"SOURCE\": \"BLL\", \"ERR_CD\": \"INVALID_DATA\", \"LVL\": \"ERROR\"}]}";
+
+    @Test
+    public void batchDiscardsScheduledChangesWhenSchedulingFails() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(session));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(400).setBody(failure));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.play();
+
+        try {
+            DynECTResourceRecordSetApi api = new DynECTResourceRecordSetApi(
+                    mockDynECTApi(server.getUrl("/").toString()), "foo.com");
+            api.begin()
+               .add(a("www.foo.com", 3600, "192.0.2.1"))
+               .add(a("www2.foo.com", 3600, "192.0.2.1"))
+               .commit();
+            fail("expected the second create to fail");
+        } catch (RuntimeException e) {
+            assertFalse(e instanceof PartialCommitException, "nothing was published: " + e);
+        } finally {
+            assertEquals(server.takeRequest().getRequestLine(), "POST /Session HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www2.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www2.foo.com HTTP/1.1");
+
+            // the first create is discarded instead of published
+            assertEquals(server.takeRequest().getRequestLine(), "DELETE /ZoneChanges/foo.com HTTP/1.1");
+            assertEquals(server.getRequestCount(), 6);
+
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void partialCommitCountsPlannedPublishes() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(session));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(404)); // no existing records
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(recordIdsWithRecord1));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(record1Result));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.enqueue(new MockResponse().setResponseCode(400).setBody(failure));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(success));
+        server.play();
+
+        try {
+            DynECTResourceRecordSetApi api = new DynECTResourceRecordSetApi(
+                    mockDynECTApi(server.getUrl("/").toString()), "foo.com");
+            api.begin()
+               .add(a("www.foo.com", 3600, "192.0.2.1"))
+               .add(a("www2.foo.com", 3600, "192.0.2.1"))
+               .add(a("www.foo.com", 3600, "198.51.100.1"))
+               .commit();
+            fail("expected the second publish to fail");
+        } catch (PartialCommitException e) {
+            assertEquals(e.getAppliedRequests(), 1);
+            assertEquals(e.getRequests(), 2);
+        } finally {
+            assertEquals(server.takeRequest().getRequestLine(), "POST /Session HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www2.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www2.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "PUT /Zone/foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "GET /ARecord/foo.com/www.foo.com/1 HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "POST /ARecord/foo.com/www.foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "PUT /Zone/foo.com HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(), "DELETE /ZoneChanges/foo.com HTTP/1.1");
+            assertEquals(server.getRequestCount(), 11);
+
+            server.shutdown();
+        }
+    }
+
     String recordIdsWithRecord1 = "{\"status\": \"success\", \"data\": [\"/REST/ARecord/foo.com/www.foo.com/1\"], \"job_id\": 273523368, \"msgs\": [{\"INFO\": \"get_tree: Here is your zone tree\", \"SOURCE\": \"BLL\", \"ERR_CD\": null, \"LVL\": \"INFO\"}]}";
     String record1Result = "{\"status\": \"success\", \"data\": {\"zone\": \"foo.com\", \"ttl\": 3600, \"fqdn\": \"www.foo.com\", \"record_type\": \"A\", \"rdata\": {\"address\": \"192.0.2.1\"}, \"record_id\": 1}, \"job_id\": 274279510, \"msgs\": [{\"INFO\": \"get: Found the record\", \"SOURCE\": \"API-B\", \"ERR_CD\": null, \"LVL\": \"INFO\"}]}";
 
@@ -0,0 +1,69 @@
+package denominator.dynect;
+
+import static denominator.CredentialsConfiguration.credentials;
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterators;
+
+import denominator.DNSApiManager;
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.standins.DynECTStandIn;
+
+/**
+ * runs the provider end-to-end against {@link DynECTStandIn}, and checks how
+ * many requests each operation costs.
+ */
+@Test(singleThreaded = true)
+public class DynECTStandInProviderTest {
+    DynECTStandIn dynect;
+    DNSApiManager mgr;
+
+    @BeforeMethod
+    public void start() throws IOException {
+        dynect = new DynECTStandIn();
+        dynect.addZone("denominator.io");
+        dynect.start();
+        mgr = Denominator.create(new DynECTProvider(dynect.getUrl()),
+                credentials("customer", "username", "password"));
+    }
+
+    @AfterMethod
+    public void stop() throws IOException {
+        mgr.close();
+        dynect.close();
+    }
+
+    @Test
+    public void listAddReplaceDelete() {
+        ResourceRecordSetApi api = mgr.getApi().getResourceRecordSetApiForZone("denominator.io");
+
+        assertEquals(Iterators.size(api.list()), 2);
+
+        api.add(a("www.denominator.io", 300, "192.0.2.1"));
+        api.replace(a("www.denominator.io", 300, "192.0.2.2"));
+        assertEquals(api.getByNameAndType("www.denominator.io", "A").get(),
+                a("www.denominator.io", 300, "192.0.2.2"));
+
+        api.deleteByNameAndType("www.denominator.io", "A");
+        assertFalse(api.getByNameAndType("www.denominator.io", "A").isPresent());
+        assertEquals(Iterators.size(api.list()), 2);
+
+        Map<String, Long> counts = dynect.getRequestCounts();
+        // one login for all operations
+        assertEquals(counts.get("POST Session"), Long.valueOf(1));
+        // each write is scheduled, then published once
+        assertEquals(counts.get("POST ARecord"), Long.valueOf(2));
+        assertEquals(counts.get("DELETE ARecord"), Long.valueOf(2));
+        assertEquals(counts.get("PUT Zone"), Long.valueOf(3));
+    }
+}
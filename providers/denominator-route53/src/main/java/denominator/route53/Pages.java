@@ -0,0 +1,60 @@
+package denominator.route53;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Iterator;
+
+import org.jclouds.collect.IterableWithMarker;
+import org.jclouds.collect.PagedIterable;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.FluentIterable;
+
+/**
+ * Concatenates the pages of a route53 listing, requesting each page after the
+ * first with {@code nextPage}.
+ * 
+ * {@link PagedIterable#concat()} requests follow-on pages through jclouds
+ * directly, so the request counting and rate limiting proxies around
+ * {@code Route53Api} only see the first page. Passing a function that calls
+ * the proxied api lets them see every page.
+ */
+final class Pages {
+
+    /**
+     * @param first
+     *            page already requested
+     * @param nextPage
+     *            requests the page at a {@link IterableWithMarker#nextMarker()
+     *            marker}
+     */
+    static <T> FluentIterable<T> concat(final IterableWithMarker<T> first,
+            final Function<Object, ? extends IterableWithMarker<T>> nextPage) {
+        checkNotNull(first, "first");
+        checkNotNull(nextPage, "nextPage");
+        return new FluentIterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new AbstractIterator<T>() {
+                    IterableWithMarker<T> page = first;
+                    Iterator<T> current = first.iterator();
+
+                    @Override
+                    protected T computeNext() {
+                        while (!current.hasNext()) {
+                            if (!page.nextMarker().isPresent())
+                                return endOfData();
+                            page = nextPage.apply(page.nextMarker().get());
+                            current = page.iterator();
+                        }
+                        return current.next();
+                    }
+                };
+            }
+        };
+    }
+
+    private Pages() {
+    }
+}
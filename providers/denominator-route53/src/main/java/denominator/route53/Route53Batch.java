@@ -0,0 +1,311 @@
+package denominator.route53;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Predicates.in;
+import static com.google.common.base.Predicates.not;
+import static com.google.common.collect.Iterables.filter;
+import static denominator.route53.ToRoute53ResourceRecordSet.toTextFormat;
+import static java.lang.String.format;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.route53.domain.ChangeBatch;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import denominator.PartialCommitException;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.model.ResourceRecordSet;
+
+/**
+ * Stages changes locally, without requests, and sends only the net difference
+ * on commit. Changes for a name and type are a delete of the old record set
+ * followed by a create of the new one. These pairs are never split, so each
+ * record set changes atomically.
+ *
+ * On commit, the record sets staged are read before any change is sent. Up to
+ * {@link #MAX_READS_BY_NAME_AND_TYPE} are read by name and type, while more
+ * are read in one listing of the zone, which costs a request per page of 100
+ * record sets, rather than one per record set.
+ *
+ * Route53 limits each {@link ChangeBatch} to {@link #MAX_CHANGES_PER_BATCH}
+ * changes, {@link #MAX_VALUES_PER_BATCH} record values, and
+ * {@link #MAX_VALUE_CHARACTERS_PER_BATCH} characters of values. A commit
+ * beyond these is split into as few batches as possible, and is no longer
+ * atomic as a whole. If a later batch fails, a {@link PartialCommitException}
+ * lists the record sets changed by those before it.
+ */
+final class Route53Batch implements Batch {
+    static final int MAX_CHANGES_PER_BATCH = 1000;
+    static final int MAX_VALUES_PER_BATCH = 1000;
+    static final int MAX_VALUE_CHARACTERS_PER_BATCH = 32000;
+    static final int MAX_READS_BY_NAME_AND_TYPE = 10;
+
+    private final Route53ResourceRecordSetApi api;
+    private final org.jclouds.route53.features.ResourceRecordSetApi route53RRsetApi;
+    // name and type -> changes staged, in order, applied on commit to the record set read then
+    private final Map<List<String>, List<Change>> staged = Maps.newLinkedHashMap();
+    private boolean committed;
+
+    Route53Batch(Route53ResourceRecordSetApi api, org.jclouds.route53.features.ResourceRecordSetApi route53RRsetApi) {
+        this.api = api;
+        this.route53RRsetApi = route53RRsetApi;
+    }
+
+    /**
+     * the record set after a change, given the one before it.
+     */
+    private static abstract class Change {
+        abstract Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                Optional<org.jclouds.route53.domain.ResourceRecordSet> current);
+    }
+
+    /**
+     * @see Route53ResourceRecordSetApi#add(ResourceRecordSet)
+     */
+    @Override
+    public synchronized Batch add(final ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        return stage(rrset.getName(), rrset.getType(), new Change() {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                    Optional<org.jclouds.route53.domain.ResourceRecordSet> oldRRS) {
+                Optional<Integer> ttlToApply = rrset.getTTL();
+                Builder<String> values = ImmutableList.builder();
+                if (oldRRS.isPresent()) {
+                    ttlToApply = ttlToApply.or(oldRRS.get().getTTL());
+                    values.addAll(oldRRS.get().getValues());
+                    values.addAll(filter(toTextFormat(rrset), not(in(oldRRS.get().getValues()))));
+                } else {
+                    values.addAll(toTextFormat(rrset));
+                }
+                return Optional.of(org.jclouds.route53.domain.ResourceRecordSet.builder()
+                        .name(rrset.getName())
+                        .type(rrset.getType())
+                        .ttl(ttlToApply.or(300))
+                        .addAll(values.build()).build());
+            }
+        });
+    }
+
+    /**
+     * @see Route53ResourceRecordSetApi#applyTTLToNameAndType(int, String,
+     *      String)
+     */
+    @Override
+    public synchronized Batch applyTTLToNameAndType(final int ttl, String name, String type) {
+        return stage(name, type, new Change() {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                    Optional<org.jclouds.route53.domain.ResourceRecordSet> oldRRS) {
+                if (!oldRRS.isPresent())
+                    return oldRRS;
+                return Optional.of(oldRRS.get().toBuilder().ttl(ttl).build());
+            }
+        });
+    }
+
+    /**
+     * @see Route53ResourceRecordSetApi#replace(ResourceRecordSet)
+     */
+    @Override
+    public synchronized Batch replace(ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        final Optional<org.jclouds.route53.domain.ResourceRecordSet> replacement = Optional
+                .of(ToRoute53ResourceRecordSet.INSTANCE.apply(rrset));
+        return stage(rrset.getName(), rrset.getType(), new Change() {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                    Optional<org.jclouds.route53.domain.ResourceRecordSet> oldRRS) {
+                return replacement;
+            }
+        });
+    }
+
+    /**
+     * @see Route53ResourceRecordSetApi#remove(ResourceRecordSet)
+     */
+    @Override
+    public synchronized Batch remove(final ResourceRecordSet<?> rrset) {
+        checkNotNull(rrset, "rrset was null");
+        return stage(rrset.getName(), rrset.getType(), new Change() {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                    Optional<org.jclouds.route53.domain.ResourceRecordSet> oldRRS) {
+                if (!oldRRS.isPresent())
+                    return oldRRS;
+                List<String> valuesToRetain = ImmutableList.copyOf(filter(oldRRS.get().getValues(),
+                        not(in(toTextFormat(rrset)))));
+                if (valuesToRetain.size() == 0)
+                    return Optional.absent();
+                return Optional.of(org.jclouds.route53.domain.ResourceRecordSet.builder()
+                        .name(rrset.getName())
+                        .type(rrset.getType())
+                        .ttl(oldRRS.get().getTTL().get())
+                        .addAll(valuesToRetain).build());
+            }
+        });
+    }
+
+    /**
+     * @see Route53ResourceRecordSetApi#deleteByNameAndType(String, String)
+     */
+    @Override
+    public synchronized Batch deleteByNameAndType(String name, String type) {
+        return stage(name, type, new Change() {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> apply(
+                    Optional<org.jclouds.route53.domain.ResourceRecordSet> oldRRS) {
+                return Optional.absent();
+            }
+        });
+    }
+
+    private Batch stage(String name, String type, Change change) {
+        checkState(!committed, "batch already committed");
+        List<String> key = ImmutableList.of(checkNotNull(name, "name"), checkNotNull(type, "type"));
+        List<Change> changes = staged.get(key);
+        if (changes == null) {
+            changes = Lists.newArrayList();
+            staged.put(key, changes);
+        }
+        changes.add(change);
+        return this;
+    }
+
+    /**
+     * the record sets for each name and type, or absent, as they are before
+     * this batch. Like {@link Route53ResourceRecordSetApi#getByNameAndType},
+     * aliases are skipped, and the first of weighted record sets is used.
+     */
+    private Map<List<String>, Optional<org.jclouds.route53.domain.ResourceRecordSet>> existing(
+            Set<List<String>> namesAndTypes) {
+        Map<List<String>, Optional<org.jclouds.route53.domain.ResourceRecordSet>> existing = Maps.newHashMap();
+        if (namesAndTypes.size() <= MAX_READS_BY_NAME_AND_TYPE) {
+            for (List<String> key : namesAndTypes)
+                existing.put(key, api.filterRoute53RRSByNameAndType(key.get(0), key.get(1)).first());
+            return existing;
+        }
+        for (List<String> key : namesAndTypes)
+            existing.put(key, Optional.<org.jclouds.route53.domain.ResourceRecordSet> absent());
+        for (org.jclouds.route53.domain.ResourceRecordSet rrset : api.listRoute53RRS()) {
+            List<String> key = ImmutableList.of(rrset.getName(), rrset.getType());
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> found = existing.get(key);
+            if (found != null && !found.isPresent())
+                existing.put(key, Optional.of(rrset));
+        }
+        return existing;
+    }
+
+    @Override
+    public synchronized void commit() {
+        checkState(!committed, "batch already committed");
+        committed = true;
+        Map<List<String>, Optional<org.jclouds.route53.domain.ResourceRecordSet>> original = existing(staged.keySet());
+        List<Request> requests = Lists.newArrayList();
+        Request request = new Request();
+        for (Map.Entry<List<String>, List<Change>> entry : staged.entrySet()) {
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> before = original.get(entry.getKey());
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> after = before;
+            for (Change change : entry.getValue())
+                after = change.apply(after);
+            if (equivalent(before, after))
+                continue;
+            if (!request.fits(before, after)) {
+                requests.add(request);
+                request = new Request();
+            }
+            request.add(entry.getKey(), before, after);
+        }
+        if (request.changeCount > 0)
+            requests.add(request);
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                route53RRsetApi.apply(requests.get(i).changes.build());
+            } catch (RuntimeException e) {
+                if (i == 0)
+                    throw e;
+                throw new PartialCommitException(format(
+                        "applied %d of %d change batches before failing; changed %s, but not %s", i,
+                        requests.size(), rrsets(requests.subList(0, i)), rrsets(requests.subList(i, requests.size()))),
+                        i, requests.size(), e);
+            }
+        }
+    }
+
+    /**
+     * one {@link ChangeBatch}, and the names and types it changes.
+     */
+    private static final class Request {
+        final ChangeBatch.Builder changes = ChangeBatch.builder();
+        final List<List<String>> rrsets = Lists.newArrayList();
+        int changeCount;
+        int valueCount;
+        int characterCount;
+
+        /**
+         * true if the changes to a record set can be added without exceeding
+         * a limit. An empty request takes any changes, so that a record set
+         * too large on its own is sent, and rejected, alone.
+         */
+        boolean fits(Optional<org.jclouds.route53.domain.ResourceRecordSet> before,
+                Optional<org.jclouds.route53.domain.ResourceRecordSet> after) {
+            return changeCount == 0
+                    || (changeCount + changes(before, after) <= MAX_CHANGES_PER_BATCH
+                            && valueCount + values(before) + values(after) <= MAX_VALUES_PER_BATCH
+                            && characterCount + characters(before) + characters(after) <= MAX_VALUE_CHARACTERS_PER_BATCH);
+        }
+
+        void add(List<String> nameAndType, Optional<org.jclouds.route53.domain.ResourceRecordSet> before,
+                Optional<org.jclouds.route53.domain.ResourceRecordSet> after) {
+            if (before.isPresent())
+                changes.delete(before.get());
+            if (after.isPresent())
+                changes.create(after.get());
+            rrsets.add(nameAndType);
+            changeCount += changes(before, after);
+            valueCount += values(before) + values(after);
+            characterCount += characters(before) + characters(after);
+        }
+
+        private static int changes(Optional<org.jclouds.route53.domain.ResourceRecordSet> before,
+                Optional<org.jclouds.route53.domain.ResourceRecordSet> after) {
+            return (before.isPresent() ? 1 : 0) + (after.isPresent() ? 1 : 0);
+        }
+
+        private static int values(Optional<org.jclouds.route53.domain.ResourceRecordSet> rrset) {
+            return rrset.isPresent() ? rrset.get().getValues().size() : 0;
+        }
+
+        private static int characters(Optional<org.jclouds.route53.domain.ResourceRecordSet> rrset) {
+            int characters = 0;
+            if (rrset.isPresent()) {
+                for (String value : rrset.get().getValues())
+                    characters += value.length();
+            }
+            return characters;
+        }
+    }
+
+    private static List<List<String>> rrsets(List<Request> requests) {
+        List<List<String>> rrsets = Lists.newArrayList();
+        for (Request request : requests)
+            rrsets.addAll(request.rrsets);
+        return rrsets;
+    }
+
+    private static boolean equivalent(Optional<org.jclouds.route53.domain.ResourceRecordSet> before,
+            Optional<org.jclouds.route53.domain.ResourceRecordSet> after) {
+        if (!before.isPresent() || !after.isPresent())
+            return before.isPresent() == after.isPresent();
+        return before.get().getTTL().equals(after.get().getTTL())
+                && before.get().getValues().equals(after.get().getValues());
+    }
+
+    @Override
+    public String toString() {
+        return "Route53Batch(" + staged.keySet() + ")";
+    }
+}
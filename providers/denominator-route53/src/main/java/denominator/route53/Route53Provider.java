@@ -1,6 +1,8 @@
 package denominator.route53;
 
 import static com.google.common.base.Suppliers.compose;
+import static com.google.common.base.Throwables.getCausalChain;
+import static com.google.common.collect.Iterables.filter;
 
 import java.io.Closeable;
 import java.util.List;
@@ -8,6 +10,7 @@ import java.util.List;
 import javax.inject.Singleton;
 
 import org.jclouds.ContextBuilder;
+import org.jclouds.aws.AWSResponseException;
 import org.jclouds.aws.domain.SessionCredentials;
 import org.jclouds.aws.route53.AWSRoute53ProviderMetadata;
 import org.jclouds.domain.Credentials;
@@ -16,6 +19,7 @@ import org.jclouds.route53.Route53Api;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -28,9 +32,26 @@ import denominator.DNSApiManager;
 import denominator.Provider;
 import denominator.ResourceRecordSetApi;
 import denominator.ZoneApi;
+import denominator.common.AdaptiveRateLimiter;
+import denominator.common.RemoteCalls;
+import denominator.config.RateLimiting;
 
-@Module(entryPoints = DNSApiManager.class)
+@Module(entryPoints = DNSApiManager.class, includes = RateLimiting.class)
 public class Route53Provider extends Provider {
+    private final String url;
+
+    public Route53Provider() {
+        this(null);
+    }
+
+    /**
+     * @param url
+     *            endpoint to send requests to, such as a stand-in server, or
+     *            null to use the default.
+     */
+    public Route53Provider(String url) {
+        this.url = url;
+    }
 
     @Provides
     protected Provider provideThis() {
@@ -67,13 +88,38 @@ public class Route53Provider extends Provider {
         }
     }
 
+    /**
+     * Route53 allows five requests per second per account.
+     * 
+     * @see <a
+     *      href="http://docs.aws.amazon.com/Route53/latest/DeveloperGuide/DNSLimitations.html">limits</a>
+     */
+    @Provides
+    RateLimiting.Defaults provideRateLimitingDefaults() {
+        return new RateLimiting.Defaults(5, new IsThrottled());
+    }
+
+    private static class IsThrottled implements Predicate<Throwable> {
+        public boolean apply(Throwable in) {
+            for (AWSResponseException e : filter(getCausalChain(in), AWSResponseException.class)) {
+                String code = e.getError().getCode();
+                if ("Throttling".equals(code) || "PriorRequestNotComplete".equals(code))
+                    return true;
+            }
+            return false;
+        }
+    }
+
     @Provides
     @Singleton
-    Route53Api provideApi(Supplier<Credentials> credentials) {
-        return ContextBuilder.newBuilder(new AWSRoute53ProviderMetadata())
-                             .credentialsSupplier(credentials)
-                             .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()))
-                             .buildApi(Route53Api.class);
+    Route53Api provideApi(Supplier<Credentials> credentials, AdaptiveRateLimiter rateLimiter) {
+        ContextBuilder builder = ContextBuilder.newBuilder(new AWSRoute53ProviderMetadata())
+                                               .credentialsSupplier(credentials)
+                                               .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()));
+        if (url != null)
+            builder.endpoint(url);
+        Route53Api api = builder.buildApi(Route53Api.class);
+        return RemoteCalls.counting(Route53Api.class, rateLimiter.limiting(Route53Api.class, api));
     }
 
     @Provides
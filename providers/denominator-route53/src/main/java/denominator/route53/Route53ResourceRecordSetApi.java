@@ -7,22 +7,30 @@ import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
 import static denominator.route53.ToDenominatorResourceRecordSet.isAlias;
 import static denominator.route53.ToRoute53ResourceRecordSet.toTextFormat;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 
+import org.jclouds.collect.IterableWithMarker;
 import org.jclouds.route53.Route53Api;
 import org.jclouds.route53.domain.ChangeBatch;
 import org.jclouds.route53.domain.HostedZone;
 import org.jclouds.route53.domain.ResourceRecordSetIterable.NextRecord;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.base.Ticker;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
 
 import denominator.ResourceRecordSetApi;
 import denominator.model.ResourceRecordSet;
@@ -40,24 +48,24 @@ final class Route53ResourceRecordSetApi implements denominator.ResourceRecordSet
      */
     @Override
     public Iterator<ResourceRecordSet<?>> list() {
-        Iterator<ResourceRecordSet<?>> iterator = route53RRsetApi.list().concat()
-                                                                 .filter(not(isAlias()))
-                                                                 .transform(ToDenominatorResourceRecordSet.INSTANCE)
-                                                                 .iterator();
+        Iterator<ResourceRecordSet<?>> iterator = listRoute53RRS().transform(ToDenominatorResourceRecordSet.INSTANCE)
+                                                                  .iterator();
         return new GroupByRecordNameAndTypeIterator(iterator);
     }
 
 
     /**
      * lists and lazily transforms all record sets for a name which are not
-     * aliases into denominator format.
+     * aliases into denominator format. The listing ends at the first record
+     * set with a different name.
      */
     @Override
     public Iterator<ResourceRecordSet<?>> listByName(String name) {
-        Iterator<ResourceRecordSet<?>> iterator = route53RRsetApi.listAt(NextRecord.name(name))
-                                                                 .filter(and(not(isAlias()), nameEqualTo(name)))
-                                                                 .transform(ToDenominatorResourceRecordSet.INSTANCE)
-                                                                 .iterator();
+        FluentIterable<org.jclouds.route53.domain.ResourceRecordSet> named = takeWhile(
+                pagesFrom(route53RRsetApi.listAt(NextRecord.name(name))), nameEqualTo(name));
+        Iterator<ResourceRecordSet<?>> iterator = named.filter(not(isAlias()))
+                                                       .transform(ToDenominatorResourceRecordSet.INSTANCE)
+                                                       .iterator();
         return new GroupByRecordNameAndTypeIterator(iterator);
     }
 
@@ -76,12 +84,59 @@ final class Route53ResourceRecordSetApi implements denominator.ResourceRecordSet
 
     /**
      * for efficiency, starts the list at the specified {@code name} and
-     * {@code type}.
+     * {@code type}, and ends it at the first record set that doesn't match.
      */
-    @SuppressWarnings("unchecked")
     FluentIterable<org.jclouds.route53.domain.ResourceRecordSet> filterRoute53RRSByNameAndType(String name, String type) {
-        return route53RRsetApi.listAt(NextRecord.nameAndType(name, type)).filter(
-                and(not(isAlias()), nameEqualTo(name), typeEqualTo(type)));
+        return takeWhile(pagesFrom(route53RRsetApi.listAt(NextRecord.nameAndType(name, type))),
+                and(nameEqualTo(name), typeEqualTo(type))).filter(not(isAlias()));
+    }
+
+    /**
+     * all record sets in the zone who are not aliases, in Route53 format.
+     */
+    FluentIterable<org.jclouds.route53.domain.ResourceRecordSet> listRoute53RRS() {
+        return pagesFrom(route53RRsetApi.list().get(0)).filter(not(isAlias()));
+    }
+
+    /**
+     * record sets from {@code first} to the end of the zone. Each following
+     * page is requested through {@code route53RRsetApi}, so that it is counted
+     * and rate limited like the first.
+     */
+    private FluentIterable<org.jclouds.route53.domain.ResourceRecordSet> pagesFrom(
+            IterableWithMarker<org.jclouds.route53.domain.ResourceRecordSet> first) {
+        return Pages.concat(first,
+                new Function<Object, IterableWithMarker<org.jclouds.route53.domain.ResourceRecordSet>>() {
+                    public IterableWithMarker<org.jclouds.route53.domain.ResourceRecordSet> apply(Object nextRecord) {
+                        return route53RRsetApi.listAt((NextRecord) nextRecord);
+                    }
+                });
+    }
+
+    /**
+     * Route53 lists record sets in order, so once a listing that started at a
+     * name moves past it, no more record sets can match. This stops at the
+     * first element that doesn't match {@code predicate}, so that following
+     * pages are not requested.
+     */
+    static <T> FluentIterable<T> takeWhile(final Iterable<T> ordered, final Predicate<? super T> predicate) {
+        return new FluentIterable<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<T> delegate = ordered.iterator();
+                return new AbstractIterator<T>() {
+                    @Override
+                    protected T computeNext() {
+                        if (delegate.hasNext()) {
+                            T next = delegate.next();
+                            if (predicate.apply(next))
+                                return next;
+                        }
+                        return endOfData();
+                    }
+                };
+            }
+        };
     }
 
     /**
@@ -194,34 +249,76 @@ final class Route53ResourceRecordSetApi implements denominator.ResourceRecordSet
         route53RRsetApi.delete(oldRRS.get());
     }
 
+    /**
+     * stages changes so that they are sent in as few {@link ChangeBatch}
+     * requests as possible.
+     */
+    @Override
+    public Batch begin() {
+        return new Route53Batch(this, route53RRsetApi);
+    }
+
     static final class Factory implements denominator.ResourceRecordSetApi.Factory {
 
+        /**
+         * how long zone ids are cached. A zone deleted and recreated with the
+         * same name is not visible until this expires.
+         */
+        static final long ZONE_ID_CACHE_SECONDS = 60;
+
+        /**
+         * how old zone ids must be before a miss reloads them. Misses in
+         * between are answered from the cache, so a zone created since the
+         * load is found soon after, while repeated lookups of a missing zone
+         * list zones at most this often.
+         */
+        static final long ZONE_ID_MISS_RELOAD_SECONDS = 5;
+
         private final Route53Api api;
+        private final Ticker ticker;
+
+        // guarded by this
+        private Map<String, String> zoneNameToId;
+        private long loadedAt;
 
         @Inject
         Factory(Route53Api api) {
-            this.api = api;
+            this(api, Ticker.systemTicker());
+        }
+
+        Factory(Route53Api api, Ticker ticker) {
+            this.api = checkNotNull(api, "api");
+            this.ticker = checkNotNull(ticker, "ticker");
         }
 
         @Override
-        public ResourceRecordSetApi create(final String zoneName) {
-            Optional<HostedZone> zone = api.getHostedZoneApi().list().concat().firstMatch(zoneNameEquals(zoneName));
-            checkArgument(zone.isPresent(), "zone %s not found", zoneName);
-            return new Route53ResourceRecordSetApi(api.getResourceRecordSetApiForHostedZone(zone.get().getId()));
+        public ResourceRecordSetApi create(String zoneName) {
+            checkNotNull(zoneName, "zoneName");
+            String zoneId = zoneId(zoneName);
+            checkArgument(zoneId != null, "zone %s not found", zoneName);
+            return new Route53ResourceRecordSetApi(api.getResourceRecordSetApiForHostedZone(zoneId));
         }
-    }
 
-    /**
-     * Amazon Hosted Zones are addressed by id, not by name.
-     */
-    private static final Predicate<HostedZone> zoneNameEquals(final String zoneName) {
-        checkNotNull(zoneName, "zoneName");
-        return new Predicate<HostedZone>() {
-            @Override
-            public boolean apply(HostedZone input) {
-                return input.getName().equals(zoneName);
+        private synchronized String zoneId(String zoneName) {
+            long age = zoneNameToId != null ? ticker.read() - loadedAt : Long.MAX_VALUE;
+            if (age >= SECONDS.toNanos(ZONE_ID_CACHE_SECONDS)) {
+                load();
+            } else if (!zoneNameToId.containsKey(zoneName) && age >= SECONDS.toNanos(ZONE_ID_MISS_RELOAD_SECONDS)) {
+                load();
             }
-        };
+            return zoneNameToId.get(zoneName);
+        }
+
+        private void load() {
+            Map<String, String> zoneNameToId = Maps.newLinkedHashMap();
+            for (HostedZone zone : Route53ZoneApi.hostedZones(api.getHostedZoneApi())) {
+                // like firstMatch, the first zone listed wins on duplicate names.
+                if (!zoneNameToId.containsKey(zone.getName()))
+                    zoneNameToId.put(zone.getName(), zone.getId());
+            }
+            this.zoneNameToId = ImmutableMap.copyOf(zoneNameToId);
+            this.loadedAt = ticker.read();
+        }
     }
 
     public static Predicate<org.jclouds.route53.domain.ResourceRecordSet> nameEqualTo(String name) {
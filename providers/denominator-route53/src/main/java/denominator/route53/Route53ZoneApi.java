@@ -4,10 +4,13 @@ import java.util.Iterator;
 
 import javax.inject.Inject;
 
+import org.jclouds.collect.IterableWithMarker;
 import org.jclouds.route53.Route53Api;
 import org.jclouds.route53.domain.HostedZone;
+import org.jclouds.route53.features.HostedZoneApi;
 
 import com.google.common.base.Function;
+import com.google.common.collect.FluentIterable;
 
 public final class Route53ZoneApi implements denominator.ZoneApi {
     private final Route53Api api;
@@ -19,7 +22,19 @@ public final class Route53ZoneApi implements denominator.ZoneApi {
 
     @Override
     public Iterator<String> list() {
-        return api.getHostedZoneApi().list().concat().transform(ZoneName.INSTANCE).iterator();
+        return hostedZones(api.getHostedZoneApi()).transform(ZoneName.INSTANCE).iterator();
+    }
+
+    /**
+     * all hosted zones, requesting each page through {@code api}, so that it
+     * is counted and rate limited like the first.
+     */
+    static FluentIterable<HostedZone> hostedZones(final HostedZoneApi api) {
+        return Pages.concat(api.list().get(0), new Function<Object, IterableWithMarker<HostedZone>>() {
+            public IterableWithMarker<HostedZone> apply(Object nextMarker) {
+                return api.listAt(nextMarker.toString());
+            }
+        });
     }
 
     private static enum ZoneName implements Function<HostedZone, String> {
@@ -4,22 +4,11 @@ import java.util.Map;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
-import com.google.common.base.Splitter;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import denominator.model.RDataCodec;
 import denominator.model.ResourceRecordSet;
 import denominator.model.ResourceRecordSet.Builder;
-import denominator.model.rdata.AAAAData;
-import denominator.model.rdata.AData;
-import denominator.model.rdata.CNAMEData;
-import denominator.model.rdata.MXData;
-import denominator.model.rdata.NSData;
-import denominator.model.rdata.PTRData;
-import denominator.model.rdata.SOAData;
-import denominator.model.rdata.SPFData;
-import denominator.model.rdata.SRVData;
-import denominator.model.rdata.TXTData;
 
 /**
  * Amazon does group by record sets. However, the {@code rdata} is in text
@@ -74,49 +63,10 @@ enum ToDenominatorResourceRecordSet implements
      *      type formats</a>
      */
     static Map<String, Object> parseTextFormat(String type, String rdata) {
-        if ("A".equals(type)) {
-            return AData.create(rdata);
-        } else if ("AAAA".equals(type)) {
-            return AAAAData.create(rdata);
-        } else if ("CNAME".equals(type)) {
-            return CNAMEData.create(rdata);
-        } else if ("MX".equals(type)) {
-            ImmutableList<String> parts = split(rdata);
-            return MXData.create(Integer.valueOf(parts.get(0)), parts.get(1));
-        } else if ("NS".equals(type)) {
-            return NSData.create(rdata);
-        } else if ("PTR".equals(type)) {
-            return PTRData.create(rdata);
-        } else if ("SOA".equals(type)) {
-            ImmutableList<String> parts = split(rdata);
-            return SOAData.builder()
-                          .mname(parts.get(0))
-                          .rname(parts.get(1))
-                          .serial(Integer.valueOf(parts.get(2)))
-                          .refresh(Integer.valueOf(parts.get(3)))
-                          .retry(Integer.valueOf(parts.get(4)))
-                          .expire(Integer.valueOf(parts.get(5)))
-                          .minimum(Integer.valueOf(parts.get(6))).build();
-        } else if ("SPF".equals(type)) {
-            // unquote
-            return SPFData.create(rdata.substring(1, rdata.length() - 1));
-        } else if ("SRV".equals(type)) {
-            ImmutableList<String> parts = split(rdata);
-            return SRVData.builder()
-                          .priority(Integer.valueOf(parts.get(0)))
-                          .weight(Integer.valueOf(parts.get(1)))
-                          .port(Integer.valueOf(parts.get(2)))
-                          .target(parts.get(3)).build();
-        } else if ("TXT".equals(type)) {
-            // unquote
-            return TXTData.create(rdata.substring(1, rdata.length() - 1));
-        } else {
-            return ImmutableMap.<String, Object> of("rdata", rdata);
-        }
-    }
-
-    private static ImmutableList<String> split(String rdata) {
-        return ImmutableList.copyOf(Splitter.on(' ').split(rdata));
+        RDataCodec<?> codec = RDataCodec.forType(type);
+        if (codec != null)
+            return codec.parseText(rdata);
+        return ImmutableMap.<String, Object> of("rdata", rdata);
     }
 
     @Override
@@ -1,5 +1,4 @@
 package denominator.route53;
-import static java.lang.String.format;
 
 import java.util.List;
 import java.util.Map;
@@ -8,8 +7,8 @@ import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
-import com.google.common.collect.ImmutableSet;
 
+import denominator.model.RDataCodec;
 import denominator.model.ResourceRecordSet;
 
 enum ToRoute53ResourceRecordSet implements Function<ResourceRecordSet<?>, org.jclouds.route53.domain.ResourceRecordSet> {
@@ -26,12 +25,9 @@ enum ToRoute53ResourceRecordSet implements Function<ResourceRecordSet<?>, org.jc
 
     static List<String> toTextFormat(ResourceRecordSet<?> rrset) {
         Builder<String> values = ImmutableList.builder();
+        RDataCodec<?> codec = RDataCodec.forType(rrset.getType());
         for (Map<String, Object> rdata : rrset) {
-            String textFormat = Joiner.on(' ').join(rdata.values());
-            if (ImmutableSet.of("SPF", "TXT").contains(rrset.getType())) {
-                textFormat = format("\"%s\"", textFormat);
-            }
-            values.add(textFormat);
+            values.add(codec != null ? codec.formatText(rdata) : Joiner.on(' ').join(rdata.values()));
         }
         return values.build();
     }
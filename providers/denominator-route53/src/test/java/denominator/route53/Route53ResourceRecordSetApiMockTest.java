@@ -3,13 +3,17 @@ package denominator.route53;
 import static com.google.common.util.concurrent.MoreExecutors.sameThreadExecutor;
 import static denominator.model.ResourceRecordSets.a;
 import static denominator.model.ResourceRecordSets.cname;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.Constants.PROPERTY_MAX_RETRIES;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jclouds.ContextBuilder;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
@@ -17,6 +21,7 @@ import org.jclouds.route53.Route53Api;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Module;
@@ -24,12 +29,16 @@ import com.google.mockwebserver.MockResponse;
 import com.google.mockwebserver.MockWebServer;
 import com.google.mockwebserver.RecordedRequest;
 
+import denominator.PartialCommitException;
+import denominator.ResourceRecordSetApi.Batch;
+import denominator.common.RemoteCalls;
+
 @Test(singleThreaded = true)
 public class Route53ResourceRecordSetApiMockTest {
     static Set<Module> modules = ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor(),
             sameThreadExecutor()));
 
-    static org.jclouds.route53.features.ResourceRecordSetApi mockRoute53Api(String uri) {
+    static Route53Api mockRoute53(String uri) {
         Properties overrides = new Properties();
         overrides.setProperty(PROPERTY_MAX_RETRIES, "1");
         return ContextBuilder.newBuilder("aws-route53")
@@ -37,8 +46,11 @@ public class Route53ResourceRecordSetApiMockTest {
                              .endpoint(uri)
                              .overrides(overrides)
                              .modules(modules)
-                             .buildApi(Route53Api.class)
-                             .getResourceRecordSetApiForHostedZone("Z1PA6795UKMFR9");
+                             .buildApi(Route53Api.class);
+    }
+
+    static org.jclouds.route53.features.ResourceRecordSetApi mockRoute53Api(String uri) {
+        return mockRoute53(uri).getResourceRecordSetApiForHostedZone("Z1PA6795UKMFR9");
     }
 
     String weightedRecords = "<ListResourceRecordSetsResponse><ResourceRecordSets><ResourceRecordSet><Name>www.foo.com.</Name><Type>CNAME</Type><SetIdentifier>Route53Service:us-east-1:PLATFORMSERVICE:i-7f0aec0d:20130313205017</SetIdentifier><Weight>1</Weight><TTL>0</TTL><ResourceRecords><ResourceRecord><Value>www1.foo.com.</Value></ResourceRecord></ResourceRecords></ResourceRecordSet><ResourceRecordSet><Name>www.foo.com.</Name><Type>CNAME</Type><SetIdentifier>Route53Service:us-east-1:PLATFORMSERVICE:i-fbe41089:20130312203418</SetIdentifier><Weight>1</Weight><TTL>0</TTL><ResourceRecords><ResourceRecord><Value>www2.foo.com.</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></ResourceRecordSets></ListResourceRecordSetsResponse>";
@@ -103,6 +115,78 @@ public class Route53ResourceRecordSetApiMockTest {
         }
     }
 
+    String truncatedPastName = "<ListResourceRecordSetsResponse><ResourceRecordSets><ResourceRecordSet><Name>www.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>192.0.2.1</Value></ResourceRecord></ResourceRecords></ResourceRecordSet><ResourceRecordSet><Name>www1.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>192.0.2.2</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></ResourceRecordSets><IsTruncated>true</IsTruncated><NextRecordName>www2.foo.com.</NextRecordName><NextRecordType>A</NextRecordType><MaxItems>2</MaxItems></ListResourceRecordSetsResponse>";
+
+    String pastName = "<ListResourceRecordSetsResponse><ResourceRecordSets><ResourceRecordSet><Name>www2.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>192.0.2.3</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></ResourceRecordSets><IsTruncated>false</IsTruncated><MaxItems>2</MaxItems></ListResourceRecordSetsResponse>";
+
+    @Test
+    public void listRequestsFollowingPagesThroughProxiedApi() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(truncatedPastName));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(pastName));
+        server.play();
+
+        try {
+            Route53Api route53 = RemoteCalls.counting(Route53Api.class, mockRoute53(server.getUrl("/").toString()));
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(
+                    route53.getResourceRecordSetApiForHostedZone("Z1PA6795UKMFR9"));
+            long before = RemoteCalls.count();
+            assertEquals(ImmutableList.copyOf(api.list()), ImmutableList.of(
+                    a("www.foo.com.", 3600, "192.0.2.1"),
+                    a("www1.foo.com.", 3600, "192.0.2.2"),
+                    a("www2.foo.com.", 3600, "192.0.2.3")));
+            assertEquals(RemoteCalls.count() - before, 2);
+        } finally {
+            assertEquals(server.getRequestCount(), 2);
+            assertEquals(server.takeRequest().getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www2.foo.com.&type=A HTTP/1.1");
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void listByNameDoesntRequestPagesPastName() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(truncatedPastName));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            assertEquals(ImmutableList.copyOf(api.listByName("www.foo.com.")),
+                    ImmutableList.of(a("www.foo.com.", 3600, "192.0.2.1")));
+        } finally {
+            assertEquals(server.getRequestCount(), 1);
+            RecordedRequest listName = server.takeRequest();
+            assertEquals(listName.getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www.foo.com. HTTP/1.1");
+
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void getByNameAndTypeDoesntRequestPagesPastType() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(truncatedPastName));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            assertFalse(api.getByNameAndType("www.foo.com.", "AAAA").isPresent());
+        } finally {
+            assertEquals(server.getRequestCount(), 1);
+            RecordedRequest listNameAndType = server.takeRequest();
+            assertEquals(listNameAndType.getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www.foo.com.&type=AAAA HTTP/1.1");
+
+            server.shutdown();
+        }
+    }
+
     String noRecords = "<ListResourceRecordSetsResponse><ResourceRecordSets></ResourceRecordSets></ListResourceRecordSetsResponse>";
     String createARecordSet = "<ChangeResourceRecordSetsRequest xmlns=\"https://route53.amazonaws.com/doc/2012-02-29/\"><ChangeBatch><Changes><Change><Action>CREATE</Action><ResourceRecordSet><Name>www.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>192.0.2.1</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></Change></Changes></ChangeBatch></ChangeResourceRecordSetsRequest>";
     String changeSynced = "<GetChangeResponse><ChangeInfo><Id>/change/C2682N5HXP0BZ4</Id><Status>INSYNC</Status><SubmittedAt>2011-09-10T01:36:41.958Z</SubmittedAt></ChangeInfo></GetChangeResponse>";
@@ -400,6 +484,139 @@ public class Route53ResourceRecordSetApiMockTest {
         }
     }
 
+    String replaceWithOtherRecordSet = "<ChangeResourceRecordSetsRequest xmlns=\"https://route53.amazonaws.com/doc/2012-02-29/\"><ChangeBatch><Changes><Change><Action>DELETE</Action><ResourceRecordSet><Name>www.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>192.0.2.1</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></Change><Change><Action>CREATE</Action><ResourceRecordSet><Name>www.foo.com.</Name><Type>A</Type><TTL>3600</TTL><ResourceRecords><ResourceRecord><Value>198.51.100.1</Value></ResourceRecord></ResourceRecords></ResourceRecordSet></Change></Changes></ChangeBatch></ChangeResourceRecordSetsRequest>";
+
+    @Test
+    public void batchSendsNetChangeInOneRequest() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(oneRecord));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(changeSynced));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            api.begin()
+               .remove(a("www.foo.com.", "192.0.2.1"))
+               .add(a("www.foo.com.", 3600, "198.51.100.1"))
+               .commit();
+        } finally {
+            assertEquals(server.getRequestCount(), 2);
+            RecordedRequest listNameAndType = server.takeRequest();
+            assertEquals(listNameAndType.getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www.foo.com.&type=A HTTP/1.1");
+
+            RecordedRequest changeRRSet = server.takeRequest();
+            assertEquals(changeRRSet.getRequestLine(), "POST /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset HTTP/1.1");
+            assertEquals(new String(changeRRSet.getBody()), replaceWithOtherRecordSet);
+
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void largeBatchReadsZoneInOneListing() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(truncatedPastName));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(pastName));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(changeSynced));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            Batch batch = api.begin();
+            for (int i = 1; i <= 150; i++)
+                batch.replace(a("www" + i + ".foo.com.", 3600, "198.51.100.1"));
+            assertEquals(server.getRequestCount(), 0);
+            batch.commit();
+        } finally {
+            assertEquals(server.getRequestCount(), 3);
+            assertEquals(server.takeRequest().getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset HTTP/1.1");
+            assertEquals(server.takeRequest().getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www2.foo.com.&type=A HTTP/1.1");
+            String changes = new String(server.takeRequest().getBody());
+            // www1 and www2 are replaced, and the rest created
+            assertEquals(changes.split("<Action>DELETE</Action>").length - 1, 2);
+            assertEquals(changes.split("<Action>CREATE</Action>").length - 1, 150);
+            assertTrue(changes.contains("<Value>192.0.2.3</Value>"));
+            assertFalse(changes.contains("<Name>www.foo.com.</Name>"));
+
+            server.shutdown();
+        }
+    }
+
+    static ImmutableList<String> addresses(int count) {
+        ImmutableList.Builder<String> addresses = ImmutableList.builder();
+        for (int i = 0; i < count; i++)
+            addresses.add(String.format("10.0.%d.%d", i / 256, i % 256));
+        return addresses.build();
+    }
+
+    String invalidChangeBatch = "<ErrorResponse><Error><Type>Sender</Type><Code>InvalidChangeBatch</Code><Message>Too many values</Message></Error><RequestId>b25f48e8-84fd-11e2-80a6-1b1b1e5b4d2d</RequestId></ErrorResponse>";
+
+    @Test
+    public void batchSplitsOnValueCountAndReportsPartialCommit() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        for (int i = 0; i < 3; i++)
+            server.enqueue(new MockResponse().setResponseCode(200).setBody(noRecords));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(changeSynced));
+        server.enqueue(new MockResponse().setResponseCode(400).setBody(invalidChangeBatch));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            // 1200 values, but only 3 changes
+            api.begin()
+               .add(a("www1.foo.com.", 60, addresses(400)))
+               .add(a("www2.foo.com.", 60, addresses(400)))
+               .add(a("www3.foo.com.", 60, addresses(400)))
+               .commit();
+            fail("expected the second change batch to fail");
+        } catch (PartialCommitException e) {
+            assertEquals(e.getAppliedRequests(), 1);
+            assertEquals(e.getRequests(), 2);
+            assertEquals(e.getMessage(), "applied 1 of 2 change batches before failing; changed "
+                    + "[[www1.foo.com., A], [www2.foo.com., A]], but not [[www3.foo.com., A]]");
+        } finally {
+            assertEquals(server.getRequestCount(), 5);
+            for (int i = 0; i < 3; i++)
+                server.takeRequest();
+            String first = new String(server.takeRequest().getBody());
+            assertTrue(first.contains("<Name>www2.foo.com.</Name>"));
+            assertFalse(first.contains("<Name>www3.foo.com.</Name>"));
+            String second = new String(server.takeRequest().getBody());
+            assertTrue(second.contains("<Name>www3.foo.com.</Name>"));
+
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void batchSkipsWhenNoNetChange() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(oneRecord));
+        server.play();
+
+        try {
+            Route53ResourceRecordSetApi api = new Route53ResourceRecordSetApi(mockRoute53Api(server.getUrl("/")
+                    .toString()));
+            api.begin()
+               .add(a("www.foo.com.", "198.51.100.1"))
+               .remove(a("www.foo.com.", "198.51.100.1"))
+               .commit();
+        } finally {
+            assertEquals(server.getRequestCount(), 1);
+            RecordedRequest listNameAndType = server.takeRequest();
+            assertEquals(listNameAndType.getRequestLine(),
+                    "GET /2012-02-29/hostedzone/Z1PA6795UKMFR9/rrset?name=www.foo.com.&type=A HTTP/1.1");
+
+            server.shutdown();
+        }
+    }
+
     @Test
     public void replaceRecordSetSkipsWhenEqual() throws IOException, InterruptedException {
         MockWebServer server = new MockWebServer();
@@ -479,4 +696,54 @@ public class Route53ResourceRecordSetApiMockTest {
             server.shutdown();
         }
     }
+
+    String hostedZoneTemplate = "<HostedZone><Id>/hostedzone/%s</Id><Name>%s</Name><CallerReference>%s</CallerReference><Config/><ResourceRecordSetCount>2</ResourceRecordSetCount></HostedZone>";
+
+    String hostedZones(String... idsAndNames) {
+        StringBuilder xml = new StringBuilder(
+                "<ListHostedZonesResponse xmlns=\"https://route53.amazonaws.com/doc/2012-02-29/\"><HostedZones>");
+        for (int i = 0; i < idsAndNames.length; i += 2)
+            xml.append(String.format(hostedZoneTemplate, idsAndNames[i], idsAndNames[i + 1], idsAndNames[i + 1]));
+        return xml.append("</HostedZones><IsTruncated>false</IsTruncated><MaxItems>100</MaxItems></ListHostedZonesResponse>")
+                  .toString();
+    }
+
+    @Test
+    public void zoneMissesReloadZoneIdsAtMostOncePerInterval() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(hostedZones("Z1PA6795UKMFR9", "foo.com.")));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(
+                hostedZones("Z1PA6795UKMFR9", "foo.com.", "Z2PA6795UKMFR9", "bar.com.")));
+        server.play();
+
+        final AtomicLong nanos = new AtomicLong();
+        Ticker ticker = new Ticker() {
+            public long read() {
+                return nanos.get();
+            }
+        };
+
+        try {
+            Route53Api route53 = mockRoute53(server.getUrl("/").toString());
+            Route53ResourceRecordSetApi.Factory factory = new Route53ResourceRecordSetApi.Factory(route53, ticker);
+            factory.create("foo.com.");
+            for (int i = 0; i < 2; i++) {
+                try {
+                    factory.create("bar.com.");
+                    fail("bar.com. shouldn't be found until zone ids are reloaded");
+                } catch (IllegalArgumentException e) {
+                    assertEquals(e.getMessage(), "zone bar.com. not found");
+                }
+            }
+            assertEquals(server.getRequestCount(), 1);
+
+            nanos.addAndGet(SECONDS.toNanos(Route53ResourceRecordSetApi.Factory.ZONE_ID_MISS_RELOAD_SECONDS));
+            factory.create("bar.com.");
+            factory.create("foo.com.");
+            assertEquals(server.getRequestCount(), 2);
+        } finally {
+            assertEquals(server.takeRequest().getRequestLine(), "GET /2012-02-29/hostedzone HTTP/1.1");
+            server.shutdown();
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package denominator.route53;
+
+import static denominator.CredentialsConfiguration.credentials;
+import static denominator.model.ResourceRecordSets.a;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.IOException;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+
+import denominator.DNSApiManager;
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.model.ResourceRecordSet;
+import denominator.standins.Route53StandIn;
+
+/**
+ * runs the provider end-to-end against {@link Route53StandIn}, and checks how
+ * many requests each operation costs.
+ */
+@Test(singleThreaded = true)
+public class Route53StandInProviderTest {
+    Route53StandIn route53;
+    DNSApiManager mgr;
+
+    @BeforeMethod
+    public void start() throws IOException {
+        route53 = new Route53StandIn();
+        route53.addZone("denominator.io.");
+        route53.start();
+        mgr = Denominator.create(new Route53Provider(route53.getUrl()), credentials("accessKey", "secretKey"));
+    }
+
+    @AfterMethod
+    public void stop() throws IOException {
+        mgr.close();
+        route53.close();
+    }
+
+    @Test
+    public void listAddReplaceDelete() {
+        ResourceRecordSetApi api = mgr.getApi().getResourceRecordSetApiForZone("denominator.io.");
+
+        ImmutableList<ResourceRecordSet<?>> initial = ImmutableList.copyOf(api.list());
+        assertEquals(initial.size(), 2, initial.toString());
+        assertEquals(initial.get(0).getType(), "NS");
+        assertEquals(initial.get(1).getType(), "SOA");
+
+        api.add(a("www.denominator.io.", 300, "192.0.2.1"));
+        api.replace(a("www.denominator.io.", 300, "192.0.2.2"));
+        assertEquals(api.getByNameAndType("www.denominator.io.", "A").get(),
+                a("www.denominator.io.", 300, "192.0.2.2"));
+
+        api.deleteByNameAndType("www.denominator.io.", "A");
+        assertFalse(api.getByNameAndType("www.denominator.io.", "A").isPresent());
+        assertEquals(Iterators.size(api.list()), 2);
+
+        // zones are listed once, then each write reads the set it changes
+        assertEquals(route53.getRequestCounts(), ImmutableMap.of(
+                "ChangeResourceRecordSets", 3L,
+                "ListHostedZones", 1L,
+                "ListResourceRecordSets", 7L));
+    }
+}
@@ -0,0 +1,129 @@
+package denominator.ultradns;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static denominator.common.SortingIterator.sort;
+import static denominator.ultradns.UltraDNSResourceRecordSetApi.byNameTypeAndCreateDate;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.jclouds.ultradns.ws.domain.ResourceRecord;
+import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
+import org.jclouds.ultradns.ws.features.ResourceRecordApi;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.SetMultimap;
+import com.google.common.collect.Table;
+import com.google.common.collect.TreeBasedTable;
+
+import denominator.ResourceTypeToValue;
+
+/**
+ * Indexes the records of a zone by name and type, so that point reads and
+ * writes do not each list the entire zone.
+ *
+ * The index is built from a single zone listing and expires after
+ * {@link #DEFAULT_TTL_SECONDS}. Writes made through
+ * {@link UltraDNSResourceRecordSetApi} {@link #invalidate(String, int)
+ * invalidate} the affected name and type both before and after calling the
+ * api, so that a read made while the write is in flight doesn't leave stale
+ * records in the index. The entry is reloaded on its next read without
+ * listing the zone again.
+ */
+final class ResourceRecordIndex {
+    static final long DEFAULT_TTL_SECONDS = 60;
+
+    private static final int NS = new ResourceTypeToValue().get("NS");
+
+    private final ResourceRecordApi api;
+    private final String zoneName;
+    private final long ttlNanos;
+    private final Ticker ticker;
+
+    // name -> type -> records ordered by create date
+    private Table<String, Integer, List<ResourceRecordMetadata>> index;
+    private final SetMultimap<String, Integer> stale = HashMultimap.create();
+    private long expiresAt;
+
+    ResourceRecordIndex(ResourceRecordApi api, String zoneName) {
+        this(api, zoneName, SECONDS.toNanos(DEFAULT_TTL_SECONDS), Ticker.systemTicker());
+    }
+
+    ResourceRecordIndex(ResourceRecordApi api, String zoneName, long ttlNanos, Ticker ticker) {
+        this.api = checkNotNull(api, "api");
+        this.zoneName = checkNotNull(zoneName, "zoneName");
+        this.ttlNanos = ttlNanos;
+        this.ticker = checkNotNull(ticker, "ticker");
+    }
+
+    /**
+     * records of the name and type, ordered by create date.
+     */
+    synchronized List<ResourceRecordMetadata> get(String name, int type) {
+        checkNotNull(name, "name");
+        loadIfExpired();
+        if (stale.remove(name, type))
+            reload(name, type);
+        List<ResourceRecordMetadata> records = index.get(name, type);
+        return records != null ? unmodifiableList(records) : ImmutableList.<ResourceRecordMetadata> of();
+    }
+
+    /**
+     * records of the name, ordered by type, then create date.
+     */
+    synchronized List<ResourceRecordMetadata> get(String name) {
+        checkNotNull(name, "name");
+        loadIfExpired();
+        for (Integer type : stale.removeAll(name))
+            reload(name, type);
+        ImmutableList.Builder<ResourceRecordMetadata> records = ImmutableList.builder();
+        for (List<ResourceRecordMetadata> byType : index.row(name).values())
+            records.addAll(byType);
+        return records.build();
+    }
+
+    /**
+     * marks the name and type as changed, so it is reloaded on next read.
+     */
+    synchronized void invalidate(String name, int type) {
+        stale.put(checkNotNull(name, "name"), type);
+    }
+
+    private void loadIfExpired() {
+        if (index != null && ticker.read() - expiresAt < 0)
+            return;
+        Table<String, Integer, List<ResourceRecordMetadata>> index = TreeBasedTable.create();
+        for (Iterator<ResourceRecordMetadata> i = sort(api.list().iterator(), byNameTypeAndCreateDate); i.hasNext();) {
+            ResourceRecordMetadata next = i.next();
+            ResourceRecord record = next.getRecord();
+            List<ResourceRecordMetadata> records = index.get(record.getName(), record.getType());
+            if (records == null)
+                index.put(record.getName(), record.getType(), records = Lists.newArrayList());
+            records.add(next);
+        }
+        this.index = index;
+        this.stale.clear();
+        this.expiresAt = ticker.read() + ttlNanos;
+    }
+
+    private void reload(String name, int type) {
+        // TODO: listByNameAndType() doesn't work with NS records where
+        // name = zoneName
+        if (type == NS && name.equals(zoneName)) {
+            index = null;
+            loadIfExpired();
+            return;
+        }
+        List<ResourceRecordMetadata> records = api.listByNameAndType(name, type).toSortedList(byNameTypeAndCreateDate);
+        if (records.isEmpty()) {
+            index.remove(name, type);
+        } else {
+            index.put(name, type, records);
+        }
+    }
+}
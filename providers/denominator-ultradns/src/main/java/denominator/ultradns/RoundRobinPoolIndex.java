@@ -0,0 +1,178 @@
+package denominator.ultradns;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Collections.singleton;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
+import org.jclouds.ultradns.ws.domain.RoundRobinPool;
+import org.jclouds.ultradns.ws.features.RoundRobinPoolApi;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.Table;
+
+import denominator.ResourceTypeToValue;
+
+/**
+ * Indexes the round robin pools of a zone by dname and type, and their records
+ * by guid, so that adding or removing a pool member does not list every pool
+ * and its records.
+ *
+ * Pools are listed once, on first use. Records of a pool are only listed when
+ * its type or the pool of a record guid cannot be found otherwise. Pools and
+ * records added or removed through {@link UltraDNSRoundRobinPoolApi} update
+ * the index. The index expires after {@link #DEFAULT_TTL_SECONDS}, and can be
+ * {@link #invalidate() invalidated} when a write fails.
+ */
+final class RoundRobinPoolIndex {
+    static final long DEFAULT_TTL_SECONDS = 60;
+
+    private final RoundRobinPoolApi api;
+    private final long ttlNanos;
+    private final Ticker ticker;
+
+    // dname -> pool ids, in listing order
+    private ListMultimap<String, String> poolIdsByDName;
+    // dname -> type -> first matching pool id
+    private final Table<String, Integer, String> poolIdByDNameAndType = HashBasedTable.create();
+    private final Map<String, String> poolIdByGuid = Maps.newHashMap();
+    // pools whose records are all in poolIdByGuid
+    private final Set<String> poolsWithRecordsIndexed = Sets.newHashSet();
+    private long expiresAt;
+
+    RoundRobinPoolIndex(RoundRobinPoolApi api) {
+        this(api, SECONDS.toNanos(DEFAULT_TTL_SECONDS), Ticker.systemTicker());
+    }
+
+    RoundRobinPoolIndex(RoundRobinPoolApi api, long ttlNanos, Ticker ticker) {
+        this.api = checkNotNull(api, "api");
+        this.ttlNanos = ttlNanos;
+        this.ticker = checkNotNull(ticker, "ticker");
+    }
+
+    /**
+     * id of the first pool for {@code dname} named {@code type}, or failing
+     * that, the first whose records are of {@code type}. Null if there is
+     * none.
+     */
+    synchronized String poolId(String dname, int type) {
+        checkNotNull(dname, "pool dname was null");
+        loadIfExpired();
+        String poolId = poolIdByDNameAndType.get(dname, type);
+        if (poolId != null)
+            return poolId;
+        // pools that don't follow our naming convention are typed by their
+        // records.
+        for (String candidate : poolIdsByDName.get(dname)) {
+            if (!poolsWithRecordsIndexed.contains(candidate)) {
+                indexRecords(dname, candidate);
+                if ((poolId = poolIdByDNameAndType.get(dname, type)) != null)
+                    return poolId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * id of the pool for {@code dname} containing the record {@code guid}, or
+     * null if there is none.
+     */
+    synchronized String poolIdOfRecord(String dname, String guid) {
+        checkNotNull(dname, "pool dname was null");
+        checkNotNull(guid, "record guid was null");
+        loadIfExpired();
+        String poolId = poolIdByGuid.get(guid);
+        if (poolId != null)
+            return poolId;
+        for (String candidate : poolIdsByDName.get(dname)) {
+            if (!poolsWithRecordsIndexed.contains(candidate)) {
+                indexRecords(dname, candidate);
+                if ((poolId = poolIdByGuid.get(guid)) != null)
+                    return poolId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * indexes a pool just created, which has no records.
+     */
+    synchronized void putPool(String dname, int type, String poolId) {
+        loadIfExpired();
+        poolIdsByDName.put(dname, poolId);
+        if (!poolIdByDNameAndType.contains(dname, type))
+            poolIdByDNameAndType.put(dname, type, poolId);
+        poolsWithRecordsIndexed.add(poolId);
+    }
+
+    synchronized void putRecord(String guid, String poolId) {
+        poolIdByGuid.put(checkNotNull(guid, "record guid was null"), poolId);
+    }
+
+    synchronized void removeRecord(String guid) {
+        poolIdByGuid.remove(guid);
+    }
+
+    /**
+     * true if the pool's records are indexed and any remain. When false, the
+     * pool may still have records not indexed.
+     */
+    synchronized boolean knownToHaveRecords(String poolId) {
+        return poolsWithRecordsIndexed.contains(poolId) && poolIdByGuid.containsValue(poolId);
+    }
+
+    synchronized void removePool(String poolId) {
+        if (poolIdsByDName == null)
+            return;
+        poolIdsByDName.values().remove(poolId);
+        poolIdByDNameAndType.values().removeAll(singleton(poolId));
+        poolIdByGuid.values().removeAll(singleton(poolId));
+        poolsWithRecordsIndexed.remove(poolId);
+    }
+
+    /**
+     * discards the index, so that pools are listed again on next use.
+     */
+    synchronized void invalidate() {
+        poolIdsByDName = null;
+    }
+
+    private void loadIfExpired() {
+        if (poolIdsByDName != null && ticker.read() - expiresAt < 0)
+            return;
+        poolIdByDNameAndType.clear();
+        poolIdByGuid.clear();
+        poolsWithRecordsIndexed.clear();
+        ListMultimap<String, String> poolIdsByDName = LinkedListMultimap.create();
+        ResourceTypeToValue types = new ResourceTypeToValue();
+        for (RoundRobinPool pool : api.list()) {
+            poolIdsByDName.put(pool.getDName(), pool.getId());
+            // pools created by UltraDNSRoundRobinPoolApi are named by their type
+            Integer type = types.get(pool.getName());
+            if (type != null && !poolIdByDNameAndType.contains(pool.getDName(), type))
+                poolIdByDNameAndType.put(pool.getDName(), type, pool.getId());
+        }
+        this.poolIdsByDName = poolIdsByDName;
+        this.expiresAt = ticker.read() + ttlNanos;
+    }
+
+    private void indexRecords(String dname, String poolId) {
+        for (Iterator<ResourceRecordMetadata> i = api.listRecords(poolId).iterator(); i.hasNext();) {
+            ResourceRecordMetadata record = i.next();
+            poolIdByGuid.put(record.getGuid(), poolId);
+            int type = record.getRecord().getType();
+            if (!poolIdByDNameAndType.contains(dname, type))
+                poolIdByDNameAndType.put(dname, type, poolId);
+        }
+        poolsWithRecordsIndexed.add(poolId);
+    }
+}
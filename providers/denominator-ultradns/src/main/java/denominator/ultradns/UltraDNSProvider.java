@@ -26,9 +26,24 @@ import denominator.DNSApiManager;
 import denominator.Provider;
 import denominator.ResourceRecordSetApi;
 import denominator.ZoneApi;
+import denominator.common.RemoteCalls;
 
 @Module(entryPoints = DNSApiManager.class)
 public class UltraDNSProvider extends Provider {
+    private final String url;
+
+    public UltraDNSProvider() {
+        this(null);
+    }
+
+    /**
+     * @param url
+     *            endpoint to send requests to, such as a stand-in server, or
+     *            null to use the default.
+     */
+    public UltraDNSProvider(String url) {
+        this.url = url;
+    }
 
     @Provides
     protected Provider provideThis() {
@@ -55,10 +70,13 @@ public class UltraDNSProvider extends Provider {
     @Provides
     @Singleton
     UltraDNSWSApi provideApi(Supplier<Credentials> credentials) {
-        return ContextBuilder.newBuilder(new UltraDNSWSProviderMetadata())
-                             .credentialsSupplier(credentials)
-                             .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()))
-                             .buildApi(UltraDNSWSApi.class);
+        ContextBuilder builder = ContextBuilder.newBuilder(new UltraDNSWSProviderMetadata())
+                                               .credentialsSupplier(credentials)
+                                               .modules(ImmutableSet.<com.google.inject.Module> of(new SLF4JLoggingModule()));
+        if (url != null)
+            builder.endpoint(url);
+        UltraDNSWSApi api = builder.buildApi(UltraDNSWSApi.class);
+        return RemoteCalls.counting(UltraDNSWSApi.class, api);
     }
 
     @Provides
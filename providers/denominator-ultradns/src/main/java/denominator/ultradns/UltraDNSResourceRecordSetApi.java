@@ -2,10 +2,8 @@ package denominator.ultradns;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.base.Predicates.and;
 import static com.google.common.collect.Lists.newArrayList;
-import static denominator.model.ResourceRecordSets.nameEqualTo;
-import static denominator.model.ResourceRecordSets.typeEqualTo;
+import static denominator.common.SortingIterator.sort;
 import static denominator.ultradns.UltraDNSFunctions.toRdataMap;
 
 import java.util.Iterator;
@@ -20,75 +18,93 @@ import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
 import org.jclouds.ultradns.ws.features.ResourceRecordApi;
 
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Iterators;
 import com.google.common.collect.Ordering;
 
 import denominator.ResourceRecordSetApi;
 import denominator.ResourceTypeToValue;
+import denominator.common.SequentialBatch;
 import denominator.model.ResourceRecordSet;
 
 public final class UltraDNSResourceRecordSetApi implements denominator.ResourceRecordSetApi {
     static final class Factory implements denominator.ResourceRecordSetApi.Factory {
 
         private final UltraDNSWSApi api;
+        private final LoadingCache<String, ResourceRecordIndex> indexes;
+        private final LoadingCache<String, RoundRobinPoolIndex> poolIndexes;
 
         @Inject
-        Factory(UltraDNSWSApi api) {
+        Factory(final UltraDNSWSApi api) {
             this.api = api;
+            this.indexes = CacheBuilder.newBuilder().build(new CacheLoader<String, ResourceRecordIndex>() {
+                public ResourceRecordIndex load(String zoneName) {
+                    return new ResourceRecordIndex(api.getResourceRecordApiForZone(zoneName), zoneName);
+                }
+            });
+            this.poolIndexes = CacheBuilder.newBuilder().build(new CacheLoader<String, RoundRobinPoolIndex>() {
+                public RoundRobinPoolIndex load(String zoneName) {
+                    return new RoundRobinPoolIndex(api.getRoundRobinPoolApiForZone(zoneName));
+                }
+            });
         }
 
         @Override
         public ResourceRecordSetApi create(final String zoneName) {
             return new UltraDNSResourceRecordSetApi(api.getResourceRecordApiForZone(zoneName),
-                    new UltraDNSRoundRobinPoolApi(api.getRoundRobinPoolApiForZone(zoneName)));
+                    new UltraDNSRoundRobinPoolApi(api.getRoundRobinPoolApiForZone(zoneName),
+                            poolIndexes.getUnchecked(zoneName)),
+                    indexes.getUnchecked(zoneName));
         }
     }
 
     private final ResourceRecordApi api;
     private final UltraDNSRoundRobinPoolApi roundRobinPoolApi;
+    private final ResourceRecordIndex index;
 
-    UltraDNSResourceRecordSetApi(ResourceRecordApi api, UltraDNSRoundRobinPoolApi roundRobinPoolApi) {
+    UltraDNSResourceRecordSetApi(ResourceRecordApi api, UltraDNSRoundRobinPoolApi roundRobinPoolApi,
+            ResourceRecordIndex index) {
         this.api = api;
         this.roundRobinPoolApi = roundRobinPoolApi;
+        this.index = index;
     }
 
     @Override
     public Iterator<ResourceRecordSet<?>> list() {
         // this will list all normal or RR pool records.
-        Iterator<ResourceRecordMetadata> orderedRecords = api.list().toSortedList(byNameTypeAndCreateDate).iterator();
+        Iterator<ResourceRecordMetadata> orderedRecords = sort(api.list().iterator(), byNameTypeAndCreateDate);
         return new GroupByRecordNameAndTypeIterator(orderedRecords);
     }
 
     @Override
     public Iterator<ResourceRecordSet<?>> listByName(String name) {
         checkNotNull(name, "name");
-        // TODO: temporary until listByNameAndType() works with NS records where
-        // name = zoneName
-        return Iterators.filter(list(), nameEqualTo(name));
+        return new GroupByRecordNameAndTypeIterator(index.get(name).iterator());
     }
 
     @Override
     public Optional<ResourceRecordSet<?>> getByNameAndType(String name, String type) {
         checkNotNull(name, "name");
         checkNotNull(type, "type");
-        // TODO: temporary until listByNameAndType() works with NS records where
-        // name = zoneName
-        return Iterators.tryFind(list(), and(nameEqualTo(name), typeEqualTo(type)));
+        Integer typeValue = new ResourceTypeToValue().get(type);
+        if (typeValue == null)
+            return Optional.absent();
+        Iterator<ResourceRecordSet<?>> rrset = new GroupByRecordNameAndTypeIterator(index.get(name, typeValue)
+                .iterator());
+        return rrset.hasNext() ? Optional.<ResourceRecordSet<?>> of(rrset.next()) : Optional
+                .<ResourceRecordSet<?>> absent();
     }
 
-    private List<ResourceRecordMetadata> referencesByNameAndType(final String name, String type) {
+    private List<ResourceRecordMetadata> referencesByNameAndType(String name, String type) {
         checkNotNull(name, "name");
         checkNotNull(type, "type");
-        final int typeValue = checkNotNull(new ResourceTypeToValue().get(type), "typeValue for %s", type);
-        // TODO: temporary until listByNameAndType() works with NS records where
-        // name = zoneName
-        return api.list().filter(new Predicate<ResourceRecordMetadata>() {
-            public boolean apply(ResourceRecordMetadata in) {
-                return name.equals(in.getRecord().getName()) && typeValue == in.getRecord().getType();
-            }
-        }).toSortedList(byNameTypeAndCreateDate);
+        return index.get(name, typeValue(type));
+    }
+
+    private static int typeValue(String type) {
+        return checkNotNull(new ResourceTypeToValue().get(type), "typeValue for %s", type);
     }
 
     private static final int defaultTTL = 300;
@@ -118,10 +134,10 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
                     continue;
                 }
                 // update ttl of rdata in input
-                api.update(reference.getGuid(), updateTTL);
+                update(rrset.getName(), rrset.getType(), reference.getGuid(), updateTTL);
             } else if (ttlToApply.get().intValue() != record.getTTL()) {
                 // update ttl of other record
-                api.update(reference.getGuid(), updateTTL);
+                update(rrset.getName(), rrset.getType(), reference.getGuid(), updateTTL);
             }
         }
         create(rrset.getName(), rrset.getType(), ttlToApply.or(defaultTTL), recordsLeftToCreate);
@@ -138,7 +154,7 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
         for (ResourceRecordMetadata reference : references) {
             ResourceRecord updateTTL = reference.getRecord().toBuilder().ttl(ttl).build();
             // this will update normal or RR pool records.
-            api.update(reference.getGuid(), updateTTL);
+            update(name, type, reference.getGuid(), updateTTL);
         }
     }
 
@@ -162,7 +178,8 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
                     continue;
                 }
                 // update ttl of rdata in input
-                api.update(reference.getGuid(), record.toBuilder().ttl(ttlToApply).build());
+                update(rrset.getName(), rrset.getType(), reference.getGuid(), record.toBuilder().ttl(ttlToApply)
+                        .build());
             } else {
                 remove(rrset.getName(), rrset.getType(), reference.getGuid());
             }
@@ -171,21 +188,41 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
         create(rrset.getName(), rrset.getType(), ttlToApply, recordsLeftToCreate);
     }
 
+    /**
+     * writes below invalidate the index before and after calling the api. The
+     * first keeps our own reads from acting on records the write is about to
+     * change. The second discards any reload made while the write was in
+     * flight, and also applies if the write fails part-way.
+     */
+    private void update(String name, String type, String guid, ResourceRecord record) {
+        index.invalidate(name, typeValue(type));
+        try {
+            api.update(guid, record);
+        } finally {
+            index.invalidate(name, typeValue(type));
+        }
+    }
+
     private void create(String name, String type, int ttl, List<Map<String, Object>> rdatas) {
         if (rdatas.size() > 0) {
-            // adding requires the use of a special RR pool api, however we can
-            // update them using the normal one..
-            if (roundRobinPoolApi.isPoolType(type)) {
-                roundRobinPoolApi.add(name, type, ttl, rdatas);
-            } else {
-                ResourceRecord.Builder builder = ResourceRecord.rrBuilder()
-                                                               .name(name)
-                                                               .type(new ResourceTypeToValue().get(type))
-                                                               .ttl(ttl);
-
-                for (Map<String, Object> rdata : rdatas) {
-                    api.create(builder.rdata(rdata.values()).build());
+            index.invalidate(name, typeValue(type));
+            try {
+                // adding requires the use of a special RR pool api, however we
+                // can update them using the normal one..
+                if (roundRobinPoolApi.isPoolType(type)) {
+                    roundRobinPoolApi.add(name, type, ttl, rdatas);
+                } else {
+                    ResourceRecord.Builder builder = ResourceRecord.rrBuilder()
+                                                                   .name(name)
+                                                                   .type(new ResourceTypeToValue().get(type))
+                                                                   .ttl(ttl);
+
+                    for (Map<String, Object> rdata : rdatas) {
+                        api.create(builder.rdata(rdata.values()).build());
+                    }
                 }
+            } finally {
+                index.invalidate(name, typeValue(type));
             }
         }
     }
@@ -204,10 +241,15 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
     }
 
     private void remove(String name, String type, String guid) {
-        if (roundRobinPoolApi.isPoolType(type)) {
-            roundRobinPoolApi.remove(name, guid);
-        } else {
-            api.delete(guid);
+        index.invalidate(name, typeValue(type));
+        try {
+            if (roundRobinPoolApi.isPoolType(type)) {
+                roundRobinPoolApi.remove(name, guid);
+            } else {
+                api.delete(guid);
+            }
+        } finally {
+            index.invalidate(name, typeValue(type));
         }
     }
 
@@ -218,7 +260,12 @@ public final class UltraDNSResourceRecordSetApi implements denominator.ResourceR
         }
     }
 
-    private static final Ordering<ResourceRecordMetadata> byNameTypeAndCreateDate = new Ordering<ResourceRecordMetadata>() {
+    @Override
+    public Batch begin() {
+        return new SequentialBatch(this);
+    }
+
+    static final Ordering<ResourceRecordMetadata> byNameTypeAndCreateDate = new Ordering<ResourceRecordMetadata>() {
 
         @Override
         public int compare(ResourceRecordMetadata left, ResourceRecordMetadata right) {
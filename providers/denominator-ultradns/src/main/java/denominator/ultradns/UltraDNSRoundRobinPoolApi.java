@@ -2,36 +2,28 @@ package denominator.ultradns;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
-import static com.google.common.base.Predicates.and;
-import static com.google.common.base.Predicates.compose;
-import static denominator.ultradns.UltraDNSFunctions.toResourceRecord;
-import static denominator.ultradns.UltraDNSPredicates.poolDNameEqualTo;
-import static denominator.ultradns.UltraDNSPredicates.poolNameEqualTo;
-import static denominator.ultradns.UltraDNSPredicates.recordGuidEqualTo;
-import static denominator.ultradns.UltraDNSPredicates.resourceTypeEqualTo;
 
 import java.util.List;
 import java.util.Map;
 
-import org.jclouds.ultradns.ws.domain.ResourceRecord;
-import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
-import org.jclouds.ultradns.ws.domain.RoundRobinPool;
 import org.jclouds.ultradns.ws.features.RoundRobinPoolApi;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
-import com.google.common.collect.FluentIterable;
-
 import denominator.ResourceTypeToValue;
 
 class UltraDNSRoundRobinPoolApi {
     private static final Logger LOGGER = LoggerFactory.getLogger(UltraDNSRoundRobinPoolApi.class);
     private final RoundRobinPoolApi roundRobinPoolApi;
+    private final RoundRobinPoolIndex index;
 
     public UltraDNSRoundRobinPoolApi(RoundRobinPoolApi roundRobinPoolApi) {
+        this(roundRobinPoolApi, new RoundRobinPoolIndex(roundRobinPoolApi));
+    }
+
+    UltraDNSRoundRobinPoolApi(RoundRobinPoolApi roundRobinPoolApi, RoundRobinPoolIndex index) {
         this.roundRobinPoolApi = roundRobinPoolApi;
+        this.index = index;
     }
 
     boolean isPoolType(String type) {
@@ -41,58 +33,43 @@ class UltraDNSRoundRobinPoolApi {
     void add(String dname, String type, int ttl, List<Map<String, Object>> rdatas) {
         checkState(isPoolType(type), "not A or AAAA type");
 
-        String poolId = reuseOrCreatePoolForNameAndType(dname, type);
-
-        for (Map<String, Object> rdata : rdatas) {
-            String recordId = null;
-            String address = rdata.get("address").toString();
-            if (type.equals("A")) {
-                recordId = roundRobinPoolApi.addARecordWithAddressAndTTL(poolId, address, ttl);
-            } else {
-                recordId = roundRobinPoolApi.addAAAARecordWithAddressAndTTL(poolId, address, ttl);
+        try {
+            String poolId = reuseOrCreatePoolForNameAndType(dname, type);
+
+            for (Map<String, Object> rdata : rdatas) {
+                String recordId = null;
+                String address = rdata.get("address").toString();
+                if (type.equals("A")) {
+                    recordId = roundRobinPoolApi.addARecordWithAddressAndTTL(poolId, address, ttl);
+                } else {
+                    recordId = roundRobinPoolApi.addAAAARecordWithAddressAndTTL(poolId, address, ttl);
+                }
+                index.putRecord(recordId, poolId);
+                LOGGER.debug("record ({}) created with id({})", address, recordId);
             }
-            LOGGER.debug("record ({}) created with id({})", address, recordId);
+        } catch (RuntimeException e) {
+            index.invalidate();
+            throw e;
         }
     }
 
     private String reuseOrCreatePoolForNameAndType(String dname, String type) {
-        Optional<RoundRobinPool> pool = firstPoolWithDNameAndType(dname, type);
-        if (!pool.isPresent()) {
+        checkNotNull(dname, "pool dname was null");
+        checkNotNull(type, "resource type was null");
+        int typeValue = new ResourceTypeToValue().get(type);
+        String poolId = index.poolId(dname, typeValue);
+        if (poolId == null) {
             LOGGER.debug("No pool ({}) for type ({}) found", dname, type);
-            // see findPool for information on why we are storing the type in
-            // description field.
+            // pools are named by their type, so that they can be found
+            // without listing their records.
             if (type.equals("A")) {
-                return roundRobinPoolApi.createAPoolForHostname(type, dname);
+                poolId = roundRobinPoolApi.createAPoolForHostname(type, dname);
             } else { // or AAAA
-                return roundRobinPoolApi.createAAAAPoolForHostname(type, dname);
+                poolId = roundRobinPoolApi.createAAAAPoolForHostname(type, dname);
             }
-        } else {
-            return pool.get().getId();
+            index.putPool(dname, typeValue, poolId);
         }
-    }
-
-    private Optional<RoundRobinPool> firstPoolWithDNameAndType(String dname, String type) {
-        checkNotNull(dname, "pool dname was null");
-        checkNotNull(type, "resource type was null");
-
-        FluentIterable<RoundRobinPool> pools = roundRobinPoolApi.list().filter(poolDNameEqualTo(dname));
-        
-        // first, try a cheap match as it avoids having to search through all
-        // records of a pool that happen to be ahead in line. This occurs when
-        // you are adding to a AAAA pool, which is lexicographically after A.
-        Predicate<RoundRobinPool> cheapPredicate = poolNameEqualTo(type);
-        Optional<RoundRobinPool> match = pools.firstMatch(cheapPredicate);
-        if (match.isPresent())
-            return match;
-
-        // failing above, we need to exhaustive search in order to find any pools
-        // that may not follow our naming convention, but are present for the
-        // correct dname.
-        Predicate<ResourceRecord> resourceRecordMetadataPredicate = resourceTypeEqualTo(new ResourceTypeToValue()
-                .get(type));
-        Predicate<RoundRobinPool> expensivePredicate = toRoundRobinPoolPredicate(compose(
-                resourceRecordMetadataPredicate, toResourceRecord()));
-        return pools.firstMatch(expensivePredicate);
+        return poolId;
     }
 
     /**
@@ -107,29 +84,19 @@ class UltraDNSRoundRobinPoolApi {
     void remove(String dname, String guid) {
         checkNotNull(dname, "pool dname was null");
         checkNotNull(guid, "record guid was null");
-        Predicate<RoundRobinPool> dnameWithRecord = and(poolDNameEqualTo(dname),
-                toRoundRobinPoolPredicate(recordGuidEqualTo(guid)));
-        Optional<RoundRobinPool> poolContainingRecord = roundRobinPoolApi.list().firstMatch(dnameWithRecord);
-        roundRobinPoolApi.deleteRecord(guid);
-        if (poolContainingRecord.isPresent()) {
-            if (roundRobinPoolApi.listRecords(poolContainingRecord.get().getId()).isEmpty()) {
-                roundRobinPoolApi.delete(poolContainingRecord.get().getId());
+        try {
+            String poolContainingRecord = index.poolIdOfRecord(dname, guid);
+            roundRobinPoolApi.deleteRecord(guid);
+            index.removeRecord(guid);
+            if (poolContainingRecord != null && !index.knownToHaveRecords(poolContainingRecord)) {
+                if (roundRobinPoolApi.listRecords(poolContainingRecord).isEmpty()) {
+                    roundRobinPoolApi.delete(poolContainingRecord);
+                    index.removePool(poolContainingRecord);
+                }
             }
+        } catch (RuntimeException e) {
+            index.invalidate();
+            throw e;
         }
     }
-
-    private Predicate<RoundRobinPool> toRoundRobinPoolPredicate(
-            final Predicate<ResourceRecordMetadata> resourceRecordMetadataPredicate) {
-        return new Predicate<RoundRobinPool>() {
-            @Override
-            public boolean apply(RoundRobinPool pool) {
-                return roundRobinPoolApi.listRecords(pool.getId()).anyMatch(resourceRecordMetadataPredicate);
-            }
-
-            @Override
-            public String toString() {
-                return "AnyRecordMatches(" + resourceRecordMetadataPredicate + ")";
-            }
-        };
-    }
 }
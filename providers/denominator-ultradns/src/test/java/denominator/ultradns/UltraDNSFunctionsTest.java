@@ -3,11 +3,9 @@ package denominator.ultradns;
 import static org.jclouds.ultradns.ws.domain.ResourceRecord.rrBuilder;
 import static org.testng.Assert.assertEquals;
 
-import java.sql.Date;
 import java.util.Map;
 
 import org.jclouds.ultradns.ws.domain.ResourceRecord;
-import org.jclouds.ultradns.ws.domain.ResourceRecordMetadata;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -19,23 +17,6 @@ import denominator.model.rdata.CNAMEData;
 @Test
 public class UltraDNSFunctionsTest {
 
-    ResourceRecord a = ResourceRecord.rrBuilder().name("www.foo.com.")
-                                                 .type(1)
-                                                 .ttl(3600)
-                                                 .rdata("192.0.2.1").build();
-
-    ResourceRecordMetadata aRecord = ResourceRecordMetadata.builder()
-                                                           .guid("AAAAAAAAAAAA")
-                                                           .zoneId("0000000000000001")
-                                                           .zoneName("foo.com.")
-                                                           .created(new Date(1l))
-                                                           .modified(new Date(1l))
-                                                           .record(a).build();
-
-    public void toResourceRecord() {
-        assertEquals(UltraDNSFunctions.toResourceRecord().apply(aRecord), a);
-    }
-
     @DataProvider(name = "records")
     public Object[][] createData() {
         Object[][] data = new Object[3][2];
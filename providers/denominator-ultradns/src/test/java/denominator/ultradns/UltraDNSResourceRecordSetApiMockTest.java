@@ -9,22 +9,30 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
 import org.jclouds.ContextBuilder;
 import org.jclouds.concurrent.config.ExecutorServiceModule;
 import org.jclouds.ultradns.ws.UltraDNSWSApi;
+import org.jclouds.ultradns.ws.features.ResourceRecordApi;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.reflect.Reflection;
 import com.google.inject.Module;
 import com.google.mockwebserver.MockResponse;
 import com.google.mockwebserver.MockWebServer;
 import com.google.mockwebserver.RecordedRequest;
 
+import denominator.model.rdata.AData;
+
 @Test(singleThreaded = true)
 public class UltraDNSResourceRecordSetApiMockTest {
     static Set<Module> modules = ImmutableSet.<Module> of(new ExecutorServiceModule(sameThreadExecutor(),
@@ -47,7 +55,8 @@ public class UltraDNSResourceRecordSetApiMockTest {
         String uri = server.getUrl("/").toString();
         UltraDNSWSApi wsApi = mockUltraDNSWSApi(uri);
         return new UltraDNSResourceRecordSetApi(wsApi.getResourceRecordApiForZone(ZONE_NAME),
-                new UltraDNSRoundRobinPoolApi(wsApi.getRoundRobinPoolApiForZone(ZONE_NAME)));
+                new UltraDNSRoundRobinPoolApi(wsApi.getRoundRobinPoolApiForZone(ZONE_NAME)),
+                new ResourceRecordIndex(wsApi.getResourceRecordApiForZone(ZONE_NAME), ZONE_NAME));
     }
 
     private String getResourceRecordsOfZone = "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:v01=\"http://webservice.api.ultra.neustar.com/v01/\"><soapenv:Header><wsse:Security soapenv:mustUnderstand=\"1\" xmlns:wsse=\"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd\"><wsse:UsernameToken><wsse:Username>joe</wsse:Username><wsse:Password Type=\"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-username-token-profile-1.0#PasswordText\">letmein</wsse:Password></wsse:UsernameToken></wsse:Security></soapenv:Header><soapenv:Body><v01:getResourceRecordsOfZone><zoneName>foo.com.</zoneName><rrType>0</rrType></v01:getResourceRecordsOfZone></soapenv:Body></soapenv:Envelope>";
@@ -139,6 +148,80 @@ public class UltraDNSResourceRecordSetApiMockTest {
         }
     }
 
+    @Test
+    public void pointReadsShareOneZoneListing() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(records1And2));
+        server.play();
+
+        try {
+            UltraDNSResourceRecordSetApi api = mockUltraDNSResourceRecordSetApi(server);
+            assertEquals(api.getByNameAndType("www.foo.com.", "A").get(),
+                    a("www.foo.com.", 3600, ImmutableList.of("192.0.2.1", "198.51.100.1")));
+            assertEquals(api.listByName("www.foo.com.").next(),
+                    a("www.foo.com.", 3600, ImmutableList.of("192.0.2.1", "198.51.100.1")));
+            assertEquals(api.getByNameAndType("www.foo.com.", "AAAA"), Optional.absent());
+        } finally {
+            assertEquals(server.getRequestCount(), 1);
+            RecordedRequest getResourceRecordsOfZone = server.takeRequest();
+            assertEquals(getResourceRecordsOfZone.getRequestLine(), "POST / HTTP/1.1");
+            assertEquals(new String(getResourceRecordsOfZone.getBody()), this.getResourceRecordsOfZone);
+
+            server.shutdown();
+        }
+    }
+
+    private String getResourceRecordsOfDNameByTypeResponseHeader = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><ns1:getResourceRecordsOfDNameByTypeResponse xmlns:ns1=\"http://webservice.api.ultra.neustar.com/v01/\"><ResourceRecordList xmlns:ns2=\"http://schema.ultraservice.neustar.com/v01/\">";
+    private String getResourceRecordsOfDNameByTypeResponseFooter = "</ResourceRecordList></ns1:getResourceRecordsOfDNameByTypeResponse></soap:Body></soap:Envelope>";
+    private String updateResourceRecordResponse = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><ns1:updateResourceRecordResponse xmlns:ns1=\"http://webservice.api.ultra.neustar.com/v01/\"><result xmlns:ns2=\"http://schema.ultraservice.neustar.com/v01/\">Successful</result></ns1:updateResourceRecordResponse></soap:Body></soap:Envelope>";
+
+    private String record1ByNameAndType(int ttl) {
+        return new StringBuilder(getResourceRecordsOfDNameByTypeResponseHeader)
+                .append(format(aRecordTTLGuidAddressTemplate, ttl, "AAAAAAAAAAAA", "192.0.2.1"))
+                .append(getResourceRecordsOfDNameByTypeResponseFooter).toString();
+    }
+
+    /**
+     * a read that lands while a write is in flight sees the records as they
+     * were. The index must not keep them once the write completes.
+     */
+    @Test
+    public void readDuringWriteDoesntLeaveIndexStale() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(record1));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(record1ByNameAndType(3600)));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(updateResourceRecordResponse));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(record1ByNameAndType(1800)));
+        server.play();
+
+        try {
+            UltraDNSWSApi wsApi = mockUltraDNSWSApi(server.getUrl("/").toString());
+            final ResourceRecordApi recordApi = wsApi.getResourceRecordApiForZone(ZONE_NAME);
+            final ResourceRecordIndex index = new ResourceRecordIndex(recordApi, ZONE_NAME);
+            // reads the record set just before each update is sent
+            ResourceRecordApi readBeforeUpdate = Reflection.newProxy(ResourceRecordApi.class,
+                    new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                            if ("update".equals(method.getName()))
+                                index.get("www.foo.com.", 1);
+                            try {
+                                return method.invoke(recordApi, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    });
+            UltraDNSResourceRecordSetApi api = new UltraDNSResourceRecordSetApi(readBeforeUpdate,
+                    new UltraDNSRoundRobinPoolApi(wsApi.getRoundRobinPoolApiForZone(ZONE_NAME)), index);
+
+            api.applyTTLToNameAndType(1800, "www.foo.com.", "A");
+            assertEquals(api.getByNameAndType("www.foo.com.", "A").get(), a("www.foo.com.", 1800, "192.0.2.1"));
+        } finally {
+            assertEquals(server.getRequestCount(), 4);
+            server.shutdown();
+        }
+    }
+
     private String getLoadBalancingPoolsByZone = "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\" xmlns:v01=\"http://webservice.api.ultra.neustar.com/v01/\"><soapenv:Header><wsse:Security soapenv:mustUnderstand=\"1\" xmlns:wsse=\"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-wssecurity-secext-1.0.xsd\"><wsse:UsernameToken><wsse:Username>joe</wsse:Username><wsse:Password Type=\"http://docs.oasis-open.org/wss/2004/01/oasis-200401-wss-username-token-profile-1.0#PasswordText\">letmein</wsse:Password></wsse:UsernameToken></wsse:Security></soapenv:Header><soapenv:Body><v01:getLoadBalancingPoolsByZone><zoneName>foo.com.</zoneName><lbPoolType>RR</lbPoolType></v01:getLoadBalancingPoolsByZone></soapenv:Body></soapenv:Envelope>";
 
     private String getLoadBalancingPoolsByZoneResponseHeader = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><ns1:getLoadBalancingPoolsByZoneResponse xmlns:ns1=\"http://webservice.api.ultra.neustar.com/v01/\"><LBPoolList xmlns:ns2=\"http://schema.ultraservice.neustar.com/v01/\">";
@@ -287,6 +370,48 @@ public class UltraDNSResourceRecordSetApiMockTest {
         }
     }
 
+    @Test
+    public void poolsAreListedOnceAcrossAddsAndRemoves() throws IOException, InterruptedException {
+        MockWebServer server = new MockWebServer();
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(poolsForAandAAAA));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(
+                format(addRecordToRRPoolResponseTemplate, "AAAAAAAAAAAA")));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(
+                format(addRecordToRRPoolResponseTemplate, "BBBBBBBBBBBB")));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(deleteRecordOfRRPoolResponse));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(pooledRecord1));
+        server.play();
+
+        try {
+            UltraDNSRoundRobinPoolApi api = new UltraDNSRoundRobinPoolApi(mockUltraDNSWSApi(
+                    server.getUrl("/").toString()).getRoundRobinPoolApiForZone(ZONE_NAME));
+            api.add("www.foo.com.", "A", 3600, ImmutableList.<Map<String, Object>> of(AData.create("192.0.2.1")));
+            api.add("www.foo.com.", "A", 3600, ImmutableList.<Map<String, Object>> of(AData.create("198.51.100.1")));
+            api.remove("www.foo.com.", "BBBBBBBBBBBB");
+        } finally {
+            assertEquals(server.getRequestCount(), 5);
+
+            RecordedRequest getLoadBalancingPoolsByZone = server.takeRequest();
+            assertEquals(new String(getLoadBalancingPoolsByZone.getBody()), this.getLoadBalancingPoolsByZone);
+
+            RecordedRequest addRecord1 = server.takeRequest();
+            assertEquals(new String(addRecord1.getBody()),
+                    format(addRecordToRRPoolTemplate, "POOLA", "192.0.2.1", "1", 3600));
+
+            RecordedRequest addRecord2 = server.takeRequest();
+            assertEquals(new String(addRecord2.getBody()),
+                    format(addRecordToRRPoolTemplate, "POOLA", "198.51.100.1", "1", 3600));
+
+            RecordedRequest deleteRecord2 = server.takeRequest();
+            assertEquals(new String(deleteRecord2.getBody()), format(deleteRecordOfRRPoolTemplate, "BBBBBBBBBBBB"));
+
+            RecordedRequest checkIfPoolAIsNowEmpty = server.takeRequest();
+            assertEquals(new String(checkIfPoolAIsNowEmpty.getBody()), format(getRRPoolRecordsTemplate, "POOLA"));
+
+            server.shutdown();
+        }
+    }
+
     @Test
     public void addSecondAAddsRecordToExistingPool() throws IOException, InterruptedException {
         MockWebServer server = new MockWebServer();
@@ -0,0 +1,67 @@
+package denominator.ultradns;
+
+import static denominator.CredentialsConfiguration.credentials;
+import static denominator.model.ResourceRecordSets.cname;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterators;
+
+import denominator.DNSApiManager;
+import denominator.Denominator;
+import denominator.ResourceRecordSetApi;
+import denominator.standins.UltraDNSStandIn;
+
+/**
+ * runs the provider end-to-end against {@link UltraDNSStandIn}, and checks
+ * how many requests each operation costs. Uses CNAME, which UltraDNS writes as
+ * plain records rather than through round robin pools.
+ */
+@Test(singleThreaded = true)
+public class UltraDNSStandInProviderTest {
+    UltraDNSStandIn ultradns;
+    DNSApiManager mgr;
+
+    @BeforeMethod
+    public void start() throws IOException {
+        ultradns = new UltraDNSStandIn();
+        ultradns.addZone("denominator.io.");
+        ultradns.start();
+        mgr = Denominator.create(new UltraDNSProvider(ultradns.getUrl()), credentials("username", "password"));
+    }
+
+    @AfterMethod
+    public void stop() throws IOException {
+        mgr.close();
+        ultradns.close();
+    }
+
+    @Test
+    public void listAddReplaceDelete() {
+        ResourceRecordSetApi api = mgr.getApi().getResourceRecordSetApiForZone("denominator.io.");
+
+        assertEquals(Iterators.size(api.list()), 2);
+
+        api.add(cname("www.denominator.io.", 300, "www1.denominator.io."));
+        api.replace(cname("www.denominator.io.", 300, "www2.denominator.io."));
+        assertEquals(api.getByNameAndType("www.denominator.io.", "CNAME").get(),
+                cname("www.denominator.io.", 300, "www2.denominator.io."));
+
+        api.deleteByNameAndType("www.denominator.io.", "CNAME");
+        assertFalse(api.getByNameAndType("www.denominator.io.", "CNAME").isPresent());
+        assertEquals(Iterators.size(api.list()), 2);
+
+        Map<String, Long> counts = ultradns.getRequestCounts();
+        assertEquals(counts.get("getResourceRecordsOfZone"), Long.valueOf(2));
+        // replace deletes the old record and creates the new one
+        assertEquals(counts.get("createResourceRecord"), Long.valueOf(2));
+        assertEquals(counts.get("deleteResourceRecord"), Long.valueOf(2));
+    }
+}